@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.apache.pekko.Done;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the lookup of the child Customer Actors in the {@link CustomerRegistry}, as done
+ * by the Transactions Actor for every transaction.
+ * <p>
+ * The lookups have to be done inside an actor: every invocation asks a parent actor to look up
+ * {@link #LOOKUPS} children, over the given number of customers, so that the cost of the ask
+ * itself is negligible. The children are created in the set-up, i.e. only the lookup of existing
+ * children is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChildLookupBenchmark {
+
+  private static final int LOOKUPS = 10_000;
+
+  private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+  @Param({"1", "3", "1000"})
+  public int numberOfCustomers;
+
+  private ActorTestKit testKit;
+
+  private ActorRef<TransactionsActor.Event> parent;
+
+  @Setup(Level.Trial)
+  public void setUp() throws ExecutionException, InterruptedException {
+
+    testKit = ActorTestKit.create(InMemoryPersistence.config());
+    parent = testKit.spawn(parent(numberOfCustomers));
+
+    // creating the children
+    lookUp();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+
+    testKit.shutdownTestKit();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public Done lookUp() throws ExecutionException, InterruptedException {
+
+    return AskPattern.<TransactionsActor.Event, Done>ask(parent,
+            replyTo -> new Lookups(LOOKUPS, replyTo), TIMEOUT, testKit.scheduler())
+        .toCompletableFuture()
+        .get();
+  }
+
+  /**
+   * Parent of the Customer Actors, which looks them up on request.
+   */
+  private static Behavior<TransactionsActor.Event> parent(int numberOfCustomers) {
+
+    int[] customers = IntStream.range(0, numberOfCustomers)
+        .map(i -> CustomerDirectory.getInstance().intern(0, i + 1))
+        .toArray();
+
+    return Behaviors.setup(context -> {
+
+      CustomerRegistry registry = new CustomerRegistry(context, numberOfCustomers);
+
+      return Behaviors.receiveMessage(event -> {
+
+        Lookups lookups = (Lookups) event;
+        int found = 0;
+
+        for (int i = 0; i < lookups.count(); i++) {
+
+          if (registry.childFor(customers[i % numberOfCustomers]) != null) {
+
+            found++;
+          }
+        }
+
+        if (found != lookups.count()) {
+
+          throw new IllegalStateException("Only " + found + " children found");
+        }
+
+        lookups.replyTo().tell(Done.getInstance());
+
+        return Behaviors.same();
+      });
+    });
+  }
+
+  /**
+   * Request to look up the given number of children.
+   *
+   * @param count   Number of lookups
+   * @param replyTo Reference to the Actor that is notified when all lookups are done
+   */
+  private record Lookups(int count, ActorRef<Done> replyTo) implements TransactionsActor.Event {
+
+    // nothing to add here: simple message for Actors
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import com.typesafe.config.ConfigFactory;
+import edu.pekko.sample.app.actor.TransactionsActor.AllTransactionsProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsToProcess;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.metrics.MeteredMailbox;
+import edu.pekko.sample.app.metrics.Metrics;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the dispatch of the transactions to the Customer Actors,
+ * "pekko-sample.customer.dispatch": one message per transaction against one message per customer.
+ * <p>
+ * The score is the time of the round trip of a batch, as in {@link TransactionsRoundTripBenchmark}.
+ * In addition, the number of messages received by the Transactions Actor and the Customer Actors
+ * per batch is counted with the {@link MeteredMailbox} and printed at the end of every trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerDispatchBenchmark {
+
+  private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+  private static final String TRANSACTIONS_ACTOR = "transactions";
+
+  private static final int NUMBER_OF_CUSTOMERS = 3;
+
+  @Param({"per-transaction", "per-customer"})
+  public String dispatch;
+
+  @Param({"10", "1000"})
+  public int batchSize;
+
+  private ActorTestKit testKit;
+
+  private ActorRef<Event> transactionsActor;
+
+  private FreshTransactions transactions;
+
+  private long requestId;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+
+    testKit = ActorTestKit.create(ConfigFactory.parseString(
+            "pekko-sample.customer.dispatch = \"" + dispatch + "\"\n"
+                + "pekko.actor.typed.default-mailbox.mailbox-type = \""
+                + MeteredMailbox.class.getName() + "\"")
+        .withFallback(InMemoryPersistence.config()));
+    transactionsActor = testKit.spawn(TransactionsActor.create(), TRANSACTIONS_ACTOR);
+
+    transactions = new FreshTransactions(NUMBER_OF_CUSTOMERS);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+
+    System.out.printf("%n%.1f messages per batch of %d transactions (%s)%n",
+        (double) countMessages() / requestId, batchSize, dispatch);
+
+    testKit.shutdownTestKit();
+  }
+
+  @Benchmark
+  public Event roundTrip() throws ExecutionException, InterruptedException {
+
+    long id = requestId++;
+    TransactionBatch next = transactions.next(batchSize);
+
+    Event reply = AskPattern.<Event, Event>ask(transactionsActor,
+            replyTo -> new TransactionsToProcess(id, next, replyTo), TIMEOUT,
+            testKit.scheduler())
+        .toCompletableFuture()
+        .get();
+
+    if (!(reply instanceof AllTransactionsProcessed)) {
+
+      throw new IllegalStateException("Unexpected reply for request " + id + ": " + reply);
+    }
+
+    return reply;
+  }
+
+  /**
+   * @return Number of messages received by the Transactions Actor and its children so far
+   */
+  private long countMessages() {
+
+    return Metrics.getInstance().getCounters().entrySet().stream()
+        .filter(counter -> counter.getKey().startsWith("pekko_sample_mailbox_messages_total")
+            && counter.getKey().contains("/" + TRANSACTIONS_ACTOR))
+        .mapToLong(counter -> counter.getValue())
+        .sum();
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import com.typesafe.config.ConfigFactory;
+import edu.pekko.sample.app.actor.TransactionsActor.AllTransactionsProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsToProcess;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the executors of the dispatchers "pekko-sample.dispatcher.transactions" and
+ * "pekko-sample.dispatcher.customers": the same workload runs on each one of them, with the other
+ * settings of the dispatchers as configured in application.conf.
+ * <p>
+ * Every invocation sends {@link #BATCHES_IN_FLIGHT} batches at once to the Transactions Actor, so
+ * that the Customer Actors of different batches run concurrently, and waits for all of them. The
+ * score is the number of batches processed per second, with the events in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutorBenchmark {
+
+  private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+  private static final int BATCHES_IN_FLIGHT = 4;
+
+  private static final int BATCH_SIZE = 1000;
+
+  private static final int NUMBER_OF_CUSTOMERS = 100;
+
+  @Param({"fork-join-executor", "thread-pool-executor", "affinity-pool-executor",
+      "virtual-thread-executor"})
+  public String executor;
+
+  @Param({"per-transaction", "per-customer"})
+  public String dispatch;
+
+  private ActorTestKit testKit;
+
+  private ActorRef<Event> transactionsActor;
+
+  private FreshTransactions transactions;
+
+  private long requestId;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+
+    testKit = ActorTestKit.create(ConfigFactory.parseString(
+            "pekko-sample.dispatcher.transactions.executor = \"" + executor + "\"\n"
+                + "pekko-sample.dispatcher.customers.executor = \"" + executor + "\"\n"
+                + "pekko-sample.customer.dispatch = \"" + dispatch + "\"")
+        .withFallback(InMemoryPersistence.config()));
+    transactionsActor = testKit.spawn(TransactionsActor.create(), TransactionsActor.PROPS);
+
+    transactions = new FreshTransactions(NUMBER_OF_CUSTOMERS);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+
+    testKit.shutdownTestKit();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCHES_IN_FLIGHT)
+  public void roundTrips() throws ExecutionException, InterruptedException {
+
+    CompletableFuture<?>[] replies = new CompletableFuture<?>[BATCHES_IN_FLIGHT];
+
+    for (int batch = 0; batch < BATCHES_IN_FLIGHT; batch++) {
+
+      long id = requestId++;
+      TransactionBatch next = transactions.next(BATCH_SIZE);
+
+      replies[batch] = AskPattern.<Event, Event>ask(transactionsActor,
+              replyTo -> new TransactionsToProcess(id, next, replyTo), TIMEOUT,
+              testKit.scheduler())
+          .toCompletableFuture()
+          .thenAccept(reply -> {
+
+            if (!(reply instanceof AllTransactionsProcessed)) {
+
+              throw new IllegalStateException("Unexpected reply for request " + id + ": "
+                  + reply);
+            }
+          });
+    }
+
+    CompletableFuture.allOf(replies).get();
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionType;
+
+/**
+ * Source of the batches of transactions of the benchmarks: every batch has new transaction ids,
+ * spread evenly over the given number of customers, since the Customer Actors only acknowledge
+ * the transactions they have already applied (see {@link CustomerActor}), and the benchmarks must
+ * measure their processing.
+ * <p>
+ * It must only be used by one thread at a time.
+ */
+final class FreshTransactions {
+
+  private final int[] customers;
+
+  private int nextId;
+
+  /**
+   * @param numberOfCustomers Number of customers of the transactions
+   */
+  FreshTransactions(int numberOfCustomers) {
+
+    this.customers = new int[numberOfCustomers];
+
+    for (int i = 0; i < numberOfCustomers; i++) {
+
+      customers[i] = CustomerDirectory.getInstance().intern(0, i + 1);
+    }
+  }
+
+  /**
+   * @param size Number of transactions
+   * @return Batch of receipts with ids never returned before
+   */
+  TransactionBatch next(int size) {
+
+    TransactionBatch.Builder batch = new TransactionBatch.Builder(size);
+
+    for (int i = 0; i < size; i++) {
+
+      int id = nextId++;
+
+      batch.add(id, customers[id % customers.length], 100, TransactionType.RECEIPT);
+    }
+
+    return batch.build();
+  }
+}
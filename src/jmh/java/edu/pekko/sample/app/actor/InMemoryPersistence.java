@@ -22,45 +22,33 @@
  * SOFTWARE.
  */
 
-package edu.pekko.sample.app.utils;
 
-/**
- * Singleton around normal System.out to print messages in a special way.
- */
-public enum CustomSystemOut {
-
-  INSTANCE;
-
-  // Reset
-  private static final String RESET = "\033[0m";  // Text Reset
-
-  // Regular Colors
-  private static final String YELLOW = "\033[0;33m";  // YELLOW
-  private static final String RED = "\033[0;31m";     // RED
-  private static final String BLUE_BACKGROUND = "\033[0;44m";
-
-  public void yellow(String message) {
-
-    System.out.println(YELLOW + message + RESET);
-  }
-
-  public void red(String message) {
-
-    System.out.println(RED + message + RESET);
-  }
+package edu.pekko.sample.app.actor;
 
-  public void blueBackground(String message) {
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.apache.pekko.persistence.testkit.PersistenceTestKitSnapshotPlugin;
 
-    System.out.println(BLUE_BACKGROUND + message + RESET);
-  }
+/**
+ * Configuration of the Actor Systems of the benchmarks: events are kept in memory, so that the
+ * benchmarks measure the messaging between the actors and not the disk.
+ */
+final class InMemoryPersistence {
 
-  public void printAsIs(String message) {
+  private InMemoryPersistence() {
 
-    System.out.println(message + RESET);
+    // nothing to add here: only static operations
   }
 
-  public void blankLine() {
+  /**
+   * @return Configuration of the application with journal and snapshot store in memory
+   */
+  static Config config() {
 
-    System.out.println();
+    return ConfigFactory.parseString("""
+            pekko.persistence.journal.plugin = "pekko.persistence.journal.inmem"
+            """)
+        .withFallback(PersistenceTestKitSnapshotPlugin.config())
+        .withFallback(ConfigFactory.load());
   }
-}
\ No newline at end of file
+}
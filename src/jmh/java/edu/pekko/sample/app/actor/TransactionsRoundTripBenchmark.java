@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import edu.pekko.sample.app.actor.TransactionsActor.AllTransactionsProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsToProcess;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the round trip of a batch of transactions: from {@link TransactionsToProcess}
+ * sent to the Transactions Actor to {@link AllTransactionsProcessed} received back, i.e. including
+ * the dispatch to the Customer Actors and the persistence of every transaction (in memory).
+ * <p>
+ * The transactions of a batch are spread evenly over the given number of customers. The score is
+ * the time per batch: the time per transaction is the score divided by the batch size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionsRoundTripBenchmark {
+
+  private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+  @Param({"1", "10", "100", "1000"})
+  public int batchSize;
+
+  @Param({"1", "3"})
+  public int numberOfCustomers;
+
+  private ActorTestKit testKit;
+
+  private ActorRef<Event> transactionsActor;
+
+  private FreshTransactions transactions;
+
+  private long requestId;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+
+    testKit = ActorTestKit.create(InMemoryPersistence.config());
+    transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    transactions = new FreshTransactions(numberOfCustomers);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+
+    testKit.shutdownTestKit();
+  }
+
+  @Benchmark
+  public Event roundTrip() throws ExecutionException, InterruptedException {
+
+    long id = requestId++;
+    TransactionBatch next = transactions.next(batchSize);
+
+    Event reply = AskPattern.<Event, Event>ask(transactionsActor,
+            replyTo -> new TransactionsToProcess(id, next, replyTo), TIMEOUT,
+            testKit.scheduler())
+        .toCompletableFuture()
+        .get();
+
+    if (!(reply instanceof AllTransactionsProcessed)) {
+
+      throw new IllegalStateException("Unexpected reply for request " + id + ": " + reply);
+    }
+
+    return reply;
+  }
+}
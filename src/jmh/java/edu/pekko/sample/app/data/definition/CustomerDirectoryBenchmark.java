@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.definition;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the {@link CustomerDirectory}: interning of customers that are already known,
+ * in random order, as done for every transaction read from the transaction log.
+ * <p>
+ * The memory taken per customer is measured in the set-up, as the growth of the used heap after all
+ * customers are interned, and printed next to the size of the arrays of the directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CustomerDirectoryBenchmark {
+
+  @Param({"1000", "10000000"})
+  public int numberOfCustomers;
+
+  private CustomerDirectory directory;
+
+  // the UUIDs of the customers, as pairs of most and least significant bits
+  private long[] uuids;
+
+  // random order in which the customers are looked up
+  private int[] order;
+
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() throws InterruptedException {
+
+    SplittableRandom random = new SplittableRandom(42);
+
+    uuids = random.longs(2L * numberOfCustomers).toArray();
+    order = random.ints(1 << 20, 0, numberOfCustomers).toArray();
+
+    long usedBefore = usedHeap();
+
+    directory = CustomerDirectory.getInstance();
+
+    for (int customer = 0; customer < numberOfCustomers; customer++) {
+
+      directory.intern(uuids[2 * customer], uuids[2 * customer + 1]);
+    }
+
+    long usedAfter = usedHeap();
+
+    System.out.printf("%n%d customers: %.1f bytes per customer in the heap, %.1f in the arrays%n",
+        numberOfCustomers, (double) (usedAfter - usedBefore) / numberOfCustomers,
+        (double) directory.memoryInBytes() / numberOfCustomers);
+  }
+
+  @Benchmark
+  public int internKnownCustomer() {
+
+    int customer = order[next++ & (order.length - 1)];
+
+    return directory.intern(uuids[2 * customer], uuids[2 * customer + 1]);
+  }
+
+  private static long usedHeap() throws InterruptedException {
+
+    for (int i = 0; i < 3; i++) {
+
+      System.gc();
+      Thread.sleep(100);
+    }
+
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.provider;
+
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of reading batches of transactions from the {@link TransactionReader}
+ * implementations: the sample data in memory ({@link TransactionProvider}) and the memory-mapped
+ * transaction log ({@link MappedTransactionLogReader}).
+ * <p>
+ * Every reader is measured both as a list of {@link Transaction} and as a columnar
+ * {@link TransactionBatch}. The score is the time per batch, and the GC profiler gives the
+ * allocations per batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionReaderBenchmark {
+
+  private static final int NUMBER_OF_LOGGED_TRANSACTIONS = 1_000_000;
+
+  // customers of the logged transactions, interned while they are read
+  private static final int NUMBER_OF_LOGGED_CUSTOMERS = 100_000;
+
+  @Param({"1", "5", "100", "1000"})
+  public int batchSize;
+
+  private TransactionProvider provider;
+
+  private Path transactionLog;
+
+  private MappedTransactionLogReader logReader;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+
+    provider = new TransactionProvider();
+
+    transactionLog = Files.createTempFile("transactions", ".log");
+
+    TransactionType[] types = TransactionType.values();
+    SplittableRandom random = new SplittableRandom(42);
+
+    // the UUIDs of the customers, as pairs of most and least significant bits
+    long[] customers = random.longs(2 * NUMBER_OF_LOGGED_CUSTOMERS).toArray();
+
+    try (TransactionLogWriter writer = new TransactionLogWriter(transactionLog)) {
+
+      for (int id = 1; id <= NUMBER_OF_LOGGED_TRANSACTIONS; id++) {
+
+        int customer = 2 * random.nextInt(NUMBER_OF_LOGGED_CUSTOMERS);
+
+        writer.write(id, customers[customer], customers[customer + 1],
+            1 + random.nextLong(1_000_000), types[random.nextInt(types.length)], id);
+      }
+    }
+
+    logReader = new MappedTransactionLogReader(transactionLog);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+
+    logReader.close();
+    Files.deleteIfExists(transactionLog);
+  }
+
+  /**
+   * Reads a batch from the sample data in memory, starting again once everything was read (the
+   * sample data only has a handful of transactions).
+   */
+  @Benchmark
+  public List<Transaction> readFromProvider() {
+
+    List<Transaction> transactions = provider.readTransactions(batchSize);
+
+    if (transactions.isEmpty()) {
+
+      provider.rewind();
+      transactions = provider.readTransactions(batchSize);
+    }
+
+    return transactions;
+  }
+
+  /**
+   * Reads a batch from the transaction log, reopening it once everything was read.
+   */
+  @Benchmark
+  public List<Transaction> readFromTransactionLog() throws IOException {
+
+    List<Transaction> transactions = logReader.readTransactions(batchSize);
+
+    if (transactions.isEmpty()) {
+
+      logReader.close();
+      logReader = new MappedTransactionLogReader(transactionLog);
+      transactions = logReader.readTransactions(batchSize);
+    }
+
+    return transactions;
+  }
+
+  /**
+   * Reads a columnar batch from the sample data in memory, starting again once everything was read.
+   */
+  @Benchmark
+  public TransactionBatch readBatchFromProvider() {
+
+    TransactionBatch transactions = provider.readBatch(batchSize);
+
+    if (transactions.isEmpty()) {
+
+      provider.rewind();
+      transactions = provider.readBatch(batchSize);
+    }
+
+    return transactions;
+  }
+
+  /**
+   * Reads a columnar batch from the transaction log, reopening it once everything was read.
+   */
+  @Benchmark
+  public TransactionBatch readBatchFromTransactionLog() throws IOException {
+
+    TransactionBatch transactions = logReader.readBatch(batchSize);
+
+    if (transactions.isEmpty()) {
+
+      logReader.close();
+      logReader = new MappedTransactionLogReader(transactionLog);
+      transactions = logReader.readBatch(batchSize);
+    }
+
+    return transactions;
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.results;
+
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionOutcomes;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the group commit of the {@link ResultsLog}: how the cost of the fsync is shared
+ * by the results written with it.
+ * <p>
+ * Every operation appends a batch of results and waits until they are durable, with no flush
+ * interval: a single caller gets one write and one fsync per batch, so the number of results per
+ * second ("records") grows with the batch size while the batches per second stay about the same,
+ * bound by the fsync. Concurrent callers share the flushes: the batches appended while the
+ * previous flush waits for the storage device are written together with the next one. The runs
+ * without fsync give the cost of the write alone.
+ * <p>
+ * The segments are written to a temporary folder, deleted after every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultsLogBenchmark {
+
+  private static final int NUMBER_OF_CUSTOMERS = 1000;
+
+  @Param({"1", "10", "100", "1000", "10000"})
+  public int batchSize;
+
+  @Param({"true", "false"})
+  public boolean fsync;
+
+  private TransactionBatch batch;
+
+  private TransactionOutcomes outcomes;
+
+  private Path folder;
+
+  private ResultsLog results;
+
+  @Setup(Level.Trial)
+  public void createBatch() {
+
+    CustomerDirectory directory = CustomerDirectory.getInstance();
+    TransactionType[] types = TransactionType.values();
+    SplittableRandom random = new SplittableRandom(42);
+
+    int[] customers = IntStream.range(0, NUMBER_OF_CUSTOMERS)
+        .map(ignored -> directory.intern(random.nextLong(), random.nextLong()))
+        .toArray();
+
+    batch = TransactionBatch.of(IntStream.range(0, batchSize)
+        .mapToObj(id -> new Transaction(id, customers[random.nextInt(NUMBER_OF_CUSTOMERS)],
+            1 + random.nextLong(1_000_000), types[random.nextInt(types.length)], id))
+        .toList());
+    outcomes = TransactionOutcomes.allApplied(batchSize);
+  }
+
+  @Setup(Level.Iteration)
+  public void openLog() throws IOException {
+
+    folder = Files.createTempDirectory("results");
+
+    // no flush interval and no threshold: whatever is buffered is written as soon as possible
+    results = ResultsLog.open(new ResultsSettings(folder, 64L << 20, Duration.ZERO,
+        Integer.MAX_VALUE, fsync));
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteLog() throws IOException {
+
+    results.close();
+
+    try (Stream<Path> files = Files.walk(folder)) {
+
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+
+        Files.delete(file);
+      }
+    }
+  }
+
+  /**
+   * Appends a batch and waits until it is durable, as the Transactions Actor does for every batch
+   * before its caller is notified.
+   */
+  @Benchmark
+  public void appendBatch(Records records) {
+
+    results.append(batch, outcomes).toCompletableFuture().join();
+    records.records += batchSize;
+  }
+
+  /**
+   * Appends a batch and waits until it is durable, from several threads at the same time: the
+   * batches are written in groups.
+   */
+  @Benchmark
+  @Threads(8)
+  public void appendBatchConcurrently(Records records) {
+
+    results.append(batch, outcomes).toCompletableFuture().join();
+    records.records += batchSize;
+  }
+
+  /**
+   * Number of results written, reported per second next to the batches.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Records {
+
+    public long records;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+
+      records = 0;
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.serialization;
+
+import com.typesafe.config.ConfigFactory;
+import edu.pekko.sample.app.actor.CustomerActor;
+import edu.pekko.sample.app.actor.TransactionsActor;
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.javadsl.Adapter;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.apache.pekko.serialization.Serialization;
+import org.apache.pekko.serialization.SerializationExtension;
+import org.apache.pekko.serialization.Serializer;
+import org.apache.pekko.serialization.Serializers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the {@link ProtocolSerializer}, on the messages that leave the JVM:
+ * <ul>
+ *   <li>"transaction-event" - the event persisted for one transaction</li>
+ *   <li>"customer-command" - the transactions of one customer in a batch of 1000, as sent to a
+ *   sharded Customer Actor, with the reference to reply to</li>
+ *   <li>"mixed-event" - 1000 transactions of 100 customers in random order, as read from the
+ *   transaction log, where the customer of every transaction has to be told apart</li>
+ * </ul>
+ * The serializer is used through the {@link Serialization} of the Actor System, as Pekko does.
+ * The size of each serialized message is printed in the set-up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+  private static final int BATCH_SIZE = 1000;
+
+  private static final int NUMBER_OF_CUSTOMERS = 100;
+
+  @Param({"transaction-event", "customer-command", "mixed-event"})
+  public String message;
+
+  private ActorSystem<Void> actorSystem;
+
+  private Serialization serialization;
+
+  private Serializer selectedSerializer;
+
+  private Object selectedMessage;
+
+  private String manifest;
+
+  private byte[] bytes;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+
+    actorSystem = ActorSystem.create(Behaviors.empty(), "SerializationBenchmark",
+        ConfigFactory.load());
+    serialization = SerializationExtension.get(Adapter.toClassic(actorSystem));
+
+    selectedMessage = createMessage();
+    selectedSerializer = serialization.findSerializerFor(selectedMessage);
+    manifest = Serializers.manifestFor(selectedSerializer, selectedMessage);
+    bytes = serialize();
+
+    if (!selectedMessage.equals(deserialize())) {
+
+      throw new IllegalStateException("The message does not round-trip: " + selectedMessage);
+    }
+
+    System.out.printf("%n%s: %d bytes%n", message, bytes.length);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+
+    actorSystem.terminate();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+
+    return selectedSerializer.toBinary(selectedMessage);
+  }
+
+  @Benchmark
+  public Object deserialize() {
+
+    return serialization.deserialize(bytes, selectedSerializer.identifier(), manifest).get();
+  }
+
+  private Object createMessage() {
+
+    CustomerDirectory directory = CustomerDirectory.getInstance();
+    SplittableRandom random = new SplittableRandom(42);
+
+    int[] customers = new int[NUMBER_OF_CUSTOMERS];
+
+    for (int i = 0; i < NUMBER_OF_CUSTOMERS; i++) {
+
+      customers[i] = directory.intern(random.nextLong(), random.nextLong());
+    }
+
+    TransactionBatch.Builder builder = new TransactionBatch.Builder(BATCH_SIZE);
+
+    for (int i = 0; i < BATCH_SIZE; i++) {
+
+      builder.add(i, customers[random.nextInt(NUMBER_OF_CUSTOMERS)],
+          random.nextLong(1, 1_000_000), TransactionType.values()[random.nextInt(3)]);
+    }
+
+    TransactionBatch batch = builder.build();
+
+    return switch (message) {
+      case "transaction-event" -> new CustomerActor.TransactionApplied(
+          new Transaction(1, customers[0], 12_345, TransactionType.PAY));
+      case "customer-command" -> {
+        TransactionBatch.Builder ofOneCustomer = new TransactionBatch.Builder(BATCH_SIZE);
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+
+          ofOneCustomer.add(i, customers[0], batch.amountInCents(i), batch.transactionType(i));
+        }
+
+        yield new CustomerActor.ProcessTransactions(1, ofOneCustomer.build(),
+            Adapter.toTyped(Adapter.toClassic(actorSystem).deadLetters()));
+      }
+      case "mixed-event" -> new CustomerActor.TransactionsApplied(batch);
+      default -> throw new IllegalArgumentException("Unknown message: " + message);
+    };
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app;
+
+import com.typesafe.config.Config;
+import edu.pekko.sample.app.actor.CustomerActor;
+import edu.pekko.sample.app.metrics.MetricsServer;
+import edu.pekko.sample.app.utils.logging.AsyncLogger;
+import edu.pekko.sample.app.utils.logging.LogLevel;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+
+/**
+ * Additional node of the cluster, when the customers are distributed with Cluster Sharding: it
+ * does not read any transaction, it only hosts Customer Actors.
+ * <p>
+ * It runs until it is stopped, and it must be started with the cluster configuration and its own
+ * port, e.g.:
+ * <pre>
+ *   java -Dconfig.resource=cluster.conf -Dpekko.remote.artery.canonical.port=25521 \
+ *     -cp sample-pekko-app-all-1.0-SNAPSHOT.jar edu.pekko.sample.app.CustomerNode
+ * </pre>
+ */
+public class CustomerNode {
+
+  public static void main(String[] args) {
+
+    Config config = TransactionsProcessor.loadConfig();
+
+    ActorSystem<Void> actorSystem = ActorSystem.create(Behaviors.empty(), "PekkoSampleApp",
+        config);
+
+    MetricsServer.start(config);
+
+    CustomerActor.initSharding(actorSystem);
+
+    AsyncLogger.getInstance()
+        .log(LogLevel.INFO, "- Node {} is hosting customers -", actorSystem.address());
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app;
+
+import com.typesafe.config.Config;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Settings on how the transactions are read and sent to the Actor System, as defined in section
+ * "pekko-sample.ingestion" of the configuration.
+ *
+ * @param mode        {@link Mode} of ingestion
+ * @param batchSize   Maximum number of transactions sent in one batch
+ * @param batchWindow Maximum time to wait for a batch to be filled up ({@link Mode#STREAM} only)
+ * @param parallelism Number of batches concurrently in flight ({@link Mode#STREAM} only)
+ * @param askTimeout  How long to wait for a batch of transactions to be processed
+ * @param traceRate   Fraction of the batches that are traced through every stage, from 0 to 1
+ */
+public record IngestionSettings(Mode mode, int batchSize, Duration batchWindow, int parallelism,
+                                Duration askTimeout, double traceRate) {
+
+  /**
+   * @throws IllegalArgumentException If the fraction of traced batches is not from 0 to 1
+   */
+  public IngestionSettings {
+
+    if (traceRate < 0 || traceRate > 1) {
+
+      throw new IllegalArgumentException("Fraction of traced batches must be from 0 to 1: "
+          + traceRate);
+    }
+  }
+
+  /**
+   * Reads the settings from the given configuration.
+   *
+   * @param config Configuration of the application
+   * @return Instance of {@link IngestionSettings}
+   */
+  public static IngestionSettings fromConfig(Config config) {
+
+    Config ingestion = config.getConfig("pekko-sample.ingestion");
+
+    return new IngestionSettings(Mode.of(ingestion.getString("mode")),
+        ingestion.getInt("batch-size"),
+        ingestion.getDuration("batch-window"),
+        ingestion.getInt("parallelism"),
+        ingestion.getDuration("ask-timeout"),
+        ingestion.getDouble("trace-rate"));
+  }
+
+  /**
+   * @param mode {@link Mode} of ingestion to be used instead
+   * @return Copy of these settings with the given mode of ingestion
+   */
+  public IngestionSettings withMode(Mode mode) {
+
+    return new IngestionSettings(mode, batchSize, batchWindow, parallelism, askTimeout,
+        traceRate);
+  }
+
+  /**
+   * Supported modes of ingestion.
+   */
+  public enum Mode {
+
+    /**
+     * Blocking loop: only one batch of transactions is in flight at any time.
+     */
+    BATCH,
+
+    /**
+     * Pekko Streams pipeline with end-to-end backpressure.
+     */
+    STREAM;
+
+    /**
+     * @param name Name of the mode, case-insensitive
+     * @return Respective {@link Mode}
+     */
+    public static Mode of(String name) {
+
+      return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+  }
+}
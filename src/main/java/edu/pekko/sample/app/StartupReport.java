@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Singleton that measures the startup of the application, from the start of the JVM: until the
+ * Actor System is ready and until the first batch of transactions is processed.
+ * <p>
+ * Most of it is spent loading and linking classes (Pekko, Scala and Typesafe Config), which is
+ * what an application class data sharing (AppCDS) archive of the runnable JAR saves: the report
+ * says whether one is in use, so that runs with and without it can be compared.
+ */
+final class StartupReport {
+
+  private static final StartupReport instance = new StartupReport();
+
+  private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+  private volatile long actorSystemReadyMillis;
+
+  // only the first batch counts: in "stream" mode, several batches are acknowledged concurrently
+  private final AtomicLong firstBatchProcessedMillis = new AtomicLong();
+
+  private StartupReport() {
+
+    // nothing to add here: singleton
+  }
+
+  /**
+   * @return instance of {@link StartupReport}
+   */
+  static StartupReport getInstance() {
+
+    return instance;
+  }
+
+  /**
+   * Called once the Actor System is created.
+   */
+  void actorSystemReady() {
+
+    actorSystemReadyMillis = System.currentTimeMillis();
+  }
+
+  /**
+   * Called every time a batch of transactions is processed: only the first call is kept.
+   */
+  void batchProcessed() {
+
+    if (firstBatchProcessedMillis.get() == 0) {
+
+      firstBatchProcessedMillis.compareAndSet(0, System.currentTimeMillis());
+    }
+  }
+
+  /**
+   * @return Time from the start of the JVM until the Actor System was ready, in milliseconds, or -1
+   * if it is not ready yet
+   */
+  long actorSystemReadyAfterMillis() {
+
+    return sinceJvmStart(actorSystemReadyMillis);
+  }
+
+  /**
+   * @return Time from the start of the JVM until the first batch of transactions was processed, in
+   * milliseconds, or -1 if none was processed yet
+   */
+  long firstBatchProcessedAfterMillis() {
+
+    return sinceJvmStart(firstBatchProcessedMillis.get());
+  }
+
+  /**
+   * @return Class data sharing used by this JVM: "off", "default JDK archive", or the archive given
+   * with "-XX:SharedArchiveFile"
+   */
+  static String classDataSharing() {
+
+    // HotSpot says "sharing" as soon as any archive is mapped
+    if (!System.getProperty("java.vm.info", "").contains("sharing")) {
+
+      return "off";
+    }
+
+    HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(
+        HotSpotDiagnosticMXBean.class);
+
+    String archive = hotSpot == null ? "" : hotSpot.getVMOption("SharedArchiveFile").getValue();
+
+    return archive.isEmpty() ? "default JDK archive" : archive;
+  }
+
+  private long sinceJvmStart(long millis) {
+
+    return millis == 0 ? -1 : millis - jvmStartMillis;
+  }
+}
@@ -28,18 +28,37 @@ import static scala.concurrent.duration.Duration.Inf;
 
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
+import edu.pekko.sample.app.TransactionsStream.TracedBatch;
 import edu.pekko.sample.app.actor.TransactionsActor;
 import edu.pekko.sample.app.actor.TransactionsActor.AllTransactionsProcessed;
 import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.actor.TransactionsActor.ResultsNotWritten;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsNotProcessed;
 import edu.pekko.sample.app.actor.TransactionsActor.TransactionsToProcess;
-import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.provider.MappedTransactionLogReader;
+import edu.pekko.sample.app.data.provider.TransactionPartitions;
+import edu.pekko.sample.app.data.provider.TransactionPartitions.Partitioning;
 import edu.pekko.sample.app.data.provider.TransactionProvider;
-import edu.pekko.sample.app.utils.CustomSystemOut;
-import java.time.Duration;
-import java.util.List;
+import edu.pekko.sample.app.data.provider.TransactionReader;
+import edu.pekko.sample.app.data.provider.TransactionRecords;
+import edu.pekko.sample.app.metrics.LatencyHistogram;
+import edu.pekko.sample.app.metrics.MeteredMailbox;
+import edu.pekko.sample.app.metrics.MetricsServer;
+import edu.pekko.sample.app.metrics.Trace.Stage;
+import edu.pekko.sample.app.utils.logging.AsyncLogger;
+import edu.pekko.sample.app.utils.logging.LogLevel;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.ActorSystem;
 import org.apache.pekko.actor.typed.javadsl.AskPattern;
@@ -48,78 +67,314 @@ import scala.concurrent.Await;
 /**
  * Main Application: it reads financial transactions repeatedly and sends them for processing to a
  * Bulk Actor via Actor System.
+ * <p>
+ * The way transactions are sent is defined by {@link IngestionSettings.Mode}, which is read from
+ * the configuration or given as first argument in the command line ("batch" or "stream").
  */
 public class TransactionsProcessor {
 
-  private static final int NUMBER_OF_TRANSACTIONS_TO_READ = 5;
+  private static final AsyncLogger LOGGER = AsyncLogger.getInstance();
 
   public static void main(String[] args)
-      throws InterruptedException, TimeoutException, ExecutionException {
+      throws InterruptedException, TimeoutException, ExecutionException, IOException {
 
-    // so that it can be also executed, in the command line, as full runnable JAR
-    Config config = ConfigFactory.parseString(
-        "pekko.actor.typed.default-mailbox.mailbox-type = \"org.apache.pekko.dispatch.SingleConsumerOnlyUnboundedMailbox\""
-    ).withFallback(ConfigFactory.load());
+    Config config = loadConfig();
+
+    IngestionSettings settings = IngestionSettings.fromConfig(config);
+
+    if (args.length > 0) {
+
+      settings = settings.withMode(IngestionSettings.Mode.of(args[0]));
+    }
 
     // getting the Actor System for this application
     ActorSystem<Event> actorSystem = ActorSystem.create(TransactionsActor.create(),
-        "PekkoSampleApp", config);
+        "PekkoSampleApp", config, TransactionsActor.PROPS);
+
+    StartupReport.getInstance().actorSystemReady();
+
+    MetricsServer metricsServer = MetricsServer.start(config);
+    TransactionRecords records = null;
+    boolean failed = false;
+
+    try {
+
+      records = openRecords(config);
+
+      TransactionPartitions partitions = TransactionPartitions.of(records,
+          config.getInt("pekko-sample.provider.partitions"),
+          Partitioning.of(config.getString("pekko-sample.provider.partitioning")));
+
+      long start = System.nanoTime();
+
+      int processed = switch (settings.mode()) {
+        case BATCH -> processInParallel(actorSystem, partitions, settings);
+        case STREAM -> TransactionsStream.process(actorSystem, partitions.partitions(), settings)
+            .toCompletableFuture().get();
+      };
+
+      long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+      LOGGER.blankLine(LogLevel.INFO);
+      LOGGER.log(LogLevel.INFO,
+          "- Mode {}: {} transactions processed in {} ms ({} transactions/s) -", settings.mode(),
+          processed, elapsedMillis, processed * 1000L / elapsedMillis);
+      LOGGER.log(LogLevel.INFO, "- Startup: Actor System ready after {} ms, first batch processed "
+              + "after {} ms (class data sharing: {}) -",
+          StartupReport.getInstance().actorSystemReadyAfterMillis(),
+          StartupReport.getInstance().firstBatchProcessedAfterMillis(),
+          StartupReport.classDataSharing());
+      logTraces();
+      LOGGER.log(LogLevel.INFO, "- Goodbye! -");
+    } catch (ExecutionException | RuntimeException e) {
+
+      Throwable cause = e;
+
+      // the failure of a batch read in a partition is wrapped once more by its submitter
+      while (cause instanceof ExecutionException && cause.getCause() != null) {
+
+        cause = cause.getCause();
+      }
+
+      LOGGER.log(LogLevel.ERROR, "Transactions could not be processed, I will terminate: {}",
+          cause.toString());
+      failed = true;
+    } finally {
+
+      if (records instanceof AutoCloseable closeable) {
+
+        try {
+
+          closeable.close();
+        } catch (Exception e) {
+
+          LOGGER.log(LogLevel.WARN, "Transaction data could not be closed: {}", e.getMessage());
+        }
+      }
+
+      // the summary is written before Pekko writes anything about the shutdown
+      LOGGER.flush();
+
+      // shutting things down, also when the transactions could not be processed: otherwise the
+      // threads of the Actor System keep the JVM running
+      metricsServer.close();
+      actorSystem.terminate();
+      Await.ready(actorSystem.whenTerminated(), Inf());
+    }
+
+    if (failed) {
+
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Writes the percentiles of the time spent in each {@link Stage} by the traced batches, if any.
+   */
+  private static void logTraces() {
+
+    if (Stage.TOTAL.snapshot().count() == 0) {
+
+      return;
+    }
+
+    LOGGER.log(LogLevel.INFO, "- Traced batches: {}, time per stage (p50 / p99 / p99.9) -",
+        Stage.TOTAL.snapshot().count());
+
+    for (Stage stage : Stage.values()) {
+
+      LatencyHistogram.Snapshot snapshot = stage.snapshot();
+
+      if (snapshot.count() > 0) {
+
+        LOGGER.log(LogLevel.INFO, "-   {}: {} / {} / {} ms -", stage.label(),
+            millis(snapshot.percentileNanos(50)), millis(snapshot.percentileNanos(99)),
+            millis(snapshot.percentileNanos(99.9)));
+      }
+    }
+  }
+
+  private static String millis(long nanos) {
+
+    return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+  }
+
+  /**
+   * Loads the configuration of the application.
+   *
+   * @return Configuration
+   */
+  static Config loadConfig() {
+
+    // so that it can be also executed, in the command line, as full runnable JAR
+    // the mailbox of the actors without a bounded one in "pekko-sample.mailbox" is the one of
+    // SingleConsumerOnlyUnboundedMailbox, with metrics per actor
+    return ConfigFactory.parseString(
+        "pekko.actor.typed.default-mailbox.mailbox-type = \"" + MeteredMailbox.class.getName()
+            + "\"").withFallback(ConfigFactory.load());
+  }
+
+  /**
+   * Opens the source of transaction data given in the configuration: the binary transaction log in
+   * "pekko-sample.provider.transaction-log", if any, otherwise the sample data in memory.
+   *
+   * @param config Configuration of the application
+   * @return {@link TransactionRecords}
+   * @throws IOException If the transaction log cannot be read
+   */
+  private static TransactionRecords openRecords(Config config) throws IOException {
+
+    String transactionLog = config.getString("pekko-sample.provider.transaction-log");
+
+    if (transactionLog.isBlank()) {
+
+      return TransactionProvider.getInstance();
+    }
+
+    LOGGER.log(LogLevel.INFO, "- Reading transaction log {} -", transactionLog);
+
+    return new MappedTransactionLogReader(Path.of(transactionLog));
+  }
+
+  /**
+   * Reads the transactions of every partition in batches, as {@link #processInBatches}, each
+   * partition in its own thread: there is one batch in flight per partition. As soon as one
+   * partition fails, the others are stopped.
+   *
+   * @param actorSystem Actor System whose guardian is the Transactions Actor
+   * @param partitions  {@link TransactionPartitions} to read the transactions from
+   * @param settings    {@link IngestionSettings}
+   * @return Total number of processed transactions
+   */
+  private static int processInParallel(ActorSystem<Event> actorSystem,
+      TransactionPartitions partitions, IngestionSettings settings)
+      throws InterruptedException, ExecutionException {
+
+    AtomicInteger batchNumbers = new AtomicInteger();
+
+    if (partitions.size() == 1) {
+
+      return processInBatches(actorSystem, partitions.partition(0), settings, batchNumbers);
+    }
+
+    ExecutorService submitters = Executors.newFixedThreadPool(partitions.size());
+    CompletionService<Integer> results = new ExecutorCompletionService<>(submitters);
+
+    try {
+
+      for (TransactionReader partition : partitions.partitions()) {
+
+        results.submit(() -> processInBatches(actorSystem, partition, settings, batchNumbers));
+      }
+
+      int processed = 0;
+
+      // the partitions are taken as they finish: the first one that fails stops the others
+      for (int finished = 0; finished < partitions.size(); finished++) {
+
+        processed += results.take().get();
+      }
+
+      return processed;
+    } finally {
+
+      // the other submitters are interrupted while they wait for their batch, and none of them
+      // sends another one once this returns
+      submitters.shutdownNow();
+      submitters.awaitTermination(settings.askTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Reads the transactions in batches and sends them for processing, one batch at a time: the next
+   * batch is only read after the previous one was fully processed. It stops at the first batch that
+   * is not processed.
+   *
+   * @param actorSystem  Actor System whose guardian is the Transactions Actor
+   * @param reader       {@link TransactionReader} to read the transactions from
+   * @param settings     {@link IngestionSettings}
+   * @param batchNumbers Sequence of the numbers of the batches, shared by all the partitions
+   * @return Total number of processed transactions
+   * @throws ExecutionException    If a batch was not answered in time
+   * @throws IllegalStateException If a batch was not processed, or its results not written
+   */
+  private static int processInBatches(ActorSystem<Event> actorSystem, TransactionReader reader,
+      IngestionSettings settings, AtomicInteger batchNumbers)
+      throws InterruptedException, ExecutionException {
 
     // system is also the ActorRef to the guardian actor
     // as per https://pekko.apache.org/docs/pekko/current/typed/interaction-patterns.html#fire-and-forget
     ActorRef<Event> transactionsActor = actorSystem;
 
     // reading first chunk of financial data
-    List<Transaction> transactions = TransactionProvider.getInstance()
-        .readTransactions(NUMBER_OF_TRANSACTIONS_TO_READ);
+    TracedBatch batch = TransactionsStream.readBatch(reader, settings);
+
+    int processed = 0;
 
-    int count = 0;
+    while (!batch.transactions().isEmpty()) {
 
-    while (!transactions.isEmpty()) {
+      int count = batchNumbers.incrementAndGet();
 
-      CustomSystemOut.INSTANCE.blankLine();
-      CustomSystemOut.INSTANCE.blueBackground(
-          "- Sending batch of transactions no. " + ++count + " for processing -");
+      LOGGER.blankLine(LogLevel.DEBUG);
+      LOGGER.log(LogLevel.DEBUG, "- Sending batch of transactions no. {} for processing -",
+          count);
 
       // ask pattern is used
       // according to https://pekko.apache.org/docs/pekko/current//typed/interaction-patterns.html#request-response-with-ask-from-outside-an-actor
       // in this case, a future is returned, and the main thread will wait for its completion
       // or timeout, if nothing is received...
-      List<Transaction> finalTransactions = transactions;
+      TracedBatch finalBatch = batch;
+      int batchNumber = count;
 
       CompletionStage<Event> asyncProcessing = AskPattern.ask(transactionsActor,
-          (replyTo) -> new TransactionsToProcess(finalTransactions, replyTo),
-          Duration.ofMinutes(5), actorSystem.scheduler());
+          (replyTo) -> new TransactionsToProcess(batchNumber, finalBatch.transactions(),
+              finalBatch.trace(), replyTo),
+          settings.askTimeout(), actorSystem.scheduler());
 
       // getting the future, which is a blocking call
       Event result = asyncProcessing.toCompletableFuture().get();
 
+      if (result instanceof ResultsNotWritten) {
+
+        throw new IllegalStateException("Results of batch no. " + count + " could not be written");
+      }
+
+      if (result instanceof TransactionsNotProcessed) {
+
+        throw new IllegalStateException(
+            "Transactions of batch no. " + count + " were rejected by a full mailbox");
+      }
+
       if (!(result instanceof AllTransactionsProcessed)) {
 
-        CustomSystemOut.INSTANCE.red("Something really bad has happened here! I will terminate...");
-        break;
+        throw new IllegalStateException(
+            "Unexpected reply for batch no. " + count + ": " + result);
       }
 
+      StartupReport.getInstance().batchProcessed();
+
+      if (batch.trace() != null) {
+
+        batch.trace().end();
+      }
+
+      processed += batch.transactions().size();
+
       // messages were processed
-      CustomSystemOut.INSTANCE.blueBackground(
-          "- Batch of transactions no. " + count + " processed -");
-      CustomSystemOut.INSTANCE.blueBackground("- Trying to read more now... -");
+      LOGGER.log(LogLevel.DEBUG, "- Batch of transactions no. {} processed -", count);
+      LOGGER.log(LogLevel.DEBUG, "- Trying to read more now... -");
 
       // trying to read more transactions
-      transactions = TransactionProvider.getInstance()
-          .readTransactions(NUMBER_OF_TRANSACTIONS_TO_READ);
+      batch = TransactionsStream.readBatch(reader, settings);
 
-      if (transactions.isEmpty()) {
+      if (batch.transactions().isEmpty()) {
 
         // nothing more!
-        CustomSystemOut.INSTANCE.blankLine();
-        CustomSystemOut.INSTANCE.blueBackground("- Nothing more to process -");
-        CustomSystemOut.INSTANCE.blueBackground("- Goodbye! -");
+        LOGGER.blankLine(LogLevel.INFO);
+        LOGGER.log(LogLevel.INFO, "- Nothing more to process -");
       }
     }
 
-    // shutting things down
-    actorSystem.terminate();
-    Await.ready(actorSystem.whenTerminated(), Inf());
+    return processed;
   }
 }
\ No newline at end of file
@@ -0,0 +1,224 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app;
+
+import edu.pekko.sample.app.actor.TransactionsActor.AllTransactionsProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.actor.TransactionsActor.ResultsNotWritten;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsNotProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsToProcess;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.provider.TransactionReader;
+import edu.pekko.sample.app.metrics.Trace;
+import edu.pekko.sample.app.metrics.Trace.Stage;
+import edu.pekko.sample.app.utils.logging.AsyncLogger;
+import edu.pekko.sample.app.utils.logging.LogLevel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.apache.pekko.stream.javadsl.Source;
+
+/**
+ * Streaming ingestion of transactions, built on Pekko Streams.
+ * <p>
+ * Transactions are read from a {@link TransactionReader} as {@link TransactionBatch}, merged when
+ * they are smaller than the configured batch size, and sent to the Transactions Actor with the ask
+ * pattern. Up to
+ * {@link IngestionSettings#parallelism() parallelism} batches are in flight at any time, and no
+ * more transactions are read than the Actor System is able to process (backpressure).
+ * <p>
+ * The transactions can also be read from several readers, e.g. the partitions of
+ * {@link edu.pekko.sample.app.data.provider.TransactionPartitions}: each one is read by its own
+ * source, running asynchronously, and the sources are merged before the batches are sent.
+ */
+public final class TransactionsStream {
+
+  private TransactionsStream() {
+
+    // nothing to add here: only static operations
+  }
+
+  /**
+   * Runs the stream until there is nothing more to read from the given reader.
+   *
+   * @param actorSystem Actor System whose guardian is the Transactions Actor
+   * @param reader      {@link TransactionReader} to read the transactions from
+   * @param settings    {@link IngestionSettings}
+   * @return Future with the total number of processed transactions
+   */
+  public static CompletionStage<Integer> process(ActorSystem<Event> actorSystem,
+      TransactionReader reader, IngestionSettings settings) {
+
+    return process(actorSystem, List.of(reader), settings);
+  }
+
+  /**
+   * Runs the stream until there is nothing more to read from any of the given readers, which are
+   * read in parallel.
+   *
+   * @param actorSystem Actor System whose guardian is the Transactions Actor
+   * @param readers     {@link TransactionReader} to read the transactions from
+   * @param settings    {@link IngestionSettings}
+   * @return Future with the total number of processed transactions
+   */
+  public static CompletionStage<Integer> process(ActorSystem<Event> actorSystem,
+      List<TransactionReader> readers, IngestionSettings settings) {
+
+    Source<TracedBatch, NotUsed> batches = readers.size() == 1
+        ? read(readers.get(0), settings)
+        : Source.from(readers)
+            .flatMapMerge(readers.size(), reader -> read(reader, settings).async());
+
+    return batches
+        // batches are weighted by their number of transactions: full ones are sent as they are
+        .groupedWeightedWithin(settings.batchSize(), batch -> (long) batch.transactions().size(),
+            settings.batchWindow())
+        .map(TracedBatch::concat)
+        .zipWithIndex()
+        .mapAsync(settings.parallelism(),
+            batch -> sendForProcessing(actorSystem, batch.second(), batch.first(), settings))
+        .runFold(0, Integer::sum, actorSystem);
+  }
+
+  /**
+   * @param reader   {@link TransactionReader} to read the transactions from
+   * @param settings {@link IngestionSettings}
+   * @return Source of the batches read until there is nothing more to read
+   */
+  private static Source<TracedBatch, NotUsed> read(TransactionReader reader,
+      IngestionSettings settings) {
+
+    return Source.repeat(NotUsed.getInstance())
+        .map(ignored -> readBatch(reader, settings))
+        .takeWhile(batch -> !batch.transactions().isEmpty());
+  }
+
+  /**
+   * Reads the next batch, whose {@link Trace} is started with its reading if it is sampled.
+   *
+   * @param reader   {@link TransactionReader} to read the transactions from
+   * @param settings {@link IngestionSettings}
+   * @return Next batch, empty if there is nothing more to read
+   */
+  static TracedBatch readBatch(TransactionReader reader, IngestionSettings settings) {
+
+    Trace trace = Trace.sample(settings.traceRate());
+    TransactionBatch transactions = reader.readBatch(settings.batchSize());
+
+    return new TracedBatch(transactions,
+        trace == null || transactions.isEmpty() ? null : trace.record(Stage.READ));
+  }
+
+  /**
+   * Sends one batch of transactions to the Transactions Actor.
+   *
+   * @param actorSystem  Actor System whose guardian is the Transactions Actor
+   * @param batchNumber  Sequential number of the batch, used as request identification
+   * @param batch        Transactions that must be processed, with their {@link Trace}
+   * @param settings     {@link IngestionSettings}
+   * @return Future with the number of processed transactions, failed if the batch was not
+   * processed
+   */
+  private static CompletionStage<Integer> sendForProcessing(ActorSystem<Event> actorSystem,
+      long batchNumber, TracedBatch batch, IngestionSettings settings) {
+
+    ActorRef<Event> transactionsActor = actorSystem;
+
+    return AskPattern.<Event, Event>ask(transactionsActor,
+            replyTo -> new TransactionsToProcess(batchNumber, batch.transactions(), batch.trace(),
+                replyTo),
+            settings.askTimeout(), actorSystem.scheduler())
+        .thenApply(result -> {
+
+          if (result instanceof ResultsNotWritten) {
+
+            throw new IllegalStateException(
+                "Results of batch no. " + batchNumber + " could not be written");
+          }
+
+          if (result instanceof TransactionsNotProcessed) {
+
+            throw new IllegalStateException(
+                "Transactions of batch no. " + batchNumber + " were rejected by a full mailbox");
+          }
+
+          if (!(result instanceof AllTransactionsProcessed)) {
+
+            throw new IllegalStateException(
+                "Unexpected reply for batch no. " + batchNumber + ": " + result);
+          }
+
+          StartupReport.getInstance().batchProcessed();
+
+          if (batch.trace() != null) {
+
+            batch.trace().end();
+          }
+
+          AsyncLogger.getInstance()
+              .log(LogLevel.DEBUG, "- Batch of transactions no. {} processed -", batchNumber);
+
+          return batch.transactions().size();
+        });
+  }
+
+  /**
+   * Batch of transactions read, with the {@link Trace} of its way through the application when it
+   * is sampled: the trace is kept apart from the transactions, and sent along with them.
+   *
+   * @param transactions Transactions read
+   * @param trace        {@link Trace} of the batch, or null if it is not traced
+   */
+  record TracedBatch(TransactionBatch transactions, Trace trace) {
+
+    /**
+     * @param batches Batches read
+     * @return Batch with the transactions of all given batches, in the same order, and the
+     *     {@link Trace} of the first one that is traced, if any
+     */
+    static TracedBatch concat(List<TracedBatch> batches) {
+
+      List<TransactionBatch> transactions = new ArrayList<>(batches.size());
+      Trace trace = null;
+
+      for (TracedBatch batch : batches) {
+
+        transactions.add(batch.transactions());
+
+        if (trace == null) {
+
+          trace = batch.trace();
+        }
+      }
+
+      return new TracedBatch(TransactionBatch.concat(transactions), trace);
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import edu.pekko.sample.app.actor.CustomerActor.CustomerAggregates;
+import edu.pekko.sample.app.actor.TransactionsActor.AllCustomerAggregates;
+import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.actor.TransactionsActor.QueryCustomers;
+import edu.pekko.sample.app.data.ledger.TransactionAggregates;
+import edu.pekko.sample.app.utils.logging.AsyncLogger;
+import edu.pekko.sample.app.utils.logging.LogLevel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pekko.actor.NoSerializationVerificationNeeded;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
+import org.apache.pekko.actor.typed.javadsl.ActorContext;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.apache.pekko.actor.typed.javadsl.Receive;
+
+/**
+ * Short-lived child of the Transactions Actor that gathers the aggregates of the given customers
+ * for one query, so that the Transactions Actor only sends the queries and goes on with the
+ * transactions.
+ * <p>
+ * Once started, it asks the Transactions Actor to query every customer with {@link QueryCustomers},
+ * since only the Transactions Actor can reach the Customer Actors. Each Customer Actor answers
+ * after the transactions it received before the query. The totals are added up as the answers
+ * arrive, and the caller is replied to, and this actor stopped, when all customers answered or
+ * when the timeout expires, with the number of customers that did not answer.
+ */
+final class AggregatesGatherer extends AbstractBehavior<AggregatesGatherer.Message> {
+
+  private static final AsyncLogger LOGGER = AsyncLogger.getInstance();
+
+  private final int numberOfCustomers;
+
+  private final ActorRef<AllCustomerAggregates> replyTo;
+
+  private final TransactionAggregates total = new TransactionAggregates();
+
+  private final List<CustomerAggregates> customers = new ArrayList<>();
+
+  private AggregatesGatherer(ActorContext<Message> context, int numberOfCustomers,
+      ActorRef<AllCustomerAggregates> replyTo) {
+
+    super(context);
+
+    this.numberOfCustomers = numberOfCustomers;
+    this.replyTo = replyTo;
+  }
+
+  /**
+   * @param customers Handles of the customers to gather the aggregates of
+   * @param parent    Reference to the Transactions Actor, which sends the queries
+   * @param replyTo   Reference to the Actor that receives the {@link AllCustomerAggregates}
+   * @param timeout   How long to wait for the answers of the customers
+   * @return Instance of {@link Behavior} for this actor
+   */
+  static Behavior<Message> create(int[] customers, ActorRef<Event> parent,
+      ActorRef<AllCustomerAggregates> replyTo, Duration timeout) {
+
+    return Behaviors.setup(context -> {
+
+      if (customers.length == 0) {
+
+        replyTo.tell(new AllCustomerAggregates(new TransactionAggregates(), List.of(), 0));
+
+        return Behaviors.stopped();
+      }
+
+      parent.tell(new QueryCustomers(customers,
+          context.messageAdapter(CustomerAggregates.class, Answer::new)));
+
+      return Behaviors.withTimers(timers -> {
+
+        timers.startSingleTimer(new Timeout(), timeout);
+
+        return new AggregatesGatherer(context, customers.length, replyTo);
+      });
+    });
+  }
+
+  @Override
+  public Receive<Message> createReceive() {
+
+    return newReceiveBuilder().onMessage(Answer.class, this::onAnswer)
+        .onMessage(Timeout.class, timeout -> reply()).build();
+  }
+
+  private Behavior<Message> onAnswer(Answer answer) {
+
+    total.addAll(answer.aggregates().aggregates());
+    customers.add(answer.aggregates());
+
+    return customers.size() == numberOfCustomers ? reply() : this;
+  }
+
+  private Behavior<Message> reply() {
+
+    int unanswered = numberOfCustomers - customers.size();
+
+    if (unanswered > 0) {
+
+      LOGGER.log(LogLevel.WARN, "{} of {} customers did not answer the query of aggregates",
+          unanswered, numberOfCustomers);
+    }
+
+    replyTo.tell(new AllCustomerAggregates(total, List.copyOf(customers), unanswered));
+
+    return Behaviors.stopped();
+  }
+
+  /**
+   * General definition of the type of messages this Actor will be able to handle. They never leave
+   * this Actor, and so they are never serialized.
+   */
+  interface Message extends NoSerializationVerificationNeeded {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Message} concerning the answer of a Customer Actor.
+   *
+   * @param aggregates Aggregates of the customer
+   */
+  private record Answer(CustomerAggregates aggregates) implements Message {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Message} sent when the customers took too long to answer.
+   */
+  private record Timeout() implements Message {
+
+    // nothing to add here: simple message for Actors
+  }
+}
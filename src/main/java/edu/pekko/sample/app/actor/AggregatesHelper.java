@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.actor.TransactionsActor.PartialAggregates;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.ledger.TransactionAggregates;
+import org.apache.pekko.actor.NoSerializationVerificationNeeded;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.SupervisorStrategy;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+
+/**
+ * Child of the Transactions Actor, one of a small pool, that computes the aggregates of a part of
+ * the transactions of a hot customer, so that they are not all computed by its single Customer
+ * Actor. The {@link TransactionAggregates} of the part are sent back to the Transactions Actor,
+ * which adds up those of all the parts, in any order, before it sends the transactions to the
+ * Customer Actor.
+ * <p>
+ * It keeps no state: it is restarted if it fails.
+ */
+final class AggregatesHelper {
+
+  private AggregatesHelper() {
+
+    // only the behavior of the actor
+  }
+
+  /**
+   * @return Instance of {@link Behavior} for this actor
+   */
+  static Behavior<Message> create() {
+
+    return Behaviors.supervise(Behaviors.receive(Message.class)
+            .onMessage(AggregateTransactions.class, AggregatesHelper::aggregate)
+            .build())
+        .onFailure(SupervisorStrategy.restart());
+  }
+
+  private static Behavior<Message> aggregate(AggregateTransactions aggregateTransactions) {
+
+    TransactionBatch transactions = aggregateTransactions.transactions();
+    TransactionAggregates aggregates = new TransactionAggregates();
+
+    for (int i = 0; i < transactions.size(); i++) {
+
+      aggregates.add(transactions.transactionType(i), transactions.amountInCents(i));
+    }
+
+    aggregateTransactions.replyTo().tell(new PartialAggregates(
+        aggregateTransactions.aggregationId(), aggregates));
+
+    return Behaviors.same();
+  }
+
+  /**
+   * General definition of the type of messages this Actor will be able to handle. They never leave
+   * the Actor System of this Actor, and so they are never serialized.
+   */
+  interface Message extends NoSerializationVerificationNeeded {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Message} concerning a part of the transactions of a hot customer.
+   *
+   * @param aggregationId Identification of the batch the part belongs to, returned in
+   *                      {@link PartialAggregates}
+   * @param transactions  Transactions to aggregate, all of the same customer
+   * @param replyTo       Reference to the Transactions Actor, that receives the
+   *                      {@link PartialAggregates}
+   */
+  record AggregateTransactions(long aggregationId, TransactionBatch transactions,
+                               ActorRef<Event> replyTo) implements Message {
+
+    // nothing to add here: simple message for Actors
+  }
+}
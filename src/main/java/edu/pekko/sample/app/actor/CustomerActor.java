@@ -24,62 +24,790 @@
 
 package edu.pekko.sample.app.actor;
 
+import com.typesafe.config.Config;
 import edu.pekko.sample.app.actor.TransactionsActor.Event;
 import edu.pekko.sample.app.actor.TransactionsActor.TransactionProcessed;
-import edu.pekko.sample.app.data.definition.Customer;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsProcessed;
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
 import edu.pekko.sample.app.data.definition.Transaction;
-import edu.pekko.sample.app.utils.CustomSystemOut;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionOutcome;
+import edu.pekko.sample.app.data.definition.TransactionOutcomes;
+import edu.pekko.sample.app.data.ledger.CustomerLedger;
+import edu.pekko.sample.app.data.ledger.TimeWindows;
+import edu.pekko.sample.app.data.ledger.TransactionAggregates;
+import edu.pekko.sample.app.data.ledger.TransactionIdSet;
+import edu.pekko.sample.app.data.ledger.WindowSettings;
+import edu.pekko.sample.app.data.ledger.WindowStatistics;
+import edu.pekko.sample.app.metrics.LatencyHistogram;
+import edu.pekko.sample.app.metrics.Metrics;
+import edu.pekko.sample.app.metrics.Trace;
+import edu.pekko.sample.app.metrics.Trace.CustomerStages;
+import edu.pekko.sample.app.utils.logging.AsyncLogger;
+import edu.pekko.sample.app.utils.logging.LogLevel;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
 import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.ActorSystem;
 import org.apache.pekko.actor.typed.Behavior;
-import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
-import org.apache.pekko.actor.typed.javadsl.ActorContext;
+import org.apache.pekko.actor.typed.DispatcherSelector;
+import org.apache.pekko.actor.typed.PostStop;
+import org.apache.pekko.actor.typed.Props;
 import org.apache.pekko.actor.typed.javadsl.Behaviors;
-import org.apache.pekko.actor.typed.javadsl.Receive;
+import org.apache.pekko.cluster.sharding.typed.ShardingEnvelope;
+import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
+import org.apache.pekko.cluster.sharding.typed.javadsl.Entity;
+import org.apache.pekko.cluster.sharding.typed.javadsl.EntityTypeKey;
+import org.apache.pekko.persistence.typed.PersistenceId;
+import org.apache.pekko.persistence.typed.RecoveryCompleted;
+import org.apache.pekko.persistence.typed.RecoveryFailed;
+import org.apache.pekko.persistence.typed.SnapshotAdapter;
+import org.apache.pekko.persistence.typed.javadsl.CommandHandler;
+import org.apache.pekko.persistence.typed.javadsl.Effect;
+import org.apache.pekko.persistence.typed.javadsl.EventHandler;
+import org.apache.pekko.persistence.typed.javadsl.EventSourcedBehavior;
+import org.apache.pekko.persistence.typed.javadsl.RetentionCriteria;
+import org.apache.pekko.persistence.typed.javadsl.SignalHandler;
 
 /**
- * Actor that process the {@link Transaction} associated to a {@link Customer}.
+ * Actor that process the {@link Transaction} associated to a customer of the
+ * {@link CustomerDirectory}, keeping the running balance of the customer.
+ * <p>
+ * This actor is event sourced: every processed transaction is persisted as
+ * {@link TransactionApplied}, or every batch of transactions as {@link TransactionsApplied}, in the
+ * journal before it is acknowledged, and the balance is recovered from the journal when the actor
+ * is started again. A snapshot of the balance is saved every "pekko-sample.customer.snapshot-every"
+ * events, so that only the events after the latest snapshot have to be replayed.
+ * <p>
+ * Processing is idempotent: a transaction whose id was already applied to the balance of the
+ * customer (e.g. replayed or redelivered upstream) is neither persisted nor applied again, but it
+ * is still acknowledged, so that the Transactions Actor can complete its batch. So is a transaction
+ * that would overflow the balance, or one of the sums below: it is rejected before anything is
+ * persisted, so that no event in the journal fails to apply on recovery.
+ * <p>
+ * The transactions of a hot customer come with {@link ProcessHotTransactions} instead, with their
+ * aggregates already computed by helpers of the Transactions Actor: the balance, the ids and the
+ * windows, which depend on the order of the transactions, are still kept here, and the given
+ * aggregates are added to those of the customer. Both are persisted in the same event, so that
+ * they are always recovered together.
+ * <p>
+ * Besides the balance, the count, sum, minimum and maximum of the amounts of each type of
+ * transaction are kept up to date as transactions are applied (see {@link TransactionAggregates}):
+ * {@link GetAggregates} is answered straight from them. So are they over tumbling and sliding
+ * windows of the event time of the transactions (see {@link TimeWindows}), configured in
+ * "pekko-sample.customer.windows", for {@link GetWindows}.
+ * <p>
+ * Customer Actors are either children of the Transactions Actor or, when customers are distributed
+ * over a cluster, sharded entities identified by {@link CustomerDirectory#customerId(int)}: in
+ * both cases, each message carries the reference of the actor to be replied. Either way, they run
+ * on the dispatcher "pekko-sample.dispatcher.customers", with the bounded mailbox
+ * "pekko-sample.mailbox.customers".
  */
-public class CustomerActor extends AbstractBehavior<Transaction> {
+public class CustomerActor extends EventSourcedBehavior<CustomerActor.Command,
+    CustomerActor.CustomerEvent, CustomerLedger> {
 
-  private final ActorRef<Event> parentActor;
+  private static final AsyncLogger LOGGER = AsyncLogger.getInstance();
 
-  public CustomerActor(ActorContext<Transaction> context, ActorRef<Event> parentActor) {
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
 
-    super(context);
+  private static final String TRANSACTIONS_METRIC = "pekko_sample_customer_transactions_total";
 
-    this.parentActor = parentActor;
+  // time from the reception of a transaction until it is persisted, for all customers
+  private static final LatencyHistogram PERSIST_LATENCY = Metrics.getInstance().histogram(
+      "pekko_sample_customer_persist_latency_seconds",
+      "Time from the reception of a transaction until it is persisted");
+
+  private static final LongAdder DUPLICATES = Metrics.getInstance().counter(
+      "pekko_sample_customer_duplicate_transactions_total",
+      "Number of transactions received again after they were applied, and ignored");
+
+  private static final LongAdder REJECTED = Metrics.getInstance().counter(
+      "pekko_sample_customer_rejected_transactions_total",
+      "Number of transactions rejected since they would overflow the balance or a sum");
+
+  private static final LongAdder LATE_TRANSACTIONS = Metrics.getInstance().counter(
+      "pekko_sample_customer_late_transactions_total",
+      "Number of transactions after the allowed lateness of the time windows");
+
+  /**
+   * Type of the sharded entities, when customers are distributed over a cluster.
+   */
+  public static final EntityTypeKey<Command> ENTITY_TYPE_KEY =
+      EntityTypeKey.create(Command.class, "Customer");
+
+  /**
+   * Dispatcher and mailbox of the Customer Actors, local or sharded, configured in
+   * "pekko-sample.dispatcher" and "pekko-sample.mailbox".
+   */
+  static final Props PROPS = DispatcherSelector.fromConfig("pekko-sample.dispatcher.customers")
+      .withMailboxFromConfig("pekko-sample.mailbox.customers");
+
+  private final int customer;
+  // built once per actor, for its metrics and log messages
+  private final String customerId;
+  private final int snapshotEvery;
+  private final int keepSnapshots;
+  private final WindowSettings windowSettings;
+
+  // number of transactions of this customer
+  private final LongAdder processedTransactions;
+
+  private CustomerActor(int customer, String customerId, Config config) {
+
+    super(persistenceIdOf(customerId));
+
+    this.customer = customer;
+    this.customerId = customerId;
+    this.snapshotEvery = config.getInt("pekko-sample.customer.snapshot-every");
+    this.keepSnapshots = config.getInt("pekko-sample.customer.keep-snapshots");
+    this.windowSettings = WindowSettings.fromConfig(
+        config.getConfig("pekko-sample.customer.windows"));
+    this.processedTransactions = Metrics.getInstance().counter(TRANSACTIONS_METRIC,
+        "Number of transactions processed", "customer", customerId);
+  }
+
+  static Behavior<Command> create(int customer) {
+
+    return Behaviors.setup(context -> new CustomerActor(customer,
+        DIRECTORY.customerId(customer), context.getSystem().settings().config()));
   }
 
-  static Behavior<Transaction> create(ActorRef<Event> replyTo) {
+  /**
+   * Initializes the sharding of the Customer Actors in the given Actor System. It must be called in
+   * every node of the cluster that hosts customers.
+   *
+   * @param actorSystem Actor System, node of a cluster
+   * @return Reference to the shard region of the customers
+   */
+  public static ActorRef<ShardingEnvelope<Command>> initSharding(ActorSystem<?> actorSystem) {
 
-    return Behaviors.setup(context -> new CustomerActor(context, replyTo));
+    return ClusterSharding.get(actorSystem).init(Entity.of(ENTITY_TYPE_KEY,
+            entityContext -> create(DIRECTORY.intern(entityContext.getEntityId())))
+        .withStopMessage(new Stop())
+        .withEntityProps(PROPS));
+  }
+
+  /**
+   * @param customerId Customer identification
+   * @return Identification of the events of the given customer in the journal
+   */
+  static PersistenceId persistenceIdOf(String customerId) {
+
+    return PersistenceId.of(ENTITY_TYPE_KEY.name(), customerId);
+  }
+
+  @Override
+  public CustomerLedger emptyState() {
+
+    return new CustomerLedger(windowSettings);
   }
 
   @Override
-  public Receive<Transaction> createReceive() {
+  public CommandHandler<Command, CustomerEvent, CustomerLedger> commandHandler() {
 
-    return newReceiveBuilder().onMessage(Transaction.class, this::processTransaction)
+    return newCommandHandlerBuilder().forAnyState()
+        .onCommand(ProcessTransaction.class, this::processTransaction)
+        .onCommand(ProcessTransactions.class, this::processTransactions)
+        .onCommand(ProcessHotTransactions.class, this::processHotTransactions)
+        .onCommand(GetBalance.class, this::replyBalance)
+        .onCommand(GetAggregates.class, this::replyAggregates)
+        .onCommand(GetWindows.class, this::replyWindows)
+        .onCommand(Stop.class, (ledger, stop) -> Effect().stop())
         .build();
   }
 
-  private Behavior<Transaction> processTransaction(Transaction transaction) {
+  @Override
+  public EventHandler<CustomerLedger, CustomerEvent> eventHandler() {
+
+    return newEventHandlerBuilder().forAnyState()
+        .onEvent(TransactionApplied.class, (ledger, transactionApplied) -> {
+
+          ledger.apply(transactionApplied.transaction());
+          return ledger;
+        })
+        .onEvent(TransactionsApplied.class, (ledger, transactionsApplied) -> {
+
+          TransactionBatch transactions = transactionsApplied.transactions();
+
+          // an id repeated within the batch is only applied the first time
+          for (int i = 0; i < transactions.size(); i++) {
+
+            ledger.apply(transactions.id(i), transactions.transactionType(i),
+                transactions.amountInCents(i), transactions.eventTimeMillis(i));
+          }
+
+          return ledger;
+        })
+        .onEvent(TransactionsAppliedWithAggregates.class, (ledger, transactionsApplied) -> {
+
+          applyWithoutAggregates(ledger, transactionsApplied.transactions());
+          ledger.mergeAggregates(transactionsApplied.aggregates());
+          return ledger;
+        })
+        .build();
+  }
+
+  private static void applyWithoutAggregates(CustomerLedger ledger,
+      TransactionBatch transactions) {
+
+    for (int i = 0; i < transactions.size(); i++) {
+
+      ledger.applyWithoutAggregates(transactions.id(i), transactions.transactionType(i),
+          transactions.amountInCents(i), transactions.eventTimeMillis(i));
+    }
+  }
+
+  @Override
+  public RetentionCriteria retentionCriteria() {
+
+    return snapshotEvery > 0 ? RetentionCriteria.snapshotEvery(snapshotEvery, keepSnapshots)
+        : RetentionCriteria.disabled();
+  }
+
+  @Override
+  public SnapshotAdapter<CustomerLedger> snapshotAdapter() {
+
+    // the ledger is mutable: the snapshot must be an immutable copy of it
+    return new SnapshotAdapter<>() {
+
+      @Override
+      public Object toJournal(CustomerLedger ledger) {
+
+        return ledger.snapshot();
+      }
+
+      @Override
+      public CustomerLedger fromJournal(Object snapshot) {
+
+        return CustomerLedger.restore((CustomerLedger.Snapshot) snapshot, windowSettings);
+      }
+    };
+  }
+
+  @Override
+  public SignalHandler<CustomerLedger> signalHandler() {
+
+    return newSignalHandlerBuilder()
+        .onSignal(RecoveryCompleted.instance(), ledger -> {
+
+          if (ledger.numberOfTransactions() > 0) {
+
+            LOGGER.log(LogLevel.DEBUG,
+                "Actor for customer {} recovered with balance {} after {} transactions",
+                customerId, BigDecimal.valueOf(ledger.balanceInCents(), 2),
+                ledger.numberOfTransactions());
+          }
+        })
+        .onSignal(RecoveryFailed.class, (ledger, recoveryFailed) ->
+            LOGGER.log(LogLevel.ERROR, "Actor for customer {} could not be recovered: {}",
+                customerId, recoveryFailed.getFailure().getMessage()))
+        // the metrics of passivated customers are not kept, since there can be millions of them
+        .onSignal(PostStop.instance(), ledger -> Metrics.getInstance().remove(
+            TRANSACTIONS_METRIC, processedTransactions, "customer", customerId))
+        .build();
+  }
+
+  private Effect<CustomerEvent, CustomerLedger> processTransaction(CustomerLedger ledger,
+      ProcessTransaction processTransaction) {
+
+    long receivedNanos = System.nanoTime();
+
+    Transaction transaction = processTransaction.transaction();
+
+    if (LOGGER.isEnabled(LogLevel.TRACE)) {
+
+      // the amount is only formatted if it is really written
+      LOGGER.log(LogLevel.TRACE, "Processing message {} for {} of amount {} for {}",
+          transaction.id(), transaction.transactionType(),
+          BigDecimal.valueOf(transaction.amountInCents(), 2),
+          DIRECTORY.colorfulCustomerId(customer));
+    }
+
+    if (ledger.hasApplied(transaction.id())) {
+
+      DUPLICATES.increment();
+
+      LOGGER.log(LogLevel.DEBUG, "Transaction {} already applied for {}: ignored",
+          transaction.id(), customerId);
+
+      processTransaction.replyTo().tell(new TransactionProcessed(processTransaction.requestId(),
+          customer, TransactionOutcome.DUPLICATE));
+
+      return Effect().none();
+    }
+
+    if (!ledger.canApply(transaction)) {
+
+      REJECTED.increment();
+
+      LOGGER.log(LogLevel.WARN, "Transaction {} would overflow the balance of {}: rejected",
+          transaction.id(), customerId);
+
+      processTransaction.replyTo().tell(new TransactionProcessed(processTransaction.requestId(),
+          customer, TransactionOutcome.REJECTED));
+
+      return Effect().none();
+    }
+
+    long lateBefore = ledger.windows().lateEvents();
+
+    return Effect().persist(new TransactionApplied(transaction))
+        .thenRun(updatedLedger -> {
+
+          PERSIST_LATENCY.recordSince(receivedNanos);
+          processedTransactions.increment();
+          LATE_TRANSACTIONS.add(updatedLedger.windows().lateEvents() - lateBefore);
+
+          if (LOGGER.isEnabled(LogLevel.TRACE)) {
+
+            LOGGER.log(LogLevel.TRACE, "Processing done for {}",
+                DIRECTORY.colorfulCustomerId(customer));
+          }
+
+          // informing the parent/sender actor about the processing of the transaction
+          processTransaction.replyTo().tell(new TransactionProcessed(
+              processTransaction.requestId(), customer, TransactionOutcome.APPLIED));
+        });
+  }
+
+  private Effect<CustomerEvent, CustomerLedger> processTransactions(CustomerLedger ledger,
+      ProcessTransactions processTransactions) {
+
+    long receivedNanos = System.nanoTime();
+
+    TransactionBatch transactions = processTransactions.transactions();
+
+    if (LOGGER.isEnabled(LogLevel.TRACE)) {
+
+      for (int i = 0; i < transactions.size(); i++) {
+
+        LOGGER.log(LogLevel.TRACE, "Processing message {} for {} of amount {} for {}",
+            transactions.id(i), transactions.transactionType(i),
+            BigDecimal.valueOf(transactions.amountInCents(i), 2),
+            DIRECTORY.colorfulCustomerId(customer));
+      }
+    }
+
+    TransactionBatch notApplied = distinctNotApplied(ledger, transactions);
+    TransactionBatch newTransactions = withoutOverflowing(ledger, notApplied);
+    TransactionOutcomes outcomes = outcomesOf(transactions, notApplied, newTransactions);
+
+    DUPLICATES.add(transactions.size() - notApplied.size());
+
+    if (newTransactions.isEmpty()) {
+
+      LOGGER.log(LogLevel.DEBUG, "None of the {} transactions applied for {}",
+          transactions.size(), customerId);
+
+      processTransactions.replyTo().tell(new TransactionsProcessed(
+          processTransactions.requestId(), customer, outcomes,
+          customerStages(processTransactions.trace(), receivedNanos)));
+
+      return Effect().none();
+    }
+
+    long lateBefore = ledger.windows().lateEvents();
+
+    // the whole batch is a single event, and the latency is recorded once for all of it
+    return Effect().persist(new TransactionsApplied(newTransactions))
+        .thenRun(updatedLedger -> {
+
+          PERSIST_LATENCY.recordSince(receivedNanos);
+          processedTransactions.add(newTransactions.size());
+          LATE_TRANSACTIONS.add(updatedLedger.windows().lateEvents() - lateBefore);
+
+          if (LOGGER.isEnabled(LogLevel.TRACE)) {
+
+            LOGGER.log(LogLevel.TRACE, "Processing of {} transactions done for {}",
+                newTransactions.size(), DIRECTORY.colorfulCustomerId(customer));
+          }
+
+          // a single acknowledgement for all transactions, with the outcome of each one
+          processTransactions.replyTo().tell(new TransactionsProcessed(
+              processTransactions.requestId(), customer, outcomes,
+              customerStages(processTransactions.trace(), receivedNanos)));
+        });
+  }
+
+  private Effect<CustomerEvent, CustomerLedger> processHotTransactions(CustomerLedger ledger,
+      ProcessHotTransactions processHotTransactions) {
+
+    long receivedNanos = System.nanoTime();
+
+    TransactionBatch transactions = processHotTransactions.transactions();
+    // the persisted aggregates must be those of exactly the transactions applied
+    TransactionBatch notApplied = distinctNotApplied(ledger, transactions);
+    TransactionBatch newTransactions = withoutOverflowing(ledger, notApplied);
+    TransactionOutcomes outcomes = outcomesOf(transactions, notApplied, newTransactions);
+
+    DUPLICATES.add(transactions.size() - notApplied.size());
+
+    if (newTransactions.isEmpty()) {
+
+      processHotTransactions.replyTo().tell(new TransactionsProcessed(
+          processHotTransactions.requestId(), customer, outcomes,
+          customerStages(processHotTransactions.trace(), receivedNanos)));
+
+      return Effect().none();
+    }
+
+    // the helpers aggregated the whole batch: only when some of it was left out, which takes a
+    // replay or a redelivery upstream, or an overflow, are the aggregates computed again here
+    TransactionAggregates aggregates = newTransactions.size() == transactions.size()
+        ? processHotTransactions.aggregates() : aggregatesOf(newTransactions);
+    long lateBefore = ledger.windows().lateEvents();
+
+    return Effect().persist(new TransactionsAppliedWithAggregates(newTransactions, aggregates))
+        .thenRun(updatedLedger -> {
+
+          PERSIST_LATENCY.recordSince(receivedNanos);
+          processedTransactions.add(newTransactions.size());
+          LATE_TRANSACTIONS.add(updatedLedger.windows().lateEvents() - lateBefore);
+
+          processHotTransactions.replyTo().tell(new TransactionsProcessed(
+              processHotTransactions.requestId(), customer, outcomes,
+              customerStages(processHotTransactions.trace(), receivedNanos)));
+        });
+  }
+
+  /**
+   * @return The transactions, none of which was applied yet, that can be applied without an
+   *     overflow: the others are rejected, before anything is persisted
+   */
+  private TransactionBatch withoutOverflowing(CustomerLedger ledger,
+      TransactionBatch transactions) {
+
+    TransactionBatch accepted = ledger.withoutOverflowing(transactions);
+
+    if (accepted.size() < transactions.size()) {
+
+      REJECTED.add(transactions.size() - accepted.size());
+
+      LOGGER.log(LogLevel.WARN, "{} transactions would overflow the balance of {}: rejected",
+          transactions.size() - accepted.size(), customerId);
+    }
+
+    return accepted;
+  }
+
+  private static TransactionAggregates aggregatesOf(TransactionBatch transactions) {
+
+    TransactionAggregates aggregates = new TransactionAggregates();
+
+    for (int i = 0; i < transactions.size(); i++) {
+
+      aggregates.add(transactions.transactionType(i), transactions.amountInCents(i));
+    }
+
+    return aggregates;
+  }
+
+  /**
+   * @param trace         {@link Trace} of the transactions, or null if they are not traced
+   * @param receivedNanos When the transactions were received, as given by {@link System#nanoTime()}
+   * @return {@link CustomerStages} of the transactions, up to now, or null if they are not traced:
+   *     the Transactions Actor records them once for the whole batch
+   */
+  private static CustomerStages customerStages(Trace trace, long receivedNanos) {
+
+    return trace == null ? null : trace.customerStages(receivedNanos);
+  }
+
+  /**
+   * @return The transactions of the batch that were not applied yet, without the repetitions of an
+   *     id within the batch
+   */
+  private static TransactionBatch distinctNotApplied(CustomerLedger ledger,
+      TransactionBatch transactions) {
+
+    TransactionIdSet ids = new TransactionIdSet();
+    TransactionBatch.Builder builder = new TransactionBatch.Builder(transactions.size());
+
+    for (int i = 0; i < transactions.size(); i++) {
+
+      if (!ledger.hasApplied(transactions.id(i)) && ids.add(transactions.id(i))) {
+
+        builder.add(transactions.id(i), transactions.customer(i), transactions.amountInCents(i),
+            transactions.transactionType(i), transactions.eventTimeMillis(i));
+      }
+    }
+
+    return builder.size() == transactions.size() ? transactions : builder.build();
+  }
+
+  /**
+   * @param transactions Transactions received
+   * @param notApplied   Those of them not applied yet, without the repetitions of an id, as
+   *                     returned by {@link #distinctNotApplied(CustomerLedger, TransactionBatch)}
+   * @param accepted     Those of the latter that do not overflow, which are the ones applied
+   * @return {@link TransactionOutcomes} of the transactions received, in their order
+   */
+  private static TransactionOutcomes outcomesOf(TransactionBatch transactions,
+      TransactionBatch notApplied, TransactionBatch accepted) {
+
+    if (accepted == transactions) {
+
+      return TransactionOutcomes.allApplied(transactions.size());
+    }
+
+    TransactionOutcomes.Builder outcomes = new TransactionOutcomes.Builder(transactions.size());
+    int nextNotApplied = 0;
+    int nextAccepted = 0;
+
+    for (int i = 0; i < transactions.size(); i++) {
+
+      // the other batches keep the first occurrence of each id not applied yet, in order
+      if (nextNotApplied < notApplied.size()
+          && transactions.id(i) == notApplied.id(nextNotApplied)) {
+
+        if (nextAccepted < accepted.size()
+            && accepted.id(nextAccepted) == notApplied.id(nextNotApplied)) {
+
+          nextAccepted++;
+        } else {
+
+          outcomes.set(i, TransactionOutcome.REJECTED);
+        }
+
+        nextNotApplied++;
+      } else {
+
+        outcomes.set(i, TransactionOutcome.DUPLICATE);
+      }
+    }
+
+    return outcomes.build();
+  }
+
+  private Effect<CustomerEvent, CustomerLedger> replyBalance(CustomerLedger ledger,
+      GetBalance getBalance) {
+
+    getBalance.replyTo().tell(new Balance(customer, ledger.balanceInCents(),
+        ledger.numberOfTransactions()));
+
+    return Effect().none();
+  }
 
-    CustomSystemOut.INSTANCE.printAsIs(getInfoMessage(transaction));
+  private Effect<CustomerEvent, CustomerLedger> replyAggregates(CustomerLedger ledger,
+      GetAggregates getAggregates) {
 
-    CustomSystemOut.INSTANCE.printAsIs(
-        "Processing done for " + transaction.customer()
-            .getColorfulCustomerId());
+    getAggregates.replyTo().tell(new CustomerAggregates(customer, ledger.aggregates()));
+
+    return Effect().none();
+  }
+
+  private Effect<CustomerEvent, CustomerLedger> replyWindows(CustomerLedger ledger,
+      GetWindows getWindows) {
+
+    TimeWindows windows = ledger.windows();
+
+    getWindows.replyTo().tell(new CustomerWindows(customer, windows.watermarkMillis(),
+        windows.lateEvents(), windows.sliding(), windows.tumbling(), windows.previousTumbling()));
+
+    return Effect().none();
+  }
+
+  /**
+   * General definition of the type of messages this Actor will be able to handle.
+   */
+  public interface Command {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Command} concerning a transaction to be processed.
+   *
+   * @param requestId   Identification of the request the transaction belongs to, returned in
+   *                    {@link TransactionProcessed}
+   * @param transaction {@link Transaction} to be processed
+   * @param replyTo     Reference to the Actor that receives the {@link TransactionProcessed}
+   */
+  public record ProcessTransaction(long requestId, Transaction transaction,
+                                   ActorRef<Event> replyTo) implements Command {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Command} concerning all transactions of one request for this customer,
+   * which are processed in the given order and acknowledged together.
+   *
+   * @param requestId    Identification of the request the transactions belong to, returned in
+   *                     {@link TransactionsProcessed}
+   * @param transactions Transactions to be processed, all of this customer
+   * @param trace        {@link Trace} of the transactions, or null if they are not traced: it is
+   *                     never serialized
+   * @param replyTo      Reference to the Actor that receives the {@link TransactionsProcessed}
+   */
+  public record ProcessTransactions(long requestId, TransactionBatch transactions, Trace trace,
+                                    ActorRef<Event> replyTo) implements Command {
+
+    /**
+     * Transactions to be processed, which are not traced.
+     */
+    public ProcessTransactions(long requestId, TransactionBatch transactions,
+        ActorRef<Event> replyTo) {
+
+      this(requestId, transactions, null, replyTo);
+    }
+  }
+
+  /**
+   * Represents the {@link Command} concerning all transactions of one request for a hot customer:
+   * they are processed in the given order, as with {@link ProcessTransactions}, but their
+   * aggregates were already computed by helpers of the Transactions Actor.
+   *
+   * @param requestId    Identification of the request the transactions belong to, returned in
+   *                     {@link TransactionsProcessed}
+   * @param transactions Transactions to be processed, all of this customer
+   * @param aggregates   {@link TransactionAggregates} of all the given transactions, which must not
+   *                     be changed
+   * @param trace        {@link Trace} of the transactions, or null if they are not traced: it is
+   *                     never serialized
+   * @param replyTo      Reference to the Actor that receives the {@link TransactionsProcessed}
+   */
+  public record ProcessHotTransactions(long requestId, TransactionBatch transactions,
+                                       TransactionAggregates aggregates, Trace trace,
+                                       ActorRef<Event> replyTo) implements Command {
+
+    /**
+     * Transactions of a hot customer to be processed, which are not traced.
+     */
+    public ProcessHotTransactions(long requestId, TransactionBatch transactions,
+        TransactionAggregates aggregates, ActorRef<Event> replyTo) {
+
+      this(requestId, transactions, aggregates, null, replyTo);
+    }
+  }
+
+  /**
+   * Represents the {@link Command} to stop the actor (passivation), once the commands received
+   * before it are processed.
+   */
+  public record Stop() implements Command {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Command} concerning the query of the current balance of the customer.
+   *
+   * @param replyTo Reference to the Actor that receives the {@link Balance}
+   */
+  public record GetBalance(ActorRef<Balance> replyTo) implements Command {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Command} concerning the query of the aggregates of the transactions of
+   * the customer.
+   *
+   * @param replyTo Reference to the Actor that receives the {@link CustomerAggregates}
+   */
+  public record GetAggregates(ActorRef<CustomerAggregates> replyTo) implements Command {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Aggregates of the transactions of a customer, as reply to {@link GetAggregates}.
+   *
+   * @param customer   Handle of the customer in the {@link CustomerDirectory}
+   * @param aggregates {@link TransactionAggregates} of the transactions processed so far, which
+   *                   must not be changed
+   */
+  public record CustomerAggregates(int customer, TransactionAggregates aggregates) {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Command} concerning the query of the time windows of the transactions of
+   * the customer.
+   *
+   * @param replyTo Reference to the Actor that receives the {@link CustomerWindows}
+   */
+  public record GetWindows(ActorRef<CustomerWindows> replyTo) implements Command {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Statistics of the transactions of a customer over windows of their event time, as reply to
+   * {@link GetWindows}. Windows are relative to the watermark, i.e. the latest event time seen.
+   *
+   * @param customer         Handle of the customer in the {@link CustomerDirectory}
+   * @param watermarkMillis  Latest event time seen, in milliseconds since the epoch, or
+   *                         {@link Transaction#UNKNOWN_EVENT_TIME} if there was none
+   * @param lateEvents       Number of transactions after the allowed lateness
+   * @param sliding          Window of the configured size that ends with the watermark
+   * @param tumbling         Tumbling window the watermark is in
+   * @param previousTumbling Tumbling window before it
+   */
+  public record CustomerWindows(int customer, long watermarkMillis, long lateEvents,
+                                WindowStatistics sliding, WindowStatistics tumbling,
+                                WindowStatistics previousTumbling) {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Current balance of a customer, as reply to {@link GetBalance}. As {@link Transaction}, it is
+   * serialized with the UUID of the customer instead of its handle.
+   *
+   * @param customer             Handle of the customer in the {@link CustomerDirectory}
+   * @param balanceInCents       Balance in minor units (cents)
+   * @param numberOfTransactions Number of transactions processed so far
+   */
+  public record Balance(int customer, long balanceInCents, long numberOfTransactions) {
+
+    // nothing to add here: simple reply
+  }
+
+  /**
+   * General definition of the events persisted by this Actor.
+   */
+  public interface CustomerEvent {
+
+    // nothing to add here: simple event for the journal
+  }
+
+  /**
+   * Represents the {@link CustomerEvent} related to a transaction applied to the balance.
+   *
+   * @param transaction {@link Transaction} that was applied
+   */
+  public record TransactionApplied(Transaction transaction) implements CustomerEvent {
+
+    // nothing to add here: simple event for the journal
+  }
 
-    // informing the parent/sender actor about the processing of the transaction
-    parentActor.tell(new TransactionProcessed());
+  /**
+   * Represents the {@link CustomerEvent} related to a batch of transactions applied to the balance,
+   * in their order in the batch.
+   *
+   * @param transactions {@link TransactionBatch} that was applied
+   */
+  public record TransactionsApplied(TransactionBatch transactions) implements CustomerEvent {
 
-    return this;
+    // nothing to add here: simple event for the journal
   }
 
-  private String getInfoMessage(Transaction transaction) {
+  /**
+   * Represents the {@link CustomerEvent} related to a batch of transactions of a hot customer
+   * applied to the balance, in their order in the batch, with their aggregates computed by
+   * helpers.
+   *
+   * @param transactions {@link TransactionBatch} that was applied
+   * @param aggregates   {@link TransactionAggregates} of the transactions, added to those of the
+   *                     customer, which must not be changed
+   */
+  public record TransactionsAppliedWithAggregates(TransactionBatch transactions,
+                                                  TransactionAggregates aggregates)
+      implements CustomerEvent {
 
-    return "Processing message " + transaction.id() + " for " + transaction.transactionType()
-        + " of amount " + transaction.amount()
-        + " for " + transaction.customer().getColorfulCustomerId();
+    // nothing to add here: simple event for the journal
   }
 }
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import com.typesafe.config.Config;
+import edu.pekko.sample.app.actor.CustomerActor.Command;
+import edu.pekko.sample.app.actor.CustomerActor.ProcessHotTransactions;
+import edu.pekko.sample.app.actor.CustomerActor.ProcessTransaction;
+import edu.pekko.sample.app.actor.CustomerActor.ProcessTransactions;
+import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsRejected;
+import edu.pekko.sample.app.data.definition.TransactionLanes;
+import edu.pekko.sample.app.metrics.BoundedMeteredMailbox;
+import org.apache.pekko.actor.ActorSystem;
+import org.apache.pekko.actor.typed.ActorRef;
+
+/**
+ * Mailbox of the Customer Actors, with a priority lane per lane of {@link TransactionLanes}
+ * ("pekko-sample.customer.lanes"): the transactions of a more urgent type overtake those of a less
+ * urgent one waiting in the mailbox of a customer.
+ * <ul>
+ *   <li>transactions go in the lane of their type, or in the most urgent lane among their
+ *   types</li>
+ *   <li>the messages of Pekko Persistence, e.g. the confirmation that an event was written, are
+ *   not bounded: a Customer Actor waits for them while its mailbox fills up, so rejecting them
+ *   would leave it waiting forever</li>
+ *   <li>queries and passivation go in the least urgent lane, so that they still come after the
+ *   transactions sent before them</li>
+ * </ul>
+ * When the order of the transactions of a customer must be kept, there is a single lane.
+ * <p>
+ * Transactions that do not get into the mailbox are reported to the Transactions Actor that sent
+ * them with {@link TransactionsRejected}, which fails their request at once.
+ */
+public class CustomerMailbox extends BoundedMeteredMailbox {
+
+  private final TransactionLanes lanes;
+
+  public CustomerMailbox(ActorSystem.Settings settings, Config config) {
+
+    super(settings, config);
+
+    TransactionLanes configured = TransactionLanes.fromConfig(
+        settings.config().getConfig("pekko-sample.customer.lanes"));
+
+    lanes = configured.keepCustomerOrder() ? TransactionLanes.SINGLE : configured;
+  }
+
+  @Override
+  protected int numberOfLanes() {
+
+    return lanes.numberOfLanes();
+  }
+
+  @Override
+  protected boolean isBounded(Object message) {
+
+    return message instanceof Command;
+  }
+
+  @Override
+  protected int laneOf(Object message) {
+
+    return switch (message) {
+      case ProcessTransactions process -> lanes.lane(process.transactions());
+      case ProcessHotTransactions process -> lanes.lane(process.transactions());
+      case ProcessTransaction process -> lanes.lane(process.transaction().transactionType());
+      default -> lanes.numberOfLanes() - 1;
+    };
+  }
+
+  @Override
+  protected void reject(Object message) {
+
+    rejectTransactions(message);
+  }
+
+  /**
+   * Tells the sender of the given message, if it has transactions, that they will not be
+   * processed: the other messages, e.g. queries, are only sent to the dead letters.
+   *
+   * @param message Message sent to a Customer Actor, which it will not get
+   */
+  static void rejectTransactions(Object message) {
+
+    switch (message) {
+      case ProcessTransactions process -> tellRejected(process.replyTo(), process.requestId());
+      case ProcessHotTransactions process -> tellRejected(process.replyTo(), process.requestId());
+      case ProcessTransaction process -> tellRejected(process.replyTo(), process.requestId());
+      default -> {
+        // nothing to report
+      }
+    }
+  }
+
+  private static void tellRejected(ActorRef<Event> replyTo, long requestId) {
+
+    replyTo.tell(new TransactionsRejected(requestId));
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import edu.pekko.sample.app.actor.TransactionsActor.CustomerStopped;
+import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.metrics.Metrics;
+import edu.pekko.sample.app.utils.logging.AsyncLogger;
+import edu.pekko.sample.app.utils.logging.LogLevel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.javadsl.ActorContext;
+
+/**
+ * Registry of the child Customer Actors of the Transactions Actor, by handle of the customer in the
+ * {@link CustomerDirectory}: the actor of a customer is found with a single lookup, and only
+ * created (and named) the first time.
+ * <p>
+ * The number of live children is bounded:
+ * <ul>
+ *   <li>children that did not receive anything for a while are passivated, i.e. stopped, on every
+ *   call of {@link #passivateIdle()}</li>
+ *   <li>when there are more children than the given maximum, the least recently used one is
+ *   passivated</li>
+ * </ul>
+ * A passivated child is stopped with {@link CustomerActor.Stop}, after the commands already sent to
+ * it. Commands for its customer are kept until it is terminated, and then sent to a new child,
+ * which recovers the balance of the customer from the journal: there is never more than one actor
+ * per customer.
+ * <p>
+ * It must only be used by the actor whose context is given.
+ */
+final class CustomerRegistry {
+
+  private static final AsyncLogger LOGGER = AsyncLogger.getInstance();
+
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
+
+  private static final LongAdder PASSIVATIONS = Metrics.getInstance().counter(
+      "pekko_sample_customer_passivations_total", "Number of Customer Actors passivated");
+
+  // a child used during the n-th call of passivateIdle is idle from the (n + IDLE_TICKS)-th call
+  // on: with calls every half of the idle timeout, it is then idle for at least the timeout
+  static final int IDLE_TICKS = 3;
+
+  private final ActorContext<Event> context;
+
+  private final int maxLiveCustomers;
+
+  // live children, from the least to the most recently used
+  private final LinkedHashMap<Integer, Child> children = new LinkedHashMap<>(16, 0.75f, true);
+
+  // commands for the customers whose child is being stopped
+  private final Map<Integer, List<CustomerActor.Command>> stopping = new HashMap<>();
+
+  private long tick;
+
+  /**
+   * @param context          Context of the parent actor
+   * @param maxLiveCustomers Maximum number of live children
+   */
+  CustomerRegistry(ActorContext<Event> context, int maxLiveCustomers) {
+
+    if (maxLiveCustomers < 1) {
+
+      throw new IllegalArgumentException(
+          "At least one live customer is needed: " + maxLiveCustomers);
+    }
+
+    this.context = context;
+    this.maxLiveCustomers = maxLiveCustomers;
+  }
+
+  /**
+   * Sends a command to the child of the given customer, creating it if needed.
+   *
+   * @param customer Handle of the customer
+   * @param command  Command
+   */
+  void tell(int customer, CustomerActor.Command command) {
+
+    ActorRef<CustomerActor.Command> child = childFor(customer);
+
+    if (child == null) {
+
+      // sent to the next child, once the current one is terminated
+      stopping.get(customer).add(command);
+
+      return;
+    }
+
+    child.tell(command);
+  }
+
+  /**
+   * Finds or creates the child of the given customer.
+   *
+   * @param customer Handle of the customer
+   * @return Reference to the child, or null if the child is being stopped
+   */
+  ActorRef<CustomerActor.Command> childFor(int customer) {
+
+    Child child = children.get(customer);
+
+    if (child != null) {
+
+      child.lastUsedTick = tick;
+
+      return child.ref;
+    }
+
+    if (stopping.containsKey(customer)) {
+
+      return null;
+    }
+
+    return spawn(customer).ref;
+  }
+
+  /**
+   * Passivates the children that were not used during the last {@link #IDLE_TICKS} calls.
+   */
+  void passivateIdle() {
+
+    tick++;
+
+    Iterator<Map.Entry<Integer, Child>> leastRecentlyUsed = children.entrySet().iterator();
+
+    while (leastRecentlyUsed.hasNext()) {
+
+      Map.Entry<Integer, Child> entry = leastRecentlyUsed.next();
+
+      if (tick - entry.getValue().lastUsedTick < IDLE_TICKS) {
+
+        // all the following ones were used even more recently
+        return;
+      }
+
+      leastRecentlyUsed.remove();
+      passivate(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Called when a child is terminated: the commands received while it was stopping are sent to a
+   * new child.
+   *
+   * @param customer Handle of the customer of the child
+   */
+  void onStopped(int customer) {
+
+    List<CustomerActor.Command> commands = stopping.remove(customer);
+
+    if (commands == null) {
+
+      // it was not passivated, but it stopped on its own, e.g. after a failure
+      LOGGER.log(LogLevel.WARN, "Actor for customer {} has stopped",
+          DIRECTORY.customerId(customer));
+      children.remove(customer);
+
+      return;
+    }
+
+    if (!commands.isEmpty()) {
+
+      ActorRef<CustomerActor.Command> child = spawn(customer).ref;
+
+      commands.forEach(child::tell);
+    }
+  }
+
+  /**
+   * @return Number of live children
+   */
+  int size() {
+
+    return children.size();
+  }
+
+  private Child spawn(int customer) {
+
+    String customerId = DIRECTORY.customerId(customer);
+
+    ActorRef<CustomerActor.Command> ref = context.spawn(CustomerActor.create(customer),
+        "customer-" + customerId, CustomerActor.PROPS);
+
+    context.watchWith(ref, new CustomerStopped(customer));
+
+    LOGGER.log(LogLevel.DEBUG, "Actor for customer {} is created", customerId);
+
+    Child child = new Child(ref, tick);
+
+    children.put(customer, child);
+
+    if (children.size() > maxLiveCustomers) {
+
+      Iterator<Map.Entry<Integer, Child>> leastRecentlyUsed = children.entrySet().iterator();
+      Map.Entry<Integer, Child> eldest = leastRecentlyUsed.next();
+
+      leastRecentlyUsed.remove();
+      passivate(eldest.getKey(), eldest.getValue());
+    }
+
+    return child;
+  }
+
+  private void passivate(int customer, Child child) {
+
+    if (LOGGER.isEnabled(LogLevel.DEBUG)) {
+
+      LOGGER.log(LogLevel.DEBUG, "Actor for customer {} is passivated",
+          DIRECTORY.customerId(customer));
+    }
+
+    PASSIVATIONS.increment();
+
+    stopping.put(customer, new ArrayList<>());
+    child.ref.tell(new CustomerActor.Stop());
+  }
+
+  /**
+   * Live child, with the last call of {@link #passivateIdle()} during which it was used.
+   */
+  private static final class Child {
+
+    private final ActorRef<CustomerActor.Command> ref;
+    private long lastUsedTick;
+
+    private Child(ActorRef<CustomerActor.Command> ref, long lastUsedTick) {
+
+      this.ref = ref;
+      this.lastUsedTick = lastUsedTick;
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import com.typesafe.config.Config;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Sliding estimate of the rate of the transactions of each customer, to find the hot ones: those
+ * with both at least a minimum number of transactions per second and at least a minimum share of
+ * all the transactions, over the last window.
+ * <p>
+ * The window is a ring of buckets of time, each with the number of transactions of every customer
+ * in it: as time goes by, the oldest bucket is taken out of the counts of the window and reused.
+ * Only the customers with transactions in the window are kept, whatever the number of customers.
+ * <p>
+ * It is not thread-safe: it belongs to the Transactions Actor.
+ */
+final class HotCustomers {
+
+  private final long bucketNanos;
+  private final long minCount;
+  private final double minShare;
+  private final LongSupplier nanoClock;
+
+  // transactions of each customer in each bucket of the ring
+  private final List<Map<Integer, Long>> buckets;
+
+  // sums of the buckets of the ring
+  private final Map<Integer, Long> windowCounts = new HashMap<>();
+  private long windowTotal;
+
+  // number of the current bucket since the origin of the clock
+  private long currentBucket;
+
+  /**
+   * @param window           Duration of the window
+   * @param numberOfBuckets  Number of buckets of the window: it slides by a bucket at a time
+   * @param minRate          Minimum number of transactions per second of a hot customer
+   * @param minShare         Minimum share of all the transactions of a hot customer, from 0 to 1
+   * @param nanoClock        Source of the time, in nanoseconds, e.g. {@link System#nanoTime()}
+   * @throws IllegalArgumentException If a value is out of its range
+   */
+  HotCustomers(Duration window, int numberOfBuckets, double minRate, double minShare,
+      LongSupplier nanoClock) {
+
+    if (numberOfBuckets <= 0 || window.toNanos() < numberOfBuckets) {
+
+      throw new IllegalArgumentException("Invalid window of hot customers: " + window + " in "
+          + numberOfBuckets + " buckets");
+    }
+
+    if (minRate < 0 || minShare < 0 || minShare > 1) {
+
+      throw new IllegalArgumentException("Invalid thresholds of hot customers: rate " + minRate
+          + ", share " + minShare);
+    }
+
+    this.bucketNanos = window.toNanos() / numberOfBuckets;
+    this.minCount = (long) Math.ceil(minRate * window.toNanos() / 1e9);
+    this.minShare = minShare;
+    this.nanoClock = nanoClock;
+    this.buckets = new ArrayList<>(numberOfBuckets);
+
+    for (int i = 0; i < numberOfBuckets; i++) {
+
+      buckets.add(new HashMap<>());
+    }
+
+    this.currentBucket = Math.floorDiv(nanoClock.getAsLong(), bucketNanos);
+  }
+
+  /**
+   * @param config Configuration "pekko-sample.customer.hot"
+   * @return Instance of {@link HotCustomers} with the given configuration, on the time of
+   *     {@link System#nanoTime()}
+   */
+  static HotCustomers fromConfig(Config config) {
+
+    return new HotCustomers(config.getDuration("window"), config.getInt("buckets"),
+        config.getDouble("min-rate"), config.getDouble("min-share"), System::nanoTime);
+  }
+
+  /**
+   * Counts transactions of a customer, at the current time.
+   *
+   * @param customer Handle of the customer
+   * @param count    Number of transactions
+   */
+  void record(int customer, int count) {
+
+    advance();
+
+    buckets.get(slot(currentBucket)).merge(customer, (long) count, Long::sum);
+    windowCounts.merge(customer, (long) count, Long::sum);
+    windowTotal += count;
+  }
+
+  /**
+   * @param customer Handle of the customer
+   * @return Whether the customer is hot, over the window that ends at the current time
+   */
+  boolean isHot(int customer) {
+
+    advance();
+
+    long count = windowCounts.getOrDefault(customer, 0L);
+
+    return count > 0 && count >= minCount && count >= minShare * windowTotal;
+  }
+
+  /**
+   * @return Number of transactions of all customers in the window that ends at the current time
+   */
+  long windowTotal() {
+
+    advance();
+
+    return windowTotal;
+  }
+
+  /**
+   * Takes the buckets that left the window out of its counts, and empties them for reuse.
+   */
+  private void advance() {
+
+    long bucket = Math.floorDiv(nanoClock.getAsLong(), bucketNanos);
+    // once the whole window has passed, every bucket expires once
+    long expired = Math.min(bucket - currentBucket, buckets.size());
+
+    for (long i = 1; i <= expired; i++) {
+
+      Map<Integer, Long> counts = buckets.get(slot(currentBucket + i));
+
+      counts.forEach((customer, count) -> windowCounts.computeIfPresent(customer,
+          (ignored, windowCount) -> windowCount.equals(count) ? null : windowCount - count));
+      counts.values().forEach(count -> windowTotal -= count);
+      counts.clear();
+    }
+
+    currentBucket = Math.max(currentBucket, bucket);
+  }
+
+  private int slot(long bucket) {
+
+    return Math.floorMod(bucket, buckets.size());
+  }
+}
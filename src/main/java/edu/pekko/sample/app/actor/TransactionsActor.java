@@ -24,30 +24,262 @@
 
 package edu.pekko.sample.app.actor;
 
+import com.typesafe.config.Config;
+import edu.pekko.sample.app.actor.CustomerActor.CustomerAggregates;
+import edu.pekko.sample.app.actor.CustomerActor.CustomerWindows;
+import edu.pekko.sample.app.actor.CustomerActor.ProcessHotTransactions;
+import edu.pekko.sample.app.actor.CustomerActor.ProcessTransaction;
+import edu.pekko.sample.app.actor.CustomerActor.ProcessTransactions;
 import edu.pekko.sample.app.actor.TransactionsActor.Event;
-import edu.pekko.sample.app.data.definition.Customer;
-import edu.pekko.sample.app.data.definition.Transaction;
-import edu.pekko.sample.app.utils.CustomSystemOut;
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionLanes;
+import edu.pekko.sample.app.data.definition.TransactionOutcome;
+import edu.pekko.sample.app.data.definition.TransactionOutcomes;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import edu.pekko.sample.app.data.ledger.TransactionAggregates;
+import edu.pekko.sample.app.data.results.ResultsLog;
+import edu.pekko.sample.app.data.results.ResultsSettings;
+import edu.pekko.sample.app.metrics.LatencyHistogram;
+import edu.pekko.sample.app.metrics.Metrics;
+import edu.pekko.sample.app.metrics.Trace;
+import edu.pekko.sample.app.metrics.Trace.CustomerStages;
+import edu.pekko.sample.app.metrics.Trace.Stage;
+import edu.pekko.sample.app.utils.logging.AsyncLogger;
+import edu.pekko.sample.app.utils.logging.LogLevel;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.pekko.actor.Dropped;
+import org.apache.pekko.actor.NoSerializationVerificationNeeded;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.DispatcherSelector;
+import org.apache.pekko.actor.typed.PostStop;
+import org.apache.pekko.actor.typed.Props;
+import org.apache.pekko.actor.typed.eventstream.EventStream;
 import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
 import org.apache.pekko.actor.typed.javadsl.ActorContext;
 import org.apache.pekko.actor.typed.javadsl.Behaviors;
 import org.apache.pekko.actor.typed.javadsl.Receive;
+import org.apache.pekko.actor.typed.javadsl.TimerScheduler;
+import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
+import scala.Product;
 
 /**
- * Actor that receives a list of transactions and sends each one of them to the respective child
+ * Actor that receives a batch of transactions and sends each one of them to the respective child
  * Customer Actor for processing.
+ * <p>
+ * Several batches of transactions can be processed at the same time, sent by different callers:
+ * each one of them is tracked independently and its caller is notified as soon as all of its
+ * transactions were processed.
+ * <p>
+ * When "pekko-sample.customer.dispatch" is "per-customer", the transactions of a batch are grouped
+ * by customer: each Customer Actor receives all of its transactions in one message, as a view of
+ * the batch in their original order, and acknowledges them in one message. Otherwise, every
+ * transaction is sent and acknowledged on its own.
+ * <p>
+ * With that dispatch, the customers with most of the transactions are found by a sliding estimate
+ * of their rate (see {@link HotCustomers}), as configured in "pekko-sample.customer.hot". The
+ * aggregates of the transactions of a hot customer, which do not depend on their order, are
+ * computed in parts by a small pool of {@link AggregatesHelper} children, and added up here. Only
+ * then do the transactions go to its Customer Actor, with their aggregates, which it applies and
+ * persists together in a single event, keeping what depends on their order. Meanwhile, the
+ * transactions of that customer wait here, so that they still reach it in the order they came.
+ * <p>
+ * The transactions of a batch are split into the priority lanes of their type (see
+ * {@link TransactionLanes}), as configured in "pekko-sample.customer.lanes": the lanes are sent
+ * from the most urgent one, and each one is tracked on its own, so that the latency of each type of
+ * transactions is measured from the reception of the batch until the lane of the type is done. The
+ * caller is still only notified once all the lanes are done.
+ * <p>
+ * When "pekko-sample.customer.distribution" is "sharded", the Customer Actors are not children of
+ * this actor, but entities distributed over the cluster with Cluster Sharding: transactions are
+ * then routed through the shard region.
+ * <p>
+ * The aggregates of the transactions of a customer are queried with {@link GetCustomerAggregates},
+ * and those of all the customers this actor has sent transactions to with
+ * {@link GetAllCustomerAggregates}: the answers of the customers are gathered by a child actor per
+ * query, so that this actor goes on with the transactions meanwhile. The time windows of a
+ * customer are queried with {@link GetCustomerWindows}.
+ * <p>
+ * When "pekko-sample.results.directory" is set, the results of the transactions of a batch are
+ * appended to the {@link ResultsLog} once all of them were processed, and the caller is only
+ * notified once they are durable. If they cannot be written, the caller gets
+ * {@link ResultsNotWritten} instead, so that it stops right away.
+ * <p>
+ * Transactions that do not get into the bounded mailbox of a Customer Actor, or are dropped by its
+ * full stash, are reported with {@link TransactionsRejected}: their request fails at once, and the
+ * caller gets {@link TransactionsNotProcessed}, as when the batch itself does not get into the
+ * mailbox of this actor (see {@link TransactionsMailbox}).
+ * <p>
+ * It must be spawned with {@link #PROPS}, so that it does not share its threads with the
+ * Customer Actors, and its mailbox is bounded.
  */
 public class TransactionsActor extends AbstractBehavior<Event> {
 
-  private int numberOfTransactionsToProcess;
-  private ActorRef<Event> parentActor;
+  private static final AsyncLogger LOGGER = AsyncLogger.getInstance();
 
-  private TransactionsActor(ActorContext<Event> context) {
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
+
+  /**
+   * Dispatcher and mailbox this actor must be spawned with, configured in
+   * "pekko-sample.dispatcher" and "pekko-sample.mailbox".
+   */
+  public static final Props PROPS =
+      DispatcherSelector.fromConfig("pekko-sample.dispatcher.transactions")
+          .withMailboxFromConfig("pekko-sample.mailbox.transactions");
+
+  private static final LongAdder RECEIVED_BATCHES = Metrics.getInstance().counter(
+      "pekko_sample_batches_total", "Number of batches of transactions received");
+
+  private static final LongAdder DISPATCHED_TRANSACTIONS = Metrics.getInstance().counter(
+      "pekko_sample_transactions_dispatched_total",
+      "Number of transactions sent to the Customer Actors");
+
+  private static final LongAdder HOT_TRANSACTIONS = Metrics.getInstance().counter(
+      "pekko_sample_hot_transactions_total",
+      "Number of transactions of hot customers, whose aggregates are computed by helpers");
+
+  // time from the reception of a batch until all of its transactions are processed
+  private static final LatencyHistogram BATCH_LATENCY = Metrics.getInstance().histogram(
+      "pekko_sample_batch_latency_seconds",
+      "Time from the reception of a batch until all of its transactions are processed");
+
+  // time from the reception of a batch until all of its transactions of a type are processed,
+  // by ordinal of the type
+  private static final LatencyHistogram[] TYPE_LATENCIES = Arrays.stream(TransactionType.values())
+      .map(type -> Metrics.getInstance().histogram("pekko_sample_transaction_latency_seconds",
+          "Time from the reception of a batch until all of its transactions of a type are "
+              + "processed", "type", type.name().toLowerCase(Locale.ROOT)))
+      .toArray(LatencyHistogram[]::new);
+
+  // whether the transactions of a request are sent in one message per customer
+  private final boolean dispatchPerCustomer;
+
+  // priority lanes of the types of transactions
+  private final TransactionLanes lanes;
+
+  // only set when the aggregates of hot customers are computed by helpers
+  private final HotCustomers hotCustomers;
+
+  // helpers that compute the aggregates of hot customers, spawned when first needed
+  private final List<ActorRef<AggregatesHelper.Message>> helpers;
+  private final int numberOfHelpers;
+  private int nextHelper;
+
+  // smallest number of transactions sent to a helper
+  private final int minChunk;
+
+  // transactions of the customers with a hot batch whose aggregates are still being computed, in
+  // the order they are to be sent to them, by customer
+  private final Map<Integer, ArrayDeque<WaitingBatch>> waitingBatches = new HashMap<>();
+
+  // hot batches whose aggregates are still being computed, by aggregation identification
+  private final Map<Long, WaitingBatch> aggregations = new HashMap<>();
+
+  // sequence for the aggregation identification, unique within this actor
+  private long nextAggregationId;
+
+  // only set when the customers are distributed over the cluster
+  private final ClusterSharding sharding;
+
+  // only set when the customers are children of this actor
+  private final CustomerRegistry customers;
+
+  // how long the customers are waited for when their aggregates are gathered
+  private final Duration queryTimeout;
+
+  // handles of the customers transactions were sent to, whose aggregates are gathered
+  private final BitSet knownCustomers = new BitSet();
+
+  // lanes of the requests whose transactions are still being processed, by internal request
+  // identification: one per lane of a request
+  private final Map<Long, PendingLane> pendingLanes = new HashMap<>();
+
+  // sequence for the internal request identification, unique within this actor
+  private long nextInternalRequestId;
+
+  // only set when the results of the transactions are written
+  private final ResultsLog results;
+
+  private TransactionsActor(ActorContext<Event> context, TimerScheduler<Event> timers)
+      throws IOException {
 
     super(context);
+
+    results = openResults(context.getSystem().settings().config());
+
+    Config config = context.getSystem().settings().config().getConfig("pekko-sample.customer");
+
+    dispatchPerCustomer = dispatchPerCustomer(config.getString("dispatch"));
+    queryTimeout = config.getDuration("query-timeout");
+    lanes = TransactionLanes.fromConfig(config.getConfig("lanes"));
+
+    Config hot = config.getConfig("hot");
+
+    numberOfHelpers = hot.getInt("helpers");
+    minChunk = Math.max(1, hot.getInt("min-chunk"));
+    helpers = new ArrayList<>(numberOfHelpers);
+    hotCustomers = dispatchPerCustomer && numberOfHelpers > 0 ? HotCustomers.fromConfig(hot)
+        : null;
+
+    // the stash of a Customer Actor of this node drops commands when it is full
+    context.getSystem().eventStream().tell(new EventStream.Subscribe<>(Dropped.class,
+        context.messageAdapter(Dropped.class, MessageDropped::new)));
+
+    if ("sharded".equals(config.getString("distribution"))) {
+
+      // passivation of the entities is done by Cluster Sharding
+      CustomerActor.initSharding(context.getSystem());
+      sharding = ClusterSharding.get(context.getSystem());
+      customers = null;
+
+      return;
+    }
+
+    sharding = null;
+    customers = new CustomerRegistry(context,
+        config.getInt("passivation.max-live-customers"));
+
+    Duration idleTimeout = config.getDuration("passivation.idle-timeout");
+
+    if (!idleTimeout.isZero()) {
+
+      timers.startTimerWithFixedDelay(new PassivateIdleCustomers(), idleTimeout.dividedBy(
+          CustomerRegistry.IDLE_TICKS - 1));
+    }
+  }
+
+  /**
+   * @param config Configuration of the application
+   * @return {@link ResultsLog} configured in "pekko-sample.results", or null if there is none
+   */
+  private static ResultsLog openResults(Config config) throws IOException {
+
+    ResultsSettings settings = ResultsSettings.fromConfig(config.getConfig("pekko-sample.results"));
+
+    return settings.isEnabled() ? ResultsLog.open(settings) : null;
+  }
+
+  private static boolean dispatchPerCustomer(String dispatch) {
+
+    return switch (dispatch) {
+
+      case "per-customer" -> true;
+      case "per-transaction" -> false;
+      default -> throw new IllegalArgumentException("Unknown dispatch of transactions: "
+          + dispatch + " (expected \"per-customer\" or \"per-transaction\")");
+    };
   }
 
   /**
@@ -55,14 +287,27 @@ public class TransactionsActor extends AbstractBehavior<Event> {
    */
   public static Behavior<Event> create() {
 
-    return Behaviors.setup(TransactionsActor::new);
+    return Behaviors.setup(context -> Behaviors.withTimers(
+        timers -> new TransactionsActor(context, timers)));
   }
 
   @Override
   public Receive<Event> createReceive() {
 
     return newReceiveBuilder().onMessage(TransactionsToProcess.class, this::sendToCustomers)
-        .onMessage(TransactionProcessed.class, this::acknowledgeProcessedTransaction).build();
+        .onMessage(TransactionProcessed.class, this::acknowledgeProcessedTransaction)
+        .onMessage(TransactionsProcessed.class, this::acknowledgeProcessedTransactions)
+        .onMessage(TransactionsRejected.class, this::failRequest)
+        .onMessage(MessageDropped.class, this::onMessageDropped)
+        .onMessage(PartialAggregates.class, this::mergePartialAggregates)
+        .onMessage(GetCustomerBalance.class, this::queryBalance)
+        .onMessage(GetCustomerAggregates.class, this::queryAggregates)
+        .onMessage(GetAllCustomerAggregates.class, this::queryAllAggregates)
+        .onMessage(GetCustomerWindows.class, this::queryWindows)
+        .onMessage(QueryCustomers.class, this::queryCustomers)
+        .onMessage(PassivateIdleCustomers.class, this::passivateIdleCustomers)
+        .onMessage(CustomerStopped.class, this::onCustomerStopped)
+        .onSignal(PostStop.class, this::closeResults).build();
   }
 
   /**
@@ -74,24 +319,292 @@ public class TransactionsActor extends AbstractBehavior<Event> {
    */
   private Behavior<Event> sendToCustomers(TransactionsToProcess transactionsToProcess) {
 
+    int numberOfTransactionsToProcess = transactionsToProcess.transactions().size();
+
+    RECEIVED_BATCHES.increment();
+
+    LOGGER.log(LogLevel.DEBUG, "Number of received transactions to process: {} (request {})",
+        numberOfTransactionsToProcess, transactionsToProcess.requestId());
+
+    if (numberOfTransactionsToProcess == 0) {
+
+      // nothing to wait for
+      transactionsToProcess.replyTo()
+          .tell(new AllTransactionsProcessed(transactionsToProcess.requestId()));
+
+      return this;
+    }
+
     // saving the actor that has sent the message
     // so that it can be notified at the end of the processing
-    parentActor = transactionsToProcess.replyTo();
+    PendingRequest pendingRequest = new PendingRequest(transactionsToProcess.requestId(),
+        transactionsToProcess.replyTo(), transactionsToProcess.transactions(), System.nanoTime(),
+        results != null);
+    Trace trace = transactionsToProcess.trace();
+
+    if (trace != null) {
+
+      trace = trace.record(Stage.SUBMIT);
+    }
+
+    DISPATCHED_TRANSACTIONS.add(numberOfTransactionsToProcess);
+
+    List<List<TransactionBatch>> groupsOfLanes = splitByLane(transactionsToProcess.transactions());
+
+    for (List<TransactionBatch> groups : groupsOfLanes) {
+
+      if (groups.isEmpty()) {
+
+        continue;
+      }
+
+      // the internal identification is used instead of the one given by the caller,
+      // since different callers might use the same values
+      long internalRequestId = nextInternalRequestId++;
+
+      PendingLane pendingLane = new PendingLane(pendingRequest, groups);
 
-    numberOfTransactionsToProcess = transactionsToProcess.transactions().size();
+      pendingLanes.put(internalRequestId, pendingLane);
+      pendingRequest.pendingLanes++;
 
-    CustomSystemOut.INSTANCE.yellow(
-        "Number of received transactionsToProcess to process: " + numberOfTransactionsToProcess);
+      for (TransactionType type : pendingLane.types) {
 
-    transactionsToProcess.transactions().forEach(transaction -> {
+        pendingRequest.lanesOfType[type.ordinal()]++;
+      }
 
-      ActorRef<Transaction> customerActor = getActorRef(transaction.customer());
+      if (dispatchPerCustomer) {
 
-      CustomSystemOut.INSTANCE.printAsIs(
-          "Sending message to actor for customer " + transaction.customer()
-              .getColorfulCustomerId());
-      customerActor.tell(transaction);
-    });
+        sendPerCustomer(internalRequestId, groups, trace);
+      } else {
+
+        sendPerTransaction(internalRequestId, groups);
+      }
+    }
+
+    if (trace != null) {
+
+      pendingRequest.trace = trace.record(Stage.DISPATCH);
+    }
+
+    return this;
+  }
+
+  /**
+   * Splits the given transactions into the groups sent to the Customer Actors, by lane: with the
+   * "per-customer" dispatch, each group has the transactions of one customer. When the order of
+   * the transactions of a customer is kept, all of them go in the most urgent lane among them.
+   *
+   * @param transactions Transactions of a request
+   * @return Groups of transactions of each lane, from the most urgent one, in their original order
+   */
+  private List<List<TransactionBatch>> splitByLane(TransactionBatch transactions) {
+
+    if (lanes.numberOfLanes() == 1) {
+
+      return List.of(dispatchPerCustomer ? transactions.splitByCustomer() : List.of(transactions));
+    }
+
+    List<List<TransactionBatch>> groupsOfLanes = new ArrayList<>(lanes.numberOfLanes());
+
+    if (lanes.keepCustomerOrder()) {
+
+      for (int lane = 0; lane < lanes.numberOfLanes(); lane++) {
+
+        groupsOfLanes.add(new ArrayList<>());
+      }
+
+      for (TransactionBatch transactionsOfCustomer : transactions.splitByCustomer()) {
+
+        groupsOfLanes.get(lanes.lane(transactionsOfCustomer)).add(transactionsOfCustomer);
+      }
+
+      return groupsOfLanes;
+    }
+
+    for (TransactionBatch transactionsOfLane : lanes.split(transactions)) {
+
+      groupsOfLanes.add(transactionsOfLane.isEmpty() ? List.of()
+          : dispatchPerCustomer ? transactionsOfLane.splitByCustomer()
+          : List.of(transactionsOfLane));
+    }
+
+    return groupsOfLanes;
+  }
+
+  /**
+   * Sends every one of the given transactions on its own, in their order.
+   *
+   * @param internalRequestId Internal identification of the lane of the request
+   * @param groups            Groups of transactions of the lane
+   */
+  private void sendPerTransaction(long internalRequestId, List<TransactionBatch> groups) {
+
+    for (TransactionBatch transactions : groups) {
+
+      for (int i = 0; i < transactions.size(); i++) {
+
+        if (LOGGER.isEnabled(LogLevel.TRACE)) {
+
+          LOGGER.log(LogLevel.TRACE, "Sending message to actor for customer {}",
+              DIRECTORY.colorfulCustomerId(transactions.customer(i)));
+        }
+
+        knownCustomers.set(transactions.customer(i));
+        sendToCustomer(transactions.customer(i), new ProcessTransaction(internalRequestId,
+            transactions.transaction(i), getContext().getSelf()));
+      }
+    }
+  }
+
+  /**
+   * Sends the given transactions grouped by customer: one message per customer, with its
+   * transactions in their original order. No transaction is copied: the message of each customer
+   * holds a view of the batch.
+   *
+   * @param internalRequestId Internal identification of the lane of the request
+   * @param groups            Transactions of the lane, grouped by customer
+   * @param trace             {@link Trace} of the request, or null if it is not traced
+   */
+  private void sendPerCustomer(long internalRequestId, List<TransactionBatch> groups,
+      Trace trace) {
+
+    for (TransactionBatch transactionsOfCustomer : groups) {
+
+      // when traced, the time it waits for the Customer Actor is measured from now on
+      Trace sent = trace == null ? null : trace.mark();
+      int customer = transactionsOfCustomer.customer(0);
+
+      if (LOGGER.isEnabled(LogLevel.TRACE)) {
+
+        LOGGER.log(LogLevel.TRACE, "Sending {} transactions to actor for customer {}",
+            transactionsOfCustomer.size(), DIRECTORY.colorfulCustomerId(customer));
+      }
+
+      knownCustomers.set(customer);
+
+      if (hotCustomers != null) {
+
+        hotCustomers.record(customer, transactionsOfCustomer.size());
+
+        if (hotCustomers.isHot(customer)) {
+
+          aggregateHot(internalRequestId, customer, transactionsOfCustomer, sent);
+
+          continue;
+        }
+
+        ArrayDeque<WaitingBatch> waiting = waitingBatches.get(customer);
+
+        if (waiting != null) {
+
+          // behind a hot batch of the customer, whose aggregates are still being computed
+          waiting.add(new WaitingBatch(internalRequestId, transactionsOfCustomer, sent, null,
+              0));
+
+          continue;
+        }
+      }
+
+      sendToCustomer(customer, new ProcessTransactions(internalRequestId, transactionsOfCustomer,
+          sent, getContext().getSelf()));
+    }
+  }
+
+  /**
+   * Has the aggregates of the given transactions of a hot customer computed by the helpers, in
+   * parts of at least "min-chunk" transactions: the transactions wait here until then, and the
+   * following ones of the customer wait behind them.
+   *
+   * @param internalRequestId Internal identification of the request
+   * @param customer          Handle of the customer
+   * @param transactions      Transactions of the customer in the request
+   * @param trace             {@link Trace} of the transactions, or null if they are not traced
+   */
+  private void aggregateHot(long internalRequestId, int customer, TransactionBatch transactions,
+      Trace trace) {
+
+    HOT_TRANSACTIONS.add(transactions.size());
+
+    if (LOGGER.isEnabled(LogLevel.TRACE)) {
+
+      LOGGER.log(LogLevel.TRACE, "Aggregating {} transactions for hot customer {}",
+          transactions.size(), DIRECTORY.colorfulCustomerId(customer));
+    }
+
+    int size = transactions.size();
+    int parts = Math.min(numberOfHelpers, (size + minChunk - 1) / minChunk);
+    long aggregationId = nextAggregationId++;
+    WaitingBatch hot = new WaitingBatch(internalRequestId, transactions, trace,
+        new TransactionAggregates(), parts);
+
+    aggregations.put(aggregationId, hot);
+    waitingBatches.computeIfAbsent(customer, ignored -> new ArrayDeque<>()).add(hot);
+
+    for (int part = 0; part < parts; part++) {
+
+      nextHelper().tell(new AggregatesHelper.AggregateTransactions(aggregationId,
+          transactions.slice(size * part / parts, size * (part + 1) / parts),
+          getContext().getSelf()));
+    }
+  }
+
+  /**
+   * @return Reference to the next helper, in turn, spawned if it is not yet
+   */
+  private ActorRef<AggregatesHelper.Message> nextHelper() {
+
+    int index = nextHelper;
+
+    nextHelper = (nextHelper + 1) % numberOfHelpers;
+
+    if (index == helpers.size()) {
+
+      // on the dispatcher of the customers, whose work they share
+      helpers.add(getContext().spawn(AggregatesHelper.create(), "aggregates-helper-" + index,
+          CustomerActor.PROPS));
+    }
+
+    return helpers.get(index);
+  }
+
+  /**
+   * Operation called when a helper has computed the aggregates of a part of the transactions of a
+   * hot customer: once all the parts are added up, the transactions are sent to its Customer Actor
+   * with their aggregates, and so are those that waited behind them.
+   *
+   * @param partialAggregates Aggregates of the part
+   */
+  private Behavior<Event> mergePartialAggregates(PartialAggregates partialAggregates) {
+
+    WaitingBatch hot = aggregations.get(partialAggregates.aggregationId());
+
+    hot.aggregates.addAll(partialAggregates.aggregates());
+
+    if (--hot.remainingParts > 0) {
+
+      return this;
+    }
+
+    aggregations.remove(partialAggregates.aggregationId());
+
+    int customer = hot.transactions.customer(0);
+    ArrayDeque<WaitingBatch> waiting = waitingBatches.get(customer);
+
+    while (!waiting.isEmpty() && waiting.peek().remainingParts == 0) {
+
+      WaitingBatch next = waiting.poll();
+
+      sendToCustomer(customer, next.aggregates == null
+          ? new ProcessTransactions(next.requestId, next.transactions, next.trace,
+              getContext().getSelf())
+          : new ProcessHotTransactions(next.requestId, next.transactions, next.aggregates,
+              next.trace, getContext().getSelf()));
+    }
+
+    if (waiting.isEmpty()) {
+
+      waitingBatches.remove(customer);
+    }
 
     return this;
   }
@@ -105,41 +618,335 @@ public class TransactionsActor extends AbstractBehavior<Event> {
   private Behavior<Event> acknowledgeProcessedTransaction(
       TransactionProcessed transactionProcessed) {
 
-    numberOfTransactionsToProcess--;
+    return acknowledge(transactionProcessed.requestId(), transactionProcessed.customer(),
+        TransactionOutcomes.of(transactionProcessed.outcome()), null);
+  }
 
-    if (numberOfTransactionsToProcess == 0) {
+  /**
+   * Operation called when the Actor receives a message from a Customer Actor signaling that all
+   * transactions of a request for that customer were processed.
+   *
+   * @param transactionsProcessed Message about the processing of the transactions
+   */
+  private Behavior<Event> acknowledgeProcessedTransactions(
+      TransactionsProcessed transactionsProcessed) {
 
-      CustomSystemOut.INSTANCE.yellow(
-          "Informing the Parent Actor that all transactions were processed");
+    return acknowledge(transactionsProcessed.requestId(), transactionsProcessed.customer(),
+        transactionsProcessed.outcomes(), transactionsProcessed.customerStages());
+  }
 
-      parentActor.tell(new AllTransactionsProcessed());
+  /**
+   * Counts the given processed transactions of a customer in a lane of a request, and keeps their
+   * outcomes for the results: the latency of a type is recorded once all the lanes with
+   * transactions of that type are processed, and the caller is notified once all the lanes of the
+   * request are.
+   *
+   * @param internalRequestId Internal identification of the lane of the request
+   * @param customer          Handle of the customer that processed the transactions
+   * @param outcomes          {@link TransactionOutcomes} of the transactions, in the order they
+   *                          were sent to the customer
+   * @param customerStages    {@link CustomerStages} measured by the customer, or null if the
+   *                          transactions are not traced
+   */
+  private Behavior<Event> acknowledge(long internalRequestId, int customer,
+      TransactionOutcomes outcomes, CustomerStages customerStages) {
+
+    PendingLane pendingLane = pendingLanes.get(internalRequestId);
+
+    if (pendingLane == null) {
+
+      // e.g. the request failed, as other transactions of it were rejected
+      LOGGER.log(LogLevel.DEBUG, "Unknown request {}: acknowledgement ignored",
+          internalRequestId);
+
+      return this;
+    }
+
+    PendingRequest pendingRequest = pendingLane.request;
+
+    pendingLane.remaining -= outcomes.size();
+    pendingRequest.rejected += outcomes.count(TransactionOutcome.REJECTED);
+
+    if (customerStages != null) {
+
+      pendingRequest.customerStages = customerStages.max(pendingRequest.customerStages);
+    }
+
+    if (pendingRequest.outcomes != null) {
+
+      pendingLane.setOutcomes(customer, outcomes);
+    }
+
+    if (pendingLane.remaining > 0) {
+
+      LOGGER.log(LogLevel.TRACE, "Still {} to go for request {}...", pendingLane.remaining,
+          pendingRequest.requestId);
 
       return this;
     }
 
-    CustomSystemOut.INSTANCE.yellow("Still " + numberOfTransactionsToProcess + " to go...");
+    pendingLanes.remove(internalRequestId);
+
+    long nowNanos = System.nanoTime();
+
+    for (TransactionType type : pendingLane.types) {
+
+      // when the customers keep their order, a type may be in several lanes
+      if (--pendingRequest.lanesOfType[type.ordinal()] == 0) {
+
+        TYPE_LATENCIES[type.ordinal()].record(nowNanos - pendingRequest.receivedNanos);
+      }
+    }
+
+    if (--pendingRequest.pendingLanes == 0) {
+
+      if (pendingRequest.rejected > 0) {
+
+        LOGGER.log(LogLevel.WARN, "{} transactions of request {} were rejected",
+            pendingRequest.rejected, pendingRequest.requestId);
+      }
+
+      LOGGER.log(LogLevel.DEBUG,
+          "Informing the Parent Actor that all transactions of request {} were processed",
+          pendingRequest.requestId);
+
+      Trace trace = pendingRequest.trace == null ? null
+          : pendingRequest.trace.record(Stage.ACKNOWLEDGE);
+
+      if (pendingRequest.customerStages != null) {
+
+        // once for the batch, however many customers it has
+        pendingRequest.customerStages.record();
+      }
+
+      if (results == null) {
+
+        BATCH_LATENCY.recordSince(pendingRequest.receivedNanos);
+        pendingRequest.replyTo.tell(new AllTransactionsProcessed(pendingRequest.requestId));
+
+        return this;
+      }
+
+      // the caller is notified by the thread of the results log, once they are durable
+      TransactionOutcomes allOutcomes = pendingRequest.outcomes.build();
+
+      results.append(pendingRequest.transactions, allOutcomes).whenComplete((ignored, error) -> {
+
+        if (error != null) {
+
+          LOGGER.log(LogLevel.ERROR, "Results of request {} could not be written: {}",
+              pendingRequest.requestId, error.getMessage());
+
+          // the caller stops instead of waiting for the timeout, or going on without results
+          pendingRequest.replyTo.tell(new ResultsNotWritten(pendingRequest.requestId));
+
+          return;
+        }
+
+        if (trace != null) {
+
+          trace.record(Stage.RESULTS);
+        }
+
+        BATCH_LATENCY.recordSince(pendingRequest.receivedNanos);
+        pendingRequest.replyTo.tell(new AllTransactionsProcessed(pendingRequest.requestId));
+      });
+    }
+
+    return this;
+  }
+
+  /**
+   * Operation called when transactions of a lane of a request were rejected by a Customer Actor,
+   * i.e. they will never be processed: the whole request fails at once, and its caller is told,
+   * instead of waiting for its timeout. The transactions of the request still in flight may be
+   * processed, but their acknowledgements are ignored.
+   *
+   * @param transactionsRejected Message about the rejected transactions
+   */
+  private Behavior<Event> failRequest(TransactionsRejected transactionsRejected) {
+
+    PendingLane pendingLane = pendingLanes.remove(transactionsRejected.requestId());
+
+    if (pendingLane == null) {
+
+      // another lane of the request was rejected before
+      LOGGER.log(LogLevel.DEBUG, "Unknown request {}: rejection ignored",
+          transactionsRejected.requestId());
+
+      return this;
+    }
+
+    PendingRequest pendingRequest = pendingLane.request;
+
+    pendingLanes.values().removeIf(otherLane -> otherLane.request == pendingRequest);
+
+    LOGGER.log(LogLevel.WARN, "Transactions of request {} were rejected by a full Customer Actor",
+        pendingRequest.requestId);
+
+    pendingRequest.replyTo.tell(new TransactionsNotProcessed(pendingRequest.requestId));
+
+    return this;
+  }
+
+  /**
+   * Operation called when a message was dropped on this node, e.g. by the stash of a Customer
+   * Actor, which is full while it persists events: the transactions of a dropped command are
+   * reported to their sender, as if the mailbox had rejected them.
+   *
+   * @param messageDropped Notification of the dropped message
+   */
+  private Behavior<Event> onMessageDropped(MessageDropped messageDropped) {
+
+    Object message = messageDropped.dropped().message();
+
+    // Pekko Persistence stashes a command wrapped in a case class of its own
+    if (message instanceof Product product && product.productArity() == 1) {
+
+      message = product.productElement(0);
+    }
+
+    CustomerMailbox.rejectTransactions(message);
+
+    return this;
+  }
+
+  /**
+   * Operation called when the balance of a customer is queried: the query is forwarded to the
+   * respective Customer Actor, which replies directly to the caller. Since it follows the
+   * transactions sent before it, the balance includes all of them.
+   *
+   * @param getCustomerBalance Query of the balance
+   */
+  private Behavior<Event> queryBalance(GetCustomerBalance getCustomerBalance) {
+
+    sendToCustomer(getCustomerBalance.customer(),
+        new CustomerActor.GetBalance(getCustomerBalance.replyTo()));
+
+    return this;
+  }
+
+  /**
+   * Operation called when the aggregates of a customer are queried: as the balance, the query is
+   * forwarded to the respective Customer Actor, which replies directly to the caller.
+   *
+   * @param getCustomerAggregates Query of the aggregates
+   */
+  private Behavior<Event> queryAggregates(GetCustomerAggregates getCustomerAggregates) {
+
+    sendToCustomer(getCustomerAggregates.customer(),
+        new CustomerActor.GetAggregates(getCustomerAggregates.replyTo()));
+
+    return this;
+  }
+
+  /**
+   * Operation called when the time windows of a customer are queried: as the balance, the query is
+   * forwarded to the respective Customer Actor, which replies directly to the caller.
+   *
+   * @param getCustomerWindows Query of the windows
+   */
+  private Behavior<Event> queryWindows(GetCustomerWindows getCustomerWindows) {
+
+    sendToCustomer(getCustomerWindows.customer(),
+        new CustomerActor.GetWindows(getCustomerWindows.replyTo()));
+
+    return this;
+  }
+
+  /**
+   * Operation called when the aggregates of all customers are queried: a child
+   * {@link AggregatesGatherer} gathers them, and replies to the caller.
+   *
+   * @param getAllCustomerAggregates Query of the aggregates
+   */
+  private Behavior<Event> queryAllAggregates(GetAllCustomerAggregates getAllCustomerAggregates) {
+
+    getContext().spawnAnonymous(AggregatesGatherer.create(knownCustomers.stream().toArray(),
+        getContext().getSelf(), getAllCustomerAggregates.replyTo(), queryTimeout));
+
+    return this;
+  }
+
+  /**
+   * Operation called when an {@link AggregatesGatherer} is ready for the aggregates of the
+   * customers: the query is sent to each one of them, after the transactions sent before it.
+   *
+   * @param queryCustomers Customers to query
+   */
+  private Behavior<Event> queryCustomers(QueryCustomers queryCustomers) {
+
+    CustomerActor.GetAggregates getAggregates =
+        new CustomerActor.GetAggregates(queryCustomers.replyTo());
+
+    for (int customer : queryCustomers.customers()) {
+
+      sendToCustomer(customer, getAggregates);
+    }
 
     return this;
   }
 
   /**
-   * Finds or creates the reference to the child Actor associated with the given Customer.
+   * Sends a command to the Customer Actor of the given customer: the child Actor, found or created
+   * through the {@link CustomerRegistry}, or the sharded entity, if the customers are distributed
+   * over the cluster.
    *
-   * @param customer Customer
-   * @return Actor reference for the given Customer
+   * @param customer Handle of the customer
+   * @param command  Command for the Customer Actor
+   */
+  private void sendToCustomer(int customer, CustomerActor.Command command) {
+
+    if (sharding != null) {
+
+      // entities are identified by strings: the only place where one is built per message
+      sharding.entityRefFor(CustomerActor.ENTITY_TYPE_KEY, DIRECTORY.customerId(customer))
+          .tell(command);
+
+      return;
+    }
+
+    customers.tell(customer, command);
+  }
+
+  /**
+   * Operation called periodically to passivate the Customer Actors that are idle.
+   */
+  private Behavior<Event> passivateIdleCustomers(PassivateIdleCustomers passivateIdleCustomers) {
+
+    customers.passivateIdle();
+
+    return this;
+  }
+
+  /**
+   * Operation called when a child Customer Actor is terminated.
+   */
+  private Behavior<Event> onCustomerStopped(CustomerStopped customerStopped) {
+
+    customers.onStopped(customerStopped.customer());
+
+    return this;
+  }
+
+  /**
+   * Operation called when the Actor is stopped: the results still buffered are written before the
+   * results log is closed.
    */
-  private ActorRef<Transaction> getActorRef(Customer customer) {
+  private Behavior<Event> closeResults(PostStop postStop) {
 
-    String actorName = "customer-" + customer.getCustomerId();
+    if (results != null) {
 
-    if (getContext().getChild(actorName).isEmpty()) {
+      try {
 
-      CustomSystemOut.INSTANCE.yellow("Actor for " + actorName + " is created");
-      return getContext().spawn(CustomerActor.create(getContext().getSelf()), actorName);
+        results.close();
+      } catch (IOException e) {
+
+        LOGGER.log(LogLevel.WARN, "Results log could not be closed: {}", e.getMessage());
+      }
     }
 
-    CustomSystemOut.INSTANCE.yellow("Child actor for " + actorName + " is found");
-    return getContext().getChild(actorName).get().unsafeUpcast();
+    return this;
   }
 
   /**
@@ -153,29 +960,377 @@ public class TransactionsActor extends AbstractBehavior<Event> {
   /**
    * Represents the {@link Event} concerning the transactions to be processed.
    *
+   * @param requestId    Identification given by the caller, returned in
+   *                     {@link AllTransactionsProcessed}
    * @param transactions Transactions that must be processed
+   * @param trace        {@link Trace} of the batch, or null if it is not traced: it is never
+   *                     serialized
    * @param replyTo      Reference to the caller Actor that has sent this message
    */
-  public record TransactionsToProcess(List<Transaction> transactions,
+  public record TransactionsToProcess(long requestId, TransactionBatch transactions, Trace trace,
                                       ActorRef<Event> replyTo) implements Event {
 
-    // nothing to add here: simple message for Actors
+    /**
+     * Transactions to be processed, which are not traced.
+     */
+    public TransactionsToProcess(long requestId, TransactionBatch transactions,
+        ActorRef<Event> replyTo) {
+
+      this(requestId, transactions, null, replyTo);
+    }
   }
 
   /**
-   * Represents the {@link Event} associated to the successful processing of a transaction.
+   * Represents the {@link Event} associated to the processing of a transaction.
+   *
+   * @param requestId Internal identification of the request the transaction belongs to
+   * @param customer  Handle of the customer in the {@link CustomerDirectory}
+   * @param outcome   {@link TransactionOutcome} of the transaction
    */
-  public static final class TransactionProcessed implements Event {
+  public record TransactionProcessed(long requestId, int customer,
+                                     TransactionOutcome outcome) implements Event {
 
     // nothing to add here: simple message for Actors
   }
 
+  /**
+   * Represents the {@link Event} associated to the processing of all transactions of a request for
+   * one customer.
+   *
+   * @param requestId      Internal identification of the request the transactions belong to
+   * @param customer       Handle of the customer in the {@link CustomerDirectory}
+   * @param outcomes       {@link TransactionOutcomes} of the transactions, in the order they were
+   *                       sent
+   * @param customerStages {@link CustomerStages} of the customer, or null if the transactions are
+   *                       not traced: they are never serialized
+   */
+  public record TransactionsProcessed(long requestId, int customer, TransactionOutcomes outcomes,
+                                      CustomerStages customerStages) implements Event {
+
+    /**
+     * Transactions processed, which are not traced.
+     */
+    public TransactionsProcessed(long requestId, int customer, TransactionOutcomes outcomes) {
+
+      this(requestId, customer, outcomes, null);
+    }
+  }
+
   /**
    * Represents the {@link Event} related to the fact that all transactions received were
    * processed.
+   *
+   * @param requestId Identification given by the caller in {@link TransactionsToProcess}
+   */
+  public record AllTransactionsProcessed(long requestId) implements Event {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Event} related to the fact that all transactions received were
+   * processed, but their results could not be written.
+   *
+   * @param requestId Identification given by the caller in {@link TransactionsToProcess}
+   */
+  public record ResultsNotWritten(long requestId) implements Event {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Event} related to the fact that transactions sent to a Customer Actor
+   * were rejected by its full mailbox or stash, and so will never be processed.
+   *
+   * @param requestId Internal identification of the request the transactions belong to
    */
-  public static final class AllTransactionsProcessed implements Event {
+  public record TransactionsRejected(long requestId) implements Event {
 
     // nothing to add here: simple message for Actors
   }
+
+  /**
+   * Represents the {@link Event} related to the fact that the transactions received will not all
+   * be processed, since some of them were rejected by a full mailbox: the others may have been.
+   *
+   * @param requestId Identification given by the caller in {@link TransactionsToProcess}
+   */
+  public record TransactionsNotProcessed(long requestId) implements Event {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Event} concerning the query of the current balance of a customer.
+   *
+   * @param customer Handle of the customer whose balance is queried
+   * @param replyTo  Reference to the Actor that receives the {@link CustomerActor.Balance}
+   */
+  public record GetCustomerBalance(int customer,
+                                   ActorRef<CustomerActor.Balance> replyTo) implements Event {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Event} concerning the query of the aggregates of the transactions of a
+   * customer.
+   *
+   * @param customer Handle of the customer whose aggregates are queried
+   * @param replyTo  Reference to the Actor that receives the
+   *                 {@link CustomerActor.CustomerAggregates}
+   */
+  public record GetCustomerAggregates(int customer,
+                                      ActorRef<CustomerAggregates> replyTo) implements Event {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Event} concerning the query of the time windows of a customer.
+   *
+   * @param customer Handle of the customer whose windows are queried
+   * @param replyTo  Reference to the Actor that receives the {@link CustomerActor.CustomerWindows}
+   */
+  public record GetCustomerWindows(int customer,
+                                   ActorRef<CustomerWindows> replyTo) implements Event {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Event} concerning the query of the aggregates of the transactions of all
+   * customers this Actor has sent transactions to.
+   *
+   * @param replyTo Reference to the Actor that receives the {@link AllCustomerAggregates}
+   */
+  public record GetAllCustomerAggregates(ActorRef<AllCustomerAggregates> replyTo)
+      implements Event {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Aggregates of the transactions of all customers, as reply to {@link GetAllCustomerAggregates}.
+   *
+   * @param total      {@link TransactionAggregates} of the transactions of all the customers that
+   *                   answered, which must not be changed
+   * @param customers  Aggregates of each customer that answered, in no particular order
+   * @param unanswered Number of customers that did not answer in time, and are not included
+   */
+  public record AllCustomerAggregates(TransactionAggregates total,
+                                      List<CustomerAggregates> customers, int unanswered) {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Event} sent by an {@link AggregatesGatherer} to have the given customers
+   * queried. It never leaves the Actor System of this Actor, and so it is never serialized.
+   *
+   * @param customers Handles of the customers to query
+   * @param replyTo   Reference to the {@link AggregatesGatherer} that receives their aggregates
+   */
+  record QueryCustomers(int[] customers, ActorRef<CustomerAggregates> replyTo)
+      implements Event, NoSerializationVerificationNeeded {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Event} sent by an {@link AggregatesHelper} with the aggregates of a part
+   * of the transactions of a hot customer. It never leaves the Actor System of this Actor, and so
+   * it is never serialized.
+   *
+   * @param aggregationId Identification of the hot batch the part belongs to
+   * @param aggregates    {@link TransactionAggregates} of the transactions of the part
+   */
+  record PartialAggregates(long aggregationId, TransactionAggregates aggregates)
+      implements Event, NoSerializationVerificationNeeded {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Event} sent periodically to passivate the idle Customer Actors. It never
+   * leaves this Actor, and so it is never serialized.
+   */
+  private record PassivateIdleCustomers() implements Event, NoSerializationVerificationNeeded {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Event} concerning a message dropped on the node of this Actor, as
+   * published on the event stream. It is only sent by the Actor System of this Actor, and so it is
+   * never serialized.
+   *
+   * @param dropped Dropped message, with the reason it was dropped
+   */
+  private record MessageDropped(Dropped dropped)
+      implements Event, NoSerializationVerificationNeeded {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Represents the {@link Event} concerning the termination of a child Customer Actor. It is only
+   * sent by the Actor System of this Actor, and so it is never serialized.
+   *
+   * @param customer Handle of the customer of the terminated Actor
+   */
+  record CustomerStopped(int customer) implements Event, NoSerializationVerificationNeeded {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * One {@link TransactionsToProcess} whose transactions are still being processed.
+   */
+  private static final class PendingRequest {
+
+    private final long requestId;
+    private final ActorRef<Event> replyTo;
+    private final TransactionBatch transactions;
+    private final long receivedNanos;
+    private final int[] lanesOfType = new int[TYPE_LATENCIES.length];
+    // only kept when the results are written
+    private final TransactionOutcomes.Builder outcomes;
+    private int pendingLanes;
+    private int rejected;
+    // only set when the batch is traced, once it is dispatched
+    private Trace trace;
+    // only set when the batch is traced: slowest customer of each stage so far
+    private CustomerStages customerStages;
+
+    private PendingRequest(long requestId, ActorRef<Event> replyTo, TransactionBatch transactions,
+        long receivedNanos, boolean withOutcomes) {
+
+      this.requestId = requestId;
+      this.replyTo = replyTo;
+      this.transactions = transactions;
+      this.receivedNanos = receivedNanos;
+      this.outcomes = withOutcomes ? new TransactionOutcomes.Builder(transactions.size()) : null;
+    }
+  }
+
+  /**
+   * Transactions of one lane of a {@link PendingRequest} that are still being processed.
+   */
+  private static final class PendingLane {
+
+    private final PendingRequest request;
+    private final EnumSet<TransactionType> types = EnumSet.noneOf(TransactionType.class);
+    // only kept with the outcomes of the request: where the next outcome of each customer goes
+    private final Map<Integer, IndexesOfCustomer> indexesOfCustomers;
+    private int remaining;
+
+    private PendingLane(PendingRequest request, List<TransactionBatch> groups) {
+
+      this.request = request;
+      this.indexesOfCustomers = request.outcomes == null ? null : new HashMap<>();
+
+      for (TransactionBatch transactions : groups) {
+
+        remaining += transactions.size();
+
+        for (int i = 0; i < transactions.size(); i++) {
+
+          types.add(transactions.transactionType(i));
+        }
+
+        if (indexesOfCustomers != null) {
+
+          addIndexes(transactions);
+        }
+      }
+    }
+
+    /**
+     * Keeps the index in the request of each of the given transactions, by customer: a customer
+     * acknowledges its transactions in the order they are sent to it, which is theirs.
+     */
+    private void addIndexes(TransactionBatch transactions) {
+
+      int[] indexes = transactions.indexesIn(request.transactions);
+      IndexesOfCustomer ofCustomer = null;
+
+      for (int i = 0; i < transactions.size(); i++) {
+
+        int customer = transactions.customer(i);
+
+        if (ofCustomer == null || ofCustomer.customer != customer) {
+
+          ofCustomer = indexesOfCustomers.computeIfAbsent(customer, IndexesOfCustomer::new);
+        }
+
+        ofCustomer.add(indexes[i]);
+      }
+    }
+
+    /**
+     * Sets the outcomes acknowledged by a customer to its next transactions in the request.
+     */
+    private void setOutcomes(int customer, TransactionOutcomes outcomes) {
+
+      IndexesOfCustomer ofCustomer = indexesOfCustomers.get(customer);
+
+      for (int i = 0; i < outcomes.size(); i++) {
+
+        request.outcomes.set(ofCustomer.indexes[ofCustomer.acknowledged++], outcomes.get(i));
+      }
+    }
+  }
+
+  /**
+   * Indexes in a request of the transactions of a customer in one of its lanes, in the order they
+   * are sent to the customer.
+   */
+  private static final class IndexesOfCustomer {
+
+    private final int customer;
+    private int[] indexes = new int[1];
+    private int size;
+    private int acknowledged;
+
+    private IndexesOfCustomer(int customer) {
+
+      this.customer = customer;
+    }
+
+    private void add(int index) {
+
+      if (size == indexes.length) {
+
+        indexes = Arrays.copyOf(indexes, 2 * size);
+      }
+
+      indexes[size++] = index;
+    }
+  }
+
+  /**
+   * Transactions of a customer waiting to be sent to it: those of a hot batch until their
+   * aggregates are computed, and those behind them until they are sent.
+   */
+  private static final class WaitingBatch {
+
+    private final long requestId;
+    private final TransactionBatch transactions;
+    // only set when the transactions are traced
+    private final Trace trace;
+    // only set for a hot batch
+    private final TransactionAggregates aggregates;
+    private int remainingParts;
+
+    private WaitingBatch(long requestId, TransactionBatch transactions, Trace trace,
+        TransactionAggregates aggregates, int remainingParts) {
+
+      this.requestId = requestId;
+      this.transactions = transactions;
+      this.trace = trace;
+      this.aggregates = aggregates;
+      this.remainingParts = remainingParts;
+    }
+  }
 }
@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package edu.pekko.sample.app.actor;
+
+import com.typesafe.config.Config;
+import edu.pekko.sample.app.actor.TransactionsActor.PartialAggregates;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsNotProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsRejected;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsToProcess;
+import edu.pekko.sample.app.metrics.BoundedMeteredMailbox;
+import org.apache.pekko.actor.ActorSystem;
+
+/**
+ * Mailbox of the Transactions Actor:
+ * <ul>
+ *   <li>the replies to the work it has sent, i.e. the acknowledgements and rejections of the
+ *   Customer Actors and the aggregates of the helpers, are not bounded: they are as many as the
+ *   transactions in flight at most, and a request whose reply is lost would never complete</li>
+ *   <li>a batch of transactions that does not get in is answered at once with
+ *   {@link TransactionsNotProcessed}, instead of leaving its sender waiting for a timeout</li>
+ * </ul>
+ */
+public class TransactionsMailbox extends BoundedMeteredMailbox {
+
+  public TransactionsMailbox(ActorSystem.Settings settings, Config config) {
+
+    super(settings, config);
+  }
+
+  @Override
+  protected boolean isBounded(Object message) {
+
+    return !(message instanceof TransactionProcessed || message instanceof TransactionsProcessed
+        || message instanceof TransactionsRejected || message instanceof PartialAggregates);
+  }
+
+  @Override
+  protected void reject(Object message) {
+
+    if (message instanceof TransactionsToProcess transactionsToProcess) {
+
+      transactionsToProcess.replyTo()
+          .tell(new TransactionsNotProcessed(transactionsToProcess.requestId()));
+    }
+  }
+}
@@ -22,18 +22,53 @@
  * SOFTWARE.
  */
 
+
 package edu.pekko.sample.app.data.definition;
 
 /**
  * Represents a transaction.
+ * <p>
+ * The customer is given by its handle in the {@link CustomerDirectory}, which is only valid within
+ * this JVM: when serialized, the transaction carries the UUID of the customer instead, which is
+ * interned again when it is deserialized.
+ * <p>
+ * The event time is the time the transaction happened at, as given by its source, in milliseconds
+ * since the epoch: it is {@link #UNKNOWN_EVENT_TIME} for the transactions recorded without one.
  *
  * @param id              Transaction identification
- * @param customer        {@link Customer}
- * @param amount          Amount of the transaction
+ * @param customer        Handle of the customer in the {@link CustomerDirectory}
+ * @param amountInCents   Amount of the transaction in minor units (cents), so that it is exact
  * @param transactionType {@link TransactionType}
+ * @param eventTimeMillis Event time in milliseconds since the epoch, or
+ *                        {@link #UNKNOWN_EVENT_TIME}
  */
-public record Transaction(int id, Customer customer, Double amount,
-                          TransactionType transactionType) {
+public record Transaction(int id, int customer, long amountInCents,
+                          TransactionType transactionType,
+                          long eventTimeMillis) {
+
+  /**
+   * Event time of the transactions recorded without one.
+   */
+  public static final long UNKNOWN_EVENT_TIME = 0;
+
+  /**
+   * Creates a transaction without event time.
+   *
+   * @param id              Transaction identification
+   * @param customer        Handle of the customer in the {@link CustomerDirectory}
+   * @param amountInCents   Amount of the transaction in minor units (cents)
+   * @param transactionType {@link TransactionType}
+   */
+  public Transaction(int id, int customer, long amountInCents, TransactionType transactionType) {
+
+    this(id, customer, amountInCents, transactionType, UNKNOWN_EVENT_TIME);
+  }
+
+  /**
+   * @return Whether the event time of the transaction is known
+   */
+  public boolean hasEventTime() {
 
-  // nothing to add here
-}
\ No newline at end of file
+    return eventTimeMillis != UNKNOWN_EVENT_TIME;
+  }
+}
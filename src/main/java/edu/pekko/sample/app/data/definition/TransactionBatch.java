@@ -0,0 +1,587 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.definition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable batch of transactions, stored by column: identifications, customers, amounts, types
+ * and event times are each kept in an array of primitives, so that a batch of any size is a handful of objects,
+ * instead of one {@link Transaction} per row.
+ * <p>
+ * A batch is either built with a {@link Builder} or a view of the rows of another batch, as
+ * returned by {@link #splitByCustomer()}, {@link #splitByType(int[], int)} and
+ * {@link #slice(int, int)}: views share the arrays of the batch they come from, and
+ * {@link #indexesIn(TransactionBatch)} finds their transactions in it.
+ * <p>
+ * As {@link Transaction}, it is serialized with the UUIDs of the customers instead of their
+ * handles, and only the rows of the batch itself (not the whole arrays of a view) are written.
+ */
+public final class TransactionBatch {
+
+  private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+  private static final TransactionBatch EMPTY = new Builder(0).build();
+
+  private final int[] ids;
+  private final int[] customers;
+  private final long[] amountsInCents;
+  private final byte[] types;
+  private final long[] eventTimesMillis;
+
+  // rows of the arrays that belong to this batch, from offset on: null if they are offset to
+  // offset + size - 1
+  private final int[] rows;
+  private final int offset;
+  private final int size;
+
+  private TransactionBatch(int[] ids, int[] customers, long[] amountsInCents, byte[] types,
+      long[] eventTimesMillis, int[] rows, int offset, int size) {
+
+    this.ids = ids;
+    this.customers = customers;
+    this.amountsInCents = amountsInCents;
+    this.types = types;
+    this.eventTimesMillis = eventTimesMillis;
+    this.rows = rows;
+    this.offset = offset;
+    this.size = size;
+  }
+
+  /**
+   * @return Empty batch
+   */
+  public static TransactionBatch empty() {
+
+    return EMPTY;
+  }
+
+  /**
+   * @param transactions Transactions
+   * @return Batch with the given transactions, in the same order
+   */
+  public static TransactionBatch of(List<Transaction> transactions) {
+
+    Builder builder = new Builder(transactions.size());
+
+    transactions.forEach(builder::add);
+
+    return builder.build();
+  }
+
+  /**
+   * @param batches Batches of transactions
+   * @return Batch with the transactions of all given batches, in the same order
+   */
+  public static TransactionBatch concat(List<TransactionBatch> batches) {
+
+    if (batches.size() == 1) {
+
+      return batches.get(0);
+    }
+
+    Builder builder = new Builder(batches.stream().mapToInt(TransactionBatch::size).sum());
+
+    for (TransactionBatch batch : batches) {
+
+      for (int i = 0; i < batch.size; i++) {
+
+        int row = batch.row(i);
+
+        builder.add(batch.ids[row], batch.customers[row], batch.amountsInCents[row],
+            batch.types[row], batch.eventTimesMillis[row]);
+      }
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * @return Number of transactions in the batch
+   */
+  public int size() {
+
+    return size;
+  }
+
+  /**
+   * @return Whether there is no transaction in the batch
+   */
+  public boolean isEmpty() {
+
+    return size == 0;
+  }
+
+  /**
+   * @param index Index of the transaction in the batch
+   * @return Transaction identification
+   */
+  public int id(int index) {
+
+    return ids[row(index)];
+  }
+
+  /**
+   * @param index Index of the transaction in the batch
+   * @return Handle of the customer in the {@link CustomerDirectory}
+   */
+  public int customer(int index) {
+
+    return customers[row(index)];
+  }
+
+  /**
+   * @param index Index of the transaction in the batch
+   * @return Amount of the transaction in minor units (cents)
+   */
+  public long amountInCents(int index) {
+
+    return amountsInCents[row(index)];
+  }
+
+  /**
+   * @param index Index of the transaction in the batch
+   * @return {@link TransactionType}
+   */
+  public TransactionType transactionType(int index) {
+
+    return TRANSACTION_TYPES[types[row(index)]];
+  }
+
+  /**
+   * @param index Index of the transaction in the batch
+   * @return Event time in milliseconds since the epoch, or {@link Transaction#UNKNOWN_EVENT_TIME}
+   */
+  public long eventTimeMillis(int index) {
+
+    return eventTimesMillis[row(index)];
+  }
+
+  /**
+   * Builds the transaction with the given index, as a new object: only for the consumers that
+   * really need one.
+   *
+   * @param index Index of the transaction in the batch
+   * @return {@link Transaction}
+   */
+  public Transaction transaction(int index) {
+
+    int row = row(index);
+
+    return new Transaction(ids[row], customers[row], amountsInCents[row],
+        TRANSACTION_TYPES[types[row]], eventTimesMillis[row]);
+  }
+
+  /**
+   * @return Transactions of the batch, as new objects
+   */
+  public List<Transaction> toList() {
+
+    List<Transaction> transactions = new ArrayList<>(size);
+
+    for (int i = 0; i < size; i++) {
+
+      transactions.add(transaction(i));
+    }
+
+    return transactions;
+  }
+
+  /**
+   * Splits the batch by customer, keeping the order of the transactions of each customer. The
+   * returned batches are views of this one: no transaction is copied.
+   *
+   * @return One batch per customer, in the order of their first transaction
+   */
+  public List<TransactionBatch> splitByCustomer() {
+
+    if (size == 0) {
+
+      return List.of();
+    }
+
+    // customer of each group, found by open addressing: handle + 1 in each slot, 0 if empty
+    int mask = Integer.highestOneBit(2 * size) * 2 - 1;
+    int[] slots = new int[mask + 1];
+    int[] groupOfSlot = new int[mask + 1];
+
+    int[] groupOfTransaction = new int[size];
+    int[] groupStarts = new int[size + 1];
+    int numberOfGroups = 0;
+
+    for (int i = 0; i < size; i++) {
+
+      int customer = customers[row(i)];
+      int slot = Integer.hashCode(customer * 0x9E3779B9) & mask;
+
+      while (slots[slot] != 0 && slots[slot] != customer + 1) {
+
+        slot = (slot + 1) & mask;
+      }
+
+      if (slots[slot] == 0) {
+
+        slots[slot] = customer + 1;
+        groupOfSlot[slot] = numberOfGroups++;
+      }
+
+      groupOfTransaction[i] = groupOfSlot[slot];
+      groupStarts[groupOfTransaction[i] + 1]++;
+    }
+
+    if (numberOfGroups == 1) {
+
+      return List.of(this);
+    }
+
+    for (int group = 0; group < numberOfGroups; group++) {
+
+      groupStarts[group + 1] += groupStarts[group];
+    }
+
+    // the rows of each group, one group after the other
+    int[] groupedRows = new int[size];
+    int[] next = Arrays.copyOf(groupStarts, numberOfGroups);
+
+    for (int i = 0; i < size; i++) {
+
+      groupedRows[next[groupOfTransaction[i]]++] = row(i);
+    }
+
+    List<TransactionBatch> batches = new ArrayList<>(numberOfGroups);
+
+    for (int group = 0; group < numberOfGroups; group++) {
+
+      batches.add(new TransactionBatch(ids, customers, amountsInCents, types, eventTimesMillis,
+          groupedRows, groupStarts[group], groupStarts[group + 1] - groupStarts[group]));
+    }
+
+    return batches;
+  }
+
+  /**
+   * Splits the batch into groups of types, keeping the order of the transactions of each group.
+   * The returned batches are views of this one: no transaction is copied.
+   *
+   * @param groupOfType    Group of each type, by ordinal, from 0 to the number of groups - 1
+   * @param numberOfGroups Number of groups
+   * @return One batch per group, in the order of the groups, empty if a group has no transaction
+   */
+  public List<TransactionBatch> splitByType(int[] groupOfType, int numberOfGroups) {
+
+    int[] groupStarts = new int[numberOfGroups + 1];
+
+    for (int i = 0; i < size; i++) {
+
+      groupStarts[groupOfType[types[row(i)]] + 1]++;
+    }
+
+    List<TransactionBatch> batches = new ArrayList<>(numberOfGroups);
+
+    for (int group = 0; group < numberOfGroups; group++) {
+
+      if (groupStarts[group + 1] == size) {
+
+        // all of them in one group
+        for (int other = 0; other < numberOfGroups; other++) {
+
+          batches.add(other == group ? this : EMPTY);
+        }
+
+        return batches;
+      }
+
+      groupStarts[group + 1] += groupStarts[group];
+    }
+
+    int[] groupedRows = new int[size];
+    int[] next = Arrays.copyOf(groupStarts, numberOfGroups);
+
+    for (int i = 0; i < size; i++) {
+
+      int row = row(i);
+
+      groupedRows[next[groupOfType[types[row]]]++] = row;
+    }
+
+    for (int group = 0; group < numberOfGroups; group++) {
+
+      batches.add(new TransactionBatch(ids, customers, amountsInCents, types, eventTimesMillis,
+          groupedRows, groupStarts[group], groupStarts[group + 1] - groupStarts[group]));
+    }
+
+    return batches;
+  }
+
+  /**
+   * @param from Index of the first transaction of the slice
+   * @param to   Index after the last transaction of the slice
+   * @return View of the transactions of this batch from the first index (inclusive) to the second
+   *     one (exclusive): no transaction is copied
+   * @throws IndexOutOfBoundsException If the indexes are not within the batch
+   */
+  public TransactionBatch slice(int from, int to) {
+
+    Objects.checkFromToIndex(from, to, size);
+
+    if (from == 0 && to == size) {
+
+      return this;
+    }
+
+    return new TransactionBatch(ids, customers, amountsInCents, types, eventTimesMillis, rows,
+        offset + from, to - from);
+  }
+
+  /**
+   * @param batch Batch this one is a view of, possibly through other views
+   * @return Index in the given batch of each transaction of this one, in the order of this one
+   * @throws IllegalArgumentException If a transaction of this batch is not one of the given batch
+   */
+  public int[] indexesIn(TransactionBatch batch) {
+
+    int[] indexes = new int[size];
+
+    if (size == 0) {
+
+      return indexes;
+    }
+
+    if (ids != batch.ids) {
+
+      throw new IllegalArgumentException("Not a view of the given batch");
+    }
+
+    // the index of each row is only looked up when the given batch is itself a view by rows
+    int[] indexOfRow = null;
+
+    if (batch.rows != null) {
+
+      indexOfRow = new int[ids.length];
+      Arrays.fill(indexOfRow, -1);
+
+      for (int i = 0; i < batch.size; i++) {
+
+        indexOfRow[batch.row(i)] = i;
+      }
+    }
+
+    for (int i = 0; i < size; i++) {
+
+      int index = indexOfRow == null ? row(i) - batch.offset : indexOfRow[row(i)];
+
+      if (index < 0 || index >= batch.size) {
+
+        throw new IllegalArgumentException("Not a view of the given batch");
+      }
+
+      indexes[i] = index;
+    }
+
+    return indexes;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+
+    if (this == other) {
+
+      return true;
+    }
+
+    if (!(other instanceof TransactionBatch batch) || batch.size != size) {
+
+      return false;
+    }
+
+    for (int i = 0; i < size; i++) {
+
+      int row = row(i);
+      int otherRow = batch.row(i);
+
+      if (ids[row] != batch.ids[otherRow] || customers[row] != batch.customers[otherRow]
+          || amountsInCents[row] != batch.amountsInCents[otherRow]
+          || types[row] != batch.types[otherRow]
+          || eventTimesMillis[row] != batch.eventTimesMillis[otherRow]) {
+
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+
+    int hash = size;
+
+    for (int i = 0; i < size; i++) {
+
+      int row = row(i);
+
+      hash = 31 * hash + Objects.hash(ids[row], customers[row], amountsInCents[row], types[row],
+          eventTimesMillis[row]);
+    }
+
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+
+    return "TransactionBatch" + toList();
+  }
+
+  private int row(int index) {
+
+    Objects.checkIndex(index, size);
+
+    return rows == null ? offset + index : rows[offset + index];
+  }
+
+  /**
+   * Fills the columns of a new {@link TransactionBatch}, one transaction after the other.
+   */
+  public static final class Builder {
+
+    private int[] ids;
+    private int[] customers;
+    private long[] amountsInCents;
+    private byte[] types;
+    private long[] eventTimesMillis;
+    private int size;
+
+    /**
+     * @param capacity Expected number of transactions: the columns grow if there are more
+     */
+    public Builder(int capacity) {
+
+      ids = new int[capacity];
+      customers = new int[capacity];
+      amountsInCents = new long[capacity];
+      types = new byte[capacity];
+      eventTimesMillis = new long[capacity];
+    }
+
+    /**
+     * Appends a transaction without event time.
+     *
+     * @param id              Transaction identification
+     * @param customer        Handle of the customer in the {@link CustomerDirectory}
+     * @param amountInCents   Amount of the transaction in minor units (cents)
+     * @param transactionType {@link TransactionType}
+     * @return This builder
+     */
+    public Builder add(int id, int customer, long amountInCents,
+        TransactionType transactionType) {
+
+      return add(id, customer, amountInCents, transactionType, Transaction.UNKNOWN_EVENT_TIME);
+    }
+
+    /**
+     * Appends a transaction.
+     *
+     * @param id              Transaction identification
+     * @param customer        Handle of the customer in the {@link CustomerDirectory}
+     * @param amountInCents   Amount of the transaction in minor units (cents)
+     * @param transactionType {@link TransactionType}
+     * @param eventTimeMillis Event time in milliseconds since the epoch, or
+     *                        {@link Transaction#UNKNOWN_EVENT_TIME}
+     * @return This builder
+     */
+    public Builder add(int id, int customer, long amountInCents,
+        TransactionType transactionType, long eventTimeMillis) {
+
+      return add(id, customer, amountInCents, (byte) transactionType.ordinal(), eventTimeMillis);
+    }
+
+    /**
+     * Appends a transaction.
+     *
+     * @param transaction {@link Transaction}
+     * @return This builder
+     */
+    public Builder add(Transaction transaction) {
+
+      return add(transaction.id(), transaction.customer(), transaction.amountInCents(),
+          transaction.transactionType(), transaction.eventTimeMillis());
+    }
+
+    /**
+     * @return Number of transactions appended so far
+     */
+    public int size() {
+
+      return size;
+    }
+
+    /**
+     * @return Batch with the transactions appended so far: the builder must not be used anymore
+     */
+    public TransactionBatch build() {
+
+      TransactionBatch batch = new TransactionBatch(ids, customers, amountsInCents, types,
+          eventTimesMillis, null, 0, size);
+
+      // the columns now belong to the batch
+      ids = null;
+      customers = null;
+      amountsInCents = null;
+      types = null;
+      eventTimesMillis = null;
+
+      return batch;
+    }
+
+    private Builder add(int id, int customer, long amountInCents, byte type,
+        long eventTimeMillis) {
+
+      if (size == ids.length) {
+
+        int capacity = Math.max(16, 2 * size);
+
+        ids = Arrays.copyOf(ids, capacity);
+        customers = Arrays.copyOf(customers, capacity);
+        amountsInCents = Arrays.copyOf(amountsInCents, capacity);
+        types = Arrays.copyOf(types, capacity);
+        eventTimesMillis = Arrays.copyOf(eventTimesMillis, capacity);
+      }
+
+      ids[size] = id;
+      customers[size] = customer;
+      amountsInCents[size] = amountInCents;
+      types[size] = type;
+      eventTimesMillis[size] = eventTimeMillis;
+      size++;
+
+      return this;
+    }
+  }
+}
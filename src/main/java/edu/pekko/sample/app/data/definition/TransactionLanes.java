@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.definition;
+
+import com.typesafe.config.Config;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Priority lanes of the transactions, by {@link TransactionType}: the transactions of a more urgent
+ * lane (a lower number) are dispatched, and taken from the mailboxes of the Customer Actors, before
+ * those of a less urgent one, so that a backlog of the latter does not delay them. Within a lane,
+ * transactions keep their order.
+ * <p>
+ * When the order of the transactions of a customer must be kept, e.g. because a rule applies them
+ * against the balance left by the previous ones, all the transactions of a customer in a batch go
+ * in the most urgent lane among them, and the messages of a customer are never reordered.
+ */
+public final class TransactionLanes {
+
+  private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+  /**
+   * All types in a single lane, i.e. without priorities.
+   */
+  public static final TransactionLanes SINGLE = new TransactionLanes(
+      new int[TRANSACTION_TYPES.length], false);
+
+  private final int[] laneOfType;
+  private final int numberOfLanes;
+  private final boolean keepCustomerOrder;
+
+  /**
+   * @param laneOfType        Lane of each type, by ordinal, from 0 (most urgent) to the number of
+   *                          types - 1
+   * @param keepCustomerOrder Whether the transactions of a customer are kept in their order
+   * @throws IllegalArgumentException If there is not a lane per type, or a lane is out of range
+   */
+  public TransactionLanes(int[] laneOfType, boolean keepCustomerOrder) {
+
+    if (laneOfType.length != TRANSACTION_TYPES.length) {
+
+      throw new IllegalArgumentException("Expected a lane for each of the "
+          + TRANSACTION_TYPES.length + " types of transactions: " + Arrays.toString(laneOfType));
+    }
+
+    for (int lane : laneOfType) {
+
+      if (lane < 0 || lane >= TRANSACTION_TYPES.length) {
+
+        throw new IllegalArgumentException("Lane must be from 0 to "
+            + (TRANSACTION_TYPES.length - 1) + ": " + lane);
+      }
+    }
+
+    this.laneOfType = laneOfType.clone();
+    this.numberOfLanes = Arrays.stream(laneOfType).max().orElse(0) + 1;
+    this.keepCustomerOrder = keepCustomerOrder;
+  }
+
+  /**
+   * Reads the lanes from the given configuration, e.g. "pekko-sample.customer.lanes", with the lane
+   * of each type under its name in lower case (e.g. "pay") and the path "keep-customer-order".
+   *
+   * @param config Configuration of the lanes
+   * @return Instance of {@link TransactionLanes}
+   * @throws IllegalArgumentException If a lane is out of range
+   */
+  public static TransactionLanes fromConfig(Config config) {
+
+    int[] laneOfType = new int[TRANSACTION_TYPES.length];
+
+    for (TransactionType type : TRANSACTION_TYPES) {
+
+      laneOfType[type.ordinal()] = config.getInt(type.name().toLowerCase(Locale.ROOT));
+    }
+
+    return new TransactionLanes(laneOfType, config.getBoolean("keep-customer-order"));
+  }
+
+  /**
+   * @return Number of lanes, up to the least urgent one given to a type
+   */
+  public int numberOfLanes() {
+
+    return numberOfLanes;
+  }
+
+  /**
+   * @return Whether the transactions of a customer are kept in their order
+   */
+  public boolean keepCustomerOrder() {
+
+    return keepCustomerOrder;
+  }
+
+  /**
+   * @param transactionType {@link TransactionType}
+   * @return Lane of the given type
+   */
+  public int lane(TransactionType transactionType) {
+
+    return laneOfType[transactionType.ordinal()];
+  }
+
+  /**
+   * @param transactions Transactions
+   * @return Most urgent lane among the given transactions, or the least urgent lane if there is
+   *     none
+   */
+  public int lane(TransactionBatch transactions) {
+
+    int lane = numberOfLanes - 1;
+
+    for (int i = 0; i < transactions.size() && lane > 0; i++) {
+
+      lane = Math.min(lane, lane(transactions.transactionType(i)));
+    }
+
+    return lane;
+  }
+
+  /**
+   * Splits the given transactions by lane, keeping their order within each lane, as views of the
+   * batch.
+   *
+   * @param transactions Transactions
+   * @return Transactions of each lane, from the most urgent, empty if a lane has none
+   */
+  public List<TransactionBatch> split(TransactionBatch transactions) {
+
+    return transactions.splitByType(laneOfType, numberOfLanes);
+  }
+}
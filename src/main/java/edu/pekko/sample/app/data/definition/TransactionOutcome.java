@@ -22,39 +22,27 @@
  * SOFTWARE.
  */
 
+
 package edu.pekko.sample.app.data.definition;
 
 /**
- * Represents a customer.
+ * What became of a transaction once its Customer Actor processed it.
  */
-public enum Customer {
-
-  CUSTOMER_ID_1("1fd40c65-f596-45d8-9e0a-632c37ccb771", "\u001B[35m"),
-  CUSTOMER_ID_2("00221321-592f-49f7-933a-e6aebdc716a6", "\033[0;32m"),
-  CUSTOMER_ID_3("ed870e05-ac7a-4847-8d40-bb37f1fe4880", "\033[0;34m");
-
-  private final String customerId;
-  private final String color;
-
-  Customer(String customerId, String color) {
-
-    this.customerId = customerId;
-    this.color = color;
-  }
+public enum TransactionOutcome {
 
   /**
-   * @return Customer identification
+   * Applied to the ledger of the customer.
    */
-  public String getCustomerId() {
-
-    return customerId;
-  }
+  APPLIED,
 
   /**
-   * @return Customer identification with its associated color mark for printing to the output
+   * Not applied, since a transaction with the same id was applied before, possibly earlier in the
+   * same batch.
    */
-  public String getColorfulCustomerId() {
+  DUPLICATE,
 
-    return color + customerId;
-  }
-}
\ No newline at end of file
+  /**
+   * Not applied, since it would overflow the balance of the customer, or one of its sums.
+   */
+  REJECTED
+}
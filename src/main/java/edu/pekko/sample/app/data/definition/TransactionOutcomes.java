@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.definition;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Immutable {@link TransactionOutcome} of each transaction of a {@link TransactionBatch}, in the
+ * same order, kept as one byte per transaction.
+ */
+public final class TransactionOutcomes {
+
+  private static final TransactionOutcome[] OUTCOMES = TransactionOutcome.values();
+
+  private final byte[] outcomes;
+
+  private TransactionOutcomes(byte[] outcomes) {
+
+    this.outcomes = outcomes;
+  }
+
+  /**
+   * @param size Number of transactions
+   * @return Outcomes of the given number of transactions, all of them applied
+   */
+  public static TransactionOutcomes allApplied(int size) {
+
+    return new TransactionOutcomes(new byte[size]);
+  }
+
+  /**
+   * @param outcomes Outcome of each transaction
+   * @return Outcomes of the transactions, in the same order
+   */
+  public static TransactionOutcomes of(TransactionOutcome... outcomes) {
+
+    byte[] ordinals = new byte[outcomes.length];
+
+    for (int i = 0; i < outcomes.length; i++) {
+
+      ordinals[i] = (byte) outcomes[i].ordinal();
+    }
+
+    return new TransactionOutcomes(ordinals);
+  }
+
+  /**
+   * @return Number of transactions
+   */
+  public int size() {
+
+    return outcomes.length;
+  }
+
+  /**
+   * @param index Index of the transaction in its batch
+   * @return {@link TransactionOutcome} of the transaction
+   */
+  public TransactionOutcome get(int index) {
+
+    return OUTCOMES[outcomes[index]];
+  }
+
+  /**
+   * @param outcome {@link TransactionOutcome}
+   * @return Number of transactions with the given outcome
+   */
+  public int count(TransactionOutcome outcome) {
+
+    int count = 0;
+
+    for (byte ordinal : outcomes) {
+
+      if (ordinal == outcome.ordinal()) {
+
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+
+    return this == other || other instanceof TransactionOutcomes transactionOutcomes
+        && Arrays.equals(outcomes, transactionOutcomes.outcomes);
+  }
+
+  @Override
+  public int hashCode() {
+
+    return Arrays.hashCode(outcomes);
+  }
+
+  @Override
+  public String toString() {
+
+    TransactionOutcome[] array = new TransactionOutcome[outcomes.length];
+
+    for (int i = 0; i < outcomes.length; i++) {
+
+      array[i] = get(i);
+    }
+
+    return "TransactionOutcomes" + Arrays.toString(array);
+  }
+
+  /**
+   * Fills the outcomes of the transactions of a batch, in any order: those not set are applied.
+   */
+  public static final class Builder {
+
+    private byte[] outcomes;
+
+    /**
+     * @param size Number of transactions of the batch
+     */
+    public Builder(int size) {
+
+      outcomes = new byte[size];
+    }
+
+    /**
+     * @param index   Index of the transaction in its batch
+     * @param outcome {@link TransactionOutcome} of the transaction
+     * @return This builder
+     */
+    public Builder set(int index, TransactionOutcome outcome) {
+
+      outcomes[Objects.checkIndex(index, outcomes.length)] = (byte) outcome.ordinal();
+
+      return this;
+    }
+
+    /**
+     * @return Outcomes set so far: the builder must not be used anymore
+     */
+    public TransactionOutcomes build() {
+
+      TransactionOutcomes transactionOutcomes = new TransactionOutcomes(outcomes);
+
+      // the outcomes now belong to the instance
+      outcomes = null;
+
+      return transactionOutcomes;
+    }
+  }
+}
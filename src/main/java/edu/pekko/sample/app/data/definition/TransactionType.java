@@ -29,7 +29,34 @@ package edu.pekko.sample.app.data.definition;
  */
 public enum TransactionType {
 
+  /**
+   * Money received by the customer: it increases the balance.
+   */
   RECEIPT,
+
+  /**
+   * Money paid by the customer: it decreases the balance.
+   */
   PAY,
-  REIMBURSE
+
+  /**
+   * Money given back to the customer: it increases the balance.
+   */
+  REIMBURSE;
+
+  /**
+   * Applies a transaction of this type to the given balance.
+   *
+   * @param balanceInCents Balance in minor units (cents)
+   * @param amountInCents  Amount of the transaction in minor units (cents)
+   * @return New balance in minor units (cents)
+   * @throws ArithmeticException If the balance overflows
+   */
+  public long applyTo(long balanceInCents, long amountInCents) {
+
+    return switch (this) {
+      case RECEIPT, REIMBURSE -> Math.addExact(balanceInCents, amountInCents);
+      case PAY -> Math.subtractExact(balanceInCents, amountInCents);
+    };
+  }
 }
\ No newline at end of file
@@ -0,0 +1,362 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.ledger;
+
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionType;
+
+/**
+ * Running balance of a customer.
+ * <p>
+ * The balance is kept in minor units (cents) as primitive {@code long}, so that applying a
+ * transaction neither allocates nor accumulates floating-point errors.
+ * <p>
+ * The ids of the transactions applied are kept in a {@link TransactionIdSet}, so that a
+ * transaction received again (replayed or redelivered upstream) is only applied once.
+ * <p>
+ * The count, sum, minimum and maximum of the amounts of each type of transaction are kept up to
+ * date in {@link TransactionAggregates} as transactions are applied, and so are they over windows
+ * of their event time in {@link TimeWindows}. The aggregates of the transactions of a hot
+ * customer can also be computed elsewhere, and merged as they come.
+ * <p>
+ * A transaction that would overflow the balance or one of those sums is never applied: the
+ * transactions are checked with {@link #canApply(Transaction)} or
+ * {@link #withoutOverflowing(TransactionBatch)} before they are persisted, so that applying the
+ * persisted ones, also on recovery, never fails.
+ */
+public final class CustomerLedger {
+
+  private long balanceInCents;
+  private long numberOfTransactions;
+  private TransactionIdSet appliedIds = new TransactionIdSet();
+  private TransactionAggregates aggregates = new TransactionAggregates();
+  private TimeWindows windows;
+
+  /**
+   * Creates an empty ledger with the {@link WindowSettings#DEFAULTS}.
+   */
+  public CustomerLedger() {
+
+    this(WindowSettings.DEFAULTS);
+  }
+
+  /**
+   * Creates an empty ledger.
+   *
+   * @param windowSettings {@link WindowSettings} of its {@link TimeWindows}
+   */
+  public CustomerLedger(WindowSettings windowSettings) {
+
+    this.windows = new TimeWindows(windowSettings);
+  }
+
+  /**
+   * Applies the given transaction to the balance, unless it was already applied.
+   *
+   * @param transaction {@link Transaction}
+   * @return true if it was applied, false if it was already applied before
+   */
+  public boolean apply(Transaction transaction) {
+
+    return apply(transaction.id(), transaction.transactionType(), transaction.amountInCents(),
+        transaction.eventTimeMillis());
+  }
+
+  /**
+   * Applies a transaction without event time to the balance, unless a transaction with the same id
+   * was already applied: it is left out of the windows.
+   *
+   * @param transactionId   Id of the transaction
+   * @param transactionType {@link TransactionType} of the transaction
+   * @param amountInCents   Amount of the transaction in minor units (cents)
+   * @return true if it was applied, false if it was already applied before or it would overflow
+   */
+  public boolean apply(int transactionId, TransactionType transactionType, long amountInCents) {
+
+    return apply(transactionId, transactionType, amountInCents, Transaction.UNKNOWN_EVENT_TIME);
+  }
+
+  /**
+   * Applies a transaction to the balance and to the windows of its event time, unless a
+   * transaction with the same id was already applied.
+   *
+   * @param transactionId   Id of the transaction
+   * @param transactionType {@link TransactionType} of the transaction
+   * @param amountInCents   Amount of the transaction in minor units (cents)
+   * @param eventTimeMillis Event time of the transaction, in milliseconds since the epoch, or
+   *                        {@link Transaction#UNKNOWN_EVENT_TIME}
+   * @return true if it was applied, false if it was already applied before, or if it would
+   *     overflow the balance, the sum of its type or the sum of its type in its bucket of the
+   *     windows, in which case nothing is changed
+   */
+  public boolean apply(int transactionId, TransactionType transactionType, long amountInCents,
+      long eventTimeMillis) {
+
+    return apply(transactionId, transactionType, amountInCents, eventTimeMillis, true);
+  }
+
+  /**
+   * Applies a transaction as {@link #apply(int, TransactionType, long, long)}, except to the
+   * aggregates: they are computed elsewhere, and added with
+   * {@link #mergeAggregates(TransactionAggregates)}.
+   *
+   * @param transactionId   Id of the transaction
+   * @param transactionType {@link TransactionType} of the transaction
+   * @param amountInCents   Amount of the transaction in minor units (cents)
+   * @param eventTimeMillis Event time of the transaction, in milliseconds since the epoch, or
+   *                        {@link Transaction#UNKNOWN_EVENT_TIME}
+   * @return true if it was applied, false if it was already applied before or it would overflow
+   */
+  public boolean applyWithoutAggregates(int transactionId, TransactionType transactionType,
+      long amountInCents, long eventTimeMillis) {
+
+    return apply(transactionId, transactionType, amountInCents, eventTimeMillis, false);
+  }
+
+  private boolean apply(int transactionId, TransactionType transactionType, long amountInCents,
+      long eventTimeMillis, boolean withAggregates) {
+
+    if (appliedIds.contains(transactionId)
+        || !canApply(transactionType, amountInCents, eventTimeMillis, withAggregates)) {
+
+      return false;
+    }
+
+    balanceInCents = transactionType.applyTo(balanceInCents, amountInCents);
+
+    if (withAggregates) {
+
+      aggregates.add(transactionType, amountInCents);
+    }
+
+    windows.add(eventTimeMillis, transactionType, amountInCents);
+    appliedIds.add(transactionId);
+    numberOfTransactions++;
+
+    return true;
+  }
+
+  /**
+   * @param transaction {@link Transaction} not applied yet
+   * @return Whether it can be applied without overflowing the balance, the sum of its type or the
+   *     sum of its type in its bucket of the windows
+   */
+  public boolean canApply(Transaction transaction) {
+
+    return canApply(transaction.transactionType(), transaction.amountInCents(),
+        transaction.eventTimeMillis(), true);
+  }
+
+  private boolean canApply(TransactionType transactionType, long amountInCents,
+      long eventTimeMillis, boolean withAggregates) {
+
+    try {
+
+      transactionType.applyTo(balanceInCents, amountInCents);
+    } catch (ArithmeticException e) {
+
+      return false;
+    }
+
+    return (!withAggregates || aggregates.canAdd(transactionType, amountInCents))
+        && windows.canAdd(eventTimeMillis, transactionType, amountInCents);
+  }
+
+  /**
+   * Leaves out of the given transactions those that would overflow the balance, the sum of their
+   * type or the sum of their type in their bucket of the windows, were they applied in their order
+   * after the ones kept. Nothing is changed in this ledger.
+   *
+   * @param transactions Transactions none of which was applied yet, with possibly repeated ids
+   * @return The transactions that can all be applied: the batch itself if none would overflow
+   */
+  public TransactionBatch withoutOverflowing(TransactionBatch transactions) {
+
+    // nothing can overflow while all the amounts together fit between the largest absolute value
+    // so far and Long.MAX_VALUE, which is the case unless the amounts are absurd
+    long headroom = Long.MAX_VALUE - Math.max(
+        balanceInCents == Long.MIN_VALUE ? Long.MAX_VALUE : Math.abs(balanceInCents),
+        Math.max(aggregates.largestAbsoluteSumInCents(), windows.largestAbsoluteSumInCents()));
+
+    for (int i = 0; i < transactions.size() && headroom >= 0; i++) {
+
+      long amountInCents = transactions.amountInCents(i);
+
+      headroom -= amountInCents == Long.MIN_VALUE ? Long.MAX_VALUE : Math.abs(amountInCents);
+    }
+
+    if (headroom >= 0) {
+
+      return transactions;
+    }
+
+    // otherwise, the transactions are applied to a copy, to see which ones overflow
+    CustomerLedger copy = new CustomerLedger(windows.settings());
+
+    copy.balanceInCents = balanceInCents;
+    copy.aggregates = aggregates.copy();
+    copy.windows = windows.copy();
+
+    TransactionBatch.Builder builder = new TransactionBatch.Builder(transactions.size());
+
+    for (int i = 0; i < transactions.size(); i++) {
+
+      // a repeated id that was applied is kept, since it is ignored anyway
+      if (copy.apply(transactions.id(i), transactions.transactionType(i),
+          transactions.amountInCents(i), transactions.eventTimeMillis(i))
+          || copy.hasApplied(transactions.id(i))) {
+
+        builder.add(transactions.id(i), transactions.customer(i), transactions.amountInCents(i),
+            transactions.transactionType(i), transactions.eventTimeMillis(i));
+      }
+    }
+
+    return builder.size() == transactions.size() ? transactions : builder.build();
+  }
+
+  /**
+   * @param transactionId Id of a transaction
+   * @return Whether a transaction with the given id was already applied
+   */
+  public boolean hasApplied(int transactionId) {
+
+    return appliedIds.contains(transactionId);
+  }
+
+  /**
+   * Adds aggregates computed elsewhere for transactions applied with
+   * {@link #applyWithoutAggregates(int, TransactionType, long, long)}, in any order.
+   *
+   * @param other {@link TransactionAggregates} of some of those transactions
+   * @return true if they were added, false if a sum would overflow, in which case nothing is added
+   */
+  public boolean mergeAggregates(TransactionAggregates other) {
+
+    if (!aggregates.canAddAll(other)) {
+
+      return false;
+    }
+
+    aggregates.addAll(other);
+
+    return true;
+  }
+
+  /**
+   * @return Current balance in minor units (cents)
+   */
+  public long balanceInCents() {
+
+    return balanceInCents;
+  }
+
+  /**
+   * @return Number of transactions applied so far
+   */
+  public long numberOfTransactions() {
+
+    return numberOfTransactions;
+  }
+
+  /**
+   * @return Copy of the aggregates of the transactions applied so far
+   */
+  public TransactionAggregates aggregates() {
+
+    return aggregates.copy();
+  }
+
+  /**
+   * @return Time windows of the transactions applied so far, which must not be changed
+   */
+  public TimeWindows windows() {
+
+    return windows;
+  }
+
+  /**
+   * @return Immutable copy of the current state of this ledger
+   */
+  public Snapshot snapshot() {
+
+    return new Snapshot(balanceInCents, numberOfTransactions, appliedIds.copy(),
+        aggregates.copy(), windows.copy());
+  }
+
+  /**
+   * Creates a ledger from the given snapshot, with the {@link WindowSettings#DEFAULTS}.
+   *
+   * @param snapshot {@link Snapshot} previously taken
+   * @return Instance of {@link CustomerLedger} with the state of the snapshot
+   */
+  public static CustomerLedger restore(Snapshot snapshot) {
+
+    return restore(snapshot, WindowSettings.DEFAULTS);
+  }
+
+  /**
+   * Creates a ledger from the given snapshot. Its windows are only restored if they have the given
+   * settings: windows of a snapshot with other settings start empty.
+   *
+   * @param snapshot       {@link Snapshot} previously taken
+   * @param windowSettings {@link WindowSettings} of the windows of the ledger
+   * @return Instance of {@link CustomerLedger} with the state of the snapshot
+   */
+  public static CustomerLedger restore(Snapshot snapshot, WindowSettings windowSettings) {
+
+    CustomerLedger ledger = new CustomerLedger(windowSettings);
+
+    ledger.balanceInCents = snapshot.balanceInCents();
+    ledger.numberOfTransactions = snapshot.numberOfTransactions();
+    ledger.appliedIds = snapshot.appliedIds().copy();
+    ledger.aggregates = snapshot.aggregates().copy();
+
+    if (snapshot.windows().settings().equals(windowSettings)) {
+
+      ledger.windows = snapshot.windows().copy();
+    }
+
+    return ledger;
+  }
+
+  /**
+   * Immutable state of a {@link CustomerLedger} at a given moment.
+   *
+   * @param balanceInCents       Balance in minor units (cents)
+   * @param numberOfTransactions Number of transactions applied
+   * @param appliedIds           Ids of the transactions applied, which must not be changed
+   * @param aggregates           Aggregates of the transactions applied, which must not be changed
+   * @param windows              Time windows of the transactions applied, which must not be
+   *                             changed
+   */
+  public record Snapshot(long balanceInCents, long numberOfTransactions,
+                         TransactionIdSet appliedIds, TransactionAggregates aggregates,
+                         TimeWindows windows) {
+
+    // nothing to add here
+  }
+}
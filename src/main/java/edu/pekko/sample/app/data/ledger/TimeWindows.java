@@ -0,0 +1,414 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.ledger;
+
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import edu.pekko.sample.app.data.ledger.WindowSettings.LateEvents;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Tumbling and sliding windows over the event time of the transactions of a customer, as
+ * configured by {@link WindowSettings}.
+ * <p>
+ * The transactions are added to buckets of a ring, indexed by the number of their bucket since the
+ * epoch modulo the length of the ring: a slot that still holds an older bucket is cleared when it
+ * is reused, so that adding a transaction is O(1) and the memory is bounded by the length of the
+ * ring, however long the stream runs. The ring holds two windows, for the current and the
+ * previous tumbling windows, plus the buckets of the allowed lateness.
+ * <p>
+ * Time only moves with the transactions: the watermark is the latest event time seen, and the
+ * windows are queried relative to it. Transactions without event time are left out.
+ * <p>
+ * It is not thread-safe: it belongs to a single actor, and the statistics handed out are copies.
+ */
+public final class TimeWindows {
+
+  private static final long NO_BUCKET = Long.MIN_VALUE;
+
+  private final WindowSettings settings;
+  private final long bucketMillis;
+  private final int bucketsPerWindow;
+  private final long allowedLatenessMillis;
+
+  private final long[] bucketNumbers;
+  private final TransactionAggregates[] buckets;
+
+  private long watermarkMillis = Transaction.UNKNOWN_EVENT_TIME;
+  private long lateEvents;
+
+  /**
+   * Creates empty windows.
+   *
+   * @param settings {@link WindowSettings}
+   */
+  public TimeWindows(WindowSettings settings) {
+
+    this.settings = settings;
+    this.bucketMillis = settings.bucket().toMillis();
+    this.bucketsPerWindow = settings.bucketsPerWindow();
+    this.allowedLatenessMillis = settings.allowedLateness().toMillis();
+
+    int latenessBuckets = Math.toIntExact(
+        (allowedLatenessMillis + bucketMillis - 1) / bucketMillis);
+    int length = Math.addExact(2 * bucketsPerWindow, latenessBuckets);
+
+    this.bucketNumbers = new long[length];
+    this.buckets = new TransactionAggregates[length];
+
+    Arrays.fill(bucketNumbers, NO_BUCKET);
+  }
+
+  /**
+   * @return {@link WindowSettings} of these windows
+   */
+  public WindowSettings settings() {
+
+    return settings;
+  }
+
+  /**
+   * Adds a transaction to the bucket of its event time, moving the watermark forward if it is the
+   * latest one. A late transaction is counted, and either dropped or added to the bucket of the
+   * watermark, as configured.
+   *
+   * @param eventTimeMillis Event time of the transaction, in milliseconds since the epoch
+   * @param transactionType {@link TransactionType} of the transaction
+   * @param amountInCents   Amount of the transaction in minor units (cents)
+   * @return true if it was added, false if it has no event time or it was late and dropped
+   * @throws ArithmeticException If the sum of its type in its bucket overflows, in which case
+   *                             it is not added
+   */
+  public boolean add(long eventTimeMillis, TransactionType transactionType, long amountInCents) {
+
+    if (eventTimeMillis == Transaction.UNKNOWN_EVENT_TIME) {
+
+      return false;
+    }
+
+    long bucketNumber;
+
+    if (isLate(eventTimeMillis)) {
+
+      lateEvents++;
+
+      if (settings.lateEvents() == LateEvents.DROP) {
+
+        return false;
+      }
+
+      bucketNumber = bucketOf(watermarkMillis);
+    } else {
+
+      bucketNumber = bucketOf(eventTimeMillis);
+    }
+
+    int slot = slotOf(bucketNumber);
+
+    if (buckets[slot] == null) {
+
+      buckets[slot] = new TransactionAggregates();
+    } else if (bucketNumbers[slot] != bucketNumber) {
+
+      buckets[slot].clear();
+    }
+
+    bucketNumbers[slot] = bucketNumber;
+    buckets[slot].add(transactionType, amountInCents);
+    watermarkMillis = Math.max(watermarkMillis, eventTimeMillis);
+
+    return true;
+  }
+
+  /**
+   * @param eventTimeMillis Event time of a transaction, in milliseconds since the epoch
+   * @param transactionType {@link TransactionType} of the transaction
+   * @param amountInCents   Amount of the transaction in minor units (cents)
+   * @return Whether {@link #add(long, TransactionType, long)} would add the transaction without
+   *     the sum of its type in its bucket overflowing, or would leave it out
+   */
+  boolean canAdd(long eventTimeMillis, TransactionType transactionType, long amountInCents) {
+
+    if (eventTimeMillis == Transaction.UNKNOWN_EVENT_TIME) {
+
+      return true;
+    }
+
+    boolean late = isLate(eventTimeMillis);
+
+    if (late && settings.lateEvents() == LateEvents.DROP) {
+
+      return true;
+    }
+
+    long bucketNumber = bucketOf(late ? watermarkMillis : eventTimeMillis);
+    int slot = slotOf(bucketNumber);
+
+    // a slot that still holds an older bucket is cleared before the transaction is added
+    return buckets[slot] == null || bucketNumbers[slot] != bucketNumber
+        || buckets[slot].canAdd(transactionType, amountInCents);
+  }
+
+  /**
+   * @return Largest absolute value of the sums of the types in the buckets
+   */
+  long largestAbsoluteSumInCents() {
+
+    long largest = 0;
+
+    for (TransactionAggregates bucket : buckets) {
+
+      if (bucket != null) {
+
+        largest = Math.max(largest, bucket.largestAbsoluteSumInCents());
+      }
+    }
+
+    return largest;
+  }
+
+  private boolean isLate(long eventTimeMillis) {
+
+    return watermarkMillis != Transaction.UNKNOWN_EVENT_TIME
+        && eventTimeMillis < watermarkMillis - allowedLatenessMillis;
+  }
+
+  /**
+   * @return Latest event time seen, in milliseconds since the epoch, or
+   *     {@link Transaction#UNKNOWN_EVENT_TIME} if no transaction was added yet
+   */
+  public long watermarkMillis() {
+
+    return watermarkMillis;
+  }
+
+  /**
+   * @return Number of transactions that arrived after their allowed lateness, dropped or not
+   */
+  public long lateEvents() {
+
+    return lateEvents;
+  }
+
+  /**
+   * @return Statistics of the window of the given size that ends with the bucket of the watermark
+   */
+  public WindowStatistics sliding() {
+
+    return statistics(bucketOf(watermarkMillis) - bucketsPerWindow + 1);
+  }
+
+  /**
+   * @return Statistics of the tumbling window the watermark is in, so far
+   */
+  public WindowStatistics tumbling() {
+
+    return statistics(Math.floorDiv(bucketOf(watermarkMillis), bucketsPerWindow)
+        * bucketsPerWindow);
+  }
+
+  /**
+   * @return Statistics of the tumbling window before the one the watermark is in, which only
+   *     changes with transactions still within the allowed lateness
+   */
+  public WindowStatistics previousTumbling() {
+
+    return statistics(Math.floorDiv(bucketOf(watermarkMillis), bucketsPerWindow)
+        * bucketsPerWindow - bucketsPerWindow);
+  }
+
+  /**
+   * @return Statistics of the window that starts with the given bucket, or an empty window at the
+   *     epoch if there is no watermark yet
+   */
+  private WindowStatistics statistics(long firstBucket) {
+
+    TransactionAggregates aggregates = new TransactionAggregates();
+
+    if (watermarkMillis == Transaction.UNKNOWN_EVENT_TIME) {
+
+      return new WindowStatistics(0, 0, aggregates);
+    }
+
+    for (long bucketNumber = firstBucket; bucketNumber < firstBucket + bucketsPerWindow;
+        bucketNumber++) {
+
+      int slot = slotOf(bucketNumber);
+
+      if (bucketNumbers[slot] == bucketNumber) {
+
+        aggregates.addAll(buckets[slot]);
+      }
+    }
+
+    return new WindowStatistics(firstBucket * bucketMillis,
+        (firstBucket + bucketsPerWindow) * bucketMillis, aggregates);
+  }
+
+  private long bucketOf(long eventTimeMillis) {
+
+    return Math.floorDiv(eventTimeMillis, bucketMillis);
+  }
+
+  private int slotOf(long bucketNumber) {
+
+    return (int) Math.floorMod(bucketNumber, (long) buckets.length);
+  }
+
+  /**
+   * @return Independent copy of these windows
+   */
+  public TimeWindows copy() {
+
+    TimeWindows copy = new TimeWindows(settings);
+
+    copy.watermarkMillis = watermarkMillis;
+    copy.lateEvents = lateEvents;
+
+    for (int slot = 0; slot < buckets.length; slot++) {
+
+      if (buckets[slot] != null) {
+
+        copy.bucketNumbers[slot] = bucketNumbers[slot];
+        copy.buckets[slot] = buckets[slot].copy();
+      }
+    }
+
+    return copy;
+  }
+
+  /**
+   * @return Number of bytes written by {@link #writeTo(ByteBuffer)}
+   */
+  public int serializedSize() {
+
+    return 4 * Long.BYTES + 1 + Long.BYTES + Integer.BYTES
+        + usedBuckets() * (Long.BYTES + TransactionAggregates.serializedSize());
+  }
+
+  private int usedBuckets() {
+
+    int used = 0;
+
+    for (TransactionAggregates bucket : buckets) {
+
+      if (bucket != null) {
+
+        used++;
+      }
+    }
+
+    return used;
+  }
+
+  /**
+   * Writes the windows into the given buffer: the bucket, the size and the allowed lateness in
+   * milliseconds, the late events policy, the watermark, the number of late events, and then the
+   * number of each bucket used and its {@link TransactionAggregates}.
+   *
+   * @param buffer Buffer to write to, with {@link #serializedSize()} bytes remaining
+   */
+  public void writeTo(ByteBuffer buffer) {
+
+    buffer.putLong(bucketMillis);
+    buffer.putLong(settings.size().toMillis());
+    buffer.putLong(allowedLatenessMillis);
+    buffer.put((byte) settings.lateEvents().ordinal());
+    buffer.putLong(watermarkMillis);
+    buffer.putLong(lateEvents);
+    buffer.putInt(usedBuckets());
+
+    for (int slot = 0; slot < buckets.length; slot++) {
+
+      if (buckets[slot] != null) {
+
+        buffer.putLong(bucketNumbers[slot]);
+        buckets[slot].writeTo(buffer);
+      }
+    }
+  }
+
+  /**
+   * Reads windows written by {@link #writeTo(ByteBuffer)}, with the same byte order.
+   *
+   * @param buffer Buffer to read from
+   * @return Windows that were written, with their settings
+   */
+  public static TimeWindows readFrom(ByteBuffer buffer) {
+
+    WindowSettings settings = new WindowSettings(Duration.ofMillis(buffer.getLong()),
+        Duration.ofMillis(buffer.getLong()), Duration.ofMillis(buffer.getLong()),
+        LateEvents.values()[buffer.get()]);
+    TimeWindows windows = new TimeWindows(settings);
+
+    windows.watermarkMillis = buffer.getLong();
+    windows.lateEvents = buffer.getLong();
+
+    int usedBuckets = buffer.getInt();
+
+    for (int i = 0; i < usedBuckets; i++) {
+
+      long bucketNumber = buffer.getLong();
+      int slot = windows.slotOf(bucketNumber);
+
+      windows.bucketNumbers[slot] = bucketNumber;
+      windows.buckets[slot] = TransactionAggregates.readFrom(buffer);
+    }
+
+    return windows;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+
+    if (this == other) {
+
+      return true;
+    }
+
+    return other instanceof TimeWindows windows
+        && settings.equals(windows.settings)
+        && watermarkMillis == windows.watermarkMillis
+        && lateEvents == windows.lateEvents
+        && Arrays.equals(bucketNumbers, windows.bucketNumbers)
+        && Arrays.equals(buckets, windows.buckets);
+  }
+
+  @Override
+  public int hashCode() {
+
+    return settings.hashCode() * 31 + Long.hashCode(watermarkMillis);
+  }
+
+  @Override
+  public String toString() {
+
+    return "TimeWindows[" + settings + ", watermark=" + watermarkMillis + ", late="
+        + lateEvents + "]";
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.ledger;
+
+import edu.pekko.sample.app.data.definition.TransactionType;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Count, sum, minimum and maximum of the amounts of the transactions of each
+ * {@link TransactionType}, maintained as the transactions are applied: reading them never goes
+ * through the transactions again.
+ * <p>
+ * Amounts are kept in minor units (cents) in one array per figure, indexed by the ordinal of the
+ * type, so that adding a transaction neither allocates nor accumulates floating-point errors. The
+ * minimum and the maximum of a type without transactions are 0.
+ * <p>
+ * It is not thread-safe: it belongs to a single actor, and a copy is handed out.
+ */
+public final class TransactionAggregates {
+
+  private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+  // count, sum, minimum and maximum of each type
+  private static final int FIGURES = 4;
+
+  private final long[] counts = new long[TRANSACTION_TYPES.length];
+  private final long[] sumsInCents = new long[TRANSACTION_TYPES.length];
+  private final long[] minsInCents = new long[TRANSACTION_TYPES.length];
+  private final long[] maxsInCents = new long[TRANSACTION_TYPES.length];
+
+  /**
+   * Adds a transaction.
+   *
+   * @param transactionType {@link TransactionType} of the transaction
+   * @param amountInCents   Amount of the transaction in minor units (cents)
+   * @throws ArithmeticException If the sum of the type overflows, in which case nothing is added
+   */
+  public void add(TransactionType transactionType, long amountInCents) {
+
+    int type = transactionType.ordinal();
+    long sum = Math.addExact(sumsInCents[type], amountInCents);
+
+    if (counts[type] == 0) {
+
+      minsInCents[type] = amountInCents;
+      maxsInCents[type] = amountInCents;
+    } else {
+
+      minsInCents[type] = Math.min(minsInCents[type], amountInCents);
+      maxsInCents[type] = Math.max(maxsInCents[type], amountInCents);
+    }
+
+    sumsInCents[type] = sum;
+    counts[type]++;
+  }
+
+  /**
+   * @param transactionType {@link TransactionType} of a transaction
+   * @param amountInCents   Amount of the transaction in minor units (cents)
+   * @return Whether the transaction can be added without the sum of its type overflowing
+   */
+  boolean canAdd(TransactionType transactionType, long amountInCents) {
+
+    return fits(sumsInCents[transactionType.ordinal()], amountInCents);
+  }
+
+  /**
+   * @param other {@link TransactionAggregates} to add
+   * @return Whether the given aggregates can be added without any sum overflowing
+   */
+  boolean canAddAll(TransactionAggregates other) {
+
+    for (int type = 0; type < TRANSACTION_TYPES.length; type++) {
+
+      if (!fits(sumsInCents[type], other.sumsInCents[type])) {
+
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static boolean fits(long sumInCents, long amountInCents) {
+
+    long newSumInCents = sumInCents + amountInCents;
+
+    // as in Math.addExact: the sum only overflows if its sign differs from those of both terms
+    return ((sumInCents ^ newSumInCents) & (amountInCents ^ newSumInCents)) >= 0;
+  }
+
+  /**
+   * @return Largest absolute value of the sums of the types, Long.MAX_VALUE for Long.MIN_VALUE
+   */
+  long largestAbsoluteSumInCents() {
+
+    long largest = 0;
+
+    for (long sumInCents : sumsInCents) {
+
+      largest = Math.max(largest, sumInCents == Long.MIN_VALUE ? Long.MAX_VALUE
+          : Math.abs(sumInCents));
+    }
+
+    return largest;
+  }
+
+  /**
+   * Adds all the transactions of the given aggregates, e.g. to get the totals over several
+   * customers.
+   *
+   * @param other {@link TransactionAggregates} to add
+   * @throws ArithmeticException If a sum overflows
+   */
+  public void addAll(TransactionAggregates other) {
+
+    for (int type = 0; type < TRANSACTION_TYPES.length; type++) {
+
+      if (other.counts[type] == 0) {
+
+        continue;
+      }
+
+      if (counts[type] == 0) {
+
+        minsInCents[type] = other.minsInCents[type];
+        maxsInCents[type] = other.maxsInCents[type];
+      } else {
+
+        minsInCents[type] = Math.min(minsInCents[type], other.minsInCents[type]);
+        maxsInCents[type] = Math.max(maxsInCents[type], other.maxsInCents[type]);
+      }
+
+      sumsInCents[type] = Math.addExact(sumsInCents[type], other.sumsInCents[type]);
+      counts[type] += other.counts[type];
+    }
+  }
+
+  /**
+   * Removes all the transactions, e.g. to reuse the bucket of a window.
+   */
+  void clear() {
+
+    Arrays.fill(counts, 0);
+    Arrays.fill(sumsInCents, 0);
+    Arrays.fill(minsInCents, 0);
+    Arrays.fill(maxsInCents, 0);
+  }
+
+  /**
+   * @param transactionType {@link TransactionType}
+   * @return Number of transactions of the given type
+   */
+  public long count(TransactionType transactionType) {
+
+    return counts[transactionType.ordinal()];
+  }
+
+  /**
+   * @param transactionType {@link TransactionType}
+   * @return Sum of the amounts of the transactions of the given type, in minor units (cents)
+   */
+  public long sumInCents(TransactionType transactionType) {
+
+    return sumsInCents[transactionType.ordinal()];
+  }
+
+  /**
+   * @param transactionType {@link TransactionType}
+   * @return Smallest amount of a transaction of the given type, in minor units (cents), or 0 if
+   *     there is none
+   */
+  public long minInCents(TransactionType transactionType) {
+
+    return minsInCents[transactionType.ordinal()];
+  }
+
+  /**
+   * @param transactionType {@link TransactionType}
+   * @return Largest amount of a transaction of the given type, in minor units (cents), or 0 if
+   *     there is none
+   */
+  public long maxInCents(TransactionType transactionType) {
+
+    return maxsInCents[transactionType.ordinal()];
+  }
+
+  /**
+   * @return Number of transactions of all types
+   */
+  public long count() {
+
+    return Arrays.stream(counts).sum();
+  }
+
+  /**
+   * @return Independent copy of these aggregates
+   */
+  public TransactionAggregates copy() {
+
+    TransactionAggregates copy = new TransactionAggregates();
+
+    copy.addAll(this);
+
+    return copy;
+  }
+
+  /**
+   * @return Number of bytes written by {@link #writeTo(ByteBuffer)}
+   */
+  public static int serializedSize() {
+
+    return 1 + TRANSACTION_TYPES.length * FIGURES * Long.BYTES;
+  }
+
+  /**
+   * Writes the aggregates into the given buffer: the number of types, and then the count, the sum,
+   * the minimum and the maximum of each type, in the order of their ordinals.
+   *
+   * @param buffer Buffer to write to, with {@link #serializedSize()} bytes remaining
+   */
+  public void writeTo(ByteBuffer buffer) {
+
+    buffer.put((byte) TRANSACTION_TYPES.length);
+
+    for (int type = 0; type < TRANSACTION_TYPES.length; type++) {
+
+      buffer.putLong(counts[type]);
+      buffer.putLong(sumsInCents[type]);
+      buffer.putLong(minsInCents[type]);
+      buffer.putLong(maxsInCents[type]);
+    }
+  }
+
+  /**
+   * Reads aggregates written by {@link #writeTo(ByteBuffer)}, with the same byte order.
+   *
+   * @param buffer Buffer to read from
+   * @return Aggregates that were written
+   */
+  public static TransactionAggregates readFrom(ByteBuffer buffer) {
+
+    TransactionAggregates aggregates = new TransactionAggregates();
+    int numberOfTypes = buffer.get();
+
+    for (int type = 0; type < numberOfTypes; type++) {
+
+      aggregates.counts[type] = buffer.getLong();
+      aggregates.sumsInCents[type] = buffer.getLong();
+      aggregates.minsInCents[type] = buffer.getLong();
+      aggregates.maxsInCents[type] = buffer.getLong();
+    }
+
+    return aggregates;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+
+    if (this == other) {
+
+      return true;
+    }
+
+    return other instanceof TransactionAggregates aggregates
+        && Arrays.equals(counts, aggregates.counts)
+        && Arrays.equals(sumsInCents, aggregates.sumsInCents)
+        && Arrays.equals(minsInCents, aggregates.minsInCents)
+        && Arrays.equals(maxsInCents, aggregates.maxsInCents);
+  }
+
+  @Override
+  public int hashCode() {
+
+    return Arrays.hashCode(counts) * 31 + Arrays.hashCode(sumsInCents);
+  }
+
+  @Override
+  public String toString() {
+
+    StringBuilder builder = new StringBuilder("TransactionAggregates[");
+
+    for (int type = 0; type < TRANSACTION_TYPES.length; type++) {
+
+      builder.append(type == 0 ? "" : ", ").append(TRANSACTION_TYPES[type])
+          .append(": count=").append(counts[type])
+          .append(" sum=").append(sumsInCents[type])
+          .append(" min=").append(minsInCents[type])
+          .append(" max=").append(maxsInCents[type]);
+    }
+
+    return builder.append(']').toString();
+  }
+}
@@ -0,0 +1,421 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.ledger;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Set of transaction ids, kept as a compressed bitmap in the manner of Roaring bitmaps: the ids are
+ * split by their upper 16 bits into containers of up to 65536 ids, each one either
+ * <ul>
+ *   <li>a sorted array of the lower 16 bits of its ids (2 bytes per id), while it has at most
+ *   {@link #MAX_ARRAY_SIZE} of them</li>
+ *   <li>a bitmap of all 65536 possible ids (8 KB), once it has more, i.e. less than 1 bit per
+ *   id when the ids are dense, as the ids of a customer are in a transaction log</li>
+ * </ul>
+ * Checking or adding an id is a search among the containers (the last one used is tried first, so
+ * that ids close to each other find it at once) and then a single bit, or a binary search of at
+ * most 12 steps in an array. With 10 million ids of one customer out of 30 million, the set takes
+ * about 4 MB, against more than 500 MB for a {@code HashSet<Integer>}.
+ * <p>
+ * It is not thread-safe: it belongs to a single actor.
+ */
+public final class TransactionIdSet {
+
+  // an array container with more ids than this takes more memory than a bitmap container
+  static final int MAX_ARRAY_SIZE = 4096;
+
+  private static final int BITMAP_WORDS = (1 << Character.SIZE) / Long.SIZE;
+
+  private static final int INITIAL_ARRAY_CAPACITY = 4;
+
+  // upper 16 bits of the ids of each container, in ascending order
+  private char[] keys = new char[1];
+
+  // lower 16 bits of the ids of each array container (null for a bitmap container), ascending
+  private char[][] arrays = new char[1][];
+
+  // bitmap of the ids of each bitmap container (null for an array container)
+  private long[][] bitmaps = new long[1][];
+
+  // number of ids in each container
+  private int[] cardinalities = new int[1];
+
+  private int numberOfContainers;
+
+  private long size;
+
+  // index of the container used last, tried first
+  private int lastContainer;
+
+  /**
+   * Adds the given id.
+   *
+   * @param id Transaction id
+   * @return true if it was added, false if it was already in the set
+   */
+  public boolean add(int id) {
+
+    char key = (char) (id >>> Character.SIZE);
+    char low = (char) id;
+
+    int container = containerOf(key);
+
+    if (container < 0) {
+
+      container = insertContainer(-container - 1, key);
+    }
+
+    boolean added = bitmaps[container] != null ? addToBitmap(container, low)
+        : addToArray(container, low);
+
+    if (added) {
+
+      cardinalities[container]++;
+      size++;
+    }
+
+    return added;
+  }
+
+  /**
+   * @param id Transaction id
+   * @return Whether the given id is in the set
+   */
+  public boolean contains(int id) {
+
+    int container = containerOf((char) (id >>> Character.SIZE));
+
+    if (container < 0) {
+
+      return false;
+    }
+
+    char low = (char) id;
+
+    if (bitmaps[container] != null) {
+
+      return (bitmaps[container][low >>> 6] & (1L << low)) != 0;
+    }
+
+    return Arrays.binarySearch(arrays[container], 0, cardinalities[container], low) >= 0;
+  }
+
+  /**
+   * @return Number of ids in the set
+   */
+  public long size() {
+
+    return size;
+  }
+
+  /**
+   * @return Approximate number of bytes taken by the containers of the set
+   */
+  public long memoryInBytes() {
+
+    long bytes = keys.length * (Character.BYTES + Integer.BYTES + 2L * Long.BYTES);
+
+    for (int i = 0; i < numberOfContainers; i++) {
+
+      bytes += bitmaps[i] != null ? (long) BITMAP_WORDS * Long.BYTES
+          : (long) arrays[i].length * Character.BYTES;
+    }
+
+    return bytes;
+  }
+
+  /**
+   * @return Independent copy of this set
+   */
+  public TransactionIdSet copy() {
+
+    TransactionIdSet copy = new TransactionIdSet();
+
+    copy.keys = Arrays.copyOf(keys, Math.max(1, numberOfContainers));
+    copy.arrays = new char[copy.keys.length][];
+    copy.bitmaps = new long[copy.keys.length][];
+    copy.cardinalities = Arrays.copyOf(cardinalities, copy.keys.length);
+
+    for (int i = 0; i < numberOfContainers; i++) {
+
+      if (bitmaps[i] != null) {
+
+        copy.bitmaps[i] = bitmaps[i].clone();
+      } else {
+
+        copy.arrays[i] = Arrays.copyOf(arrays[i], cardinalities[i]);
+      }
+    }
+
+    copy.numberOfContainers = numberOfContainers;
+    copy.size = size;
+
+    return copy;
+  }
+
+  /**
+   * @return Number of bytes written by {@link #writeTo(ByteBuffer)}
+   */
+  public int serializedSize() {
+
+    int bytes = Integer.BYTES;
+
+    for (int i = 0; i < numberOfContainers; i++) {
+
+      bytes += 2 * Character.BYTES + (bitmaps[i] != null ? BITMAP_WORDS * Long.BYTES
+          : cardinalities[i] * Character.BYTES);
+    }
+
+    return bytes;
+  }
+
+  /**
+   * Writes the set into the given buffer: the number of containers, and then the upper 16 bits
+   * and the number of ids (minus one) of each container, followed by its ids or its bitmap.
+   *
+   * @param buffer Buffer to write to, with {@link #serializedSize()} bytes remaining
+   */
+  public void writeTo(ByteBuffer buffer) {
+
+    buffer.putInt(numberOfContainers);
+
+    for (int i = 0; i < numberOfContainers; i++) {
+
+      buffer.putChar(keys[i]);
+      buffer.putChar((char) (cardinalities[i] - 1));
+
+      if (bitmaps[i] != null) {
+
+        buffer.asLongBuffer().put(bitmaps[i]);
+        buffer.position(buffer.position() + BITMAP_WORDS * Long.BYTES);
+      } else {
+
+        for (int j = 0; j < cardinalities[i]; j++) {
+
+          buffer.putChar(arrays[i][j]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads a set written by {@link #writeTo(ByteBuffer)}, with the same byte order.
+   *
+   * @param buffer Buffer to read from
+   * @return Set that was written
+   */
+  public static TransactionIdSet readFrom(ByteBuffer buffer) {
+
+    TransactionIdSet set = new TransactionIdSet();
+    int numberOfContainers = buffer.getInt();
+    int capacity = Math.max(1, numberOfContainers);
+
+    set.keys = new char[capacity];
+    set.arrays = new char[capacity][];
+    set.bitmaps = new long[capacity][];
+    set.cardinalities = new int[capacity];
+
+    for (int i = 0; i < numberOfContainers; i++) {
+
+      set.keys[i] = buffer.getChar();
+      set.cardinalities[i] = buffer.getChar() + 1;
+
+      if (set.cardinalities[i] > MAX_ARRAY_SIZE) {
+
+        set.bitmaps[i] = new long[BITMAP_WORDS];
+        buffer.asLongBuffer().get(set.bitmaps[i]);
+        buffer.position(buffer.position() + BITMAP_WORDS * Long.BYTES);
+      } else {
+
+        set.arrays[i] = new char[set.cardinalities[i]];
+
+        for (int j = 0; j < set.cardinalities[i]; j++) {
+
+          set.arrays[i][j] = buffer.getChar();
+        }
+      }
+
+      set.size += set.cardinalities[i];
+    }
+
+    set.numberOfContainers = numberOfContainers;
+
+    return set;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+
+    if (this == other) {
+
+      return true;
+    }
+
+    if (!(other instanceof TransactionIdSet set) || set.size != size
+        || set.numberOfContainers != numberOfContainers) {
+
+      return false;
+    }
+
+    for (int i = 0; i < numberOfContainers; i++) {
+
+      // the same ids always give the same kind of container
+      if (keys[i] != set.keys[i] || cardinalities[i] != set.cardinalities[i]
+          || !(bitmaps[i] != null ? Arrays.equals(bitmaps[i], set.bitmaps[i])
+          : Arrays.equals(arrays[i], 0, cardinalities[i], set.arrays[i], 0,
+              cardinalities[i]))) {
+
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+
+    return Long.hashCode(size) * 31 + Arrays.hashCode(Arrays.copyOf(keys, numberOfContainers));
+  }
+
+  @Override
+  public String toString() {
+
+    return "TransactionIdSet[" + size + " ids in " + numberOfContainers + " containers]";
+  }
+
+  /**
+   * @return Index of the container with the given key, or (-(insertion point) - 1) if there is
+   *     none, as {@link Arrays#binarySearch(char[], int, int, char)}
+   */
+  private int containerOf(char key) {
+
+    if (lastContainer < numberOfContainers && keys[lastContainer] == key) {
+
+      return lastContainer;
+    }
+
+    int container = Arrays.binarySearch(keys, 0, numberOfContainers, key);
+
+    if (container >= 0) {
+
+      lastContainer = container;
+    }
+
+    return container;
+  }
+
+  private int insertContainer(int index, char key) {
+
+    if (numberOfContainers == keys.length) {
+
+      int capacity = 2 * keys.length;
+
+      keys = Arrays.copyOf(keys, capacity);
+      arrays = Arrays.copyOf(arrays, capacity);
+      bitmaps = Arrays.copyOf(bitmaps, capacity);
+      cardinalities = Arrays.copyOf(cardinalities, capacity);
+    }
+
+    int moved = numberOfContainers - index;
+
+    System.arraycopy(keys, index, keys, index + 1, moved);
+    System.arraycopy(arrays, index, arrays, index + 1, moved);
+    System.arraycopy(bitmaps, index, bitmaps, index + 1, moved);
+    System.arraycopy(cardinalities, index, cardinalities, index + 1, moved);
+
+    keys[index] = key;
+    arrays[index] = new char[INITIAL_ARRAY_CAPACITY];
+    bitmaps[index] = null;
+    cardinalities[index] = 0;
+
+    numberOfContainers++;
+    lastContainer = index;
+
+    return index;
+  }
+
+  private boolean addToBitmap(int container, char low) {
+
+    long[] bitmap = bitmaps[container];
+    long bit = 1L << low;
+
+    if ((bitmap[low >>> 6] & bit) != 0) {
+
+      return false;
+    }
+
+    bitmap[low >>> 6] |= bit;
+
+    return true;
+  }
+
+  private boolean addToArray(int container, char low) {
+
+    char[] array = arrays[container];
+    int cardinality = cardinalities[container];
+
+    // ids mostly come in ascending order: they are then appended without a search
+    int index = cardinality == 0 || array[cardinality - 1] < low ? -cardinality - 1
+        : Arrays.binarySearch(array, 0, cardinality, low);
+
+    if (index >= 0) {
+
+      return false;
+    }
+
+    if (cardinality == MAX_ARRAY_SIZE) {
+
+      // as a bitmap from now on
+      long[] bitmap = new long[BITMAP_WORDS];
+
+      for (int i = 0; i < cardinality; i++) {
+
+        bitmap[array[i] >>> 6] |= 1L << array[i];
+      }
+
+      arrays[container] = null;
+      bitmaps[container] = bitmap;
+
+      return addToBitmap(container, low);
+    }
+
+    index = -index - 1;
+
+    if (cardinality == array.length) {
+
+      array = Arrays.copyOf(array, Math.min(MAX_ARRAY_SIZE, 2 * cardinality));
+      arrays[container] = array;
+    }
+
+    System.arraycopy(array, index, array, index + 1, cardinality - index);
+    array[index] = low;
+
+    return true;
+  }
+}
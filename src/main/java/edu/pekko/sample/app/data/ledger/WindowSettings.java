@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.ledger;
+
+import com.typesafe.config.Config;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Settings of the {@link TimeWindows} of a customer.
+ * <p>
+ * Windows are made of buckets of the same duration: the tumbling windows are consecutive windows of
+ * the given size, aligned on the epoch, and the sliding window is made of the latest buckets up to
+ * the watermark, with the same size. A transaction is late when its event time is before the
+ * watermark minus the allowed lateness.
+ *
+ * @param bucket          Duration of a bucket, of at least a millisecond
+ * @param size            Duration of the windows, a multiple of the bucket
+ * @param allowedLateness How long before the watermark a transaction is still added to its own
+ *                        bucket
+ * @param lateEvents      What happens to a late transaction
+ */
+public record WindowSettings(Duration bucket, Duration size, Duration allowedLateness,
+                             LateEvents lateEvents) {
+
+  /**
+   * Buckets of a minute, windows of five minutes and late events dropped after a minute.
+   */
+  public static final WindowSettings DEFAULTS = new WindowSettings(Duration.ofMinutes(1),
+      Duration.ofMinutes(5), Duration.ofMinutes(1), LateEvents.DROP);
+
+  /**
+   * @throws IllegalArgumentException If the bucket is shorter than a millisecond, the size is not a
+   *                                  multiple of it or the allowed lateness is negative
+   */
+  public WindowSettings {
+
+    if (bucket.toMillis() < 1) {
+
+      throw new IllegalArgumentException("Bucket must be at least a millisecond: " + bucket);
+    }
+
+    if (size.toMillis() < bucket.toMillis() || size.toMillis() % bucket.toMillis() != 0) {
+
+      throw new IllegalArgumentException("Size " + size + " must be a multiple of bucket "
+          + bucket);
+    }
+
+    if (allowedLateness.isNegative()) {
+
+      throw new IllegalArgumentException("Allowed lateness must not be negative: "
+          + allowedLateness);
+    }
+  }
+
+  /**
+   * Reads the settings from the given configuration, e.g. "pekko-sample.customer.windows", with the
+   * paths "bucket", "size", "allowed-lateness" and "late-events".
+   *
+   * @param config Configuration of the windows
+   * @return Instance of {@link WindowSettings}
+   * @throws IllegalArgumentException If the settings are not valid
+   */
+  public static WindowSettings fromConfig(Config config) {
+
+    return new WindowSettings(config.getDuration("bucket"), config.getDuration("size"),
+        config.getDuration("allowed-lateness"), LateEvents.valueOf(
+            config.getString("late-events").replace('-', '_').toUpperCase(Locale.ROOT)));
+  }
+
+  /**
+   * @return Number of buckets of a window
+   */
+  public int bucketsPerWindow() {
+
+    return Math.toIntExact(size.toMillis() / bucket.toMillis());
+  }
+
+  /**
+   * What happens to a transaction that arrives too late for its own bucket.
+   */
+  public enum LateEvents {
+
+    /**
+     * The transaction is left out of the windows ("drop").
+     */
+    DROP,
+
+    /**
+     * The transaction is added to the bucket of the watermark ("current-bucket").
+     */
+    CURRENT_BUCKET
+  }
+}
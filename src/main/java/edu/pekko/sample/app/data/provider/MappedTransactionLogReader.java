@@ -0,0 +1,278 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.provider;
+
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.AMOUNT_OFFSET;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.CUSTOMER_LSB_OFFSET;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.CUSTOMER_MSB_OFFSET;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.EVENT_TIME_OFFSET;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.HEADER_SIZE;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.ID_OFFSET;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.MAGIC;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.RECORD_SIZE;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.RECORD_SIZE_V1;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.TYPE_OFFSET;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.VERSION;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.VERSION_1;
+
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Provides the transaction data stored in a binary transaction log, as defined by
+ * {@link TransactionLogFormat}.
+ * <p>
+ * The file is memory-mapped, and the transactions are decoded straight from the mapped memory: no
+ * read operation is done per transaction, and the customers are interned in the
+ * {@link CustomerDirectory} from the bits of their UUIDs, without any string. Since a single
+ * mapping cannot exceed 2 GB, bigger files are mapped in segments, each one only when it is
+ * first reached.
+ * <p>
+ * It can be read from several threads at the same time, and also split into
+ * {@link TransactionPartitions} that are read in parallel: the mapped segments are shared, and
+ * only read with absolute operations, which do not change their state.
+ * <p>
+ * Logs of version 1 of the format are also read: their transactions have no event time.
+ */
+public final class MappedTransactionLogReader implements TransactionReader, TransactionRecords,
+    AutoCloseable {
+
+  // default size of each mapped segment: 1 GB, down to a multiple of the record size
+  private static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+  private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
+
+  private final FileChannel channel;
+  private final int recordSize;
+  private final long numberOfRecords;
+  private final int recordsPerSegment;
+
+  // mapped when they are first reached, by whichever thread gets there first
+  private final AtomicReferenceArray<ByteBuffer> segments;
+
+  // reads the log sequentially, shared by all the threads that read from this reader
+  private final RangeReader reader;
+
+  /**
+   * Opens the log in the given file.
+   *
+   * @param file Location of the log
+   * @throws IOException If the file cannot be read or is not a valid transaction log
+   */
+  public MappedTransactionLogReader(Path file) throws IOException {
+
+    this(file, DEFAULT_SEGMENT_SIZE);
+  }
+
+  MappedTransactionLogReader(Path file, int segmentSize) throws IOException {
+
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+
+    try {
+
+      recordSize = readHeader(file);
+    } catch (IOException e) {
+
+      channel.close();
+      throw e;
+    }
+
+    numberOfRecords = (channel.size() - HEADER_SIZE) / recordSize;
+    recordsPerSegment = segmentSize / recordSize;
+    segments = new AtomicReferenceArray<>(
+        (int) ((numberOfRecords + recordsPerSegment - 1) / recordsPerSegment));
+    reader = new RangeReader(this, 0, numberOfRecords);
+  }
+
+  @Override
+  public List<Transaction> readTransactions(int numberOfTransactionsToRead) {
+
+    return reader.readTransactions(numberOfTransactionsToRead);
+  }
+
+  @Override
+  public TransactionBatch readBatch(int numberOfTransactionsToRead) {
+
+    return reader.readBatch(numberOfTransactionsToRead);
+  }
+
+  @Override
+  public long numberOfRecords() {
+
+    return numberOfRecords;
+  }
+
+  @Override
+  public Transaction transaction(long index) {
+
+    ByteBuffer segment = segment(index);
+    int position = position(index);
+
+    return new Transaction(segment.getInt(position + ID_OFFSET),
+        DIRECTORY.intern(segment.getLong(position + CUSTOMER_MSB_OFFSET),
+            segment.getLong(position + CUSTOMER_LSB_OFFSET)),
+        segment.getLong(position + AMOUNT_OFFSET),
+        TRANSACTION_TYPES[segment.get(position + TYPE_OFFSET)],
+        eventTime(segment, position));
+  }
+
+  @Override
+  public void addTo(long index, TransactionBatch.Builder builder) {
+
+    ByteBuffer segment = segment(index);
+    int position = position(index);
+
+    builder.add(segment.getInt(position + ID_OFFSET),
+        DIRECTORY.intern(segment.getLong(position + CUSTOMER_MSB_OFFSET),
+            segment.getLong(position + CUSTOMER_LSB_OFFSET)),
+        segment.getLong(position + AMOUNT_OFFSET),
+        TRANSACTION_TYPES[segment.get(position + TYPE_OFFSET)],
+        eventTime(segment, position));
+  }
+
+  @Override
+  public int customerHash(long index) {
+
+    ByteBuffer segment = segment(index);
+    int position = position(index);
+
+    return TransactionRecords.hash(segment.getLong(position + CUSTOMER_MSB_OFFSET),
+        segment.getLong(position + CUSTOMER_LSB_OFFSET));
+  }
+
+  /**
+   * @return Total number of transactions in the log
+   */
+  public long sizeOfAvailableData() {
+
+    return numberOfRecords;
+  }
+
+  @Override
+  public void close() throws IOException {
+
+    channel.close();
+  }
+
+  /**
+   * @return Size of the records of the log
+   */
+  private int readHeader(Path file) throws IOException {
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+    while (header.hasRemaining()) {
+
+      if (channel.read(header, header.position()) < 0) {
+
+        throw new IOException(file + " is not a transaction log: header is incomplete");
+      }
+    }
+
+    if (header.getInt(0) != MAGIC) {
+
+      throw new IOException(file + " is not a transaction log: wrong magic number");
+    }
+
+    int version = header.getInt(4);
+    int recordSize = header.getInt(8);
+
+    if (!(version == VERSION && recordSize == RECORD_SIZE)
+        && !(version == VERSION_1 && recordSize == RECORD_SIZE_V1)) {
+
+      throw new IOException(file + " has an unsupported version " + version
+          + " or record size " + recordSize);
+    }
+
+    return recordSize;
+  }
+
+  /**
+   * @return Event time of the record at the given position, unknown in a log of version 1
+   */
+  private long eventTime(ByteBuffer segment, int position) {
+
+    return recordSize == RECORD_SIZE ? segment.getLong(position + EVENT_TIME_OFFSET)
+        : Transaction.UNKNOWN_EVENT_TIME;
+  }
+
+  /**
+   * Finds the segment of the file with the record with the given index, mapping it to memory if it
+   * was not reached yet.
+   *
+   * @param index Index of the record
+   * @return Mapped segment
+   */
+  private ByteBuffer segment(long index) {
+
+    int segmentIndex = (int) (index / recordsPerSegment);
+    ByteBuffer segment = segments.get(segmentIndex);
+
+    if (segment == null) {
+
+      long firstRecord = (long) segmentIndex * recordsPerSegment;
+      long records = Math.min(recordsPerSegment, numberOfRecords - firstRecord);
+
+      try {
+
+        segment = channel.map(MapMode.READ_ONLY, HEADER_SIZE + firstRecord * recordSize,
+            records * recordSize);
+      } catch (IOException e) {
+
+        throw new IllegalStateException("Segment " + segmentIndex + " cannot be mapped", e);
+      }
+
+      // if another thread mapped it in the meantime, its mapping is used by everyone
+      if (!segments.compareAndSet(segmentIndex, null, segment)) {
+
+        segment = segments.get(segmentIndex);
+      }
+    }
+
+    return segment;
+  }
+
+  /**
+   * @param index Index of the record
+   * @return Position of the record in its segment
+   */
+  private int position(long index) {
+
+    return (int) (index % recordsPerSegment) * recordSize;
+  }
+}
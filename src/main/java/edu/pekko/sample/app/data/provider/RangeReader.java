@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.provider;
+
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads a range of {@link TransactionRecords} sequentially, from several threads if needed.
+ * <p>
+ * The offset of the next record to be read is claimed with compare-and-set: each read moves it
+ * past the records it returns, so that no record is returned twice, nor skipped, without any lock.
+ */
+final class RangeReader implements TransactionReader {
+
+  private final TransactionRecords records;
+  private final long start;
+  private final long end;
+
+  // this is an offset pointing to the index to be used in the next read operation
+  private final AtomicLong nextRecord;
+
+  /**
+   * @param records Records to read
+   * @param start   Index of the first record of the range
+   * @param end     Index after the last record of the range
+   */
+  RangeReader(TransactionRecords records, long start, long end) {
+
+    this.records = records;
+    this.start = start;
+    this.end = end;
+    this.nextRecord = new AtomicLong(start);
+  }
+
+  @Override
+  public List<Transaction> readTransactions(int numberOfTransactionsToRead) {
+
+    long first = claim(numberOfTransactionsToRead);
+
+    if (first >= end) {
+
+      return Collections.emptyList();
+    }
+
+    long last = Math.min(end, first + numberOfTransactionsToRead);
+    List<Transaction> result = new ArrayList<>((int) (last - first));
+
+    for (long index = first; index < last; index++) {
+
+      result.add(records.transaction(index));
+    }
+
+    return result;
+  }
+
+  @Override
+  public TransactionBatch readBatch(int numberOfTransactionsToRead) {
+
+    long first = claim(numberOfTransactionsToRead);
+
+    if (first >= end) {
+
+      return TransactionBatch.empty();
+    }
+
+    long last = Math.min(end, first + numberOfTransactionsToRead);
+    TransactionBatch.Builder builder = new TransactionBatch.Builder((int) (last - first));
+
+    for (long index = first; index < last; index++) {
+
+      records.addTo(index, builder);
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Starts reading from the first record of the range again.
+   */
+  void rewind() {
+
+    nextRecord.set(start);
+  }
+
+  /**
+   * Claims up to the given number of records, moving the offset past them.
+   *
+   * @param numberOfRecords How many records should be claimed
+   * @return Index of the first claimed record, or the end of the range if there is nothing more
+   */
+  private long claim(int numberOfRecords) {
+
+    long first;
+
+    do {
+
+      first = nextRecord.get();
+
+      if (first >= end) {
+
+        return end;
+      }
+    } while (!nextRecord.compareAndSet(first, Math.min(end, first + numberOfRecords)));
+
+    return first;
+  }
+}
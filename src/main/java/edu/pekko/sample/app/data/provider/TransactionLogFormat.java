@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.provider;
+
+/**
+ * Definition of the binary transaction log: a fixed-width header followed by fixed-width records,
+ * one per transaction, all in big-endian byte order.
+ * <p>
+ * Header ({@value #HEADER_SIZE} bytes):
+ * <pre>
+ *   0  int   magic number ("PKTL")
+ *   4  int   version of the format
+ *   8  int   size of each record in bytes
+ *   12 ...   reserved
+ * </pre>
+ * Record ({@value #RECORD_SIZE} bytes):
+ * <pre>
+ *   0  int   transaction identification
+ *   4  byte  ordinal of the transaction type
+ *   5  ...   padding
+ *   8  long  amount in minor units (cents)
+ *   16 long  most significant bits of the customer UUID
+ *   24 long  least significant bits of the customer UUID
+ *   32 long  event time in milliseconds since the epoch (since version 2)
+ * </pre>
+ * Logs of version 1 are still read: their records ({@value #RECORD_SIZE_V1} bytes) end before the
+ * event time, and their transactions have none.
+ */
+final class TransactionLogFormat {
+
+  static final int MAGIC = 0x504B544C;
+  static final int VERSION = 2;
+  static final int VERSION_1 = 1;
+
+  static final int HEADER_SIZE = 32;
+  static final int RECORD_SIZE = 40;
+  static final int RECORD_SIZE_V1 = 32;
+
+  static final int ID_OFFSET = 0;
+  static final int TYPE_OFFSET = 4;
+  static final int AMOUNT_OFFSET = 8;
+  static final int CUSTOMER_MSB_OFFSET = 16;
+  static final int CUSTOMER_LSB_OFFSET = 24;
+  static final int EVENT_TIME_OFFSET = 32;
+
+  private TransactionLogFormat() {
+
+    // nothing to add here: only constants
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.provider;
+
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.AMOUNT_OFFSET;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.CUSTOMER_LSB_OFFSET;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.CUSTOMER_MSB_OFFSET;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.EVENT_TIME_OFFSET;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.HEADER_SIZE;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.ID_OFFSET;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.MAGIC;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.RECORD_SIZE;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.TYPE_OFFSET;
+import static edu.pekko.sample.app.data.provider.TransactionLogFormat.VERSION;
+
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Writes transactions to a binary transaction log, as defined by {@link TransactionLogFormat}.
+ * <p>
+ * It can also be executed in the command line to generate a log with random transactions of the
+ * given number of random customers (3 by default):
+ * <pre>
+ *   TransactionLogWriter &lt;file&gt; &lt;number of transactions&gt; [seed] [number of customers]
+ * </pre>
+ * Their event times start at {@link #FIRST_EVENT_TIME}, about {@link #EVENT_TIME_STEP_MILLIS} ms
+ * apart on average, and one transaction in {@link #LATE_EVERY} is out of order, up to
+ * {@link #MAX_LATENESS_MILLIS} ms late.
+ */
+public class TransactionLogWriter implements AutoCloseable {
+
+  // number of records buffered before each write to the file
+  private static final int RECORDS_PER_WRITE = 8192;
+
+  // event times of the generated transactions: fixed, so that the same seed gives the same log
+  private static final long FIRST_EVENT_TIME = 1_700_000_000_000L;
+  private static final int EVENT_TIME_STEP_MILLIS = 10;
+  private static final int LATE_EVERY = 100;
+  private static final int MAX_LATENESS_MILLIS = 120_000;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORDS_PER_WRITE * RECORD_SIZE);
+
+  /**
+   * Creates a new log in the given file, replacing any existing one.
+   *
+   * @param file Location of the log
+   * @throws IOException If the file cannot be written
+   */
+  public TransactionLogWriter(Path file) throws IOException {
+
+    channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).clear();
+
+    while (header.hasRemaining()) {
+
+      channel.write(header);
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+
+    if (args.length < 2) {
+
+      System.err.println("Usage: TransactionLogWriter <file> <number of transactions> [seed]"
+          + " [number of customers]");
+      System.exit(1);
+    }
+
+    Path file = Path.of(args[0]);
+    long numberOfTransactions = Long.parseLong(args[1]);
+    SplittableRandom random = new SplittableRandom(args.length > 2 ? Long.parseLong(args[2]) : 0);
+
+    int numberOfCustomers = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+    TransactionType[] types = TransactionType.values();
+
+    // the UUIDs of the customers, as pairs of most and least significant bits
+    long[] customers = new long[2 * numberOfCustomers];
+
+    for (int i = 0; i < customers.length; i++) {
+
+      customers[i] = random.nextLong();
+    }
+
+    long eventTime = FIRST_EVENT_TIME;
+
+    try (TransactionLogWriter writer = new TransactionLogWriter(file)) {
+
+      for (long id = 1; id <= numberOfTransactions; id++) {
+
+        int customer = 2 * random.nextInt(numberOfCustomers);
+
+        eventTime += random.nextInt(2 * EVENT_TIME_STEP_MILLIS + 1);
+
+        long lateness = random.nextInt(LATE_EVERY) == 0 ? random.nextInt(MAX_LATENESS_MILLIS) : 0;
+
+        writer.write((int) id, customers[customer], customers[customer + 1],
+            1 + random.nextLong(100_000), types[random.nextInt(types.length)],
+            eventTime - lateness);
+      }
+    }
+
+    System.out.println(numberOfTransactions + " transactions of " + numberOfCustomers
+        + " customers written to " + file);
+  }
+
+  /**
+   * Appends the given transaction to the log.
+   *
+   * @param transaction {@link Transaction}
+   * @throws IOException If the file cannot be written
+   */
+  public void write(Transaction transaction) throws IOException {
+
+    CustomerDirectory directory = CustomerDirectory.getInstance();
+
+    write(transaction.id(), directory.mostSignificantBits(transaction.customer()),
+        directory.leastSignificantBits(transaction.customer()), transaction.amountInCents(),
+        transaction.transactionType(), transaction.eventTimeMillis());
+  }
+
+  /**
+   * Appends a transaction to the log.
+   *
+   * @param id                           Transaction identification
+   * @param customerMostSignificantBits  Most significant 64 bits of the UUID of the customer
+   * @param customerLeastSignificantBits Least significant 64 bits of the UUID of the customer
+   * @param amountInCents                Amount of the transaction in minor units
+   * @param transactionType              {@link TransactionType}
+   * @param eventTimeMillis              Event time in milliseconds since the epoch, or
+   *                                     {@link Transaction#UNKNOWN_EVENT_TIME}
+   * @throws IOException If the file cannot be written
+   */
+  public void write(int id, long customerMostSignificantBits, long customerLeastSignificantBits,
+      long amountInCents, TransactionType transactionType, long eventTimeMillis)
+      throws IOException {
+
+    if (!buffer.hasRemaining()) {
+
+      flush();
+    }
+
+    int position = buffer.position();
+
+    buffer.putInt(position + ID_OFFSET, id)
+        .put(position + TYPE_OFFSET, (byte) transactionType.ordinal())
+        .putLong(position + AMOUNT_OFFSET, amountInCents)
+        .putLong(position + CUSTOMER_MSB_OFFSET, customerMostSignificantBits)
+        .putLong(position + CUSTOMER_LSB_OFFSET, customerLeastSignificantBits)
+        .putLong(position + EVENT_TIME_OFFSET, eventTimeMillis)
+        .position(position + RECORD_SIZE);
+  }
+
+  @Override
+  public void close() throws IOException {
+
+    try (channel) {
+
+      flush();
+    }
+  }
+
+  private void flush() throws IOException {
+
+    buffer.flip();
+
+    while (buffer.hasRemaining()) {
+
+      channel.write(buffer);
+    }
+
+    buffer.clear();
+  }
+}
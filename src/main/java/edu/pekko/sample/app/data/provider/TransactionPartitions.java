@@ -0,0 +1,491 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.provider;
+
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Splits {@link TransactionRecords} into partitions that can be read in parallel, e.g. by one
+ * thread each: every record belongs to exactly one partition, and reading one partition does not
+ * get in the way of reading the others.
+ * <p>
+ * Each partition is a {@link TransactionReader} that can also be read by several threads: no
+ * record is returned twice, nor skipped.
+ * <p>
+ * A single partition is always read as one range of all the records, however they are split.
+ */
+public final class TransactionPartitions {
+
+  // indexes scanned ahead for one partition split by customer hash: 512 KB at most
+  private static final int MAX_QUEUED_INDEXES = 1 << 16;
+
+  private final List<TransactionReader> partitions;
+
+  private TransactionPartitions(List<TransactionReader> partitions) {
+
+    this.partitions = partitions;
+  }
+
+  /**
+   * Splits the given records into partitions.
+   *
+   * @param records            Records to be split
+   * @param numberOfPartitions Number of partitions
+   * @param partitioning       How the records are split into partitions
+   * @return Instance of {@link TransactionPartitions}
+   * @throws IllegalArgumentException If the number of partitions is not positive
+   */
+  public static TransactionPartitions of(TransactionRecords records, int numberOfPartitions,
+      Partitioning partitioning) {
+
+    return of(records, numberOfPartitions, partitioning, MAX_QUEUED_INDEXES);
+  }
+
+  /**
+   * Splits the given records into partitions, queueing at most the given number of indexes per
+   * partition split by customer hash.
+   *
+   * @param records            Records to be split
+   * @param numberOfPartitions Number of partitions
+   * @param partitioning       How the records are split into partitions
+   * @param maxQueuedIndexes   Maximum number of indexes scanned ahead for one partition
+   * @return Instance of {@link TransactionPartitions}
+   * @throws IllegalArgumentException If the number of partitions is not positive
+   */
+  static TransactionPartitions of(TransactionRecords records, int numberOfPartitions,
+      Partitioning partitioning, int maxQueuedIndexes) {
+
+    if (numberOfPartitions < 1) {
+
+      throw new IllegalArgumentException(
+          "Number of partitions must be positive: " + numberOfPartitions);
+    }
+
+    if (numberOfPartitions == 1) {
+
+      return new TransactionPartitions(List.of(offsetRange(records, 0, 1)));
+    }
+
+    CustomerHashScan customerHashes = partitioning == Partitioning.CUSTOMER_HASH
+        ? new CustomerHashScan(records, numberOfPartitions, maxQueuedIndexes) : null;
+
+    return new TransactionPartitions(IntStream.range(0, numberOfPartitions)
+        .mapToObj(partition -> switch (partitioning) {
+          case OFFSET_RANGE -> offsetRange(records, partition, numberOfPartitions);
+          case CUSTOMER_HASH -> customerHashes.reader(partition);
+        })
+        .toList());
+  }
+
+  /**
+   * @return Number of partitions
+   */
+  public int size() {
+
+    return partitions.size();
+  }
+
+  /**
+   * @param partition Index of the partition
+   * @return {@link TransactionReader} of the partition
+   */
+  public TransactionReader partition(int partition) {
+
+    return partitions.get(partition);
+  }
+
+  /**
+   * @return {@link TransactionReader} of every partition, in order
+   */
+  public List<TransactionReader> partitions() {
+
+    return partitions;
+  }
+
+  /**
+   * @return Reader of the given partition of contiguous records, all of about the same size
+   */
+  private static TransactionReader offsetRange(TransactionRecords records, int partition,
+      int numberOfPartitions) {
+
+    long numberOfRecords = records.numberOfRecords();
+
+    return new RangeReader(records, numberOfRecords * partition / numberOfPartitions,
+        numberOfRecords * (partition + 1) / numberOfPartitions);
+  }
+
+  /**
+   * Supported ways of splitting the records into partitions.
+   */
+  public enum Partitioning {
+
+    /**
+     * Contiguous ranges of records, all of about the same size: each record is only read once,
+     * but the transactions of a customer are spread over the partitions, i.e. they may be
+     * processed in a different order than they were recorded.
+     */
+    OFFSET_RANGE,
+
+    /**
+     * By the hash of the UUID of the customer: the transactions of a customer are all in the same
+     * partition, in the order they were recorded. The records are scanned only once, by whichever
+     * partition runs out of records first, and handed over to the partitions they belong to, as
+     * long as none of them lags too far behind.
+     */
+    CUSTOMER_HASH;
+
+    /**
+     * @param name Name of the partitioning, case-insensitive, with "-" instead of "_"
+     * @return Respective {@link Partitioning}
+     */
+    public static Partitioning of(String name) {
+
+      return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+  }
+
+  /**
+   * Scans the records once for all the partitions split by customer hash.
+   * <p>
+   * Only the bits of the UUID of the customer of each record are read by the scan: the indexes of
+   * the records are handed over to the queue of their partition, and decoded later by the reader of
+   * that partition, in parallel with the others. The scan itself is done under a lock, one range at
+   * a time, so that the indexes of a partition are queued in the order they were recorded.
+   * <p>
+   * The queue of a partition holds a bounded number of indexes, of 8 bytes each. A partition that
+   * lags so far behind that its queue is full is detached from the scan: its indexes are not queued
+   * anymore, and once it has read its queue, its reader scans the records it missed on its own,
+   * reading the bits of their customers a second time, until it has caught up with the scan.
+   */
+  private static final class CustomerHashScan {
+
+    private final TransactionRecords records;
+    private final long end;
+    private final int maxQueuedIndexes;
+    private final List<ScannedIndexes> scanned;
+
+    // index of the next record to be scanned, guarded by this
+    private long nextRecord;
+
+    private CustomerHashScan(TransactionRecords records, int numberOfPartitions,
+        int maxQueuedIndexes) {
+
+      this.records = records;
+      this.end = records.numberOfRecords();
+      this.maxQueuedIndexes = maxQueuedIndexes;
+      this.scanned = IntStream.range(0, numberOfPartitions)
+          .mapToObj(partition -> new ScannedIndexes())
+          .toList();
+    }
+
+    private CustomerHashReader reader(int partition) {
+
+      return new CustomerHashReader(records, partition, this);
+    }
+
+    /**
+     * Scans the next range of records, queueing the indexes of each partition that is not detached.
+     *
+     * @param numberOfRecords How many records should be scanned at most
+     * @return Whether any record was scanned, i.e. false if the scan has reached the end
+     */
+    private synchronized boolean scan(long numberOfRecords) {
+
+      if (nextRecord >= end) {
+
+        return false;
+      }
+
+      long first = nextRecord;
+      int size = (int) Math.min(end - first, Math.min(numberOfRecords, Integer.MAX_VALUE));
+      long[][] indexes = indexesOfPartitions(first, size);
+
+      for (int partition = 0; partition < indexes.length; partition++) {
+
+        ScannedIndexes partitionIndexes = scanned.get(partition);
+
+        if (indexes[partition].length > 0 && partitionIndexes.detachedFrom < 0
+            && !partitionIndexes.offer(indexes[partition], maxQueuedIndexes)) {
+
+          partitionIndexes.detachedFrom = first;
+        }
+      }
+
+      nextRecord = first + size;
+
+      return true;
+    }
+
+    /**
+     * Scans the next range of records missed by a detached partition, attaching it to the scan
+     * again once it has caught up.
+     *
+     * @param partition       Index of the partition, which is read by the calling thread only
+     * @param numberOfRecords How many records should be scanned at most
+     * @return Indexes of the partition in the range scanned, or null if it is not detached
+     */
+    private long[] rescan(int partition, long numberOfRecords) {
+
+      ScannedIndexes partitionIndexes = scanned.get(partition);
+      long first;
+      int size;
+
+      synchronized (this) {
+
+        first = partitionIndexes.detachedFrom;
+
+        if (first < 0) {
+
+          return null;
+        }
+
+        if (first >= nextRecord) {
+
+          partitionIndexes.detachedFrom = -1;
+
+          return null;
+        }
+
+        size = (int) Math.min(nextRecord - first, Math.min(numberOfRecords, Integer.MAX_VALUE));
+      }
+
+      // the records before the scan do not change: they are read without the lock
+      long[] indexes = indexesOfPartitions(first, size)[partition];
+
+      synchronized (this) {
+
+        partitionIndexes.detachedFrom = first + size;
+      }
+
+      return indexes;
+    }
+
+    /**
+     * @return Indexes of the given range of records, split by partition, in the order they were
+     * recorded
+     */
+    private long[][] indexesOfPartitions(long first, int size) {
+
+      int numberOfPartitions = scanned.size();
+      int[] partitionOf = new int[size];
+      int[] sizes = new int[numberOfPartitions];
+
+      for (int offset = 0; offset < size; offset++) {
+
+        int partition = Math.floorMod(records.customerHash(first + offset), numberOfPartitions);
+
+        partitionOf[offset] = partition;
+        sizes[partition]++;
+      }
+
+      long[][] indexes = new long[numberOfPartitions][];
+
+      for (int partition = 0; partition < numberOfPartitions; partition++) {
+
+        indexes[partition] = new long[sizes[partition]];
+        sizes[partition] = 0;
+      }
+
+      for (int offset = 0; offset < size; offset++) {
+
+        int partition = partitionOf[offset];
+
+        indexes[partition][sizes[partition]++] = first + offset;
+      }
+
+      return indexes;
+    }
+  }
+
+  /**
+   * Indexes scanned for one partition and not read yet.
+   */
+  private static final class ScannedIndexes {
+
+    private final Queue<long[]> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    // index of the first record not queued since the queue was full, or -1, guarded by the scan
+    private long detachedFrom = -1;
+
+    /**
+     * Queues the given indexes, unless they would exceed the maximum, which only an empty queue
+     * may do.
+     *
+     * @return Whether the indexes were queued
+     */
+    private boolean offer(long[] indexes, int maxSize) {
+
+      int queued = size.get();
+
+      if (queued > 0 && queued + indexes.length > maxSize) {
+
+        return false;
+      }
+
+      size.addAndGet(indexes.length);
+      queue.add(indexes);
+
+      return true;
+    }
+
+    /**
+     * @return Next indexes, or null if the queue is empty
+     */
+    private long[] poll() {
+
+      long[] indexes = queue.poll();
+
+      if (indexes != null) {
+
+        size.addAndGet(-indexes.length);
+      }
+
+      return indexes;
+    }
+  }
+
+  /**
+   * Reads the records of the customers whose UUID hashes to a partition, as queued by the
+   * {@link CustomerHashScan}, scanning the next range of records whenever its queue is empty.
+   * <p>
+   * A partition is read by one thread at a time, but the partitions do not wait for each other,
+   * except while one of them scans. A batch is never bigger than requested.
+   */
+  private static final class CustomerHashReader implements TransactionReader {
+
+    private static final long[] NONE = new long[0];
+
+    private final TransactionRecords records;
+    private final int partition;
+    private final ScannedIndexes scanned;
+    private final CustomerHashScan scan;
+
+    // indexes being read, and the position of the next one, guarded by this
+    private long[] indexes = NONE;
+    private int nextIndex;
+
+    private CustomerHashReader(TransactionRecords records, int partition, CustomerHashScan scan) {
+
+      this.records = records;
+      this.partition = partition;
+      this.scanned = scan.scanned.get(partition);
+      this.scan = scan;
+    }
+    @Override
+    public synchronized List<Transaction> readTransactions(int numberOfTransactionsToRead) {
+
+      List<Transaction> result = new ArrayList<>();
+
+      while (result.size() < numberOfTransactionsToRead) {
+
+        long index = nextIndex(numberOfTransactionsToRead);
+
+        if (index < 0) {
+
+          break;
+        }
+
+        result.add(records.transaction(index));
+      }
+
+      return result.isEmpty() ? Collections.emptyList() : result;
+    }
+
+    @Override
+    public synchronized TransactionBatch readBatch(int numberOfTransactionsToRead) {
+
+      TransactionBatch.Builder builder = new TransactionBatch.Builder(
+          Math.max(16, numberOfTransactionsToRead / scan.scanned.size()));
+
+      while (builder.size() < numberOfTransactionsToRead) {
+
+        long index = nextIndex(numberOfTransactionsToRead);
+
+        if (index < 0) {
+
+          break;
+        }
+
+        records.addTo(index, builder);
+      }
+
+      return builder.size() == 0 ? TransactionBatch.empty() : builder.build();
+    }
+
+    /**
+     * @param batchSize Number of transactions requested, which sizes the next scan if needed
+     * @return Index of the next record of the partition, or -1 if there is nothing more
+     */
+    private long nextIndex(int batchSize) {
+
+      while (nextIndex == indexes.length) {
+
+        long[] next = nextIndexes(batchSize);
+
+        if (next == null && !scan.scan((long) batchSize * scan.scanned.size())) {
+
+          // another partition may have scanned the last range in the meantime
+          next = nextIndexes(batchSize);
+
+          if (next == null) {
+
+            return -1;
+          }
+        }
+
+        if (next != null) {
+
+          indexes = next;
+          nextIndex = 0;
+        }
+      }
+
+      return indexes[nextIndex++];
+    }
+
+    /**
+     * @param batchSize Number of transactions requested, which sizes the rescan if needed
+     * @return Next indexes queued for the partition, or missed by it while it was detached, or null
+     * if there is none
+     */
+    private long[] nextIndexes(int batchSize) {
+
+      long[] next = scanned.poll();
+
+      return next != null ? next : scan.rescan(partition, batchSize);
+    }
+  }
+}
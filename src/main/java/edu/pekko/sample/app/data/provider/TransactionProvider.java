@@ -24,51 +24,67 @@
 
 package edu.pekko.sample.app.data.provider;
 
-import edu.pekko.sample.app.data.definition.Customer;
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
 import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
 import edu.pekko.sample.app.data.definition.TransactionType;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.IntStream;
 
 /**
  * Singleton that provides the transaction data to the main thread.
  * <p>
  * In a normal application this data would come replyTo a database or through a message system,
  * but for the purposes of this exercise, this singleton suffices.
+ * <p>
+ * It can be read from several threads at the same time, and also split into
+ * {@link TransactionPartitions} that are read in parallel.
  */
-public class TransactionProvider {
+public final class TransactionProvider implements TransactionReader, TransactionRecords {
+
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
 
   private static final TransactionProvider instance = new TransactionProvider();
 
-  // the financial transaction data
+  // the customers of the sample data
+  private static final int CUSTOMER_1 = CustomerDirectory.getInstance()
+      .intern("1fd40c65-f596-45d8-9e0a-632c37ccb771");
+  private static final int CUSTOMER_2 = CustomerDirectory.getInstance()
+      .intern("00221321-592f-49f7-933a-e6aebdc716a6");
+  private static final int CUSTOMER_3 = CustomerDirectory.getInstance()
+      .intern("ed870e05-ac7a-4847-8d40-bb37f1fe4880");
+
+  // event times of the sample data: one transaction every 30 seconds
+  private static final long FIRST_EVENT_TIME = 1_700_000_000_000L;
+  private static final long EVENT_TIME_STEP = 30_000;
+
+  // the financial transaction data, amounts in cents
   final List<Transaction> transactions = List.of(
-      new Transaction(1, Customer.CUSTOMER_ID_1, 21.90,
-          TransactionType.RECEIPT),
-      new Transaction(2, Customer.CUSTOMER_ID_2, 32.00,
-          TransactionType.RECEIPT),
-      new Transaction(3, Customer.CUSTOMER_ID_3, 17.43,
-          TransactionType.RECEIPT),
-      new Transaction(4, Customer.CUSTOMER_ID_1, 20.00,
-          TransactionType.PAY),
-      new Transaction(5, Customer.CUSTOMER_ID_1, 2.00,
-          TransactionType.PAY),
-      new Transaction(6, Customer.CUSTOMER_ID_3, 3.00,
-          TransactionType.PAY),
-      new Transaction(7, Customer.CUSTOMER_ID_2, 10.00,
-          TransactionType.PAY),
-      new Transaction(8, Customer.CUSTOMER_ID_2, 5.00,
-          TransactionType.PAY),
-      new Transaction(9, Customer.CUSTOMER_ID_3, 2.00,
-          TransactionType.REIMBURSE),
-      new Transaction(10, Customer.CUSTOMER_ID_2, 1.00,
-          TransactionType.REIMBURSE),
-      new Transaction(11, Customer.CUSTOMER_ID_1, 7.50,
-          TransactionType.PAY)
+      new Transaction(1, CUSTOMER_1, 2190,
+          TransactionType.RECEIPT, FIRST_EVENT_TIME + 0 * EVENT_TIME_STEP),
+      new Transaction(2, CUSTOMER_2, 3200,
+          TransactionType.RECEIPT, FIRST_EVENT_TIME + 1 * EVENT_TIME_STEP),
+      new Transaction(3, CUSTOMER_3, 1743,
+          TransactionType.RECEIPT, FIRST_EVENT_TIME + 2 * EVENT_TIME_STEP),
+      new Transaction(4, CUSTOMER_1, 2000,
+          TransactionType.PAY, FIRST_EVENT_TIME + 3 * EVENT_TIME_STEP),
+      new Transaction(5, CUSTOMER_1, 200,
+          TransactionType.PAY, FIRST_EVENT_TIME + 4 * EVENT_TIME_STEP),
+      new Transaction(6, CUSTOMER_3, 300,
+          TransactionType.PAY, FIRST_EVENT_TIME + 5 * EVENT_TIME_STEP),
+      new Transaction(7, CUSTOMER_2, 1000,
+          TransactionType.PAY, FIRST_EVENT_TIME + 6 * EVENT_TIME_STEP),
+      new Transaction(8, CUSTOMER_2, 500,
+          TransactionType.PAY, FIRST_EVENT_TIME + 7 * EVENT_TIME_STEP),
+      new Transaction(9, CUSTOMER_3, 200,
+          TransactionType.REIMBURSE, FIRST_EVENT_TIME + 8 * EVENT_TIME_STEP),
+      new Transaction(10, CUSTOMER_2, 100,
+          TransactionType.REIMBURSE, FIRST_EVENT_TIME + 9 * EVENT_TIME_STEP),
+      new Transaction(11, CUSTOMER_1, 750,
+          TransactionType.PAY, FIRST_EVENT_TIME + 10 * EVENT_TIME_STEP)
   );
 
-  // this is an offset pointing to the index to be used in the next read operation
-  private int numberOfTransactionsRead = 0;
+  // reads the sample data sequentially, shared by all the threads that read from this provider
+  private final RangeReader reader = new RangeReader(this, 0, transactions.size());
 
   /**
    * @return instance of {@link TransactionProvider}
@@ -83,32 +99,58 @@ public class TransactionProvider {
    * <p>
    * Every time this operation is called, the internal offset shifts. If there is nothing
    * more to read, i.e., the internal offset is beyond the length of available data,
-   * then this operation returns an empty list.
+   * then this operation returns an empty list. The offset is shifted without any lock, so
+   * that several threads can read at the same time, each one getting different transactions.
    *
    * @param numberOfTransactionsToRead How many transactions should be returned
    * @return Transactions as list of {@link Transaction}, or empty list, if there is
    * nothing more to read
    */
+  @Override
   public List<Transaction> readTransactions(int numberOfTransactionsToRead) {
 
-    if (numberOfTransactionsRead >= transactions.size()) {
+    return reader.readTransactions(numberOfTransactionsToRead);
+  }
+
+  @Override
+  public TransactionBatch readBatch(int numberOfTransactionsToRead) {
+
+    return reader.readBatch(numberOfTransactionsToRead);
+  }
+
+  @Override
+  public long numberOfRecords() {
+
+    return transactions.size();
+  }
+
+  @Override
+  public Transaction transaction(long index) {
+
+    return transactions.get((int) index);
+  }
 
-      return Collections.emptyList();
-    }
+  @Override
+  public void addTo(long index, TransactionBatch.Builder builder) {
 
-    if ((numberOfTransactionsRead + numberOfTransactionsToRead) >= transactions.size()) {
+    builder.add(transactions.get((int) index));
+  }
+
+  @Override
+  public int customerHash(long index) {
 
-      numberOfTransactionsToRead = transactions.size() - numberOfTransactionsRead;
-    }
+    int customer = transactions.get((int) index).customer();
 
-    List<Transaction> result = IntStream.range(numberOfTransactionsRead,
-            (numberOfTransactionsRead + numberOfTransactionsToRead))
-        .mapToObj(transactions::get)
-        .toList();
+    return TransactionRecords.hash(DIRECTORY.mostSignificantBits(customer),
+        DIRECTORY.leastSignificantBits(customer));
+  }
 
-    numberOfTransactionsRead += numberOfTransactionsToRead;
+  /**
+   * Starts reading from the first transaction again.
+   */
+  void rewind() {
 
-    return result;
+    reader.rewind();
   }
 
   /**
@@ -0,0 +1,59 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.provider;
+
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import java.util.List;
+
+/**
+ * Source of transaction data, read sequentially in chunks.
+ */
+public interface TransactionReader {
+
+  /**
+   * Reads transactions according to the given number of transactions to be read.
+   * <p>
+   * Every time this operation is called, the internal offset shifts. If there is nothing more to
+   * read, i.e., the internal offset is beyond the length of available data, then this operation
+   * returns an empty list.
+   *
+   * @param numberOfTransactionsToRead How many transactions should be returned
+   * @return Transactions as list of {@link Transaction}, or empty list, if there is nothing more to
+   * read
+   */
+  List<Transaction> readTransactions(int numberOfTransactionsToRead);
+
+  /**
+   * Reads transactions as {@link #readTransactions(int)}, but straight into the columns of a
+   * {@link TransactionBatch}, without any {@link Transaction} object.
+   *
+   * @param numberOfTransactionsToRead How many transactions should be returned
+   * @return Transactions as {@link TransactionBatch}, or empty batch, if there is nothing more to
+   * read
+   */
+  TransactionBatch readBatch(int numberOfTransactionsToRead);
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.provider;
+
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+
+/**
+ * Transaction data whose records can be read in any order, by index (0 to
+ * {@link #numberOfRecords()}, exclusive), so that it can be split into
+ * {@link TransactionPartitions}.
+ * <p>
+ * Records must be readable from several threads at the same time.
+ */
+public interface TransactionRecords {
+
+  /**
+   * @return Total number of records
+   */
+  long numberOfRecords();
+
+  /**
+   * @param index Index of the record
+   * @return Transaction stored in the record
+   */
+  Transaction transaction(long index);
+
+  /**
+   * Adds the transaction stored in the record to a batch, without any {@link Transaction} object.
+   *
+   * @param index   Index of the record
+   * @param builder Builder of the batch
+   */
+  void addTo(long index, TransactionBatch.Builder builder);
+
+  /**
+   * @param index Index of the record
+   * @return Hash of the UUID of the customer of the record, the same in every JVM
+   */
+  int customerHash(long index);
+
+  /**
+   * Hashes the UUID with the given bits, as {@link #customerHash(long)} does.
+   *
+   * @param mostSignificantBits  Most significant 64 bits of the UUID
+   * @param leastSignificantBits Least significant 64 bits of the UUID
+   * @return Hash of the UUID
+   */
+  static int hash(long mostSignificantBits, long leastSignificantBits) {
+
+    long hash = (mostSignificantBits ^ Long.rotateLeft(leastSignificantBits, 32))
+        * 0x9E3779B97F4A7C15L;
+
+    return (int) (hash ^ (hash >>> 32));
+  }
+}
@@ -0,0 +1,529 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.results;
+
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.AMOUNT_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.CUSTOMER_LSB_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.CUSTOMER_MSB_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.EVENT_TIME_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.HEADER_SIZE;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.ID_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.MAGIC;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.OUTCOME_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.PROCESSED_AT_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.RECORD_SIZE;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.TYPE_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.VERSION;
+
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionOutcomes;
+import edu.pekko.sample.app.metrics.LatencyHistogram;
+import edu.pekko.sample.app.metrics.Metrics;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of the results of the processed transactions, in segmented files as defined by
+ * {@link ResultsLogFormat}.
+ * <p>
+ * Results are written with group commit: {@link #append(TransactionBatch, TransactionOutcomes)}
+ * only buffers them, and a background thread writes everything buffered with one
+ * {@link FileChannel#write} followed by one {@link FileChannel#force}, once the oldest buffered
+ * result has waited for the flush interval or there are as many results as the flush threshold.
+ * The cost of waiting for the storage device is then shared by all the results of a flush: the
+ * future returned by each append is only completed once its results are durable, and so is the
+ * entry of their segment in the folder, which is synced after the segment is created.
+ * <p>
+ * A new segment is started when the current one reaches the segment size, between two flushes:
+ * a segment can then be bigger by up to one flush. Segments of previous runs are never changed:
+ * the first segment of a run follows the last one in the folder.
+ * <p>
+ * A write that fails part way is cut off the segment, back to the end of the previous flush, so
+ * that no torn record is followed by others; if even that fails, a new segment is started, and the
+ * torn record stays at the end of its segment, where it is ignored. A failed fsync is fatal
+ * instead: what reached the storage device is then unknown, and a later fsync may succeed without
+ * writing it again, so every result appended afterwards is failed.
+ */
+public final class ResultsLog implements AutoCloseable {
+
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
+
+  private static final LongAdder FLUSHES = Metrics.getInstance().counter(
+      "pekko_sample_results_flushes_total",
+      "Number of writes of results, each one followed by a fsync if enabled");
+
+  private static final LongAdder WRITTEN_RESULTS = Metrics.getInstance().counter(
+      "pekko_sample_results_written_total", "Number of results of transactions written");
+
+  // time taken by the write and the fsync of a flush
+  private static final LatencyHistogram FLUSH_LATENCY = Metrics.getInstance().histogram(
+      "pekko_sample_results_flush_latency_seconds",
+      "Time taken by the write and the fsync of a flush of results");
+
+  private final ResultsSettings settings;
+  private final long flushIntervalNanos;
+  // applied to the channel of every segment opened, e.g. to make it fail in tests
+  private final UnaryOperator<FileChannel> segmentChannels;
+
+  // only used by the flusher (and by the constructor, before it is started)
+  private FileChannel segment;
+  private long segmentSequenceNumber;
+  private long segmentSize;
+  // whether the entry of the segment in the folder was synced, so that it survives a crash
+  private boolean segmentEntryDurable;
+  private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * RECORD_SIZE);
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition appended = lock.newCondition();
+
+  // guarded by the lock
+  private List<PendingAppend> pending = new ArrayList<>();
+  private int pendingRecords;
+  private long firstPendingNanos;
+  private boolean closed;
+  // once set, by a failed fsync, every result appended is failed with it
+  private IOException failure;
+
+  private final Thread flusher;
+
+  ResultsLog(ResultsSettings settings, UnaryOperator<FileChannel> segmentChannels)
+      throws IOException {
+
+    this.settings = settings;
+    this.flushIntervalNanos = settings.flushInterval().toNanos();
+    this.segmentChannels = segmentChannels;
+
+    Files.createDirectories(settings.directory());
+
+    openSegment(lastSequenceNumber(settings.directory()) + 1);
+
+    flusher = new Thread(this::flushContinuously, "results-log");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /**
+   * Opens the results log with the given settings, starting a new segment in its folder.
+   *
+   * @param settings {@link ResultsSettings}, with a folder
+   * @return Instance of {@link ResultsLog}
+   * @throws IOException If the folder or the segment cannot be created
+   */
+  public static ResultsLog open(ResultsSettings settings) throws IOException {
+
+    return new ResultsLog(settings, UnaryOperator.identity());
+  }
+
+  /**
+   * Appends the results of the given processed transactions, all processed now.
+   *
+   * @param transactions Processed transactions
+   * @param outcomes     {@link TransactionOutcomes} of the transactions, in the same order
+   * @return Future completed once the results are durable, or failed if they could not be
+   * written, or if a fsync failed before
+   * @throws IllegalArgumentException If there is not one outcome per transaction
+   */
+  public CompletionStage<Void> append(TransactionBatch transactions,
+      TransactionOutcomes outcomes) {
+
+    if (outcomes.size() != transactions.size()) {
+
+      throw new IllegalArgumentException(outcomes.size() + " outcomes for "
+          + transactions.size() + " transactions");
+    }
+
+    CompletableFuture<Void> durable = new CompletableFuture<>();
+
+    if (transactions.isEmpty()) {
+
+      durable.complete(null);
+
+      return durable;
+    }
+
+    PendingAppend pendingAppend = new PendingAppend(transactions, outcomes,
+        System.currentTimeMillis(), durable);
+
+    lock.lock();
+
+    try {
+
+      if (closed) {
+
+        durable.completeExceptionally(new IllegalStateException("Results log is closed"));
+
+        return durable;
+      }
+
+      if (failure != null) {
+
+        durable.completeExceptionally(failure);
+
+        return durable;
+      }
+
+      if (pending.isEmpty()) {
+
+        firstPendingNanos = System.nanoTime();
+      }
+
+      pending.add(pendingAppend);
+      pendingRecords += transactions.size();
+
+      // the flusher waits for the first result, and then for the threshold or the interval
+      if (pending.size() == 1 || pendingRecords >= settings.flushRecords()) {
+
+        appended.signal();
+      }
+    } finally {
+
+      lock.unlock();
+    }
+
+    return durable;
+  }
+
+  /**
+   * Writes whatever is still buffered and closes the log: results appended afterwards are failed.
+   */
+  @Override
+  public void close() throws IOException {
+
+    lock.lock();
+
+    try {
+
+      if (closed) {
+
+        return;
+      }
+
+      closed = true;
+      appended.signal();
+    } finally {
+
+      lock.unlock();
+    }
+
+    try {
+
+      flusher.join();
+    } catch (InterruptedException e) {
+
+      Thread.currentThread().interrupt();
+    }
+
+    segment.close();
+  }
+
+  /**
+   * Work of the flusher thread: waits for results, and writes them in groups, until the log is
+   * closed and nothing is buffered anymore.
+   */
+  private void flushContinuously() {
+
+    while (true) {
+
+      List<PendingAppend> toFlush;
+
+      lock.lock();
+
+      try {
+
+        while (pending.isEmpty() && !closed && failure == null) {
+
+          appended.awaitUninterruptibly();
+        }
+
+        if (pending.isEmpty()) {
+
+          return;
+        }
+
+        // group commit: more results are waited for, unless there are enough of them already
+        long remainingNanos = firstPendingNanos + flushIntervalNanos - System.nanoTime();
+
+        while (remainingNanos > 0 && pendingRecords < settings.flushRecords() && !closed) {
+
+          try {
+
+            remainingNanos = appended.awaitNanos(remainingNanos);
+          } catch (InterruptedException e) {
+
+            // only the flush interval is cut short
+            remainingNanos = 0;
+          }
+        }
+
+        toFlush = pending;
+        pending = new ArrayList<>();
+        pendingRecords = 0;
+      } finally {
+
+        lock.unlock();
+      }
+
+      flush(toFlush);
+    }
+  }
+
+  /**
+   * Writes the given results with one write and one fsync, and then completes their futures.
+   *
+   * @param toFlush Results to be written
+   */
+  private void flush(List<PendingAppend> toFlush) {
+
+    long startNanos = System.nanoTime();
+    int numberOfRecords = 0;
+    long durableSize = segmentSize;
+
+    try {
+
+      if (segmentSize >= settings.segmentSize()) {
+
+        segment.close();
+        openSegment(segmentSequenceNumber + 1);
+        durableSize = segmentSize;
+      }
+
+      buffer.clear();
+
+      for (PendingAppend pendingAppend : toFlush) {
+
+        numberOfRecords += pendingAppend.transactions.size();
+        encode(pendingAppend);
+      }
+
+      buffer.flip();
+
+      while (buffer.hasRemaining()) {
+
+        segmentSize += segment.write(buffer);
+      }
+    } catch (IOException | RuntimeException e) {
+
+      cutOff(durableSize);
+      toFlush.forEach(pendingAppend -> pendingAppend.durable.completeExceptionally(e));
+
+      return;
+    }
+
+    if (settings.fsync()) {
+
+      try {
+
+        segment.force(false);
+
+        if (!segmentEntryDurable) {
+
+          syncDirectory();
+          segmentEntryDurable = true;
+        }
+      } catch (IOException e) {
+
+        fail(e);
+        toFlush.forEach(pendingAppend -> pendingAppend.durable.completeExceptionally(e));
+
+        return;
+      }
+    }
+
+    FLUSH_LATENCY.recordSince(startNanos);
+    FLUSHES.increment();
+    WRITTEN_RESULTS.add(numberOfRecords);
+
+    toFlush.forEach(pendingAppend -> pendingAppend.durable.complete(null));
+  }
+
+  /**
+   * Takes the segment back to the given size, after a write that failed part way, or starts a new
+   * segment if it cannot be.
+   */
+  private void cutOff(long durableSize) {
+
+    try {
+
+      segment.truncate(durableSize);
+      segment.position(durableSize);
+      segmentSize = durableSize;
+    } catch (IOException e) {
+
+      try {
+
+        segment.close();
+        openSegment(segmentSequenceNumber + 1);
+      } catch (IOException openFailure) {
+
+        fail(openFailure);
+      }
+    }
+  }
+
+  /**
+   * Fails every result still buffered and every one appended from now on with the given error.
+   */
+  private void fail(IOException error) {
+
+    List<PendingAppend> toFail;
+
+    lock.lock();
+
+    try {
+
+      failure = error;
+      toFail = pending;
+      pending = new ArrayList<>();
+      pendingRecords = 0;
+    } finally {
+
+      lock.unlock();
+    }
+
+    toFail.forEach(pendingAppend -> pendingAppend.durable.completeExceptionally(error));
+  }
+
+  /**
+   * Adds the records of the given results to the buffer, growing it if needed.
+   */
+  private void encode(PendingAppend pendingAppend) {
+
+    TransactionBatch transactions = pendingAppend.transactions;
+    TransactionOutcomes outcomes = pendingAppend.outcomes;
+
+    if (buffer.remaining() < transactions.size() * RECORD_SIZE) {
+
+      ByteBuffer bigger = ByteBuffer.allocateDirect(
+          Math.max(2 * buffer.capacity(), buffer.position() + transactions.size() * RECORD_SIZE));
+
+      buffer.flip();
+      buffer = bigger.put(buffer);
+    }
+
+    for (int i = 0; i < transactions.size(); i++) {
+
+      int position = buffer.position();
+      int customer = transactions.customer(i);
+
+      buffer.putInt(position + ID_OFFSET, transactions.id(i))
+          .put(position + TYPE_OFFSET, (byte) transactions.transactionType(i).ordinal())
+          .put(position + OUTCOME_OFFSET, (byte) outcomes.get(i).ordinal())
+          .putLong(position + AMOUNT_OFFSET, transactions.amountInCents(i))
+          .putLong(position + CUSTOMER_MSB_OFFSET, DIRECTORY.mostSignificantBits(customer))
+          .putLong(position + CUSTOMER_LSB_OFFSET, DIRECTORY.leastSignificantBits(customer))
+          .putLong(position + EVENT_TIME_OFFSET, transactions.eventTimeMillis(i))
+          .putLong(position + PROCESSED_AT_OFFSET, pendingAppend.processedAtMillis)
+          .position(position + RECORD_SIZE);
+    }
+  }
+
+  /**
+   * Creates the segment with the given sequence number, or the first one after it that does not
+   * exist yet, and writes its header.
+   */
+  private void openSegment(long sequenceNumber) throws IOException {
+
+    while (true) {
+
+      try {
+
+        segment = segmentChannels.apply(FileChannel.open(
+            settings.directory().resolve(ResultsLogFormat.segmentName(sequenceNumber)),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+        break;
+      } catch (FileAlreadyExistsException e) {
+
+        // another log has just started the same segment in the same folder
+        sequenceNumber++;
+      }
+    }
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).clear();
+
+    while (header.hasRemaining()) {
+
+      segment.write(header);
+    }
+
+    segmentSequenceNumber = sequenceNumber;
+    segmentSize = HEADER_SIZE;
+    segmentEntryDurable = false;
+  }
+
+  /**
+   * Syncs the folder of the segments, so that a segment created since the last sync is still in it
+   * after a crash, with the results already written to it.
+   */
+  private void syncDirectory() throws IOException {
+
+    try (FileChannel directory = FileChannel.open(settings.directory(),
+        StandardOpenOption.READ)) {
+
+      directory.force(true);
+    }
+  }
+
+  /**
+   * @param directory Folder of the segments
+   * @return Sequence number of the last segment in the folder, or 0 if there is none
+   */
+  static long lastSequenceNumber(Path directory) throws IOException {
+
+    try (Stream<Path> files = Files.list(directory)) {
+
+      return files.map(file -> file.getFileName().toString())
+          .mapToLong(ResultsLogFormat::sequenceNumber)
+          .filter(sequenceNumber -> sequenceNumber >= 0)
+          .max()
+          .orElse(0);
+    }
+  }
+
+  /**
+   * Results appended, but not written yet.
+   */
+  private record PendingAppend(TransactionBatch transactions, TransactionOutcomes outcomes,
+                               long processedAtMillis, CompletableFuture<Void> durable) {
+
+    // nothing to add here: simple data holder
+  }
+}
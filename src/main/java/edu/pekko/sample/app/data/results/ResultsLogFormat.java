@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.results;
+
+import java.util.Locale;
+
+/**
+ * Definition of the segments of the results log: each one is a file with a fixed-width header
+ * followed by fixed-width records, one per processed transaction, all in big-endian byte order.
+ * <p>
+ * Header ({@value #HEADER_SIZE} bytes):
+ * <pre>
+ *   0  int   magic number ("PKRL")
+ *   4  int   version of the format
+ *   8  int   size of each record in bytes
+ *   12 ...   reserved
+ * </pre>
+ * Record ({@value #RECORD_SIZE} bytes), the same as in the transaction log, plus the outcome and
+ * the time of the processing:
+ * <pre>
+ *   0  int   transaction identification
+ *   4  byte  ordinal of the transaction type
+ *   5  byte  ordinal of the outcome (applied, duplicate or rejected)
+ *   6  ...   padding
+ *   8  long  amount in minor units (cents)
+ *   16 long  most significant bits of the customer UUID
+ *   24 long  least significant bits of the customer UUID
+ *   32 long  event time in milliseconds since the epoch
+ *   40 long  time the transaction was processed, in milliseconds since the epoch
+ * </pre>
+ * Segments are named {@value #SEGMENT_PREFIX}, followed by their sequence number in six digits and
+ * {@value #SEGMENT_SUFFIX}: they are read in the order of their names.
+ */
+final class ResultsLogFormat {
+
+  static final int MAGIC = 0x504B524C;
+  static final int VERSION = 1;
+
+  static final int HEADER_SIZE = 32;
+  static final int RECORD_SIZE = 48;
+
+  static final int ID_OFFSET = 0;
+  static final int TYPE_OFFSET = 4;
+  static final int OUTCOME_OFFSET = 5;
+  static final int AMOUNT_OFFSET = 8;
+  static final int CUSTOMER_MSB_OFFSET = 16;
+  static final int CUSTOMER_LSB_OFFSET = 24;
+  static final int EVENT_TIME_OFFSET = 32;
+  static final int PROCESSED_AT_OFFSET = 40;
+
+  static final String SEGMENT_PREFIX = "results-";
+  static final String SEGMENT_SUFFIX = ".log";
+
+  private ResultsLogFormat() {
+
+    // nothing to add here: only constants
+  }
+
+  /**
+   * @param sequenceNumber Sequence number of the segment
+   * @return Name of the file of the segment
+   */
+  static String segmentName(long sequenceNumber) {
+
+    return String.format(Locale.ROOT, "%s%06d%s", SEGMENT_PREFIX, sequenceNumber,
+        SEGMENT_SUFFIX);
+  }
+
+  /**
+   * @param fileName Name of a file
+   * @return Sequence number of the segment in the file, or -1 if it is not a segment
+   */
+  static long sequenceNumber(String fileName) {
+
+    if (!fileName.startsWith(SEGMENT_PREFIX) || !fileName.endsWith(SEGMENT_SUFFIX)) {
+
+      return -1;
+    }
+
+    try {
+
+      return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(),
+          fileName.length() - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+
+      return -1;
+    }
+  }
+}
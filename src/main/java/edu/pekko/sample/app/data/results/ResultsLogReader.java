@@ -0,0 +1,127 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.results;
+
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.AMOUNT_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.CUSTOMER_LSB_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.CUSTOMER_MSB_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.EVENT_TIME_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.HEADER_SIZE;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.ID_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.MAGIC;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.OUTCOME_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.PROCESSED_AT_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.RECORD_SIZE;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.TYPE_OFFSET;
+import static edu.pekko.sample.app.data.results.ResultsLogFormat.VERSION;
+
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionOutcome;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads back the results written by {@link ResultsLog}, e.g. to check what was processed.
+ * <p>
+ * Segments are read whole, in the order of their sequence numbers: this is meant for checks and
+ * tools, not for the hot path.
+ */
+public final class ResultsLogReader {
+
+  private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+  private static final TransactionOutcome[] OUTCOMES = TransactionOutcome.values();
+
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
+
+  private ResultsLogReader() {
+
+    // nothing to add here: only static operations
+  }
+
+  /**
+   * Reads all the results in the given folder.
+   *
+   * @param directory Folder of the segments
+   * @return {@link ProcessedTransaction} of every result, in the order they were written
+   * @throws IOException If a segment cannot be read or is not a valid segment of results
+   */
+  public static List<ProcessedTransaction> readAll(Path directory) throws IOException {
+
+    List<Path> segments;
+
+    try (Stream<Path> files = Files.list(directory)) {
+
+      segments = files.filter(file ->
+              ResultsLogFormat.sequenceNumber(file.getFileName().toString()) >= 0)
+          .sorted(Comparator.comparingLong(file ->
+              ResultsLogFormat.sequenceNumber(file.getFileName().toString())))
+          .toList();
+    }
+
+    List<ProcessedTransaction> results = new ArrayList<>();
+
+    for (Path segment : segments) {
+
+      read(segment, results);
+    }
+
+    return results;
+  }
+
+  private static void read(Path segment, List<ProcessedTransaction> results) throws IOException {
+
+    ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(segment));
+
+    if (content.limit() < HEADER_SIZE || content.getInt(0) != MAGIC
+        || content.getInt(4) != VERSION || content.getInt(8) != RECORD_SIZE) {
+
+      throw new IOException(segment + " is not a segment of results");
+    }
+
+    // a record cut short, e.g. by a crash during a write, was never acknowledged: it is ignored
+    for (int position = HEADER_SIZE; position + RECORD_SIZE <= content.limit();
+        position += RECORD_SIZE) {
+
+      results.add(new ProcessedTransaction(new Transaction(content.getInt(position + ID_OFFSET),
+          DIRECTORY.intern(content.getLong(position + CUSTOMER_MSB_OFFSET),
+              content.getLong(position + CUSTOMER_LSB_OFFSET)),
+          content.getLong(position + AMOUNT_OFFSET),
+          TRANSACTION_TYPES[content.get(position + TYPE_OFFSET)],
+          content.getLong(position + EVENT_TIME_OFFSET)),
+          OUTCOMES[content.get(position + OUTCOME_OFFSET)],
+          content.getLong(position + PROCESSED_AT_OFFSET)));
+    }
+  }
+}
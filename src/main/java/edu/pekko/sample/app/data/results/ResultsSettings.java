@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.results;
+
+import com.typesafe.config.Config;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the {@link ResultsLog}, as defined in section "pekko-sample.results" of the
+ * configuration.
+ *
+ * @param directory     Folder of the segments, or null if results are not written
+ * @param segmentSize   Size a segment reaches before a new one is started, in bytes
+ * @param flushInterval How long results are buffered, at most, before they are written
+ * @param flushRecords  Number of buffered results that are written without waiting any longer
+ * @param fsync         Whether each write waits for the data to reach the storage device
+ */
+public record ResultsSettings(Path directory, long segmentSize, Duration flushInterval,
+                              int flushRecords, boolean fsync) {
+
+  /**
+   * @throws IllegalArgumentException If the segment size is smaller than a record, the flush
+   *                                  interval is negative or the number of records to flush is
+   *                                  not positive
+   */
+  public ResultsSettings {
+
+    if (segmentSize < ResultsLogFormat.HEADER_SIZE + ResultsLogFormat.RECORD_SIZE) {
+
+      throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+    }
+
+    if (flushInterval.isNegative()) {
+
+      throw new IllegalArgumentException("Flush interval must not be negative: " + flushInterval);
+    }
+
+    if (flushRecords < 1) {
+
+      throw new IllegalArgumentException(
+          "Number of records to flush must be positive: " + flushRecords);
+    }
+  }
+
+  /**
+   * Reads the settings from the given section of the configuration.
+   *
+   * @param config Section "pekko-sample.results" of the configuration
+   * @return Instance of {@link ResultsSettings}
+   */
+  public static ResultsSettings fromConfig(Config config) {
+
+    String directory = config.getString("directory");
+
+    return new ResultsSettings(directory.isBlank() ? null : Path.of(directory),
+        config.getBytes("segment-size"),
+        config.getDuration("flush-interval"),
+        config.getInt("flush-records"),
+        config.getBoolean("fsync"));
+  }
+
+  /**
+   * @return Whether results are written at all
+   */
+  public boolean isEnabled() {
+
+    return directory != null;
+  }
+
+  /**
+   * @param directory Folder of the segments to be used instead
+   * @return Copy of these settings with the given folder
+   */
+  public ResultsSettings withDirectory(Path directory) {
+
+    return new ResultsSettings(directory, segmentSize, flushInterval, flushRecords, fsync);
+  }
+}
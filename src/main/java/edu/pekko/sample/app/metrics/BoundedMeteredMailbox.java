@@ -0,0 +1,395 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.metrics;
+
+import com.typesafe.config.Config;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.apache.pekko.actor.ActorRef;
+import org.apache.pekko.actor.ActorSystem;
+import org.apache.pekko.actor.DeadLetter;
+import org.apache.pekko.dispatch.BoundedMessageQueueSemantics;
+import org.apache.pekko.dispatch.Envelope;
+import org.apache.pekko.dispatch.MailboxType;
+import org.apache.pekko.dispatch.MessageQueue;
+import org.apache.pekko.dispatch.ProducesMessageQueue;
+import scala.Option;
+import scala.concurrent.duration.Duration;
+
+/**
+ * Mailbox with room for a fixed number of messages, with the metrics of {@link MeteredMailbox},
+ * configured by the section of the mailbox (e.g. "pekko-sample.mailbox.customers"):
+ * <ul>
+ *   <li>"capacity": number of messages waiting in the mailbox, at most</li>
+ *   <li>"overflow": what happens to a message sent to a full mailbox (see
+ *   {@link OverflowPolicy})</li>
+ * </ul>
+ * A message that does not get into the mailbox is sent to the dead letters, where Pekko reports it,
+ * and counted in "pekko_sample_mailbox_overflow_total", per mailbox and policy. The sender is never
+ * blocked: a subclass may tell it right away that its message was rejected, with
+ * {@link #reject(Object)}, and slowing a producer down is left to the producer. The messages are
+ * kept in a lock-free queue, whose room is held by a {@link Semaphore}: a message takes a permit
+ * when it is enqueued and gives it back when it is dequeued, so that the memory of the mailbox is
+ * bounded, and its depth is known without going through the queue.
+ * <p>
+ * A subclass may split the messages into priority lanes, with {@link #numberOfLanes()} and
+ * {@link #laneOf(Object)}: each lane has its own queue, and a message is only dequeued when the
+ * more urgent lanes are empty, so that it overtakes the messages of the less urgent ones. The
+ * messages of a lane are dequeued in the order they were enqueued, and all the lanes share the
+ * capacity of the mailbox.
+ * <p>
+ * A subclass may also exempt some messages from the capacity, with {@link #isBounded(Object)}:
+ * they are never refused, and are dequeued before all the others. This is meant for the replies
+ * to work the actor has already started, which are as many as that work at most, and which the
+ * actor may be waiting for before it can take any other message.
+ */
+public class BoundedMeteredMailbox implements MailboxType,
+    ProducesMessageQueue<BoundedMeteredMailbox.BoundedMeteredMessageQueue> {
+
+  static final String OVERFLOWS = "pekko_sample_mailbox_overflow_total";
+
+  private final int capacity;
+  private final OverflowPolicy overflowPolicy;
+  private final LongAdder overflows;
+
+  public BoundedMeteredMailbox(ActorSystem.Settings settings, Config config) {
+
+    capacity = config.getInt("capacity");
+    overflowPolicy = OverflowPolicy.fromConfig(config.getString("overflow"));
+
+    if (capacity < 1) {
+
+      throw new IllegalArgumentException("Capacity of a mailbox must be positive: " + capacity);
+    }
+
+    // one counter for all the actors of the mailbox, which outlives them
+    overflows = Metrics.getInstance().counter(OVERFLOWS,
+        "Number of messages that did not get into a full mailbox", "mailbox",
+        config.hasPath("id") ? config.getString("id") : "bounded",
+        "policy", overflowPolicy.configName());
+  }
+
+  /**
+   * @return Number of priority lanes of the messages: 1 by default, i.e. no priorities
+   */
+  protected int numberOfLanes() {
+
+    return 1;
+  }
+
+  /**
+   * Only called when there is more than one lane.
+   *
+   * @param message Message sent to the actor
+   * @return Lane of the message, from 0 (most urgent) to {@link #numberOfLanes()} - 1
+   */
+  protected int laneOf(Object message) {
+
+    return 0;
+  }
+
+  /**
+   * @param message Message sent to the actor
+   * @return Whether the message takes room in the mailbox, i.e. can be refused: true by default
+   */
+  protected boolean isBounded(Object message) {
+
+    return true;
+  }
+
+  /**
+   * Called with every message that does not get into the mailbox, or is dropped from it, on the
+   * thread that sent the message that overflowed: nothing by default. It must not block, nor send
+   * anything to the actor of the mailbox.
+   *
+   * @param message Message sent to the actor, which goes to the dead letters
+   */
+  protected void reject(Object message) {
+
+    // the dead letters are enough by default
+  }
+
+  @Override
+  public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+
+    return new BoundedMeteredMessageQueue(owner.isEmpty() ? null : owner.get().path().toString(),
+        system.isEmpty() ? null : system.get().deadLetters(), this);
+  }
+
+  /**
+   * What happens to a message sent to a full mailbox.
+   */
+  public enum OverflowPolicy {
+
+    /**
+     * The message is rejected: it goes to the dead letters ("reject").
+     */
+    REJECT,
+
+    /**
+     * The oldest message waiting in the mailbox goes to the dead letters, to make room for the
+     * message ("drop-oldest").
+     */
+    DROP_OLDEST;
+
+    /**
+     * @param name Name of the policy in the configuration, e.g. "drop-oldest"
+     * @return Instance of {@link OverflowPolicy}
+     * @throws IllegalArgumentException If there is no such policy
+     */
+    public static OverflowPolicy fromConfig(String name) {
+
+      return valueOf(name.replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @return Name of the policy in the configuration
+     */
+    public String configName() {
+
+      return name().replace('_', '-').toLowerCase(Locale.ROOT);
+    }
+  }
+
+  /**
+   * Bounded queue of the messages of one actor, with its metrics.
+   */
+  public static final class BoundedMeteredMessageQueue implements MessageQueue,
+      BoundedMessageQueueSemantics {
+
+    // one queue per lane, from the most urgent one
+    private final Queue<Envelope>[] lanes;
+
+    // messages exempted from the capacity, ahead of all the lanes
+    private final Queue<Envelope> unbounded = new ConcurrentLinkedQueue<>();
+
+    private final Semaphore room;
+
+    private final BoundedMeteredMailbox mailbox;
+
+    private final ActorRef deadLetters;
+
+    private final String actor;
+
+    private final LongAdder messages;
+
+    private final LongSupplier depth;
+
+    private BoundedMeteredMessageQueue(String actor, ActorRef deadLetters,
+        BoundedMeteredMailbox mailbox) {
+
+      this.actor = actor;
+      this.deadLetters = deadLetters;
+      this.mailbox = mailbox;
+      this.room = new Semaphore(mailbox.capacity);
+      this.lanes = newLanes(mailbox.numberOfLanes());
+      this.depth = this::numberOfMessages;
+
+      if (actor == null) {
+
+        messages = new LongAdder();
+        return;
+      }
+
+      Metrics metrics = Metrics.getInstance();
+
+      messages = metrics.counter(MeteredMailbox.MESSAGES, "Number of messages sent to the actor",
+          "actor", actor);
+      metrics.gauge(MeteredMailbox.DEPTH, "Number of messages waiting in the mailbox of the actor",
+          depth, "actor", actor);
+    }
+
+    // an array of a generic type can only be created raw: it only ever holds queues of envelopes
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Queue<Envelope>[] newLanes(int numberOfLanes) {
+
+      if (numberOfLanes < 1) {
+
+        throw new IllegalArgumentException("A mailbox needs at least one lane: " + numberOfLanes);
+      }
+
+      Queue<Envelope>[] lanes = new Queue[numberOfLanes];
+
+      for (int lane = 0; lane < numberOfLanes; lane++) {
+
+        lanes[lane] = new ConcurrentLinkedQueue<>();
+      }
+
+      return lanes;
+    }
+
+    @Override
+    public void enqueue(ActorRef receiver, Envelope handle) {
+
+      messages.increment();
+
+      if (!mailbox.isBounded(handle.message())) {
+
+        unbounded.add(handle);
+      } else if (room.tryAcquire() || makeRoom(receiver)) {
+
+        lanes[lanes.length == 1 ? 0 : mailbox.laneOf(handle.message())].add(handle);
+      } else {
+
+        overflow(receiver, handle);
+      }
+    }
+
+    /**
+     * @return Whether a permit was taken for the message, as given by the overflow policy
+     */
+    private boolean makeRoom(ActorRef receiver) {
+
+      if (mailbox.overflowPolicy != OverflowPolicy.DROP_OLDEST) {
+
+        return false;
+      }
+
+      // the permit of the oldest message of the least urgent lane goes to the new one: the
+      // consumer may have taken it meanwhile, in which case there is room again
+      while (!room.tryAcquire()) {
+
+        Envelope oldest = pollLeastUrgent();
+
+        if (oldest != null) {
+
+          overflow(receiver, oldest);
+          return true;
+        }
+      }
+
+      return true;
+    }
+
+    private void overflow(ActorRef receiver, Envelope handle) {
+
+      mailbox.overflows.increment();
+      mailbox.reject(handle.message());
+
+      if (deadLetters != null) {
+
+        deadLetters.tell(new DeadLetter(handle.message(), handle.sender(), receiver),
+            handle.sender());
+      }
+    }
+
+    private Envelope pollLeastUrgent() {
+
+      for (int lane = lanes.length - 1; lane >= 0; lane--) {
+
+        Envelope handle = lanes[lane].poll();
+
+        if (handle != null) {
+
+          return handle;
+        }
+      }
+
+      return null;
+    }
+
+    @Override
+    public Envelope dequeue() {
+
+      Envelope next = unbounded.poll();
+
+      if (next != null) {
+
+        return next;
+      }
+
+      for (Queue<Envelope> lane : lanes) {
+
+        Envelope handle = lane.poll();
+
+        if (handle != null) {
+
+          room.release();
+          return handle;
+        }
+      }
+
+      return null;
+    }
+
+    @Override
+    public int numberOfMessages() {
+
+      // the messages being enqueued or dequeued are counted too, but not the unbounded ones
+      return Math.max(0, mailbox.capacity - room.availablePermits());
+    }
+
+    @Override
+    public boolean hasMessages() {
+
+      if (!unbounded.isEmpty()) {
+
+        return true;
+      }
+
+      for (Queue<Envelope> lane : lanes) {
+
+        if (!lane.isEmpty()) {
+
+          return true;
+        }
+      }
+
+      return false;
+    }
+
+    @Override
+    public Duration pushTimeOut() {
+
+      // a full mailbox never makes the sender wait
+      return Duration.Zero();
+    }
+
+    @Override
+    public void cleanUp(ActorRef owner, MessageQueue deadLetters) {
+
+      if (actor != null) {
+
+        Metrics metrics = Metrics.getInstance();
+
+        metrics.remove(MeteredMailbox.MESSAGES, messages, "actor", actor);
+        metrics.remove(MeteredMailbox.DEPTH, depth, "actor", actor);
+      }
+
+      Envelope handle = dequeue();
+
+      while (handle != null) {
+
+        deadLetters.enqueue(owner, handle);
+        handle = dequeue();
+      }
+    }
+  }
+}
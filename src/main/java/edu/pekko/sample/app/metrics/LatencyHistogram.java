@@ -0,0 +1,223 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds, in the spirit of HdrHistogram: values are counted in
+ * log-linear buckets, i.e. every power of two is split into 128 buckets of the same width, so that
+ * any percentile is reported with a relative error below 1%, whatever the order of magnitude of the
+ * values, with a fixed amount of memory.
+ * <p>
+ * Recording a value is lock-free and does not allocate anything: it only increments one counter,
+ * so it can be done on the hot path by several threads at the same time. Values above
+ * {@link #MAX_TRACKABLE_NANOS} are counted as that value.
+ */
+public final class LatencyHistogram {
+
+  /**
+   * Highest value that is tracked precisely: one hour.
+   */
+  public static final long MAX_TRACKABLE_NANOS = 3_600_000_000_000L;
+
+  // number of buckets per power of two
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private static final int MAX_EXPONENT = 63 - Long.numberOfLeadingZeros(MAX_TRACKABLE_NANOS);
+
+  // the values below 2 * SUB_BUCKETS, then SUB_BUCKETS for every further power of two
+  private static final int NUMBER_OF_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(NUMBER_OF_BUCKETS);
+
+  private final LongAdder totalNanos = new LongAdder();
+
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  /**
+   * Records one value.
+   *
+   * @param nanos Latency in nanoseconds (negative values are counted as 0)
+   */
+  public void record(long nanos) {
+
+    long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS);
+
+    counts.incrementAndGet(indexOf(value));
+    totalNanos.add(value);
+
+    // a compare-and-set only when there is a new maximum, which is rare
+    if (value > maxNanos.get()) {
+
+      maxNanos.accumulateAndGet(value, Math::max);
+    }
+  }
+
+  /**
+   * Records the time elapsed since the given start.
+   *
+   * @param startNanos Start, as given by {@link System#nanoTime()}
+   */
+  public void recordSince(long startNanos) {
+
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Takes a snapshot of the histogram. Values recorded while the snapshot is taken may or may not
+   * be part of it.
+   *
+   * @return {@link Snapshot}
+   */
+  public Snapshot snapshot() {
+
+    long[] copy = new long[NUMBER_OF_BUCKETS];
+    long count = 0;
+
+    for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+
+      copy[i] = counts.get(i);
+      count += copy[i];
+    }
+
+    return new Snapshot(copy, count, totalNanos.sum(), maxNanos.get());
+  }
+
+  static int indexOf(long value) {
+
+    if (value < 2 * SUB_BUCKETS) {
+
+      return (int) value;
+    }
+
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+
+    // the highest bits of the value, between SUB_BUCKETS and 2 * SUB_BUCKETS - 1
+    int subBucket = (int) (value >>> shift);
+
+    return (shift + 1) * SUB_BUCKETS + subBucket - SUB_BUCKETS;
+  }
+
+  /**
+   * @return Highest value that is counted in the bucket of the given index
+   */
+  static long highestValueOf(int index) {
+
+    if (index < 2 * SUB_BUCKETS) {
+
+      return index;
+    }
+
+    int shift = index / SUB_BUCKETS - 1;
+    long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * Immutable copy of a {@link LatencyHistogram}.
+   */
+  public static final class Snapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    private Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+
+      this.counts = counts;
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+    }
+
+    /**
+     * @return Number of recorded values
+     */
+    public long count() {
+
+      return count;
+    }
+
+    /**
+     * @return Sum of the recorded values, in nanoseconds
+     */
+    public long totalNanos() {
+
+      return totalNanos;
+    }
+
+    /**
+     * @return Highest recorded value, in nanoseconds
+     */
+    public long maxNanos() {
+
+      return maxNanos;
+    }
+
+    /**
+     * @return Mean of the recorded values, in nanoseconds
+     */
+    public double meanNanos() {
+
+      return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     * @param percentile Percentile, between 0 and 100
+     * @return Value, in nanoseconds, below or at which the given percentage of the recorded values
+     * are, with a relative error below 1%
+     */
+    public long percentileNanos(double percentile) {
+
+      if (count == 0) {
+
+        return 0;
+      }
+
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+
+      for (int i = 0; i < counts.length; i++) {
+
+        seen += counts[i];
+
+        if (seen >= rank) {
+
+          return Math.min(highestValueOf(i), maxNanos);
+        }
+      }
+
+      return maxNanos;
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.metrics;
+
+import com.typesafe.config.Config;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.apache.pekko.actor.ActorRef;
+import org.apache.pekko.actor.ActorSystem;
+import org.apache.pekko.dispatch.Envelope;
+import org.apache.pekko.dispatch.MailboxType;
+import org.apache.pekko.dispatch.MessageQueue;
+import org.apache.pekko.dispatch.NodeMessageQueue;
+import org.apache.pekko.dispatch.ProducesMessageQueue;
+import org.apache.pekko.dispatch.UnboundedMessageQueueSemantics;
+import scala.Option;
+
+/**
+ * Mailbox with the same queue as
+ * {@link org.apache.pekko.dispatch.SingleConsumerOnlyUnboundedMailbox} which, in addition,
+ * registers two metrics per actor in {@link Metrics}:
+ * <ul>
+ *   <li>"pekko_sample_mailbox_messages_total": number of messages sent to the actor, whose rate is
+ *   the message rate of the actor</li>
+ *   <li>"pekko_sample_mailbox_depth": number of messages waiting in the mailbox, which is only
+ *   counted when the metrics are exported</li>
+ * </ul>
+ * The only cost per message is the increment of a {@link LongAdder}. The metrics are removed when
+ * the actor is stopped.
+ */
+public class MeteredMailbox implements MailboxType,
+    ProducesMessageQueue<MeteredMailbox.MeteredMessageQueue> {
+
+  static final String MESSAGES = "pekko_sample_mailbox_messages_total";
+  static final String DEPTH = "pekko_sample_mailbox_depth";
+
+  public MeteredMailbox(ActorSystem.Settings settings, Config config) {
+
+    // nothing to add here: no settings
+  }
+
+  @Override
+  public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+
+    if (owner.isEmpty()) {
+
+      return new NodeMessageQueue();
+    }
+
+    return new MeteredMessageQueue(owner.get().path().toString());
+  }
+
+  /**
+   * Queue of {@link NodeMessageQueue}, with the metrics of its actor.
+   */
+  public static final class MeteredMessageQueue implements MessageQueue,
+      UnboundedMessageQueueSemantics {
+
+    private final NodeMessageQueue queue = new NodeMessageQueue();
+
+    private final String actor;
+
+    private final LongAdder messages;
+
+    private final LongSupplier depth;
+
+    private MeteredMessageQueue(String actor) {
+
+      this.actor = actor;
+
+      Metrics metrics = Metrics.getInstance();
+
+      messages = metrics.counter(MESSAGES, "Number of messages sent to the actor", "actor", actor);
+
+      // counting the messages in the queue is linear, but only done when it is exported
+      depth = queue::numberOfMessages;
+      metrics.gauge(DEPTH, "Number of messages waiting in the mailbox of the actor", depth,
+          "actor", actor);
+    }
+
+    @Override
+    public void enqueue(ActorRef receiver, Envelope handle) {
+
+      messages.increment();
+      queue.enqueue(receiver, handle);
+    }
+
+    @Override
+    public Envelope dequeue() {
+
+      return queue.dequeue();
+    }
+
+    @Override
+    public int numberOfMessages() {
+
+      return queue.numberOfMessages();
+    }
+
+    @Override
+    public boolean hasMessages() {
+
+      return queue.hasMessages();
+    }
+
+    @Override
+    public void cleanUp(ActorRef owner, MessageQueue deadLetters) {
+
+      Metrics metrics = Metrics.getInstance();
+
+      metrics.remove(MESSAGES, messages, "actor", actor);
+      metrics.remove(DEPTH, depth, "actor", actor);
+
+      queue.cleanUp(owner, deadLetters);
+    }
+  }
+}
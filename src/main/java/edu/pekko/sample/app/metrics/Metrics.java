@@ -0,0 +1,320 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Singleton registry of the metrics of the application: counters, gauges and latency histograms,
+ * each one identified by its name and labels, e.g. the number of transactions of a customer.
+ * <p>
+ * Registering a metric is done once, e.g. when an actor is created, while recording a value is
+ * only an increment of a {@link LongAdder} or a {@link LatencyHistogram}, without any lookup, lock
+ * or allocation. Gauges are only read when the metrics are exported. Registering the same metric
+ * again returns the one already registered.
+ * <p>
+ * The metrics are exported in the Prometheus text format and over JMX (see {@link MetricsServer}).
+ */
+public final class Metrics implements MetricsMXBean {
+
+  private static final Metrics instance = new Metrics();
+
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+  // metric families by name, sorted for the export
+  private final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+  private Metrics() {
+
+    // nothing to add here: singleton
+  }
+
+  /**
+   * @return instance of {@link Metrics}
+   */
+  public static Metrics getInstance() {
+
+    return instance;
+  }
+
+  /**
+   * Registers a counter.
+   *
+   * @param name   Name of the counter, ending with "_total"
+   * @param help   Description of the counter
+   * @param labels Names and values of the labels, alternately
+   * @return Counter to be incremented
+   */
+  public LongAdder counter(String name, String help, String... labels) {
+
+    return (LongAdder) family(name, help, Type.COUNTER).metrics
+        .computeIfAbsent(labelsOf(labels), key -> new LongAdder());
+  }
+
+  /**
+   * Registers a latency histogram, exported as a summary in seconds.
+   *
+   * @param name   Name of the histogram, ending with "_seconds"
+   * @param help   Description of the histogram
+   * @param labels Names and values of the labels, alternately
+   * @return Histogram to record the latencies in
+   */
+  public LatencyHistogram histogram(String name, String help, String... labels) {
+
+    return (LatencyHistogram) family(name, help, Type.SUMMARY).metrics
+        .computeIfAbsent(labelsOf(labels), key -> new LatencyHistogram());
+  }
+
+  /**
+   * Registers a gauge, replacing the one registered with the same name and labels, if any.
+   *
+   * @param name   Name of the gauge
+   * @param help   Description of the gauge
+   * @param value  Supplier of the value, only called when the metrics are exported
+   * @param labels Names and values of the labels, alternately
+   */
+  public void gauge(String name, String help, LongSupplier value, String... labels) {
+
+    family(name, help, Type.GAUGE).metrics.put(labelsOf(labels), value);
+  }
+
+  /**
+   * Removes a metric, if it is still the given one.
+   *
+   * @param name   Name of the metric
+   * @param metric Metric, as registered
+   * @param labels Names and values of the labels, alternately
+   */
+  public void remove(String name, Object metric, String... labels) {
+
+    Family family = families.get(name);
+
+    if (family != null) {
+
+      family.metrics.remove(labelsOf(labels), metric);
+    }
+  }
+
+  /**
+   * @return All metrics in the Prometheus text format (version 0.0.4)
+   */
+  public String toPrometheusText() {
+
+    StringBuilder text = new StringBuilder(4096);
+
+    families.forEach((name, family) -> {
+
+      if (family.metrics.isEmpty()) {
+
+        return;
+      }
+
+      text.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+      text.append("# TYPE ").append(name).append(' ').append(family.type.prometheusName)
+          .append('\n');
+
+      new TreeMap<>(family.metrics).forEach((labels, metric) -> {
+
+        switch (family.type) {
+          case COUNTER -> appendSample(text, name, labels, ((LongAdder) metric).sum());
+          case GAUGE -> appendSample(text, name, labels, ((LongSupplier) metric).getAsLong());
+          case SUMMARY -> appendSummary(text, name, labels, ((LatencyHistogram) metric).snapshot());
+        }
+      });
+    });
+
+    return text.toString();
+  }
+
+  @Override
+  public Map<String, Long> getCounters() {
+
+    Map<String, Long> values = new TreeMap<>();
+
+    forEachMetric(Type.COUNTER, (key, metric) -> values.put(key, ((LongAdder) metric).sum()));
+
+    return values;
+  }
+
+  @Override
+  public Map<String, Long> getGauges() {
+
+    Map<String, Long> values = new TreeMap<>();
+
+    forEachMetric(Type.GAUGE,
+        (key, metric) -> values.put(key, ((LongSupplier) metric).getAsLong()));
+
+    return values;
+  }
+
+  @Override
+  public Map<String, LatencySummary> getLatencies() {
+
+    Map<String, LatencySummary> values = new TreeMap<>();
+
+    forEachMetric(Type.SUMMARY, (key, metric) -> values.put(key,
+        LatencySummary.of(((LatencyHistogram) metric).snapshot())));
+
+    return values;
+  }
+
+  private Family family(String name, String help, Type type) {
+
+    Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+
+    if (family.type != type) {
+
+      throw new IllegalArgumentException(
+          "Metric " + name + " is a " + family.type.prometheusName + ", not a "
+              + type.prometheusName);
+    }
+
+    return family;
+  }
+
+  private void forEachMetric(Type type, BiConsumer<String, Object> consumer) {
+
+    families.forEach((name, family) -> {
+
+      if (family.type == type) {
+
+        family.metrics.forEach((labels, metric) -> consumer.accept(name + labels, metric));
+      }
+    });
+  }
+
+  /**
+   * @return Labels in the Prometheus format, e.g. {customer="a",type="b"}, or an empty string
+   */
+  private static String labelsOf(String... labels) {
+
+    if (labels.length % 2 != 0) {
+
+      throw new IllegalArgumentException("Labels must be given as pairs of name and value");
+    }
+
+    if (labels.length == 0) {
+
+      return "";
+    }
+
+    StringBuilder text = new StringBuilder("{");
+
+    for (int i = 0; i < labels.length; i += 2) {
+
+      if (i > 0) {
+
+        text.append(',');
+      }
+
+      text.append(labels[i]).append("=\"");
+
+      for (char c : labels[i + 1].toCharArray()) {
+
+        switch (c) {
+          case '\\' -> text.append("\\\\");
+          case '"' -> text.append("\\\"");
+          case '\n' -> text.append("\\n");
+          default -> text.append(c);
+        }
+      }
+
+      text.append('"');
+    }
+
+    return text.append('}').toString();
+  }
+
+  private static void appendSample(StringBuilder text, String name, String labels, long value) {
+
+    text.append(name).append(labels).append(' ').append(value).append('\n');
+  }
+
+  private static void appendSummary(StringBuilder text, String name, String labels,
+      LatencyHistogram.Snapshot snapshot) {
+
+    for (double quantile : QUANTILES) {
+
+      String quantileLabel = "quantile=\"" + quantile + "\"";
+
+      text.append(name)
+          .append(labels.isEmpty() ? "{" + quantileLabel + "}"
+              : labels.substring(0, labels.length() - 1) + "," + quantileLabel + "}")
+          .append(' ').append(toSeconds(snapshot.percentileNanos(quantile * 100))).append('\n');
+    }
+
+    text.append(name).append("_sum").append(labels).append(' ')
+        .append(toSeconds(snapshot.totalNanos())).append('\n');
+    text.append(name).append("_count").append(labels).append(' ').append(snapshot.count())
+        .append('\n');
+  }
+
+  private static double toSeconds(long nanos) {
+
+    return (double) nanos / TimeUnit.SECONDS.toNanos(1);
+  }
+
+  /**
+   * Types of metrics, with their names in the Prometheus format.
+   */
+  private enum Type {
+
+    COUNTER("counter"),
+    GAUGE("gauge"),
+    SUMMARY("summary");
+
+    private final String prometheusName;
+
+    Type(String prometheusName) {
+
+      this.prometheusName = prometheusName;
+    }
+  }
+
+  /**
+   * All metrics with the same name, by their labels.
+   */
+  private static final class Family {
+
+    private final String help;
+    private final Type type;
+    private final ConcurrentMap<String, Object> metrics = new ConcurrentHashMap<>();
+
+    private Family(String help, Type type) {
+
+      this.help = help;
+      this.type = type;
+    }
+  }
+}
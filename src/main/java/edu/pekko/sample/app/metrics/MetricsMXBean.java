@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link Metrics}, registered as MBean "edu.pekko.sample.app:type=Metrics".
+ * Metrics are identified by their name followed by their labels, as in the Prometheus format.
+ */
+public interface MetricsMXBean {
+
+  /**
+   * @return Current value of every counter
+   */
+  Map<String, Long> getCounters();
+
+  /**
+   * @return Current value of every gauge
+   */
+  Map<String, Long> getGauges();
+
+  /**
+   * @return Summary of every latency histogram
+   */
+  Map<String, LatencySummary> getLatencies();
+
+  /**
+   * Summary of a {@link LatencyHistogram}, in microseconds.
+   *
+   * @param count      Number of recorded values
+   * @param meanMicros Mean
+   * @param p50Micros  Median
+   * @param p90Micros  90th percentile
+   * @param p99Micros  99th percentile
+   * @param p999Micros 99.9th percentile
+   * @param maxMicros  Maximum
+   */
+  record LatencySummary(long count, double meanMicros, double p50Micros, double p90Micros,
+                        double p99Micros, double p999Micros, double maxMicros) {
+
+    static LatencySummary of(LatencyHistogram.Snapshot snapshot) {
+
+      return new LatencySummary(snapshot.count(), snapshot.meanNanos() / 1000,
+          snapshot.percentileNanos(50) / 1000.0, snapshot.percentileNanos(90) / 1000.0,
+          snapshot.percentileNanos(99) / 1000.0, snapshot.percentileNanos(99.9) / 1000.0,
+          snapshot.maxNanos() / 1000.0);
+    }
+  }
+}
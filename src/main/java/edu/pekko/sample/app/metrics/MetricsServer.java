@@ -0,0 +1,167 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.typesafe.config.Config;
+import edu.pekko.sample.app.utils.logging.AsyncLogger;
+import edu.pekko.sample.app.utils.logging.LogLevel;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exports the {@link Metrics} of the application, as defined in section "pekko-sample.metrics" of
+ * the configuration:
+ * <ul>
+ *   <li>over JMX, as MBean "edu.pekko.sample.app:type=Metrics"</li>
+ *   <li>in the Prometheus text format, over HTTP on path "/metrics", with the HTTP server of the
+ *   JDK: no external service or library is needed</li>
+ * </ul>
+ * Both are optional, and a failure to export the metrics does not stop the application.
+ */
+public final class MetricsServer implements AutoCloseable {
+
+  /**
+   * Name of the MBean of the metrics.
+   */
+  public static final String OBJECT_NAME = "edu.pekko.sample.app:type=Metrics";
+
+  private static final AsyncLogger LOGGER = AsyncLogger.getInstance();
+
+  private final HttpServer httpServer;
+
+  private MetricsServer(HttpServer httpServer) {
+
+    this.httpServer = httpServer;
+  }
+
+  /**
+   * Exports the metrics as given in the configuration.
+   *
+   * @param config Configuration of the application
+   * @return Instance of {@link MetricsServer}, to be closed when the application ends
+   */
+  public static MetricsServer start(Config config) {
+
+    Config settings = config.getConfig("pekko-sample.metrics");
+
+    if (settings.getBoolean("jmx")) {
+
+      registerMBean();
+    }
+
+    int port = settings.getInt("http-port");
+
+    if (port < 0) {
+
+      return new MetricsServer(null);
+    }
+
+    try {
+
+      HttpServer httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+
+      httpServer.createContext("/metrics", MetricsServer::export);
+      httpServer.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+
+        Thread thread = new Thread(runnable, "metrics-http");
+        thread.setDaemon(true);
+
+        return thread;
+      }));
+      httpServer.start();
+
+      LOGGER.log(LogLevel.INFO, "- Metrics available on http://localhost:{}/metrics -",
+          httpServer.getAddress().getPort());
+
+      return new MetricsServer(httpServer);
+    } catch (IOException e) {
+
+      LOGGER.log(LogLevel.WARN, "Metrics cannot be exported on port {}: {}", port,
+          e.getMessage());
+
+      return new MetricsServer(null);
+    }
+  }
+
+  /**
+   * @return Port of the HTTP server, or -1 if it is not running
+   */
+  public int port() {
+
+    return httpServer == null ? -1 : httpServer.getAddress().getPort();
+  }
+
+  @Override
+  public void close() {
+
+    if (httpServer != null) {
+
+      httpServer.stop(0);
+    }
+  }
+
+  private static void registerMBean() {
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    try {
+
+      server.registerMBean(Metrics.getInstance(), new ObjectName(OBJECT_NAME));
+    } catch (InstanceAlreadyExistsException e) {
+
+      // nothing to add here: the same singleton is already registered
+    } catch (JMException e) {
+
+      LOGGER.log(LogLevel.WARN, "Metrics cannot be exported over JMX: {}", e.getMessage());
+    }
+  }
+
+  private static void export(HttpExchange exchange) throws IOException {
+
+    try (exchange) {
+
+      byte[] body = Metrics.getInstance().toPrometheusText().getBytes(StandardCharsets.UTF_8);
+
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+      exchange.sendResponseHeaders(200, body.length);
+
+      try (OutputStream out = exchange.getResponseBody()) {
+
+        out.write(body);
+      }
+    }
+  }
+}
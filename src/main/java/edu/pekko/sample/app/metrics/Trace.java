@@ -0,0 +1,221 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Timestamps of a sampled batch of transactions on its way through the application, from the
+ * moment it is read until its caller is answered: each {@link Stage} records the time since the
+ * previous one in its own {@link LatencyHistogram}, exported as
+ * "pekko_sample_trace_latency_seconds", so that it is known where the time of a batch goes.
+ * <p>
+ * Only a fraction of the batches is traced (see {@link #sample(double)}), and recording a stage is
+ * one increment of a histogram plus a small immutable object, so that tracing can stay on in
+ * production. A trace is immutable, and travels with the messages about the batch: those sent to
+ * several actors share it, and each actor goes on with its own copy. Timestamps are those of
+ * {@link System#nanoTime()}, which are only meaningful in the JVM that took them: a trace is never
+ * serialized.
+ * <p>
+ * The stages of the customers run at the same time for the many customers of a batch: each
+ * Customer Actor measures its own {@link CustomerStages}, and the batch records the slowest one of
+ * each stage, once, when they are all done.
+ */
+public final class Trace {
+
+  private final long startNanos;
+  private final long lastNanos;
+
+  private Trace(long startNanos, long lastNanos) {
+
+    this.startNanos = startNanos;
+    this.lastNanos = lastNanos;
+  }
+
+  /**
+   * Starts the trace of a batch of transactions, if it is sampled.
+   *
+   * @param sampleRate Fraction of the batches that are traced, from 0 (none) to 1 (all of them)
+   * @return New trace, starting now, or null if the batch is not traced
+   */
+  public static Trace sample(double sampleRate) {
+
+    if (sampleRate <= 0
+        || sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+
+      return null;
+    }
+
+    long nowNanos = System.nanoTime();
+
+    return new Trace(nowNanos, nowNanos);
+  }
+
+  /**
+   * Records the time since the previous stage (or the start) as the given stage.
+   *
+   * @param stage {@link Stage} that has just ended
+   * @return Trace whose previous stage ended now
+   */
+  public Trace record(Stage stage) {
+
+    long nowNanos = System.nanoTime();
+
+    stage.histogram.record(nowNanos - lastNanos);
+
+    return new Trace(startNanos, nowNanos);
+  }
+
+  /**
+   * @return Trace whose previous stage ended now, without recording anything, e.g. when one of
+   *     many messages of a stage is sent
+   */
+  public Trace mark() {
+
+    return new Trace(startNanos, System.nanoTime());
+  }
+
+  /**
+   * Measures the stages of a Customer Actor that got the transactions sent when this trace was
+   * marked, and is done with them now.
+   *
+   * @param receivedNanos When the Customer Actor got the transactions
+   * @return {@link CustomerStages} of the Customer Actor
+   */
+  public CustomerStages customerStages(long receivedNanos) {
+
+    return new CustomerStages(receivedNanos - lastNanos, System.nanoTime() - receivedNanos);
+  }
+
+  /**
+   * Records the time since the start as {@link Stage#TOTAL}, once the caller of the batch is
+   * answered.
+   */
+  public void end() {
+
+    Stage.TOTAL.histogram.recordSince(startNanos);
+  }
+
+  /**
+   * Time spent by the transactions of a batch in the stages of one Customer Actor.
+   *
+   * @param queueNanos   Time in {@link Stage#CUSTOMER_QUEUE}
+   * @param processNanos Time in {@link Stage#CUSTOMER_PROCESS}
+   */
+  public record CustomerStages(long queueNanos, long processNanos) {
+
+    /**
+     * @param other Stages of another Customer Actor, or null if there is none
+     * @return Slowest time of each stage among the two
+     */
+    public CustomerStages max(CustomerStages other) {
+
+      return other == null ? this : new CustomerStages(Math.max(queueNanos, other.queueNanos),
+          Math.max(processNanos, other.processNanos));
+    }
+
+    /**
+     * Records each stage, once per batch.
+     */
+    public void record() {
+
+      Stage.CUSTOMER_QUEUE.histogram.record(queueNanos);
+      Stage.CUSTOMER_PROCESS.histogram.record(processNanos);
+    }
+  }
+
+  /**
+   * Stages of a batch of transactions, in the order they happen.
+   */
+  public enum Stage {
+
+    /**
+     * Reading of the batch from the transaction data.
+     */
+    READ,
+
+    /**
+     * From the batch being read until the Transactions Actor gets it: waiting to be grouped with
+     * other batches ("stream" mode), the ask and the mailbox of the Transactions Actor.
+     */
+    SUBMIT,
+
+    /**
+     * Splitting of the batch by lane and customer, and sending of the messages to the Customer
+     * Actors, which may wait for room in their mailboxes.
+     */
+    DISPATCH,
+
+    /**
+     * From the message of a customer being sent until its Customer Actor gets it: its mailbox and
+     * its stash ("per-customer" dispatch only), for the slowest customer of the batch.
+     */
+    CUSTOMER_QUEUE,
+
+    /**
+     * From the Customer Actor getting the message of a customer until its transactions are
+     * persisted and applied ("per-customer" dispatch only), for the slowest customer of the batch.
+     */
+    CUSTOMER_PROCESS,
+
+    /**
+     * From the batch being dispatched until every customer has acknowledged its transactions: the
+     * slowest customer of the batch.
+     */
+    ACKNOWLEDGE,
+
+    /**
+     * Writing of the results of the batch to the results log, until they are durable.
+     */
+    RESULTS,
+
+    /**
+     * Whole way of the batch, from the start of its reading until its caller is answered.
+     */
+    TOTAL;
+
+    private final LatencyHistogram histogram = Metrics.getInstance().histogram(
+        "pekko_sample_trace_latency_seconds", "Time spent by the sampled batches in each stage",
+        "stage", label());
+
+    /**
+     * @return Label of the stage in the metrics, e.g. "customer-queue"
+     */
+    public String label() {
+
+      return name().replace('_', '-').toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return {@link LatencyHistogram.Snapshot} of the time spent in the stage so far
+     */
+    public LatencyHistogram.Snapshot snapshot() {
+
+      return histogram.snapshot();
+    }
+  }
+}
@@ -0,0 +1,919 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.serialization;
+
+import edu.pekko.sample.app.actor.CustomerActor;
+import edu.pekko.sample.app.actor.CustomerActor.Balance;
+import edu.pekko.sample.app.actor.CustomerActor.CustomerAggregates;
+import edu.pekko.sample.app.actor.CustomerActor.CustomerWindows;
+import edu.pekko.sample.app.actor.CustomerActor.GetAggregates;
+import edu.pekko.sample.app.actor.CustomerActor.GetBalance;
+import edu.pekko.sample.app.actor.CustomerActor.GetWindows;
+import edu.pekko.sample.app.actor.CustomerActor.ProcessHotTransactions;
+import edu.pekko.sample.app.actor.CustomerActor.ProcessTransaction;
+import edu.pekko.sample.app.actor.CustomerActor.ProcessTransactions;
+import edu.pekko.sample.app.actor.CustomerActor.Stop;
+import edu.pekko.sample.app.actor.CustomerActor.TransactionApplied;
+import edu.pekko.sample.app.actor.CustomerActor.TransactionsApplied;
+import edu.pekko.sample.app.actor.CustomerActor.TransactionsAppliedWithAggregates;
+import edu.pekko.sample.app.actor.TransactionsActor.AllCustomerAggregates;
+import edu.pekko.sample.app.actor.TransactionsActor.AllTransactionsProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.ResultsNotWritten;
+import edu.pekko.sample.app.actor.TransactionsActor.GetAllCustomerAggregates;
+import edu.pekko.sample.app.actor.TransactionsActor.GetCustomerAggregates;
+import edu.pekko.sample.app.actor.TransactionsActor.GetCustomerBalance;
+import edu.pekko.sample.app.actor.TransactionsActor.GetCustomerWindows;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsNotProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsRejected;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsToProcess;
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionOutcome;
+import edu.pekko.sample.app.data.definition.TransactionOutcomes;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import edu.pekko.sample.app.data.ledger.CustomerLedger;
+import edu.pekko.sample.app.data.ledger.TransactionAggregates;
+import edu.pekko.sample.app.data.ledger.TimeWindows;
+import edu.pekko.sample.app.data.ledger.TransactionIdSet;
+import edu.pekko.sample.app.data.ledger.WindowStatistics;
+import java.io.NotSerializableException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pekko.actor.ExtendedActorSystem;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.ActorRefResolver;
+import org.apache.pekko.actor.typed.javadsl.Adapter;
+import org.apache.pekko.serialization.ByteBufferSerializer;
+import org.apache.pekko.serialization.SerializerWithStringManifest;
+
+/**
+ * Pekko serializer of the transactions and of the messages and events of the actors, with a
+ * hand-written binary encoding: it replaces Java serialization for everything sent to another node
+ * or written to the journal and the snapshot store (see the bindings in application.conf).
+ * <p>
+ * Every type has its own manifest, which carries the version of its encoding (e.g.
+ * {@code "transaction-v1"}): once released, an encoding is never changed, a new version is added
+ * instead, and the old ones are still read, so that the events already in the journal can always
+ * be replayed.
+ * <p>
+ * All numbers are written in full, little-endian as the buffers of Artery, whatever the order of
+ * the given buffer:
+ * <ul>
+ *   <li>customers as the two halves of their UUID, interned again in the {@link CustomerDirectory}
+ *   when read, since handles are only valid within this JVM</li>
+ *   <li>transaction types as the ordinal of their {@link TransactionType}, in one byte</li>
+ *   <li>actor references as their serialization format from {@link ActorRefResolver}, in UTF-8,
+ *   after their length</li>
+ *   <li>batches in columns, with the UUID of each of their customers written once, and the index
+ *   of its customer among them for every transaction, in as few bytes as needed (none at all for
+ *   the batch of a single customer, as sent to and persisted by a Customer Actor)</li>
+ *   <li>event times of a batch as their differences to the first one, in an int each, when they
+ *   all fit (not at all when they are all unknown)</li>
+ * </ul>
+ * It writes straight into the buffers of Artery (as a {@link ByteBufferSerializer}), and into an
+ * array of the exact size otherwise.
+ */
+public final class ProtocolSerializer extends SerializerWithStringManifest
+    implements ByteBufferSerializer {
+
+  // unique among the serializers of the Actor System: 0 to 40 are reserved by Pekko
+  private static final int IDENTIFIER = 4201;
+
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
+
+  private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+  private static final TransactionOutcome[] OUTCOMES = TransactionOutcome.values();
+
+  private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  private static final String TRANSACTION_V1 = "transaction-v1";
+  private static final String TRANSACTION_BATCH_V1 = "transaction-batch-v1";
+  private static final String PROCESS_TRANSACTION_V1 = "process-transaction-v1";
+  private static final String PROCESS_TRANSACTIONS_V1 = "process-transactions-v1";
+  private static final String STOP_V1 = "stop-v1";
+  private static final String GET_BALANCE_V1 = "get-balance-v1";
+  private static final String BALANCE_V1 = "balance-v1";
+  private static final String TRANSACTION_APPLIED_V1 = "transaction-applied-v1";
+  private static final String TRANSACTIONS_APPLIED_V1 = "transactions-applied-v1";
+  private static final String LEDGER_SNAPSHOT_V1 = "ledger-snapshot-v1";
+  private static final String GET_AGGREGATES_V1 = "get-aggregates-v1";
+  private static final String CUSTOMER_AGGREGATES_V1 = "customer-aggregates-v1";
+  private static final String GET_WINDOWS_V1 = "get-windows-v1";
+  private static final String CUSTOMER_WINDOWS_V1 = "customer-windows-v1";
+  private static final String TRANSACTIONS_TO_PROCESS_V1 = "transactions-to-process-v1";
+  private static final String TRANSACTION_PROCESSED_V1 = "transaction-processed-v1";
+  private static final String TRANSACTIONS_PROCESSED_V1 = "transactions-processed-v1";
+  private static final String ALL_TRANSACTIONS_PROCESSED_V1 = "all-transactions-processed-v1";
+  private static final String RESULTS_NOT_WRITTEN_V1 = "results-not-written-v1";
+  private static final String TRANSACTIONS_REJECTED_V1 = "transactions-rejected-v1";
+  private static final String TRANSACTIONS_NOT_PROCESSED_V1 = "transactions-not-processed-v1";
+  private static final String GET_CUSTOMER_BALANCE_V1 = "get-customer-balance-v1";
+  private static final String GET_CUSTOMER_AGGREGATES_V1 = "get-customer-aggregates-v1";
+  private static final String GET_ALL_CUSTOMER_AGGREGATES_V1 = "get-all-customer-aggregates-v1";
+  private static final String ALL_CUSTOMER_AGGREGATES_V1 = "all-customer-aggregates-v1";
+  private static final String GET_CUSTOMER_WINDOWS_V1 = "get-customer-windows-v1";
+  private static final String PROCESS_HOT_TRANSACTIONS_V1 = "process-hot-transactions-v1";
+  private static final String TRANSACTIONS_APPLIED_WITH_AGGREGATES_V1 =
+      "transactions-applied-with-aggregates-v1";
+
+  // two halves of a UUID
+  private static final int CUSTOMER_SIZE = 2 * Long.BYTES;
+
+  // id, customer, amount, type and event time
+  private static final int TRANSACTION_SIZE = Integer.BYTES + CUSTOMER_SIZE + 2 * Long.BYTES + 1;
+
+  // count, sum, minimum and maximum of each type of transaction
+  private static final int AGGREGATES_SIZE = TransactionAggregates.serializedSize();
+
+  // start, end and aggregates of a window
+  private static final int WINDOW_SIZE = 2 * Long.BYTES + AGGREGATES_SIZE;
+
+  // id, amount and type of each transaction of a batch, without the index of its customer and
+  // its event time
+  private static final int BATCH_ROW_SIZE = Integer.BYTES + Long.BYTES + 1;
+
+  // encodings of the event times of a batch
+  private static final byte NO_EVENT_TIMES = 0;
+  private static final byte EVENT_TIME_DELTAS = 1;
+  private static final byte FULL_EVENT_TIMES = 2;
+
+  private final ExtendedActorSystem system;
+
+  // only looked up when first needed: serializers are created while the Actor System starts
+  private volatile ActorRefResolver resolver;
+
+  /**
+   * Created by Pekko, from the configuration.
+   *
+   * @param system Actor System the serializer belongs to
+   */
+  public ProtocolSerializer(ExtendedActorSystem system) {
+
+    this.system = system;
+  }
+
+  @Override
+  public int identifier() {
+
+    return IDENTIFIER;
+  }
+
+  @Override
+  public String manifest(Object message) {
+
+    return switch (message) {
+      case Transaction ignored -> TRANSACTION_V1;
+      case TransactionBatch ignored -> TRANSACTION_BATCH_V1;
+      case ProcessTransaction ignored -> PROCESS_TRANSACTION_V1;
+      case ProcessTransactions ignored -> PROCESS_TRANSACTIONS_V1;
+      case Stop ignored -> STOP_V1;
+      case GetBalance ignored -> GET_BALANCE_V1;
+      case Balance ignored -> BALANCE_V1;
+      case TransactionApplied ignored -> TRANSACTION_APPLIED_V1;
+      case TransactionsApplied ignored -> TRANSACTIONS_APPLIED_V1;
+      case CustomerLedger.Snapshot ignored -> LEDGER_SNAPSHOT_V1;
+      case GetAggregates ignored -> GET_AGGREGATES_V1;
+      case CustomerAggregates ignored -> CUSTOMER_AGGREGATES_V1;
+      case GetWindows ignored -> GET_WINDOWS_V1;
+      case CustomerWindows ignored -> CUSTOMER_WINDOWS_V1;
+      case TransactionsToProcess ignored -> TRANSACTIONS_TO_PROCESS_V1;
+      case TransactionProcessed ignored -> TRANSACTION_PROCESSED_V1;
+      case TransactionsProcessed ignored -> TRANSACTIONS_PROCESSED_V1;
+      case AllTransactionsProcessed ignored -> ALL_TRANSACTIONS_PROCESSED_V1;
+      case ResultsNotWritten ignored -> RESULTS_NOT_WRITTEN_V1;
+      case TransactionsRejected ignored -> TRANSACTIONS_REJECTED_V1;
+      case TransactionsNotProcessed ignored -> TRANSACTIONS_NOT_PROCESSED_V1;
+      case GetCustomerBalance ignored -> GET_CUSTOMER_BALANCE_V1;
+      case GetCustomerAggregates ignored -> GET_CUSTOMER_AGGREGATES_V1;
+      case GetAllCustomerAggregates ignored -> GET_ALL_CUSTOMER_AGGREGATES_V1;
+      case AllCustomerAggregates ignored -> ALL_CUSTOMER_AGGREGATES_V1;
+      case GetCustomerWindows ignored -> GET_CUSTOMER_WINDOWS_V1;
+      case ProcessHotTransactions ignored -> PROCESS_HOT_TRANSACTIONS_V1;
+      case TransactionsAppliedWithAggregates ignored -> TRANSACTIONS_APPLIED_WITH_AGGREGATES_V1;
+      default -> throw cannotSerialize(message);
+    };
+  }
+
+  @Override
+  public byte[] toBinary(Object message) {
+
+    Encoder encoder = new Encoder(message);
+    ByteBuffer buffer = ByteBuffer.allocate(encoder.size()).order(BYTE_ORDER);
+
+    encoder.writeTo(buffer);
+
+    return buffer.array();
+  }
+
+  @Override
+  public void toBinary(Object message, ByteBuffer buffer) {
+
+    ByteOrder order = buffer.order();
+
+    try {
+
+      new Encoder(message).writeTo(buffer.order(BYTE_ORDER));
+    } finally {
+
+      buffer.order(order);
+    }
+  }
+
+  @Override
+  public Object fromBinary(byte[] bytes, String manifest) throws NotSerializableException {
+
+    return read(ByteBuffer.wrap(bytes).order(BYTE_ORDER), manifest);
+  }
+
+  @Override
+  public Object fromBinary(ByteBuffer buffer, String manifest) throws NotSerializableException {
+
+    ByteOrder order = buffer.order();
+
+    try {
+
+      return read(buffer.order(BYTE_ORDER), manifest);
+    } finally {
+
+      buffer.order(order);
+    }
+  }
+
+  private Object read(ByteBuffer buffer, String manifest) throws NotSerializableException {
+
+    return switch (manifest) {
+      case TRANSACTION_V1 -> readTransaction(buffer);
+      case TRANSACTION_BATCH_V1 -> readBatch(buffer);
+      case PROCESS_TRANSACTION_V1 -> new ProcessTransaction(buffer.getLong(),
+          readTransaction(buffer), readRef(buffer));
+      case PROCESS_TRANSACTIONS_V1 -> new ProcessTransactions(buffer.getLong(), readBatch(buffer),
+          readRef(buffer));
+      case STOP_V1 -> new Stop();
+      case GET_BALANCE_V1 -> new GetBalance(readRef(buffer));
+      case BALANCE_V1 -> new Balance(readCustomer(buffer), buffer.getLong(), buffer.getLong());
+      case TRANSACTION_APPLIED_V1 -> new TransactionApplied(readTransaction(buffer));
+      case TRANSACTIONS_APPLIED_V1 -> new TransactionsApplied(readBatch(buffer));
+      case LEDGER_SNAPSHOT_V1 -> new CustomerLedger.Snapshot(buffer.getLong(), buffer.getLong(),
+          TransactionIdSet.readFrom(buffer), TransactionAggregates.readFrom(buffer),
+          TimeWindows.readFrom(buffer));
+      case GET_AGGREGATES_V1 -> new GetAggregates(readRef(buffer));
+      case CUSTOMER_AGGREGATES_V1 -> readCustomerAggregates(buffer);
+      case GET_WINDOWS_V1 -> new GetWindows(readRef(buffer));
+      case CUSTOMER_WINDOWS_V1 -> new CustomerWindows(readCustomer(buffer), buffer.getLong(),
+          buffer.getLong(), readWindow(buffer), readWindow(buffer), readWindow(buffer));
+      case TRANSACTIONS_TO_PROCESS_V1 -> new TransactionsToProcess(buffer.getLong(),
+          readBatch(buffer), readRef(buffer));
+      case TRANSACTION_PROCESSED_V1 -> new TransactionProcessed(buffer.getLong(),
+          readCustomer(buffer), OUTCOMES[buffer.get()]);
+      case TRANSACTIONS_PROCESSED_V1 -> new TransactionsProcessed(buffer.getLong(),
+          readCustomer(buffer), readOutcomes(buffer));
+      case ALL_TRANSACTIONS_PROCESSED_V1 -> new AllTransactionsProcessed(buffer.getLong());
+      case RESULTS_NOT_WRITTEN_V1 -> new ResultsNotWritten(buffer.getLong());
+      case TRANSACTIONS_REJECTED_V1 -> new TransactionsRejected(buffer.getLong());
+      case TRANSACTIONS_NOT_PROCESSED_V1 -> new TransactionsNotProcessed(buffer.getLong());
+      case GET_CUSTOMER_BALANCE_V1 -> new GetCustomerBalance(readCustomer(buffer),
+          readRef(buffer));
+      case GET_CUSTOMER_AGGREGATES_V1 -> new GetCustomerAggregates(readCustomer(buffer),
+          readRef(buffer));
+      case GET_ALL_CUSTOMER_AGGREGATES_V1 -> new GetAllCustomerAggregates(readRef(buffer));
+      case ALL_CUSTOMER_AGGREGATES_V1 -> readAllCustomerAggregates(buffer);
+      case GET_CUSTOMER_WINDOWS_V1 -> new GetCustomerWindows(readCustomer(buffer),
+          readRef(buffer));
+      case PROCESS_HOT_TRANSACTIONS_V1 -> readProcessHotTransactions(buffer);
+      case TRANSACTIONS_APPLIED_WITH_AGGREGATES_V1 -> readTransactionsAppliedWithAggregates(buffer);
+      default -> throw new NotSerializableException(
+          "Unknown manifest [" + manifest + "] for " + getClass().getName());
+    };
+  }
+
+  private static void writeTransaction(Transaction transaction, ByteBuffer buffer) {
+
+    buffer.putInt(transaction.id());
+    writeCustomer(transaction.customer(), buffer);
+    buffer.putLong(transaction.amountInCents());
+    buffer.put((byte) transaction.transactionType().ordinal());
+    buffer.putLong(transaction.eventTimeMillis());
+  }
+
+  private static Transaction readTransaction(ByteBuffer buffer) {
+
+    return new Transaction(buffer.getInt(), readCustomer(buffer), buffer.getLong(),
+        TRANSACTION_TYPES[buffer.get()], buffer.getLong());
+  }
+
+  /**
+   * Writes the number of outcomes, and then the ordinal of each one in a byte.
+   */
+  private static void writeOutcomes(TransactionOutcomes outcomes, ByteBuffer buffer) {
+
+    buffer.putInt(outcomes.size());
+
+    for (int i = 0; i < outcomes.size(); i++) {
+
+      buffer.put((byte) outcomes.get(i).ordinal());
+    }
+  }
+
+  private static TransactionOutcomes readOutcomes(ByteBuffer buffer) {
+
+    int size = buffer.getInt();
+    TransactionOutcomes.Builder outcomes = new TransactionOutcomes.Builder(size);
+
+    for (int i = 0; i < size; i++) {
+
+      outcomes.set(i, OUTCOMES[buffer.get()]);
+    }
+
+    return outcomes.build();
+  }
+
+  private ProcessHotTransactions readProcessHotTransactions(ByteBuffer buffer) {
+
+    // the fields come before the batch and the reference to reply to, which are written last
+    long requestId = buffer.getLong();
+    TransactionAggregates aggregates = TransactionAggregates.readFrom(buffer);
+
+    return new ProcessHotTransactions(requestId, readBatch(buffer), aggregates,
+        readRef(buffer));
+  }
+
+  private static TransactionsAppliedWithAggregates readTransactionsAppliedWithAggregates(
+      ByteBuffer buffer) {
+
+    TransactionAggregates aggregates = TransactionAggregates.readFrom(buffer);
+
+    return new TransactionsAppliedWithAggregates(readBatch(buffer), aggregates);
+  }
+
+  private static void writeCustomerAggregates(CustomerAggregates aggregates, ByteBuffer buffer) {
+
+    writeCustomer(aggregates.customer(), buffer);
+    aggregates.aggregates().writeTo(buffer);
+  }
+
+  private static CustomerAggregates readCustomerAggregates(ByteBuffer buffer) {
+
+    return new CustomerAggregates(readCustomer(buffer), TransactionAggregates.readFrom(buffer));
+  }
+
+  /**
+   * Writes the customer, the watermark, the number of late events, and then the sliding, the
+   * tumbling and the previous tumbling windows.
+   */
+  private static void writeCustomerWindows(CustomerWindows windows, ByteBuffer buffer) {
+
+    writeCustomer(windows.customer(), buffer);
+    buffer.putLong(windows.watermarkMillis());
+    buffer.putLong(windows.lateEvents());
+    writeWindow(windows.sliding(), buffer);
+    writeWindow(windows.tumbling(), buffer);
+    writeWindow(windows.previousTumbling(), buffer);
+  }
+
+  private static void writeWindow(WindowStatistics window, ByteBuffer buffer) {
+
+    buffer.putLong(window.startMillis());
+    buffer.putLong(window.endMillis());
+    window.aggregates().writeTo(buffer);
+  }
+
+  private static WindowStatistics readWindow(ByteBuffer buffer) {
+
+    return new WindowStatistics(buffer.getLong(), buffer.getLong(),
+        TransactionAggregates.readFrom(buffer));
+  }
+
+  /**
+   * Writes the total, then the number of customers followed by the aggregates of each one of
+   * them, and then the number of customers that did not answer.
+   */
+  private static void writeAllCustomerAggregates(AllCustomerAggregates aggregates,
+      ByteBuffer buffer) {
+
+    aggregates.total().writeTo(buffer);
+    buffer.putInt(aggregates.customers().size());
+
+    for (CustomerAggregates customerAggregates : aggregates.customers()) {
+
+      writeCustomerAggregates(customerAggregates, buffer);
+    }
+
+    buffer.putInt(aggregates.unanswered());
+  }
+
+  private static AllCustomerAggregates readAllCustomerAggregates(ByteBuffer buffer) {
+
+    TransactionAggregates total = TransactionAggregates.readFrom(buffer);
+    int numberOfCustomers = buffer.getInt();
+    List<CustomerAggregates> customers = new ArrayList<>(numberOfCustomers);
+
+    for (int i = 0; i < numberOfCustomers; i++) {
+
+      customers.add(readCustomerAggregates(buffer));
+    }
+
+    return new AllCustomerAggregates(total, List.copyOf(customers), buffer.getInt());
+  }
+
+  /**
+   * Writes the size of the batch and its customers, and then the ids, the indexes of the
+   * customers, the amounts, the types and the event times of its transactions, each in a column.
+   */
+  private static void writeBatch(TransactionBatch batch, CustomerTable customers,
+      ByteBuffer buffer) {
+
+    int size = batch.size();
+
+    buffer.putInt(size);
+    buffer.putInt(customers.count);
+
+    for (int i = 0; i < customers.count; i++) {
+
+      writeCustomer(customers.customers[i], buffer);
+    }
+
+    for (int i = 0; i < size; i++) {
+
+      buffer.putInt(batch.id(i));
+    }
+
+    switch (indexSize(customers.count)) {
+      case 0 -> {
+        // a single customer: there is nothing to tell the transactions apart
+      }
+      case 1 -> {
+        for (int i = 0; i < size; i++) {
+
+          buffer.put((byte) customers.indexes[i]);
+        }
+      }
+      case 2 -> {
+        for (int i = 0; i < size; i++) {
+
+          buffer.putShort((short) customers.indexes[i]);
+        }
+      }
+      default -> {
+        for (int i = 0; i < size; i++) {
+
+          buffer.putInt(customers.indexes[i]);
+        }
+      }
+    }
+
+    for (int i = 0; i < size; i++) {
+
+      buffer.putLong(batch.amountInCents(i));
+    }
+
+    for (int i = 0; i < size; i++) {
+
+      buffer.put((byte) batch.transactionType(i).ordinal());
+    }
+
+    byte eventTimes = eventTimesEncoding(batch);
+
+    buffer.put(eventTimes);
+
+    if (eventTimes == EVENT_TIME_DELTAS) {
+
+      long first = batch.eventTimeMillis(0);
+
+      buffer.putLong(first);
+
+      for (int i = 0; i < size; i++) {
+
+        buffer.putInt((int) (batch.eventTimeMillis(i) - first));
+      }
+    } else if (eventTimes == FULL_EVENT_TIMES) {
+
+      for (int i = 0; i < size; i++) {
+
+        buffer.putLong(batch.eventTimeMillis(i));
+      }
+    }
+  }
+
+  private static TransactionBatch readBatch(ByteBuffer buffer) {
+
+    int size = buffer.getInt();
+    int[] customers = new int[buffer.getInt()];
+
+    for (int i = 0; i < customers.length; i++) {
+
+      customers[i] = readCustomer(buffer);
+    }
+
+    int[] ids = new int[size];
+
+    for (int i = 0; i < size; i++) {
+
+      ids[i] = buffer.getInt();
+    }
+
+    int[] customerOfTransaction = new int[size];
+
+    for (int i = 0; i < size; i++) {
+
+      int index = switch (indexSize(customers.length)) {
+        case 0 -> 0;
+        case 1 -> Byte.toUnsignedInt(buffer.get());
+        case 2 -> Short.toUnsignedInt(buffer.getShort());
+        default -> buffer.getInt();
+      };
+
+      customerOfTransaction[i] = customers[index];
+    }
+
+    long[] amountsInCents = new long[size];
+
+    for (int i = 0; i < size; i++) {
+
+      amountsInCents[i] = buffer.getLong();
+    }
+
+    byte[] types = new byte[size];
+
+    buffer.get(types);
+
+    long[] eventTimesMillis = new long[size];
+    byte eventTimes = buffer.get();
+
+    if (eventTimes == EVENT_TIME_DELTAS) {
+
+      long first = buffer.getLong();
+
+      for (int i = 0; i < size; i++) {
+
+        eventTimesMillis[i] = first + buffer.getInt();
+      }
+    } else if (eventTimes == FULL_EVENT_TIMES) {
+
+      for (int i = 0; i < size; i++) {
+
+        eventTimesMillis[i] = buffer.getLong();
+      }
+    }
+
+    TransactionBatch.Builder builder = new TransactionBatch.Builder(size);
+
+    for (int i = 0; i < size; i++) {
+
+      builder.add(ids[i], customerOfTransaction[i], amountsInCents[i],
+          TRANSACTION_TYPES[types[i]], eventTimesMillis[i]);
+    }
+
+    return builder.build();
+  }
+
+  private static int sizeOf(TransactionBatch batch, CustomerTable customers) {
+
+    int size = batch.size();
+
+    return 2 * Integer.BYTES + customers.count * CUSTOMER_SIZE
+        + size * (BATCH_ROW_SIZE + indexSize(customers.count)) + 1
+        + switch (eventTimesEncoding(batch)) {
+          case EVENT_TIME_DELTAS -> Long.BYTES + size * Integer.BYTES;
+          case FULL_EVENT_TIMES -> size * Long.BYTES;
+          default -> 0;
+        };
+  }
+
+  /**
+   * @return How the event times of the given batch are written: not at all if they are all
+   *     unknown, as differences to the first one if they all fit in an int, or else in full
+   */
+  private static byte eventTimesEncoding(TransactionBatch batch) {
+
+    boolean allUnknown = true;
+    boolean deltasFit = true;
+
+    for (int i = 0; i < batch.size() && (allUnknown || deltasFit); i++) {
+
+      long eventTime = batch.eventTimeMillis(i);
+
+      allUnknown &= eventTime == Transaction.UNKNOWN_EVENT_TIME;
+      deltasFit &= eventTime - batch.eventTimeMillis(0) == (int) (eventTime
+          - batch.eventTimeMillis(0));
+    }
+
+    if (allUnknown) {
+
+      return NO_EVENT_TIMES;
+    }
+
+    return deltasFit ? EVENT_TIME_DELTAS : FULL_EVENT_TIMES;
+  }
+
+  /**
+   * @return Number of bytes of the index of a customer among the given number of customers
+   */
+  private static int indexSize(int numberOfCustomers) {
+
+    if (numberOfCustomers <= 1) {
+
+      return 0;
+    }
+
+    if (numberOfCustomers <= 1 << Byte.SIZE) {
+
+      return 1;
+    }
+
+    return numberOfCustomers <= 1 << Short.SIZE ? 2 : 4;
+  }
+
+  private static void writeCustomer(int customer, ByteBuffer buffer) {
+
+    buffer.putLong(DIRECTORY.mostSignificantBits(customer));
+    buffer.putLong(DIRECTORY.leastSignificantBits(customer));
+  }
+
+  private static int readCustomer(ByteBuffer buffer) {
+
+    return DIRECTORY.intern(buffer.getLong(), buffer.getLong());
+  }
+
+  private <T> ActorRef<T> readRef(ByteBuffer buffer) {
+
+    byte[] bytes = new byte[buffer.getInt()];
+
+    buffer.get(bytes);
+
+    return resolver().resolveActorRef(new String(bytes, StandardCharsets.UTF_8));
+  }
+
+  private ActorRefResolver resolver() {
+
+    if (resolver == null) {
+
+      // the extension is created once per Actor System: any thread would get the same
+      resolver = ActorRefResolver.get(Adapter.toTyped(system));
+    }
+
+    return resolver;
+  }
+
+  private static IllegalArgumentException cannotSerialize(Object message) {
+
+    return new IllegalArgumentException("Cannot serialize " + message.getClass().getName()
+        + " with " + ProtocolSerializer.class.getName());
+  }
+
+  /**
+   * Encoding of one message: what it takes besides its own fields (the reference to reply to, the
+   * customers of its batch) is worked out once, for both its size and its bytes.
+   */
+  private final class Encoder {
+
+    private final Object message;
+    private final byte[] replyTo;
+    private final TransactionBatch batch;
+    private final CustomerTable customers;
+
+    private Encoder(Object message) {
+
+      this.message = message;
+
+      ActorRef<?> ref = switch (message) {
+        case ProcessTransaction command -> command.replyTo();
+        case ProcessTransactions command -> command.replyTo();
+        case GetBalance command -> command.replyTo();
+        case GetAggregates command -> command.replyTo();
+        case GetWindows command -> command.replyTo();
+        case TransactionsToProcess event -> event.replyTo();
+        case GetCustomerBalance event -> event.replyTo();
+        case GetCustomerAggregates event -> event.replyTo();
+        case GetAllCustomerAggregates event -> event.replyTo();
+        case GetCustomerWindows event -> event.replyTo();
+        case ProcessHotTransactions command -> command.replyTo();
+        default -> null;
+      };
+
+      this.replyTo = ref == null ? null
+          : resolver().toSerializationFormat(ref).getBytes(StandardCharsets.UTF_8);
+
+      this.batch = switch (message) {
+        case TransactionBatch transactions -> transactions;
+        case ProcessTransactions command -> command.transactions();
+        case TransactionsApplied event -> event.transactions();
+        case TransactionsToProcess event -> event.transactions();
+        case ProcessHotTransactions command -> command.transactions();
+        case TransactionsAppliedWithAggregates event -> event.transactions();
+        default -> null;
+      };
+
+      this.customers = batch == null ? null : new CustomerTable(batch);
+    }
+
+    private int size() {
+
+      int size = switch (message) {
+        case Transaction ignored -> TRANSACTION_SIZE;
+        case TransactionBatch ignored -> 0;
+        case ProcessTransaction ignored -> Long.BYTES + TRANSACTION_SIZE;
+        case ProcessTransactions ignored -> Long.BYTES;
+        case Stop ignored -> 0;
+        case GetBalance ignored -> 0;
+        case Balance ignored -> CUSTOMER_SIZE + 2 * Long.BYTES;
+        case TransactionApplied ignored -> TRANSACTION_SIZE;
+        case TransactionsApplied ignored -> 0;
+        case CustomerLedger.Snapshot snapshot -> 2 * Long.BYTES
+            + snapshot.appliedIds().serializedSize() + AGGREGATES_SIZE
+            + snapshot.windows().serializedSize();
+        case GetAggregates ignored -> 0;
+        case CustomerAggregates ignored -> CUSTOMER_SIZE + AGGREGATES_SIZE;
+        case GetWindows ignored -> 0;
+        case CustomerWindows ignored -> CUSTOMER_SIZE + 2 * Long.BYTES + 3 * WINDOW_SIZE;
+        case TransactionsToProcess ignored -> Long.BYTES;
+        case TransactionProcessed ignored -> Long.BYTES + CUSTOMER_SIZE + 1;
+        case TransactionsProcessed event -> Long.BYTES + CUSTOMER_SIZE + Integer.BYTES
+            + event.outcomes().size();
+        case AllTransactionsProcessed ignored -> Long.BYTES;
+        case ResultsNotWritten ignored -> Long.BYTES;
+        case TransactionsRejected ignored -> Long.BYTES;
+        case TransactionsNotProcessed ignored -> Long.BYTES;
+        case GetCustomerBalance ignored -> CUSTOMER_SIZE;
+        case GetCustomerAggregates ignored -> CUSTOMER_SIZE;
+        case GetAllCustomerAggregates ignored -> 0;
+        case AllCustomerAggregates aggregates -> AGGREGATES_SIZE + 2 * Integer.BYTES
+            + aggregates.customers().size() * (CUSTOMER_SIZE + AGGREGATES_SIZE);
+        case GetCustomerWindows ignored -> CUSTOMER_SIZE;
+        case ProcessHotTransactions ignored -> Long.BYTES + AGGREGATES_SIZE;
+        case TransactionsAppliedWithAggregates ignored -> AGGREGATES_SIZE;
+        default -> throw cannotSerialize(message);
+      };
+
+      if (batch != null) {
+
+        size += sizeOf(batch, customers);
+      }
+
+      if (replyTo != null) {
+
+        size += Integer.BYTES + replyTo.length;
+      }
+
+      return size;
+    }
+
+    private void writeTo(ByteBuffer buffer) {
+
+      switch (message) {
+        case Transaction transaction -> writeTransaction(transaction, buffer);
+        case TransactionBatch ignored -> {
+          // only the batch, written below
+        }
+        case ProcessTransaction command -> {
+          buffer.putLong(command.requestId());
+          writeTransaction(command.transaction(), buffer);
+        }
+        case ProcessTransactions command -> buffer.putLong(command.requestId());
+        case Stop ignored -> {
+          // nothing to write: no fields
+        }
+        case GetBalance ignored -> {
+          // only the reference to reply to, written below
+        }
+        case Balance balance -> {
+          writeCustomer(balance.customer(), buffer);
+          buffer.putLong(balance.balanceInCents());
+          buffer.putLong(balance.numberOfTransactions());
+        }
+        case TransactionApplied event -> writeTransaction(event.transaction(), buffer);
+        case TransactionsApplied ignored -> {
+          // only the batch, written below
+        }
+        case CustomerLedger.Snapshot snapshot -> {
+          buffer.putLong(snapshot.balanceInCents());
+          buffer.putLong(snapshot.numberOfTransactions());
+          snapshot.appliedIds().writeTo(buffer);
+          snapshot.aggregates().writeTo(buffer);
+          snapshot.windows().writeTo(buffer);
+        }
+        case GetAggregates ignored -> {
+          // only the reference to reply to, written below
+        }
+        case CustomerAggregates aggregates -> writeCustomerAggregates(aggregates, buffer);
+        case GetWindows ignored -> {
+          // only the reference to reply to, written below
+        }
+        case CustomerWindows windows -> writeCustomerWindows(windows, buffer);
+        case TransactionsToProcess event -> buffer.putLong(event.requestId());
+        case TransactionProcessed event -> {
+          buffer.putLong(event.requestId());
+          writeCustomer(event.customer(), buffer);
+          buffer.put((byte) event.outcome().ordinal());
+        }
+        case TransactionsProcessed event -> {
+          buffer.putLong(event.requestId());
+          writeCustomer(event.customer(), buffer);
+          writeOutcomes(event.outcomes(), buffer);
+        }
+        case AllTransactionsProcessed event -> buffer.putLong(event.requestId());
+        case ResultsNotWritten event -> buffer.putLong(event.requestId());
+        case TransactionsRejected event -> buffer.putLong(event.requestId());
+        case TransactionsNotProcessed event -> buffer.putLong(event.requestId());
+        case GetCustomerBalance event -> writeCustomer(event.customer(), buffer);
+        case GetCustomerAggregates event -> writeCustomer(event.customer(), buffer);
+        case GetAllCustomerAggregates ignored -> {
+          // only the reference to reply to, written below
+        }
+        case AllCustomerAggregates aggregates -> writeAllCustomerAggregates(aggregates, buffer);
+        case GetCustomerWindows event -> writeCustomer(event.customer(), buffer);
+        case ProcessHotTransactions command -> {
+          buffer.putLong(command.requestId());
+          command.aggregates().writeTo(buffer);
+        }
+        case TransactionsAppliedWithAggregates event -> event.aggregates().writeTo(buffer);
+        default -> throw cannotSerialize(message);
+      }
+
+      if (batch != null) {
+
+        writeBatch(batch, customers, buffer);
+      }
+
+      if (replyTo != null) {
+
+        buffer.putInt(replyTo.length);
+        buffer.put(replyTo);
+      }
+    }
+  }
+
+  /**
+   * Distinct customers of a batch, in the order of their first transaction, found by open
+   * addressing as in {@link TransactionBatch#splitByCustomer()}, with the index of the customer of
+   * every transaction among them.
+   */
+  private static final class CustomerTable {
+
+    private final int[] customers;
+    private final int[] indexes;
+    private int count;
+
+    private CustomerTable(TransactionBatch batch) {
+
+      int size = batch.size();
+
+      customers = new int[size];
+      indexes = new int[size];
+
+      // handle + 1 in each slot, 0 if empty
+      int mask = Integer.highestOneBit(2 * size + 1) * 2 - 1;
+      int[] slots = new int[mask + 1];
+      int[] indexOfSlot = new int[mask + 1];
+
+      for (int i = 0; i < size; i++) {
+
+        int customer = batch.customer(i);
+        int slot = Integer.hashCode(customer * 0x9E3779B9) & mask;
+
+        while (slots[slot] != 0 && slots[slot] != customer + 1) {
+
+          slot = (slot + 1) & mask;
+        }
+
+        if (slots[slot] == 0) {
+
+          slots[slot] = customer + 1;
+          indexOfSlot[slot] = count;
+          customers[count++] = customer;
+        }
+
+        indexes[i] = indexOfSlot[slot];
+      }
+    }
+  }
+}
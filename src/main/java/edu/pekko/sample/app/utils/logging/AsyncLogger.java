@@ -0,0 +1,294 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.utils.logging;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous logger: the calling thread only checks the level and stores the message template
+ * and its arguments in a {@link LogRingBuffer}, and a background thread formats the messages and
+ * writes them to the {@link LogSink} in batches.
+ * <p>
+ * Since the arguments are only formatted by the background thread, a message whose level is
+ * disabled costs nothing but the level check. Messages are written with placeholders "{}", e.g.
+ * <pre>
+ *   logger.log(LogLevel.DEBUG, "Still {} to go for request {}...", remaining, requestId);
+ * </pre>
+ * The arguments must not be changed after the call, since they are read later on. If the buffer
+ * is full, messages are dropped instead of blocking the caller, and the number of dropped messages
+ * is reported.
+ */
+public final class AsyncLogger implements AutoCloseable {
+
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private static final String PLACEHOLDER = "{}";
+
+  private final LogLevel level;
+
+  private final LogSink sink;
+
+  private final LogRingBuffer buffer;
+
+  private final Thread writer;
+
+  private final StringBuilder message = new StringBuilder(256);
+
+  // number of messages written and flushed to the sink (written by the writer thread only)
+  private volatile long flushed;
+
+  private volatile boolean running = true;
+
+  private long reportedDropped;
+
+  /**
+   * @param level    Minimum {@link LogLevel} of the messages to be written
+   * @param sink     {@link LogSink} the messages are written to
+   * @param capacity Number of messages that can wait to be written
+   */
+  public AsyncLogger(LogLevel level, LogSink sink, int capacity) {
+
+    this.level = level;
+    this.sink = sink;
+    this.buffer = new LogRingBuffer(capacity);
+
+    writer = new Thread(this::writeMessages, "async-logger");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * @return Logger of the application, as configured in section "pekko-sample.log"
+   */
+  public static AsyncLogger getInstance() {
+
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * Creates a logger as defined in section "pekko-sample.log" of the given configuration.
+   *
+   * @param config Configuration of the application
+   * @return Instance of {@link AsyncLogger}
+   */
+  public static AsyncLogger fromConfig(Config config) {
+
+    Config log = config.getConfig("pekko-sample.log");
+
+    return new AsyncLogger(LogLevel.of(log.getString("level")),
+        new ConsoleSink(log.getBoolean("colour")), log.getInt("buffer-size"));
+  }
+
+  /**
+   * @param level {@link LogLevel}
+   * @return Whether messages of the given level are written
+   */
+  public boolean isEnabled(LogLevel level) {
+
+    return level.compareTo(this.level) >= 0 && level != LogLevel.OFF;
+  }
+
+  public void log(LogLevel level, String message) {
+
+    if (isEnabled(level)) {
+
+      buffer.offer(level, message, 0, null, null, null, null);
+    }
+  }
+
+  public void log(LogLevel level, String template, Object argument1) {
+
+    if (isEnabled(level)) {
+
+      buffer.offer(level, template, 1, argument1, null, null, null);
+    }
+  }
+
+  public void log(LogLevel level, String template, Object argument1, Object argument2) {
+
+    if (isEnabled(level)) {
+
+      buffer.offer(level, template, 2, argument1, argument2, null, null);
+    }
+  }
+
+  public void log(LogLevel level, String template, Object argument1, Object argument2,
+      Object argument3) {
+
+    if (isEnabled(level)) {
+
+      buffer.offer(level, template, 3, argument1, argument2, argument3, null);
+    }
+  }
+
+  public void log(LogLevel level, String template, Object argument1, Object argument2,
+      Object argument3, Object argument4) {
+
+    if (isEnabled(level)) {
+
+      buffer.offer(level, template, 4, argument1, argument2, argument3, argument4);
+    }
+  }
+
+  /**
+   * Writes an empty line, if messages of the given level are written.
+   *
+   * @param level {@link LogLevel}
+   */
+  public void blankLine(LogLevel level) {
+
+    log(level, "");
+  }
+
+  /**
+   * @return Number of messages dropped so far, since the buffer was full
+   */
+  public long dropped() {
+
+    return buffer.dropped();
+  }
+
+  /**
+   * Waits until all messages logged before this call are written to the sink.
+   */
+  public void flush() {
+
+    long target = buffer.claimed();
+
+    while (flushed < target && writer.isAlive()) {
+
+      LockSupport.unpark(writer);
+      LockSupport.parkNanos(IDLE_PARK_NANOS / 10);
+    }
+  }
+
+  /**
+   * Writes all pending messages and stops the background thread.
+   */
+  @Override
+  public void close() {
+
+    running = false;
+    LockSupport.unpark(writer);
+
+    try {
+
+      writer.join(TimeUnit.SECONDS.toMillis(5));
+    } catch (InterruptedException e) {
+
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Loop of the background thread: drains the buffer, writing all available messages as one
+   * batch, and waits a little when there is nothing to write.
+   */
+  private void writeMessages() {
+
+    while (true) {
+
+      boolean stopping = !running;
+
+      int written = buffer.drain(this::write);
+
+      reportDropped();
+
+      if (written > 0) {
+
+        sink.flush();
+        flushed = buffer.consumed();
+
+        continue;
+      }
+
+      if (stopping) {
+
+        return;
+      }
+
+      LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+  }
+
+  private void write(LogRingBuffer.Entry entry) {
+
+    message.setLength(0);
+
+    String template = entry.template;
+
+    int start = 0;
+
+    for (int i = 0; i < entry.argumentCount; i++) {
+
+      int placeholder = template.indexOf(PLACEHOLDER, start);
+
+      if (placeholder < 0) {
+
+        break;
+      }
+
+      message.append(template, start, placeholder).append(entry.argument(i));
+      start = placeholder + PLACEHOLDER.length();
+    }
+
+    message.append(template, start, template.length());
+
+    sink.write(entry.level, message);
+  }
+
+  private void reportDropped() {
+
+    long dropped = buffer.dropped();
+
+    if (dropped > reportedDropped) {
+
+      sink.write(LogLevel.WARN, (dropped - reportedDropped)
+          + " log messages were dropped, since the log buffer (" + buffer.capacity()
+          + " messages) was full");
+      sink.flush();
+
+      reportedDropped = dropped;
+    }
+  }
+
+  /**
+   * The logger of the application is only created when it is used for the first time.
+   */
+  private static final class Holder {
+
+    private static final AsyncLogger INSTANCE = fromConfig(ConfigFactory.load());
+
+    static {
+
+      // pending messages are still written when the application ends
+      Runtime.getRuntime().addShutdownHook(new Thread(INSTANCE::close, "async-logger-shutdown"));
+    }
+  }
+}
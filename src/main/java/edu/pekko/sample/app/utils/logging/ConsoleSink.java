@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.utils.logging;
+
+import java.io.PrintStream;
+import java.util.function.Supplier;
+
+/**
+ * {@link LogSink} that writes to the console, optionally with colours per {@link LogLevel}:
+ * <ul>
+ *   <li>{@link LogLevel#TRACE}: no colour</li>
+ *   <li>{@link LogLevel#DEBUG}: yellow</li>
+ *   <li>{@link LogLevel#INFO}: blue background</li>
+ *   <li>{@link LogLevel#WARN} and {@link LogLevel#ERROR}: red</li>
+ * </ul>
+ * Without colours, the colour codes that are part of the messages themselves (e.g. from
+ * {@link edu.pekko.sample.app.data.definition.CustomerDirectory#colorfulCustomerId(int)}) are
+ * removed. The whole batch of messages is written with a single call to the console.
+ */
+public class ConsoleSink implements LogSink {
+
+  // Reset
+  private static final String RESET = "\033[0m";  // Text Reset
+
+  // Regular Colors
+  private static final String YELLOW = "\033[0;33m";  // YELLOW
+  private static final String RED = "\033[0;31m";     // RED
+  private static final String BLUE_BACKGROUND = "\033[0;44m";
+
+  private static final char ESCAPE = '\033';
+
+  private final boolean colour;
+
+  // the console is looked up at every flush, so that it can be redirected while running
+  private final Supplier<PrintStream> console;
+
+  private final StringBuilder batch = new StringBuilder(8192);
+
+  /**
+   * @param colour Whether the messages are written with colours
+   */
+  public ConsoleSink(boolean colour) {
+
+    this(colour, () -> System.out);
+  }
+
+  ConsoleSink(boolean colour, Supplier<PrintStream> console) {
+
+    this.colour = colour;
+    this.console = console;
+  }
+
+  @Override
+  public void write(LogLevel level, CharSequence message) {
+
+    if (!colour) {
+
+      appendWithoutColours(message);
+      batch.append(System.lineSeparator());
+
+      return;
+    }
+
+    // an empty message is a blank line, without colours
+    if (message.isEmpty()) {
+
+      batch.append(System.lineSeparator());
+
+      return;
+    }
+
+    batch.append(colourOf(level)).append(message).append(RESET).append(System.lineSeparator());
+  }
+
+  @Override
+  public void flush() {
+
+    if (batch.isEmpty()) {
+
+      return;
+    }
+
+    PrintStream out = console.get();
+
+    out.append(batch);
+    out.flush();
+
+    batch.setLength(0);
+  }
+
+  private static String colourOf(LogLevel level) {
+
+    return switch (level) {
+      case TRACE, OFF -> "";
+      case DEBUG -> YELLOW;
+      case INFO -> BLUE_BACKGROUND;
+      case WARN, ERROR -> RED;
+    };
+  }
+
+  /**
+   * Appends the message, skipping the ANSI colour codes ("ESC [ ... m") in it.
+   */
+  private void appendWithoutColours(CharSequence message) {
+
+    int length = message.length();
+    int i = 0;
+
+    while (i < length) {
+
+      char c = message.charAt(i);
+
+      if (c == ESCAPE && i + 1 < length && message.charAt(i + 1) == '[') {
+
+        i += 2;
+
+        while (i < length && message.charAt(i) != 'm') {
+
+          i++;
+        }
+
+        i++;
+
+        continue;
+      }
+
+      batch.append(c);
+      i++;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.utils.logging;
+
+import java.util.Locale;
+
+/**
+ * Levels of the messages written with {@link AsyncLogger}, from the most to the least verbose.
+ * A message is only written if its level is at least the one configured in
+ * "pekko-sample.log.level".
+ */
+public enum LogLevel {
+
+  /**
+   * Every single transaction and message sent between the Actors.
+   */
+  TRACE,
+
+  /**
+   * Bookkeeping of the Actors and of the batches of transactions.
+   */
+  DEBUG,
+
+  /**
+   * Progress of the application.
+   */
+  INFO,
+
+  /**
+   * Something unexpected, which the application can cope with.
+   */
+  WARN,
+
+  /**
+   * Something the application cannot cope with.
+   */
+  ERROR,
+
+  /**
+   * Nothing is written at all (only to be used as configured level).
+   */
+  OFF;
+
+  /**
+   * @param level Level as given in the configuration, e.g. "debug"
+   * @return Respective {@link LogLevel}
+   * @throws IllegalArgumentException If the level is unknown
+   */
+  public static LogLevel of(String level) {
+
+    return valueOf(level.trim().toUpperCase(Locale.ROOT));
+  }
+}
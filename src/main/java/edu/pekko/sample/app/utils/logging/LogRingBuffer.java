@@ -0,0 +1,237 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.utils.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, lock-free ring buffer of log messages, with many producers (the threads writing
+ * messages) and a single consumer (the background writer thread of {@link AsyncLogger}).
+ * <p>
+ * The entries are allocated up front and reused: a message is stored as its template and its
+ * arguments, and only formatted by the consumer. Every slot has a sequence number telling whether
+ * it is free for a given producer or ready for the consumer, so that producers only compete on
+ * claiming the next position, with a compare-and-set. If the buffer is full, the message is
+ * dropped (and counted) instead of blocking the producer.
+ */
+final class LogRingBuffer {
+
+  private final Entry[] entries;
+
+  // sequence of each slot: equal to position if it is free for the producer of this position,
+  // equal to position + 1 if it holds the message for the consumer
+  private final AtomicLongArray sequences;
+
+  private final int mask;
+
+  // next position to be claimed by a producer
+  private final AtomicLong tail = new AtomicLong();
+
+  // next position to be read by the consumer (written by the consumer thread only)
+  private volatile long head;
+
+  private final AtomicLong dropped = new AtomicLong();
+
+  /**
+   * @param capacity Minimum number of messages the buffer can hold (rounded up to a power of two)
+   */
+  LogRingBuffer(int capacity) {
+
+    if (capacity < 2) {
+
+      throw new IllegalArgumentException("Capacity must be at least 2: " + capacity);
+    }
+
+    int size = Integer.highestOneBit(capacity - 1) << 1;
+
+    entries = new Entry[size];
+    sequences = new AtomicLongArray(size);
+    mask = size - 1;
+
+    for (int i = 0; i < size; i++) {
+
+      entries[i] = new Entry();
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Stores a message in the buffer.
+   *
+   * @return false if the buffer is full, in which case the message is dropped
+   */
+  boolean offer(LogLevel level, String template, int argumentCount, Object argument1,
+      Object argument2, Object argument3, Object argument4) {
+
+    long position;
+    int index;
+
+    while (true) {
+
+      position = tail.get();
+      index = (int) position & mask;
+
+      long sequence = sequences.get(index);
+
+      if (sequence == position) {
+
+        if (tail.compareAndSet(position, position + 1)) {
+
+          break;
+        }
+      } else if (sequence < position) {
+
+        // the consumer has not read the message of the previous round yet
+        dropped.incrementAndGet();
+
+        return false;
+      }
+
+      // else: another producer has claimed this position in the meantime
+    }
+
+    Entry entry = entries[index];
+
+    entry.level = level;
+    entry.template = template;
+    entry.argumentCount = argumentCount;
+    entry.argument1 = argument1;
+    entry.argument2 = argument2;
+    entry.argument3 = argument3;
+    entry.argument4 = argument4;
+
+    // publishing the message to the consumer
+    sequences.set(index, position + 1);
+
+    return true;
+  }
+
+  /**
+   * Reads all messages available in the buffer, in the order their positions were claimed. Only
+   * to be called by the consumer thread.
+   *
+   * @param consumer Called for every message: the entry must not be kept after the call
+   * @return Number of messages read
+   */
+  int drain(Consumer<Entry> consumer) {
+
+    long position = head;
+    int count = 0;
+
+    while (true) {
+
+      int index = (int) position & mask;
+
+      if (sequences.get(index) != position + 1) {
+
+        break;
+      }
+
+      Entry entry = entries[index];
+
+      consumer.accept(entry);
+      entry.clear();
+
+      // the slot is free for the producer of the next round
+      sequences.set(index, position + entries.length);
+
+      position++;
+      count++;
+    }
+
+    head = position;
+
+    return count;
+  }
+
+  /**
+   * @return Number of positions claimed by producers so far
+   */
+  long claimed() {
+
+    return tail.get();
+  }
+
+  /**
+   * @return Number of messages read by the consumer so far
+   */
+  long consumed() {
+
+    return head;
+  }
+
+  /**
+   * @return Number of messages dropped so far, since the buffer was full
+   */
+  long dropped() {
+
+    return dropped.get();
+  }
+
+  /**
+   * @return Number of messages the buffer can hold
+   */
+  int capacity() {
+
+    return entries.length;
+  }
+
+  /**
+   * Message stored in the buffer: template with up to four arguments.
+   */
+  static final class Entry {
+
+    LogLevel level;
+    String template;
+    int argumentCount;
+    Object argument1;
+    Object argument2;
+    Object argument3;
+    Object argument4;
+
+    Object argument(int index) {
+
+      return switch (index) {
+        case 0 -> argument1;
+        case 1 -> argument2;
+        case 2 -> argument3;
+        case 3 -> argument4;
+        default -> throw new IndexOutOfBoundsException(index);
+      };
+    }
+
+    private void clear() {
+
+      template = null;
+      argument1 = null;
+      argument2 = null;
+      argument3 = null;
+      argument4 = null;
+    }
+  }
+}
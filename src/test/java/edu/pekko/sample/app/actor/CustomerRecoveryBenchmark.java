@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import com.typesafe.config.ConfigFactory;
+import edu.pekko.sample.app.actor.CustomerActor.Balance;
+import edu.pekko.sample.app.actor.CustomerActor.GetBalance;
+import edu.pekko.sample.app.actor.CustomerActor.ProcessTransaction;
+import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+
+/**
+ * Benchmark of the recovery time of a {@link CustomerActor} against the number of events in its
+ * journal, with and without snapshots, on the LevelDB journal and the local snapshot store.
+ * <p>
+ * It is not executed with the tests: run its main method from the IDE, or in the command line with
+ * the test classpath.
+ */
+public class CustomerRecoveryBenchmark {
+
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
+  private static final int CUSTOMER_1 = DIRECTORY.intern("1fd40c65-f596-45d8-9e0a-632c37ccb771");
+
+  private static final int[] EVENT_COUNTS = {1_000, 10_000, 100_000};
+  private static final int[] SNAPSHOT_INTERVALS = {0, 1_000};
+  private static final int RECOVERIES = 5;
+  private static final Duration TIMEOUT = Duration.ofMinutes(10);
+
+  public static void main(String[] args) throws IOException {
+
+    PrintStream out = System.out;
+
+    // the output of the actors is not part of the measurement
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+    out.printf("%12s %16s %22s%n", "events", "snapshot every", "recovery time (ms)");
+
+    for (int eventCount : EVENT_COUNTS) {
+
+      for (int snapshotEvery : SNAPSHOT_INTERVALS) {
+
+        double recoveryMillis = measureRecovery(eventCount, snapshotEvery);
+
+        out.printf("%12d %16s %22.2f%n", eventCount,
+            snapshotEvery == 0 ? "disabled" : String.valueOf(snapshotEvery), recoveryMillis);
+      }
+    }
+
+    System.setOut(out);
+  }
+
+  /**
+   * Persists the given number of events for one customer and measures how long it takes for the
+   * customer actor to be recovered.
+   *
+   * @param eventCount    Number of events to persist
+   * @param snapshotEvery Number of events between snapshots, 0 for no snapshots
+   * @return Median recovery time in milliseconds
+   */
+  private static double measureRecovery(int eventCount, int snapshotEvery) throws IOException {
+
+    Path folder = Files.createTempDirectory("recovery-benchmark");
+
+    ActorTestKit testKit = ActorTestKit.create(ConfigFactory.parseString(
+            "pekko-sample.customer.snapshot-every = " + snapshotEvery + "\n"
+                // only the recovery is measured: writing the events does not need to be durable
+                + "pekko.persistence.journal.leveldb.fsync = off\n"
+                + "pekko.persistence.journal.leveldb.dir = \"" + folder.resolve("journal") + "\"\n"
+                + "pekko.persistence.snapshot-store.local.dir = \"" + folder.resolve("snapshots")
+                + "\"")
+        .withFallback(ConfigFactory.load()));
+
+    try {
+
+      ActorRef<Event> parent = testKit.spawn(Behaviors.ignore());
+      ActorRef<CustomerActor.Command> customerActor = testKit.spawn(
+          CustomerActor.create(CUSTOMER_1));
+
+      for (int id = 1; id <= eventCount; id++) {
+
+        customerActor.tell(new ProcessTransaction(id, new Transaction(id, CUSTOMER_1,
+            id, TransactionType.RECEIPT), parent));
+      }
+
+      // replied only after all previous transactions were persisted
+      queryBalance(testKit, customerActor);
+
+      double[] recoveryMillis = new double[RECOVERIES];
+
+      for (int run = 0; run < RECOVERIES; run++) {
+
+        testKit.stop(customerActor);
+
+        long start = System.nanoTime();
+
+        customerActor = testKit.spawn(CustomerActor.create(CUSTOMER_1));
+
+        // replied only after the recovery is completed
+        queryBalance(testKit, customerActor);
+
+        recoveryMillis[run] = (System.nanoTime() - start) / 1_000_000.0;
+      }
+
+      Arrays.sort(recoveryMillis);
+
+      return recoveryMillis[RECOVERIES / 2];
+    } finally {
+
+      testKit.shutdownTestKit();
+    }
+  }
+
+  private static Balance queryBalance(ActorTestKit testKit,
+      ActorRef<CustomerActor.Command> customerActor) {
+
+    return AskPattern.<CustomerActor.Command, Balance>ask(customerActor, GetBalance::new, TIMEOUT,
+        testKit.scheduler()).toCompletableFuture().join();
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pekko.actor.Address;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.cluster.MemberStatus;
+import org.apache.pekko.cluster.typed.Cluster;
+import org.apache.pekko.cluster.typed.Join;
+import org.apache.pekko.persistence.testkit.PersistenceTestKitSnapshotPlugin;
+
+/**
+ * Cluster of several nodes in the same JVM, on localhost, where the customers are sharded. Each
+ * node has its own journal in memory (the plain one, since the one of the persistence test kit
+ * does not scale with the number of events).
+ */
+final class LocalCluster implements AutoCloseable {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  private final List<ActorTestKit> nodes = new ArrayList<>();
+
+  /**
+   * Starts the given number of nodes, and waits until all of them are up.
+   *
+   * @param numberOfNodes Number of nodes
+   */
+  LocalCluster(int numberOfNodes) {
+
+    Config config = ConfigFactory.parseString("""
+            pekko.actor.provider = "cluster"
+            pekko.remote.artery.canonical.hostname = "127.0.0.1"
+            pekko.remote.artery.canonical.port = 0
+            pekko.cluster.jmx.multi-mbeans-in-same-jvm = on
+            pekko.cluster.min-nr-of-members = %d
+            pekko-sample.customer.distribution = "sharded"
+            pekko.persistence.journal.plugin = "pekko.persistence.journal.inmem"
+            pekko.actor.serialize-messages = on
+            """.formatted(numberOfNodes))
+        .withFallback(PersistenceTestKitSnapshotPlugin.config())
+        .withFallback(ConfigFactory.load());
+
+    for (int i = 0; i < numberOfNodes; i++) {
+
+      nodes.add(ActorTestKit.create("PekkoSampleApp", config));
+    }
+
+    Address seedNode = Cluster.get(nodes.get(0).system()).selfMember().address();
+
+    for (ActorTestKit node : nodes) {
+
+      Cluster.get(node.system()).manager().tell(Join.create(seedNode));
+    }
+
+    TestProbe<Object> probe = nodes.get(0).createTestProbe();
+
+    for (ActorTestKit node : nodes) {
+
+      probe.awaitAssert(TIMEOUT, () -> {
+
+        if (Cluster.get(node.system()).selfMember().status() != MemberStatus.up()) {
+
+          throw new AssertionError("Node " + node.system().address() + " is not up yet");
+        }
+
+        return null;
+      });
+    }
+  }
+
+  /**
+   * @param index Index of the node
+   * @return Test kit of the given node
+   */
+  ActorTestKit node(int index) {
+
+    return nodes.get(index);
+  }
+
+  @Override
+  public void close() {
+
+    for (int i = nodes.size() - 1; i >= 0; i--) {
+
+      nodes.get(i).shutdownTestKit();
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import edu.pekko.sample.app.actor.TransactionsActor.AllTransactionsProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsToProcess;
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.stream.IntStream;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+
+/**
+ * Benchmark of the throughput of the processing when the customers are sharded over a cluster of
+ * 1, 2 and 4 nodes, all of them in this JVM on localhost.
+ * <p>
+ * It is not executed with the tests: run its main method from the IDE, or in the command line with
+ * the test classpath.
+ */
+public class ShardingThroughputBenchmark {
+
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
+  private static final int CUSTOMER_1 = DIRECTORY.intern("1fd40c65-f596-45d8-9e0a-632c37ccb771");
+  private static final int CUSTOMER_2 = DIRECTORY.intern("00221321-592f-49f7-933a-e6aebdc716a6");
+  private static final int CUSTOMER_3 = DIRECTORY.intern("ed870e05-ac7a-4847-8d40-bb37f1fe4880");
+  private static final int[] CUSTOMERS = {CUSTOMER_1, CUSTOMER_2, CUSTOMER_3};
+
+  private static final int[] NUMBER_OF_NODES = {1, 2, 4};
+  private static final int NUMBER_OF_BATCHES = 2_000;
+  private static final int BATCH_SIZE = 50;
+  private static final int BATCHES_IN_FLIGHT = 8;
+  private static final Duration TIMEOUT = Duration.ofMinutes(5);
+
+  public static void main(String[] args) throws InterruptedException {
+
+    PrintStream out = System.out;
+
+    // the output of the actors is not part of the measurement
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+    out.printf("%8s %14s %22s%n", "nodes", "transactions", "transactions/s");
+
+    for (int numberOfNodes : NUMBER_OF_NODES) {
+
+      try (LocalCluster cluster = new LocalCluster(numberOfNodes)) {
+
+        for (int i = 1; i < numberOfNodes; i++) {
+
+          CustomerActor.initSharding(cluster.node(i).system());
+        }
+
+        ActorTestKit node = cluster.node(0);
+        ActorRef<Event> transactionsActor = node.spawn(TransactionsActor.create());
+
+        // warm-up, also allocating the shards
+        run(node, transactionsActor, 0, NUMBER_OF_BATCHES / 10);
+
+        long start = System.nanoTime();
+
+        // with new transaction ids: the ones of the warm-up would only be acknowledged
+        run(node, transactionsActor, NUMBER_OF_BATCHES / 10, NUMBER_OF_BATCHES);
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int transactions = NUMBER_OF_BATCHES * BATCH_SIZE;
+
+        out.printf("%8d %14d %22.0f%n", numberOfNodes, transactions, transactions / seconds);
+      }
+    }
+
+    System.setOut(out);
+  }
+
+  /**
+   * Sends the given number of batches, with at most {@link #BATCHES_IN_FLIGHT} of them being
+   * processed at the same time, and waits until all of them are processed.
+   * <p>
+   * The ids of the transactions, and of the requests, start from the given first batch.
+   */
+  private static void run(ActorTestKit node, ActorRef<Event> transactionsActor, int firstBatch,
+      int numberOfBatches) throws InterruptedException {
+
+    int[] customers = CUSTOMERS;
+    Semaphore inFlight = new Semaphore(BATCHES_IN_FLIGHT);
+
+    CompletableFuture<?>[] replies = new CompletableFuture<?>[numberOfBatches];
+
+    for (int batch = 0; batch < numberOfBatches; batch++) {
+
+      int firstId = (firstBatch + batch) * BATCH_SIZE;
+      TransactionBatch transactions = TransactionBatch.of(
+          IntStream.range(firstId, firstId + BATCH_SIZE)
+              .mapToObj(id -> new Transaction(id, customers[id % customers.length], 100,
+                  TransactionType.RECEIPT))
+              .toList());
+
+      inFlight.acquire();
+
+      long requestId = firstBatch + batch;
+
+      replies[batch] = AskPattern.<Event, Event>ask(transactionsActor,
+              replyTo -> new TransactionsToProcess(requestId, transactions, replyTo), TIMEOUT,
+              node.scheduler())
+          .toCompletableFuture()
+          .whenComplete((reply, failure) -> {
+
+            inFlight.release();
+
+            if (!(reply instanceof AllTransactionsProcessed)) {
+
+              throw new IllegalStateException("Batch " + requestId + " failed", failure);
+            }
+          });
+    }
+
+    CompletableFuture.allOf(replies).join();
+  }
+}
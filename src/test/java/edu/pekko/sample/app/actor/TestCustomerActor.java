@@ -0,0 +1,661 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.typesafe.config.ConfigFactory;
+import edu.pekko.sample.app.actor.CustomerActor.Balance;
+import edu.pekko.sample.app.actor.CustomerActor.CustomerAggregates;
+import edu.pekko.sample.app.actor.CustomerActor.CustomerWindows;
+import edu.pekko.sample.app.actor.CustomerActor.GetAggregates;
+import edu.pekko.sample.app.actor.CustomerActor.GetBalance;
+import edu.pekko.sample.app.actor.CustomerActor.GetWindows;
+import edu.pekko.sample.app.actor.CustomerActor.ProcessHotTransactions;
+import edu.pekko.sample.app.actor.CustomerActor.ProcessTransaction;
+import edu.pekko.sample.app.actor.CustomerActor.ProcessTransactions;
+import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsRejected;
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionOutcome;
+import edu.pekko.sample.app.data.definition.TransactionOutcomes;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import edu.pekko.sample.app.data.ledger.TransactionAggregates;
+import edu.pekko.sample.app.metrics.Metrics;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.AllDeadLetters;
+import org.apache.pekko.actor.Dropped;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.eventstream.EventStream;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.apache.pekko.dispatch.Futures;
+import org.apache.pekko.persistence.AtomicWrite;
+import org.apache.pekko.persistence.PersistentRepr;
+import org.apache.pekko.persistence.journal.japi.AsyncWriteJournal;
+import org.apache.pekko.persistence.testkit.PersistenceTestKitPlugin;
+import org.apache.pekko.persistence.testkit.PersistenceTestKitSnapshotPlugin;
+import org.junit.jupiter.api.Test;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.Future;
+
+/**
+ * Test class for {@link CustomerActor}.
+ */
+public class TestCustomerActor {
+
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
+  private static final int CUSTOMER_1 = DIRECTORY.intern("1fd40c65-f596-45d8-9e0a-632c37ccb771");
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+  private static final int NUMBER_OF_TRANSACTIONS = 10;
+
+  // start of a window of five minutes: transaction n is n minutes after it
+  private static final long START = 1_700_000_100_000L;
+  private static final long MINUTE = 60_000;
+
+  /**
+   * GIVEN customer actor without snapshots WHEN transactions are processed AND the actor is
+   * started again THEN the balance is recovered from the journal
+   */
+  @Test
+  public void testRecoveryFromJournal() {
+
+    assertBalanceIsRecovered(0, false);
+  }
+
+  /**
+   * GIVEN customer actor with a snapshot every few events WHEN transactions are processed AND the
+   * actor is started again THEN the balance is recovered from the latest snapshot and the events
+   * after it
+   */
+  @Test
+  public void testRecoveryFromSnapshot() {
+
+    assertBalanceIsRecovered(3, false);
+  }
+
+  /**
+   * GIVEN customer actor with a snapshot every few events WHEN all transactions are sent in one
+   * command THEN they are acknowledged once AND the balance is recovered after a restart
+   */
+  @Test
+  public void testTransactionsInOneCommand() {
+
+    assertBalanceIsRecovered(3, true);
+  }
+
+  /**
+   * GIVEN customer actor with a snapshot after every event WHEN transactions are sent again, in
+   * the same command, in overlapping ones and on their own, also after a restart THEN every
+   * command is acknowledged with all of its transactions, those applied before as duplicates AND
+   * each transaction is only applied once
+   */
+  @Test
+  public void testDuplicatesAreAppliedOnce() {
+
+    ActorTestKit testKit = createTestKit(1);
+
+    try {
+
+      TestProbe<Event> parent = testKit.createTestProbe();
+      TestProbe<Balance> balance = testKit.createTestProbe();
+
+      ActorRef<CustomerActor.Command> customerActor = testKit.spawn(
+          CustomerActor.create(CUSTOMER_1));
+
+      TransactionBatch first = createTransactions(1, 10);
+      TransactionBatch overlapping = createTransactions(6, 15);
+
+      customerActor.tell(new ProcessTransactions(1, first, parent.ref()));
+      customerActor.tell(new ProcessTransactions(2, first, parent.ref()));
+      customerActor.tell(new ProcessTransactions(3, overlapping, parent.ref()));
+      customerActor.tell(new ProcessTransaction(4, first.transaction(2), parent.ref()));
+
+      assertEquals(new TransactionsProcessed(1, CUSTOMER_1, duplicatesThenApplied(0, 10)),
+          parent.expectMessageClass(TransactionsProcessed.class, TIMEOUT));
+      assertEquals(new TransactionsProcessed(2, CUSTOMER_1, duplicatesThenApplied(10, 0)),
+          parent.expectMessageClass(TransactionsProcessed.class, TIMEOUT));
+      assertEquals(new TransactionsProcessed(3, CUSTOMER_1, duplicatesThenApplied(5, 5)),
+          parent.expectMessageClass(TransactionsProcessed.class, TIMEOUT));
+      assertEquals(new TransactionProcessed(4, CUSTOMER_1, TransactionOutcome.DUPLICATE),
+          parent.expectMessageClass(TransactionProcessed.class, TIMEOUT));
+
+      // 100 * (1 + 2 + ... + 15) - 2 * 100 * (3 + 6 + ... + 15)
+      Balance expected = new Balance(CUSTOMER_1, 3000, 15);
+
+      customerActor.tell(new GetBalance(balance.ref()));
+
+      assertEquals(expected, balance.expectMessageClass(Balance.class, TIMEOUT));
+
+      // the applied ids are recovered from the latest snapshot
+      testKit.stop(customerActor);
+
+      ActorRef<CustomerActor.Command> recoveredActor = testKit.spawn(
+          CustomerActor.create(CUSTOMER_1));
+
+      recoveredActor.tell(new ProcessTransactions(5, overlapping, parent.ref()));
+
+      assertEquals(new TransactionsProcessed(5, CUSTOMER_1, duplicatesThenApplied(10, 0)),
+          parent.expectMessageClass(TransactionsProcessed.class, TIMEOUT));
+
+      recoveredActor.tell(new GetBalance(balance.ref()));
+
+      assertEquals(expected, balance.expectMessageClass(Balance.class, TIMEOUT));
+    } finally {
+
+      testKit.shutdownTestKit();
+    }
+  }
+
+  /**
+   * GIVEN customer actor with a balance close to the maximum WHEN transactions that would overflow
+   * it are processed, in a batch, on their own and as those of a hot customer THEN every command
+   * is acknowledged with the outcome of each of its transactions AND only those are rejected,
+   * before they are persisted AND the balance is recovered after a restart
+   */
+  @Test
+  public void testOverflowingTransactionsAreRejected() {
+
+    ActorTestKit testKit = createTestKit(1000);
+
+    try {
+
+      TestProbe<Event> parent = testKit.createTestProbe();
+      TestProbe<Balance> balance = testKit.createTestProbe();
+
+      ActorRef<CustomerActor.Command> customerActor = testKit.spawn(
+          CustomerActor.create(CUSTOMER_1));
+
+      long rejectedBefore = Metrics.getInstance().getCounters()
+          .getOrDefault("pekko_sample_customer_rejected_transactions_total", 0L);
+      TransactionBatch hot = TransactionBatch.of(List.of(createTransaction(5,
+          TransactionType.RECEIPT, 500)));
+      TransactionAggregates ofHot = new TransactionAggregates();
+
+      ofHot.add(TransactionType.RECEIPT, 500);
+
+      customerActor.tell(new ProcessTransactions(1, TransactionBatch.of(List.of(
+          createTransaction(1, TransactionType.RECEIPT, Long.MAX_VALUE - 100),
+          createTransaction(2, TransactionType.RECEIPT, 200),
+          createTransaction(3, TransactionType.PAY, 50))), parent.ref()));
+      customerActor.tell(new ProcessTransaction(2, createTransaction(4, TransactionType.RECEIPT,
+          1000), parent.ref()));
+      customerActor.tell(new ProcessHotTransactions(3, hot, ofHot, parent.ref()));
+      customerActor.tell(new ProcessTransactions(4, TransactionBatch.of(List.of(
+          createTransaction(6, TransactionType.PAY, 100))), parent.ref()));
+
+      assertEquals(new TransactionsProcessed(1, CUSTOMER_1, TransactionOutcomes.of(
+              TransactionOutcome.APPLIED, TransactionOutcome.REJECTED, TransactionOutcome.APPLIED)),
+          parent.expectMessageClass(TransactionsProcessed.class, TIMEOUT));
+      assertEquals(new TransactionProcessed(2, CUSTOMER_1, TransactionOutcome.REJECTED),
+          parent.expectMessageClass(TransactionProcessed.class, TIMEOUT));
+      assertEquals(new TransactionsProcessed(3, CUSTOMER_1,
+              TransactionOutcomes.of(TransactionOutcome.REJECTED)),
+          parent.expectMessageClass(TransactionsProcessed.class, TIMEOUT));
+      assertEquals(new TransactionsProcessed(4, CUSTOMER_1, duplicatesThenApplied(0, 1)),
+          parent.expectMessageClass(TransactionsProcessed.class, TIMEOUT));
+      assertEquals(3, Metrics.getInstance().getCounters()
+          .get("pekko_sample_customer_rejected_transactions_total") - rejectedBefore);
+
+      Balance expected = new Balance(CUSTOMER_1, Long.MAX_VALUE - 250, 3);
+
+      customerActor.tell(new GetBalance(balance.ref()));
+
+      assertEquals(expected, balance.expectMessageClass(Balance.class, TIMEOUT));
+
+      // without a snapshot, the balance is recovered by replaying every persisted event
+      testKit.stop(customerActor);
+
+      ActorRef<CustomerActor.Command> recoveredActor = testKit.spawn(
+          CustomerActor.create(CUSTOMER_1));
+
+      recoveredActor.tell(new GetBalance(balance.ref()));
+
+      assertEquals(expected, balance.expectMessageClass(Balance.class, TIMEOUT));
+    } finally {
+
+      testKit.shutdownTestKit();
+    }
+  }
+
+  /**
+   * GIVEN customer actor with a snapshot every other event WHEN transactions are processed as
+   * those of a hot customer with their aggregates, overlapping those processed before and repeated,
+   * AND then without any transaction processed before THEN each hot batch is acknowledged AND the
+   * aggregates of the overlapping batch are those of its new transactions only AND the aggregates
+   * of the other one are those it was sent with AND they are recovered after a restart
+   */
+  @Test
+  public void testAggregatesOfHotTransactionsAreMerged() {
+
+    ActorTestKit testKit = createTestKit(2);
+
+    try {
+
+      TestProbe<Event> parent = testKit.createTestProbe();
+      TestProbe<Balance> balance = testKit.createTestProbe();
+      TestProbe<CustomerAggregates> aggregates = testKit.createTestProbe();
+
+      ActorRef<CustomerActor.Command> customerActor = testKit.spawn(
+          CustomerActor.create(CUSTOMER_1));
+
+      TransactionBatch first = createTransactions(1, 10);
+      TransactionBatch overlapping = TransactionBatch.concat(List.of(createTransactions(6, 15),
+          createTransactions(12, 12)));
+      TransactionBatch last = createTransactions(16, 20);
+      TransactionAggregates ofOverlapping = new TransactionAggregates();
+      // only the count of the last batch, to tell the aggregates it was sent with apart
+      TransactionAggregates ofLast = new TransactionAggregates();
+      TransactionAggregates expected = new TransactionAggregates();
+
+      overlapping.toList().forEach(transaction -> ofOverlapping.add(
+          transaction.transactionType(), transaction.amountInCents()));
+      ofLast.add(TransactionType.RECEIPT, 1);
+      createTransactions(1, 15).toList().forEach(transaction -> expected.add(
+          transaction.transactionType(), transaction.amountInCents()));
+      expected.addAll(ofLast);
+
+      customerActor.tell(new ProcessTransactions(1, first, parent.ref()));
+      customerActor.tell(new ProcessHotTransactions(2, overlapping, ofOverlapping, parent.ref()));
+      customerActor.tell(new ProcessHotTransactions(3, last, ofLast, parent.ref()));
+
+      assertEquals(new TransactionsProcessed(1, CUSTOMER_1, duplicatesThenApplied(0, 10)),
+          parent.expectMessageClass(TransactionsProcessed.class, TIMEOUT));
+      // the repetition of an id within the batch is a duplicate too
+      assertEquals(new TransactionsProcessed(2, CUSTOMER_1, new TransactionOutcomes.Builder(11)
+              .set(0, TransactionOutcome.DUPLICATE).set(1, TransactionOutcome.DUPLICATE)
+              .set(2, TransactionOutcome.DUPLICATE).set(3, TransactionOutcome.DUPLICATE)
+              .set(4, TransactionOutcome.DUPLICATE).set(10, TransactionOutcome.DUPLICATE)
+              .build()),
+          parent.expectMessageClass(TransactionsProcessed.class, TIMEOUT));
+      assertEquals(new TransactionsProcessed(3, CUSTOMER_1, duplicatesThenApplied(0, 5)),
+          parent.expectMessageClass(TransactionsProcessed.class, TIMEOUT));
+
+      customerActor.tell(new GetBalance(balance.ref()));
+      customerActor.tell(new GetAggregates(aggregates.ref()));
+
+      // 100 * (1 + 2 + ... + 20) - 2 * 100 * (3 + 6 + ... + 18)
+      assertEquals(new Balance(CUSTOMER_1, 8400, 20),
+          balance.expectMessageClass(Balance.class, TIMEOUT));
+      assertEquals(expected,
+          aggregates.expectMessageClass(CustomerAggregates.class, TIMEOUT).aggregates());
+
+      testKit.stop(customerActor);
+
+      ActorRef<CustomerActor.Command> recoveredActor = testKit.spawn(
+          CustomerActor.create(CUSTOMER_1));
+
+      recoveredActor.tell(new GetBalance(balance.ref()));
+      recoveredActor.tell(new GetAggregates(aggregates.ref()));
+
+      assertEquals(new Balance(CUSTOMER_1, 8400, 20),
+          balance.expectMessageClass(Balance.class, TIMEOUT));
+      assertEquals(expected,
+          aggregates.expectMessageClass(CustomerAggregates.class, TIMEOUT).aggregates());
+    } finally {
+
+      testKit.shutdownTestKit();
+    }
+  }
+
+  /**
+   * GIVEN customer actor with a snapshot every few events and windows of five minutes WHEN a
+   * transaction per minute is processed AND the actor is started again THEN the windows have the
+   * transactions of their minutes AND they are recovered
+   */
+  @Test
+  public void testWindowsAreRecovered() {
+
+    ActorTestKit testKit = createTestKit(3);
+
+    try {
+
+      TestProbe<Event> parent = testKit.createTestProbe();
+      TestProbe<CustomerWindows> windows = testKit.createTestProbe();
+
+      ActorRef<CustomerActor.Command> customerActor = testKit.spawn(
+          CustomerActor.create(CUSTOMER_1));
+
+      createTransactions(1, NUMBER_OF_TRANSACTIONS).toList().forEach(transaction ->
+          customerActor.tell(new ProcessTransaction(transaction.id(), transaction,
+              parent.ref())));
+
+      parent.receiveSeveralMessages(NUMBER_OF_TRANSACTIONS, TIMEOUT);
+
+      customerActor.tell(new GetWindows(windows.ref()));
+
+      CustomerWindows beforeRestart = windows.expectMessageClass(CustomerWindows.class, TIMEOUT);
+
+      assertEquals(START + 10 * MINUTE, beforeRestart.watermarkMillis());
+      // transactions 6 to 10, of which 6 and 9 are payments
+      assertEquals(2500, beforeRestart.sliding().aggregates()
+          .sumInCents(TransactionType.RECEIPT));
+      assertEquals(1500, beforeRestart.sliding().aggregates().sumInCents(TransactionType.PAY));
+      assertEquals(1, beforeRestart.tumbling().aggregates().count());
+      assertEquals(5, beforeRestart.previousTumbling().aggregates().count());
+
+      testKit.stop(customerActor);
+
+      ActorRef<CustomerActor.Command> recoveredActor = testKit.spawn(
+          CustomerActor.create(CUSTOMER_1));
+
+      recoveredActor.tell(new GetWindows(windows.ref()));
+
+      assertEquals(beforeRestart, windows.expectMessageClass(CustomerWindows.class, TIMEOUT));
+    } finally {
+
+      testKit.shutdownTestKit();
+    }
+  }
+
+  private static void assertBalanceIsRecovered(int snapshotEvery, boolean inOneCommand) {
+
+    ActorTestKit testKit = createTestKit(snapshotEvery);
+
+    try {
+
+      TestProbe<Event> parent = testKit.createTestProbe();
+      TestProbe<Balance> balance = testKit.createTestProbe();
+
+      ActorRef<CustomerActor.Command> customerActor = testKit.spawn(
+          CustomerActor.create(CUSTOMER_1));
+
+      List<Transaction> transactions = createTransactions(1, NUMBER_OF_TRANSACTIONS).toList();
+
+      if (inOneCommand) {
+
+        customerActor.tell(new ProcessTransactions(42, TransactionBatch.of(transactions),
+            parent.ref()));
+
+        assertEquals(new TransactionsProcessed(42, CUSTOMER_1,
+                duplicatesThenApplied(0, NUMBER_OF_TRANSACTIONS)),
+            parent.expectMessageClass(TransactionsProcessed.class, TIMEOUT));
+      } else {
+
+        transactions.forEach(transaction -> customerActor.tell(
+            new ProcessTransaction(transaction.id(), transaction, parent.ref())));
+
+        for (int id = 1; id <= NUMBER_OF_TRANSACTIONS; id++) {
+
+          assertEquals(new TransactionProcessed(id, CUSTOMER_1, TransactionOutcome.APPLIED),
+              parent.expectMessageClass(TransactionProcessed.class, TIMEOUT));
+        }
+      }
+
+      parent.expectNoMessage();
+
+      customerActor.tell(new GetBalance(balance.ref()));
+
+      Balance beforeRestart = balance.expectMessageClass(Balance.class, TIMEOUT);
+
+      assertEquals(new Balance(CUSTOMER_1, 1900, NUMBER_OF_TRANSACTIONS),
+          beforeRestart);
+
+      // starting the actor again, as a new incarnation
+      testKit.stop(customerActor);
+
+      ActorRef<CustomerActor.Command> recoveredActor = testKit.spawn(
+          CustomerActor.create(CUSTOMER_1));
+
+      recoveredActor.tell(new GetBalance(balance.ref()));
+
+      assertEquals(beforeRestart, balance.expectMessageClass(Balance.class, TIMEOUT));
+    } finally {
+
+      testKit.shutdownTestKit();
+    }
+  }
+
+  /**
+   * GIVEN customer actor whose journal takes 50 ms per write, with a mailbox for 200 commands WHEN
+   * twenty thousand commands of 200 transactions each (about 100 MB) are sent to it THEN the heap
+   * does not grow by more than a fraction of them AND once the journal catches up, every command
+   * was either applied or sent to the dead letters by the full mailbox or stash, most of them the
+   * latter AND the sender was told of each one rejected by the mailbox
+   */
+  @Test
+  public void testMemoryStaysFlatWithSlowJournal() {
+
+    int capacity = 200;
+    int numberOfCommands = 20_000;
+    int batchSize = 200;
+
+    SlowJournal.writeMillis = 50;
+
+    // resolved after the capacity is set, so that the capacity of the stash follows it
+    ActorTestKit testKit = ActorTestKit.create(ConfigFactory.load(ConfigFactory.parseString("""
+            pekko-sample.mailbox.customers.capacity = %d
+            pekko-sample.customer.snapshot-every = 0
+            pekko.log-dead-letters = off
+            pekko.persistence.journal.plugin = "slow-journal"
+            slow-journal.class = "%s"
+            """.formatted(capacity, SlowJournal.class.getName()))
+        .withFallback(PersistenceTestKitSnapshotPlugin.config())
+        .withFallback(ConfigFactory.parseResources("application.conf"))));
+
+    try {
+
+      TestProbe<Balance> balance = testKit.createTestProbe();
+      AtomicLong acknowledged = new AtomicLong();
+      AtomicLong reported = new AtomicLong();
+      AtomicLong dropped = new AtomicLong();
+      AtomicLong rejectedByMailbox = new AtomicLong();
+
+      ActorRef<Event> parent = testKit.spawn(Behaviors.receiveMessage(event -> {
+
+        (event instanceof TransactionsRejected ? reported : acknowledged).incrementAndGet();
+
+        return Behaviors.same();
+      }));
+
+      // a command dropped by the stash is wrapped, and only commands are sent to the full stash
+      ActorRef<AllDeadLetters> deadLetters = testKit.spawn(Behaviors.receiveMessage(letter -> {
+
+        if (letter instanceof Dropped) {
+
+          dropped.incrementAndGet();
+        } else if (letter.message() instanceof ProcessTransactions) {
+
+          dropped.incrementAndGet();
+          rejectedByMailbox.incrementAndGet();
+        }
+
+        return Behaviors.same();
+      }));
+
+      testKit.system().eventStream().tell(new EventStream.Subscribe<>(AllDeadLetters.class,
+          deadLetters));
+
+      ActorRef<CustomerActor.Command> customerActor = testKit.spawn(
+          CustomerActor.create(CUSTOMER_1), CustomerActor.PROPS);
+
+      customerActor.tell(new GetBalance(balance.ref()));
+      balance.expectMessageClass(Balance.class, TIMEOUT);
+
+      long heapBefore = usedHeapAfterGc();
+
+      for (int command = 0; command < numberOfCommands; command++) {
+
+        TransactionBatch.Builder builder = new TransactionBatch.Builder(batchSize);
+
+        for (int id = command * batchSize + 1; id <= (command + 1) * batchSize; id++) {
+
+          builder.add(id, CUSTOMER_1, 100, TransactionType.RECEIPT, START);
+        }
+
+        customerActor.tell(new ProcessTransactions(command, builder.build(), parent));
+      }
+
+      long heapGrowth = usedHeapAfterGc() - heapBefore;
+
+      assertTrue(heapGrowth < 16L * 1024 * 1024, "Heap grew by " + heapGrowth + " bytes");
+
+      SlowJournal.writeMillis = 0;
+
+      balance.awaitAssert(TIMEOUT, () -> {
+
+        assertEquals(numberOfCommands, acknowledged.get() + dropped.get());
+        assertEquals(rejectedByMailbox.get(), reported.get());
+
+        return null;
+      });
+
+      assertTrue(dropped.get() > numberOfCommands / 2, "Only " + dropped + " commands dropped");
+
+      customerActor.tell(new GetBalance(balance.ref()));
+
+      assertEquals(acknowledged.get() * batchSize, balance.expectMessageClass(Balance.class,
+          TIMEOUT).numberOfTransactions());
+    } finally {
+
+      testKit.shutdownTestKit();
+    }
+  }
+
+  private static ActorTestKit createTestKit(int snapshotEvery) {
+
+    return ActorTestKit.create(ConfigFactory.parseString(
+            "pekko-sample.customer.snapshot-every = " + snapshotEvery)
+        .withFallback(ConfigFactory.parseString("pekko.actor.serialize-messages = on"))
+        .withFallback(PersistenceTestKitPlugin.config())
+        .withFallback(PersistenceTestKitSnapshotPlugin.config())
+        .withFallback(ConfigFactory.load()));
+  }
+
+  /**
+   * @return Transactions of the customer with the given ids, one per minute: every third one is a
+   *     payment
+   */
+  private static Transaction createTransaction(int id, TransactionType transactionType,
+      long amountInCents) {
+
+    return new Transaction(id, CUSTOMER_1, amountInCents, transactionType, START + id * MINUTE);
+  }
+
+  /**
+   * @return Outcomes of the given number of duplicates, followed by the given number of
+   *     transactions applied
+   */
+  private static TransactionOutcomes duplicatesThenApplied(int duplicates, int applied) {
+
+    TransactionOutcomes.Builder outcomes = new TransactionOutcomes.Builder(duplicates + applied);
+
+    for (int i = 0; i < duplicates; i++) {
+
+      outcomes.set(i, TransactionOutcome.DUPLICATE);
+    }
+
+    return outcomes.build();
+  }
+
+  private static TransactionBatch createTransactions(int firstId, int lastId) {
+
+    return TransactionBatch.of(IntStream.rangeClosed(firstId, lastId)
+        .mapToObj(id -> new Transaction(id, CUSTOMER_1, 100L * id,
+            id % 3 == 0 ? TransactionType.PAY : TransactionType.RECEIPT, START + id * MINUTE))
+        .toList());
+  }
+
+  private static long usedHeapAfterGc() {
+
+    Runtime runtime = Runtime.getRuntime();
+
+    for (int i = 0; i < 3; i++) {
+
+      System.gc();
+    }
+
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Journal which only acknowledges the events, each write after {@link #writeMillis}, one write
+   * at a time: it keeps nothing, so there is nothing to recover either.
+   */
+  public static final class SlowJournal extends AsyncWriteJournal {
+
+    static volatile long writeMillis;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private final ExecutionContext writes = ExecutionContext.fromExecutor(writer);
+
+    @Override
+    public Future<Iterable<Optional<Exception>>> doAsyncWriteMessages(
+        Iterable<AtomicWrite> messages) {
+
+      return Futures.future(() -> {
+
+        Thread.sleep(writeMillis);
+
+        List<Optional<Exception>> results = new ArrayList<>();
+
+        messages.forEach(message -> results.add(Optional.empty()));
+
+        return results;
+      }, writes);
+    }
+
+    @Override
+    public Future<Void> doAsyncDeleteMessagesTo(String persistenceId, long toSequenceNr) {
+
+      return Futures.successful(null);
+    }
+
+    @Override
+    public Future<Void> doAsyncReplayMessages(String persistenceId, long fromSequenceNr,
+        long toSequenceNr, long max, Consumer<PersistentRepr> replayCallback) {
+
+      return Futures.successful(null);
+    }
+
+    @Override
+    public Future<Long> doAsyncReadHighestSequenceNr(String persistenceId, long fromSequenceNr) {
+
+      return Futures.successful(0L);
+    }
+
+    @Override
+    public void postStop() {
+
+      writer.shutdownNow();
+    }
+  }
+}
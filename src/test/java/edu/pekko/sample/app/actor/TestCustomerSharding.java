@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.pekko.sample.app.actor.TransactionsActor.AllTransactionsProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.actor.TransactionsActor.GetCustomerBalance;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsToProcess;
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.cluster.sharding.ShardRegion.CurrentShardRegionState;
+import org.apache.pekko.cluster.sharding.typed.GetShardRegionState;
+import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the distribution of {@link CustomerActor} over a cluster with Cluster Sharding.
+ */
+public class TestCustomerSharding {
+
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
+  private static final int CUSTOMER_1 = DIRECTORY.intern("1fd40c65-f596-45d8-9e0a-632c37ccb771");
+  private static final int CUSTOMER_2 = DIRECTORY.intern("00221321-592f-49f7-933a-e6aebdc716a6");
+  private static final int CUSTOMER_3 = DIRECTORY.intern("ed870e05-ac7a-4847-8d40-bb37f1fe4880");
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  /**
+   * GIVEN cluster of two nodes on localhost, with customers sharded over them WHEN a batch of
+   * transactions is processed THEN the caller is notified, the balances are correct AND every
+   * customer is hosted by exactly one node
+   */
+  @Test
+  public void testProcessingWithShardedCustomers() {
+
+    try (LocalCluster cluster = new LocalCluster(2)) {
+
+      ActorTestKit node1 = cluster.node(0);
+      ActorTestKit node2 = cluster.node(1);
+
+      CustomerActor.initSharding(node2.system());
+
+      ActorRef<Event> transactionsActor = node1.spawn(TransactionsActor.create());
+
+      TestProbe<Event> caller = node1.createTestProbe();
+      TestProbe<CustomerActor.Balance> balances = node1.createTestProbe();
+
+      transactionsActor.tell(new TransactionsToProcess(1, TransactionBatch.of(List.of(
+          new Transaction(1, CUSTOMER_1, 2190, TransactionType.RECEIPT),
+          new Transaction(2, CUSTOMER_2, 3200, TransactionType.RECEIPT),
+          new Transaction(3, CUSTOMER_3, 1743, TransactionType.RECEIPT),
+          new Transaction(4, CUSTOMER_1, 2000, TransactionType.PAY))),
+          caller.ref()));
+
+      assertEquals(new AllTransactionsProcessed(1),
+          caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT));
+
+      transactionsActor.tell(new GetCustomerBalance(CUSTOMER_1, balances.ref()));
+
+      assertEquals(new CustomerActor.Balance(CUSTOMER_1, 190, 2),
+          balances.expectMessageClass(CustomerActor.Balance.class, TIMEOUT));
+
+      Set<String> hostedCustomers = new HashSet<>();
+      int numberOfHostedEntities = 0;
+
+      for (ActorTestKit node : List.of(node1, node2)) {
+
+        TestProbe<CurrentShardRegionState> regionState = node.createTestProbe();
+
+        ClusterSharding.get(node.system()).shardState()
+            .tell(new GetShardRegionState(CustomerActor.ENTITY_TYPE_KEY, regionState.ref()));
+
+        for (var shard : regionState.expectMessageClass(CurrentShardRegionState.class, TIMEOUT)
+            .getShards()) {
+
+          hostedCustomers.addAll(shard.getEntityIds());
+          numberOfHostedEntities += shard.getEntityIds().size();
+        }
+      }
+
+      assertEquals(Set.of(DIRECTORY.customerId(CUSTOMER_1),
+          DIRECTORY.customerId(CUSTOMER_2), DIRECTORY.customerId(CUSTOMER_3)),
+          hostedCustomers);
+      assertEquals(3, numberOfHostedEntities);
+    }
+  }
+}
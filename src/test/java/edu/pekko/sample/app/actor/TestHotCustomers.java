@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link HotCustomers}.
+ */
+public class TestHotCustomers {
+
+  private static final long MILLISECOND = 1_000_000;
+
+  private final AtomicLong nanos = new AtomicLong(-3 * MILLISECOND);
+
+  // window of one second in buckets of 100ms: at least 1000 transactions, and 30% of them
+  private final HotCustomers hotCustomers = new HotCustomers(Duration.ofSeconds(1), 10, 1000,
+      0.3, nanos::get);
+
+  /**
+   * GIVEN customers with different rates WHEN their transactions are counted THEN only the one
+   * above both the minimum rate and the minimum share is hot
+   */
+  @Test
+  public void testHotCustomerIsAboveBothThresholds() {
+
+    hotCustomers.record(1, 2000);
+    hotCustomers.record(2, 900);
+    hotCustomers.record(3, 1100);
+
+    assertTrue(hotCustomers.isHot(1));
+    // below the minimum rate
+    assertFalse(hotCustomers.isHot(2));
+    // below the minimum share: 1100 of 4000
+    assertFalse(hotCustomers.isHot(3));
+    assertFalse(hotCustomers.isHot(4));
+    assertEquals(4000, hotCustomers.windowTotal());
+  }
+
+  /**
+   * GIVEN hot customer WHEN the window slides past its transactions THEN they are taken out of
+   * the window one bucket at a time AND it is not hot anymore once they are all out
+   */
+  @Test
+  public void testWindowSlides() {
+
+    hotCustomers.record(1, 600);
+    nanos.addAndGet(500 * MILLISECOND);
+    hotCustomers.record(1, 600);
+
+    assertTrue(hotCustomers.isHot(1));
+
+    // the first bucket is out of the window
+    nanos.addAndGet(500 * MILLISECOND);
+
+    assertFalse(hotCustomers.isHot(1));
+    assertEquals(600, hotCustomers.windowTotal());
+
+    nanos.addAndGet(500 * MILLISECOND);
+
+    assertEquals(0, hotCustomers.windowTotal());
+
+    // long after the window, every bucket was emptied once
+    nanos.addAndGet(3600_000 * MILLISECOND);
+    hotCustomers.record(2, 1000);
+
+    assertTrue(hotCustomers.isHot(2));
+    assertEquals(1000, hotCustomers.windowTotal());
+  }
+
+  /**
+   * GIVEN invalid window or thresholds WHEN hot customers are created THEN they are rejected
+   */
+  @Test
+  public void testInvalidSettings() {
+
+    assertThrows(IllegalArgumentException.class, () -> new HotCustomers(Duration.ofSeconds(1), 0,
+        1000, 0.3, nanos::get));
+    assertThrows(IllegalArgumentException.class, () -> new HotCustomers(Duration.ofSeconds(1), 10,
+        1000, 1.5, nanos::get));
+    assertThrows(IllegalArgumentException.class, () -> new HotCustomers(Duration.ofSeconds(1), 10,
+        -1, 0.3, nanos::get));
+  }
+}
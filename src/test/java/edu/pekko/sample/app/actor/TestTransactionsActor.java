@@ -0,0 +1,826 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.actor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigUtil;
+import edu.pekko.sample.app.actor.CustomerActor.CustomerAggregates;
+import edu.pekko.sample.app.actor.TransactionsActor.AllCustomerAggregates;
+import edu.pekko.sample.app.actor.TransactionsActor.AllTransactionsProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.Event;
+import edu.pekko.sample.app.actor.TransactionsActor.GetAllCustomerAggregates;
+import edu.pekko.sample.app.actor.TransactionsActor.GetCustomerAggregates;
+import edu.pekko.sample.app.actor.TransactionsActor.GetCustomerBalance;
+import edu.pekko.sample.app.actor.TransactionsActor.ResultsNotWritten;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsNotProcessed;
+import edu.pekko.sample.app.actor.TransactionsActor.TransactionsToProcess;
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionOutcome;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import edu.pekko.sample.app.data.ledger.CustomerLedger;
+import edu.pekko.sample.app.data.ledger.TransactionAggregates;
+import edu.pekko.sample.app.data.results.ProcessedTransaction;
+import edu.pekko.sample.app.data.results.ResultsLogReader;
+import edu.pekko.sample.app.metrics.Metrics;
+import edu.pekko.sample.app.metrics.MetricsMXBean;
+import edu.pekko.sample.app.metrics.Trace;
+import edu.pekko.sample.app.metrics.Trace.Stage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.apache.pekko.persistence.testkit.PersistenceTestKitPlugin;
+import org.apache.pekko.persistence.testkit.PersistenceTestKitSnapshotPlugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for {@link TransactionsActor}.
+ */
+public class TestTransactionsActor {
+
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
+  private static final int CUSTOMER_1 = DIRECTORY.intern("1fd40c65-f596-45d8-9e0a-632c37ccb771");
+  private static final int CUSTOMER_2 = DIRECTORY.intern("00221321-592f-49f7-933a-e6aebdc716a6");
+  private static final int CUSTOMER_3 = DIRECTORY.intern("ed870e05-ac7a-4847-8d40-bb37f1fe4880");
+  private static final int[] CUSTOMERS = {CUSTOMER_1, CUSTOMER_2, CUSTOMER_3};
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+  private static final int NUMBER_OF_PRODUCERS = 8;
+  private static final int BATCHES_PER_PRODUCER = 25;
+
+  // results of all the tests, unless a test has its own folder
+  @TempDir
+  static Path resultsFolder;
+
+  private ActorTestKit testKit;
+
+  @BeforeEach
+  public void setUp() {
+
+    testKit = createTestKit("");
+  }
+
+  @AfterEach
+  public void tearDown() {
+
+    testKit.shutdownTestKit();
+  }
+
+  /**
+   * GIVEN two callers WHEN both send a batch of transactions before any of them is processed THEN
+   * each caller is notified only about its own batch
+   */
+  @Test
+  public void testOverlappingBatchesReplyToTheRightCaller() {
+
+    ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    TestProbe<Event> caller1 = testKit.createTestProbe();
+    TestProbe<Event> caller2 = testKit.createTestProbe();
+
+    transactionsActor.tell(new TransactionsToProcess(1, createTransactions(0, 5), caller1.ref()));
+    transactionsActor.tell(new TransactionsToProcess(2, createTransactions(5, 3), caller2.ref()));
+
+    assertEquals(new AllTransactionsProcessed(1), caller1.expectMessageClass(
+        AllTransactionsProcessed.class, TIMEOUT));
+    assertEquals(new AllTransactionsProcessed(2), caller2.expectMessageClass(
+        AllTransactionsProcessed.class, TIMEOUT));
+
+    caller1.expectNoMessage();
+    caller2.expectNoMessage();
+  }
+
+  /**
+   * GIVEN an empty batch of transactions WHEN it is sent for processing THEN the caller is notified
+   * right away
+   */
+  @Test
+  public void testEmptyBatch() {
+
+    ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    TestProbe<Event> caller = testKit.createTestProbe();
+
+    transactionsActor.tell(new TransactionsToProcess(7, TransactionBatch.empty(), caller.ref()));
+
+    assertEquals(new AllTransactionsProcessed(7),
+        caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT));
+  }
+
+  /**
+   * GIVEN results written to a folder, in segments of a single flush WHEN the folder is removed
+   * between two batches THEN the caller of the second one is told that its results could not be
+   * written, instead of waiting for its timeout
+   */
+  @Test
+  public void testCallerIsToldWhenResultsAreNotWritten(@TempDir Path folder) throws IOException {
+
+    testKit.shutdownTestKit();
+    testKit = createTestKit(resultsIn(folder).withFallback(ConfigFactory.parseString(
+        "pekko-sample.results.segment-size = 80")).root().render());
+
+    ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    TestProbe<Event> caller = testKit.createTestProbe();
+
+    transactionsActor.tell(new TransactionsToProcess(1, createTransactions(0, 5), caller.ref()));
+    caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT);
+
+    // the next segment cannot be created anymore
+    try (Stream<Path> files = Files.list(folder)) {
+
+      for (Path file : files.toList()) {
+
+        Files.delete(file);
+      }
+    }
+
+    Files.delete(folder);
+
+    transactionsActor.tell(new TransactionsToProcess(2, createTransactions(5, 4), caller.ref()));
+
+    assertEquals(new ResultsNotWritten(2),
+        caller.expectMessageClass(ResultsNotWritten.class, TIMEOUT));
+
+    Files.createDirectories(folder);
+  }
+
+  /**
+   * GIVEN results written to a folder WHEN batches of transactions are processed THEN by the time
+   * each caller is notified, the results of all the transactions of its batch are in the folder
+   */
+  @Test
+  public void testResultsAreDurableWhenTheCallerIsNotified(@TempDir Path folder)
+      throws IOException {
+
+    testKit.shutdownTestKit();
+    testKit = createTestKit(resultsIn(folder).root().render());
+
+    ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    TestProbe<Event> caller = testKit.createTestProbe();
+
+    TransactionBatch first = createTransactions(0, 5);
+    TransactionBatch second = createTransactions(5, 4);
+
+    transactionsActor.tell(new TransactionsToProcess(1, first, caller.ref()));
+    caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT);
+
+    assertEquals(first.toList(), ResultsLogReader.readAll(folder).stream()
+        .map(ProcessedTransaction::transaction).toList());
+
+    transactionsActor.tell(new TransactionsToProcess(2, second, caller.ref()));
+    caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT);
+
+    assertEquals(TransactionBatch.concat(List.of(first, second)).toList(),
+        ResultsLogReader.readAll(folder).stream().map(ProcessedTransaction::transaction).toList());
+  }
+
+  /**
+   * GIVEN results written to a folder, with each way of dispatching the transactions WHEN a batch
+   * repeats a transaction processed before, repeats one of its own and has one that overflows the
+   * balance THEN every transaction of the batch is in the results, in order, with its outcome
+   */
+  @Test
+  public void testResultsRecordTheOutcomeOfEachTransaction(@TempDir Path folder)
+      throws IOException {
+
+    String[] configs = {"", "pekko-sample.customer.dispatch = \"per-transaction\"",
+        "pekko-sample.customer.lanes { pay = 1, keep-customer-order = off }"};
+
+    for (int i = 0; i < configs.length; i++) {
+
+      Path results = folder.resolve(Integer.toString(i));
+
+      testKit.shutdownTestKit();
+      testKit = createTestKit(resultsIn(results).withFallback(ConfigFactory.parseString(configs[i]))
+          .root().render());
+
+      ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+      TestProbe<Event> caller = testKit.createTestProbe();
+
+      transactionsActor.tell(new TransactionsToProcess(1, createTransactions(0, 3), caller.ref()));
+      caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT);
+
+      transactionsActor.tell(new TransactionsToProcess(2, TransactionBatch.of(List.of(
+          new Transaction(1, CUSTOMER_2, 100, TransactionType.RECEIPT),
+          new Transaction(10, CUSTOMER_1, Long.MAX_VALUE, TransactionType.RECEIPT),
+          new Transaction(11, CUSTOMER_3, 50, TransactionType.PAY),
+          new Transaction(11, CUSTOMER_3, 50, TransactionType.PAY),
+          new Transaction(12, CUSTOMER_1, 10, TransactionType.PAY))),
+          caller.ref()));
+      caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT);
+
+      assertEquals(List.of(TransactionOutcome.APPLIED, TransactionOutcome.APPLIED,
+          TransactionOutcome.APPLIED, TransactionOutcome.DUPLICATE, TransactionOutcome.REJECTED,
+          TransactionOutcome.APPLIED, TransactionOutcome.DUPLICATE, TransactionOutcome.APPLIED),
+          ResultsLogReader.readAll(results).stream().map(ProcessedTransaction::outcome).toList(),
+          configs[i]);
+    }
+  }
+
+  /**
+   * GIVEN several producers running in different threads WHEN all of them send many batches of
+   * transactions without waiting for the previous ones THEN every batch is acknowledged exactly
+   * once, with its own request identification
+   */
+  @Test
+  public void testManyProducersWithOverlappingBatches() throws Exception {
+
+    ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    try (ExecutorService producers = Executors.newFixedThreadPool(NUMBER_OF_PRODUCERS)) {
+
+      List<Future<List<Event>>> results = new ArrayList<>();
+
+      for (int producer = 0; producer < NUMBER_OF_PRODUCERS; producer++) {
+
+        int firstRequestId = producer * BATCHES_PER_PRODUCER;
+
+        results.add(producers.submit(() -> {
+
+          // all batches are sent before waiting for any of the replies
+          List<CompletableFuture<Event>> replies = IntStream.range(firstRequestId,
+                  firstRequestId + BATCHES_PER_PRODUCER)
+              .mapToObj(requestId -> AskPattern.<Event, Event>ask(transactionsActor,
+                  replyTo -> new TransactionsToProcess(requestId,
+                      createTransactions(requestId * 10, 1 + requestId % 7), replyTo),
+                  TIMEOUT, testKit.scheduler()).toCompletableFuture())
+              .toList();
+
+          return replies.stream().map(CompletableFuture::join).toList();
+        }));
+      }
+
+      for (int producer = 0; producer < NUMBER_OF_PRODUCERS; producer++) {
+
+        List<Event> replies = results.get(producer).get();
+
+        assertEquals(BATCHES_PER_PRODUCER, replies.size());
+
+        for (int batch = 0; batch < BATCHES_PER_PRODUCER; batch++) {
+
+          AllTransactionsProcessed reply = assertInstanceOf(AllTransactionsProcessed.class,
+              replies.get(batch));
+
+          assertEquals(producer * BATCHES_PER_PRODUCER + batch, reply.requestId());
+        }
+      }
+    }
+  }
+
+  /**
+   * GIVEN batch of transactions of several customers WHEN it is processed AND the balance of each
+   * customer is queried THEN the balances reflect all transactions of the batch
+   */
+  @Test
+  public void testBalancesAfterProcessing() {
+
+    ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    TestProbe<Event> caller = testKit.createTestProbe();
+    TestProbe<CustomerActor.Balance> balances = testKit.createTestProbe();
+
+    transactionsActor.tell(new TransactionsToProcess(1, TransactionBatch.of(List.of(
+        new Transaction(1, CUSTOMER_1, 2190, TransactionType.RECEIPT),
+        new Transaction(2, CUSTOMER_1, 2000, TransactionType.PAY),
+        new Transaction(3, CUSTOMER_2, 3200, TransactionType.RECEIPT),
+        new Transaction(4, CUSTOMER_1, 10, TransactionType.REIMBURSE))),
+        caller.ref()));
+
+    transactionsActor.tell(new GetCustomerBalance(CUSTOMER_1, balances.ref()));
+
+    assertEquals(new CustomerActor.Balance(CUSTOMER_1, 200, 3),
+        balances.expectMessageClass(CustomerActor.Balance.class, TIMEOUT));
+
+    transactionsActor.tell(new GetCustomerBalance(CUSTOMER_2, balances.ref()));
+
+    assertEquals(new CustomerActor.Balance(CUSTOMER_2, 3200, 1),
+        balances.expectMessageClass(CustomerActor.Balance.class, TIMEOUT));
+  }
+
+  /**
+   * GIVEN batch of transactions of several customers, with at most one live Customer Actor WHEN
+   * the aggregates of one customer and of all customers are queried right after it THEN they
+   * include all of its transactions, per customer and in total AND before any transaction there
+   * is no customer to aggregate
+   */
+  @Test
+  public void testAggregatesOfAllCustomers() {
+
+    testKit.shutdownTestKit();
+    testKit = createTestKit("pekko-sample.customer.passivation.max-live-customers = 1");
+
+    ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    TestProbe<Event> caller = testKit.createTestProbe();
+    TestProbe<CustomerAggregates> aggregates = testKit.createTestProbe();
+    TestProbe<AllCustomerAggregates> allAggregates = testKit.createTestProbe();
+
+    transactionsActor.tell(new GetAllCustomerAggregates(allAggregates.ref()));
+
+    assertEquals(new AllCustomerAggregates(new TransactionAggregates(), List.of(), 0),
+        allAggregates.expectMessageClass(AllCustomerAggregates.class, TIMEOUT));
+
+    TransactionBatch transactions = TransactionBatch.of(List.of(
+        new Transaction(1, CUSTOMER_1, 2190, TransactionType.RECEIPT),
+        new Transaction(2, CUSTOMER_1, 2000, TransactionType.PAY),
+        new Transaction(3, CUSTOMER_2, 3200, TransactionType.RECEIPT),
+        new Transaction(4, CUSTOMER_1, 10, TransactionType.REIMBURSE),
+        new Transaction(5, CUSTOMER_1, 500, TransactionType.RECEIPT)));
+
+    // the queries are not waiting for the batch: they follow its transactions
+    transactionsActor.tell(new TransactionsToProcess(1, transactions, caller.ref()));
+    transactionsActor.tell(new GetCustomerAggregates(CUSTOMER_1, aggregates.ref()));
+    transactionsActor.tell(new GetAllCustomerAggregates(allAggregates.ref()));
+
+    CustomerAggregates ofCustomer1 = aggregates.expectMessageClass(CustomerAggregates.class,
+        TIMEOUT);
+
+    assertEquals(CUSTOMER_1, ofCustomer1.customer());
+    assertEquals(2, ofCustomer1.aggregates().count(TransactionType.RECEIPT));
+    assertEquals(2690, ofCustomer1.aggregates().sumInCents(TransactionType.RECEIPT));
+    assertEquals(500, ofCustomer1.aggregates().minInCents(TransactionType.RECEIPT));
+    assertEquals(2190, ofCustomer1.aggregates().maxInCents(TransactionType.RECEIPT));
+    assertEquals(1, ofCustomer1.aggregates().count(TransactionType.PAY));
+    assertEquals(1, ofCustomer1.aggregates().count(TransactionType.REIMBURSE));
+
+    AllCustomerAggregates ofAll = allAggregates.expectMessageClass(AllCustomerAggregates.class,
+        TIMEOUT);
+
+    TransactionAggregates expectedTotal = new TransactionAggregates();
+
+    for (int i = 0; i < transactions.size(); i++) {
+
+      expectedTotal.add(transactions.transactionType(i), transactions.amountInCents(i));
+    }
+
+    assertEquals(expectedTotal, ofAll.total());
+    assertEquals(0, ofAll.unanswered());
+    assertEquals(Set.of(CUSTOMER_1, CUSTOMER_2), ofAll.customers().stream()
+        .map(CustomerAggregates::customer)
+        .collect(Collectors.toSet()));
+
+    assertEquals(new AllTransactionsProcessed(1),
+        caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT));
+  }
+
+  /**
+   * GIVEN low thresholds for hot customers WHEN batches with most of their transactions for one
+   * customer are processed, with transactions repeated within a batch and across batches THEN its
+   * aggregates are computed by helpers AND its balance and aggregates are those of the distinct
+   * transactions, as if they were all applied by its Customer Actor AND each batch with new
+   * transactions of a customer is persisted as a single event
+   */
+  @Test
+  public void testAggregatesOfHotCustomerAreMergedFromHelpers() {
+
+    testKit.shutdownTestKit();
+    testKit = createTestKit("pekko-sample.customer.hot { helpers = 3, min-rate = 1, "
+        + "min-share = 0.5, min-chunk = 10 }");
+
+    ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    TestProbe<Event> caller = testKit.createTestProbe();
+    TestProbe<CustomerAggregates> aggregates = testKit.createTestProbe();
+    TestProbe<CustomerActor.Balance> balances = testKit.createTestProbe();
+
+    long hotBefore = Metrics.getInstance().getCounters()
+        .getOrDefault("pekko_sample_hot_transactions_total", 0L);
+    TransactionType[] types = TransactionType.values();
+    CustomerLedger expected = new CustomerLedger();
+    long persistsBefore = persists();
+
+    for (int batch = 0; batch < 3; batch++) {
+
+      List<Transaction> transactions = new ArrayList<>();
+
+      for (int i = 0; i < 100; i++) {
+
+        // the ids of the last batch are those of the first one
+        int id = (batch % 2) * 1000 + i;
+
+        transactions.add(new Transaction(id, CUSTOMER_1, 100 + id, types[id % types.length]));
+      }
+
+      transactions.add(transactions.get(7));
+      transactions.add(new Transaction(5000 + batch, CUSTOMER_2, 100, TransactionType.RECEIPT));
+      transactions.forEach(transaction -> {
+
+        if (transaction.customer() == CUSTOMER_1) {
+
+          expected.apply(transaction);
+        }
+      });
+
+      transactionsActor.tell(new TransactionsToProcess(batch, TransactionBatch.of(transactions),
+          caller.ref()));
+
+      assertEquals(new AllTransactionsProcessed(batch),
+          caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT));
+    }
+
+    assertEquals(3 * 101, Metrics.getInstance().getCounters()
+        .get("pekko_sample_hot_transactions_total") - hotBefore);
+    // two batches of the hot customer, the last one being only repeated, and three of the other
+    assertEquals(5, persists() - persistsBefore);
+
+    transactionsActor.tell(new GetCustomerAggregates(CUSTOMER_1, aggregates.ref()));
+    transactionsActor.tell(new GetCustomerBalance(CUSTOMER_1, balances.ref()));
+
+    assertEquals(expected.aggregates(),
+        aggregates.expectMessageClass(CustomerAggregates.class, TIMEOUT).aggregates());
+    assertEquals(new CustomerActor.Balance(CUSTOMER_1, expected.balanceInCents(), 200),
+        balances.expectMessageClass(CustomerActor.Balance.class, TIMEOUT));
+  }
+
+  /**
+   * GIVEN transactions dispatched one by one WHEN batches of several customers are processed THEN
+   * the balances reflect all transactions, as when they are dispatched per customer
+   */
+  @Test
+  public void testBalancesWithDispatchPerTransaction() {
+
+    testKit.shutdownTestKit();
+    testKit = createTestKit("pekko-sample.customer.dispatch = \"per-transaction\"");
+
+    ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    TestProbe<Event> caller = testKit.createTestProbe();
+
+    transactionsActor.tell(new TransactionsToProcess(1, createTransactions(0, 7), caller.ref()));
+    transactionsActor.tell(new TransactionsToProcess(2, createTransactions(7, 8), caller.ref()));
+
+    assertEquals(new AllTransactionsProcessed(1),
+        caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT));
+    assertEquals(new AllTransactionsProcessed(2),
+        caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT));
+
+    assertBalances(transactionsActor, 5);
+  }
+
+  /**
+   * GIVEN Customer Actors with room for one message in their mailbox and one in their stash WHEN a
+   * batch of many transactions of one customer is dispatched one by one THEN the caller is told
+   * that they were not all processed, without waiting for them AND a later batch is processed
+   */
+  @Test
+  public void testRejectedTransactionsFailTheirRequest() {
+
+    testKit.shutdownTestKit();
+    testKit = createTestKit("pekko-sample.customer.dispatch = \"per-transaction\"\n"
+        + "pekko-sample.mailbox.customers.capacity = 1\n"
+        + "pekko.persistence.typed.stash-capacity = 1");
+
+    ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    TestProbe<Event> caller = testKit.createTestProbe();
+
+    transactionsActor.tell(new TransactionsToProcess(1, TransactionBatch.of(IntStream.range(0, 1000)
+        .mapToObj(id -> new Transaction(id, CUSTOMER_1, 100, TransactionType.RECEIPT))
+        .toList()), caller.ref()));
+
+    assertEquals(new TransactionsNotProcessed(1),
+        caller.expectMessageClass(TransactionsNotProcessed.class, TIMEOUT));
+
+    transactionsActor.tell(new TransactionsToProcess(2, TransactionBatch.of(List.of(
+        new Transaction(1000, CUSTOMER_2, 100, TransactionType.RECEIPT))), caller.ref()));
+
+    assertEquals(new AllTransactionsProcessed(2),
+        caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT));
+  }
+
+  /**
+   * GIVEN payments in a less urgent lane than the other transactions, with and without keeping the
+   * order of the transactions of each customer WHEN a batch of every type of transactions of
+   * several customers is processed THEN the balances reflect all transactions AND the latency of
+   * each type is recorded once AND a customer with transactions in both lanes persists them as one
+   * event per lane, unless the order is kept
+   */
+  @Test
+  public void testBalancesWithLanes() {
+
+    for (String keepCustomerOrder : new String[] {"off", "on"}) {
+
+      testKit.shutdownTestKit();
+      testKit = createTestKit("pekko-sample.customer.lanes { pay = 1, keep-customer-order = "
+          + keepCustomerOrder + " }");
+
+      ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+      TestProbe<Event> caller = testKit.createTestProbe();
+      TestProbe<CustomerActor.Balance> balances = testKit.createTestProbe();
+      Map<TransactionType, Long> latenciesBefore = typeLatencyCounts();
+      long persistsBefore = persists();
+
+      transactionsActor.tell(new TransactionsToProcess(1, TransactionBatch.of(List.of(
+          new Transaction(1, CUSTOMER_1, 2190, TransactionType.RECEIPT),
+          new Transaction(2, CUSTOMER_1, 2000, TransactionType.PAY),
+          new Transaction(3, CUSTOMER_2, 3200, TransactionType.PAY),
+          new Transaction(4, CUSTOMER_1, 10, TransactionType.REIMBURSE),
+          new Transaction(5, CUSTOMER_3, 500, TransactionType.RECEIPT))),
+          caller.ref()));
+
+      assertEquals(new AllTransactionsProcessed(1),
+          caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT));
+
+      Map<TransactionType, Long> latenciesAfter = typeLatencyCounts();
+
+      // the first customer has payments and receipts, the others only one type
+      assertEquals("off".equals(keepCustomerOrder) ? 4 : 3, persists() - persistsBefore);
+
+      for (TransactionType type : TransactionType.values()) {
+
+        assertEquals(latenciesBefore.get(type) + 1, latenciesAfter.get(type), type.name());
+      }
+
+      transactionsActor.tell(new GetCustomerBalance(CUSTOMER_1, balances.ref()));
+
+      assertEquals(new CustomerActor.Balance(CUSTOMER_1, 200, 3),
+          balances.expectMessageClass(CustomerActor.Balance.class, TIMEOUT));
+
+      transactionsActor.tell(new GetCustomerBalance(CUSTOMER_2, balances.ref()));
+
+      assertEquals(new CustomerActor.Balance(CUSTOMER_2, -3200, 1),
+          balances.expectMessageClass(CustomerActor.Balance.class, TIMEOUT));
+
+      transactionsActor.tell(new GetCustomerBalance(CUSTOMER_3, balances.ref()));
+
+      assertEquals(new CustomerActor.Balance(CUSTOMER_3, 500, 1),
+          balances.expectMessageClass(CustomerActor.Balance.class, TIMEOUT));
+    }
+  }
+
+  /**
+   * GIVEN traced batch of transactions of several customers WHEN it is processed THEN the
+   * submission, the dispatch, the acknowledgement and the results are recorded once AND the queue
+   * and the processing of the Customer Actors once too, for the slowest customer
+   */
+  @Test
+  public void testTracedBatchRecordsEveryStage() {
+
+    // a trace does not survive serialization
+    testKit.shutdownTestKit();
+    testKit = createTestKit("pekko.actor.serialize-messages = off");
+
+    ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    TestProbe<Event> caller = testKit.createTestProbe();
+    Map<Stage, Long> before = stageCounts();
+
+    transactionsActor.tell(new TransactionsToProcess(1, createTransactions(0, 6),
+        Trace.sample(1), caller.ref()));
+
+    assertEquals(new AllTransactionsProcessed(1),
+        caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT));
+
+    Map<Stage, Long> after = stageCounts();
+
+    for (Stage stage : List.of(Stage.SUBMIT, Stage.DISPATCH, Stage.CUSTOMER_QUEUE,
+        Stage.CUSTOMER_PROCESS, Stage.ACKNOWLEDGE, Stage.RESULTS)) {
+
+      assertEquals(before.get(stage) + 1, after.get(stage), stage.label());
+    }
+
+    // the caller reads the batch and ends the trace
+    assertEquals(before.get(Stage.READ), after.get(Stage.READ));
+    assertEquals(before.get(Stage.TOTAL), after.get(Stage.TOTAL));
+  }
+
+  /**
+   * GIVEN at most one live Customer Actor WHEN transactions of several customers are interleaved
+   * THEN the Customer Actors are passivated and recovered over and over AND the balances reflect
+   * all transactions
+   */
+  @Test
+  public void testBalancesWithMaxLiveCustomers() {
+
+    testKit.shutdownTestKit();
+    testKit = createTestKit("pekko-sample.customer.passivation.max-live-customers = 1");
+
+    ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    TestProbe<Event> caller = testKit.createTestProbe();
+
+    for (int requestId = 0; requestId < 5; requestId++) {
+
+      transactionsActor.tell(new TransactionsToProcess(requestId,
+          createTransactions(requestId * 9, 9), caller.ref()));
+    }
+
+    for (int requestId = 0; requestId < 5; requestId++) {
+
+      assertEquals(new AllTransactionsProcessed(requestId),
+          caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT));
+    }
+
+    assertBalances(transactionsActor, 15);
+  }
+
+  /**
+   * GIVEN a short idle timeout WHEN the Customer Actors do not receive anything for longer than it
+   * THEN they are passivated AND their balances are recovered for the next transactions
+   */
+  @Test
+  public void testIdleCustomersArePassivated() {
+
+    testKit.shutdownTestKit();
+    testKit = createTestKit("pekko-sample.customer.passivation.idle-timeout = 200ms");
+
+    ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create());
+
+    TestProbe<Event> caller = testKit.createTestProbe();
+
+    transactionsActor.tell(new TransactionsToProcess(1, createTransactions(0, 6), caller.ref()));
+    caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT);
+
+    long passivations = passivations();
+
+    // every customer is passivated, since none of them receives anything
+    caller.awaitAssert(TIMEOUT, () -> {
+
+      assertTrue(passivations() >= passivations + CUSTOMERS.length);
+
+      return null;
+    });
+
+    transactionsActor.tell(new TransactionsToProcess(2, createTransactions(6, 6), caller.ref()));
+    caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT);
+
+    assertBalances(transactionsActor, 4);
+  }
+
+  /**
+   * GIVEN the Transactions Actor and the Customer Actors on their own dispatchers WHEN batches are
+   * processed with each one of the executors THEN the balances reflect all transactions
+   */
+  @Test
+  public void testBalancesOnEveryExecutor() {
+
+    for (String executor : List.of("fork-join-executor", "thread-pool-executor",
+        "affinity-pool-executor", "virtual-thread-executor")) {
+
+      testKit.shutdownTestKit();
+      testKit = createTestKit("pekko-sample.dispatcher.transactions.executor = \"" + executor
+          + "\"\npekko-sample.dispatcher.customers.executor = \"" + executor + "\"");
+
+      ActorRef<Event> transactionsActor = testKit.spawn(TransactionsActor.create(),
+          TransactionsActor.PROPS);
+
+      TestProbe<Event> caller = testKit.createTestProbe();
+
+      for (int requestId = 0; requestId < 4; requestId++) {
+
+        transactionsActor.tell(new TransactionsToProcess(requestId,
+            createTransactions(requestId * 6, 6), caller.ref()));
+      }
+
+      for (int requestId = 0; requestId < 4; requestId++) {
+
+        assertEquals(new AllTransactionsProcessed(requestId),
+            caller.expectMessageClass(AllTransactionsProcessed.class, TIMEOUT));
+      }
+
+      assertBalances(transactionsActor, 8);
+    }
+  }
+
+  /**
+   * Checks that every customer has the given number of transactions of 100 cents received.
+   */
+  private void assertBalances(ActorRef<Event> transactionsActor, int transactionsPerCustomer) {
+
+    TestProbe<CustomerActor.Balance> balances = testKit.createTestProbe();
+
+    for (int customer : CUSTOMERS) {
+
+      transactionsActor.tell(new GetCustomerBalance(customer, balances.ref()));
+
+      assertEquals(new CustomerActor.Balance(customer, transactionsPerCustomer * 100L,
+              transactionsPerCustomer),
+          balances.expectMessageClass(CustomerActor.Balance.class, TIMEOUT));
+    }
+  }
+
+  private static long passivations() {
+
+    return Metrics.getInstance().getCounters()
+        .getOrDefault("pekko_sample_customer_passivations_total", 0L);
+  }
+
+  private static long persists() {
+
+    MetricsMXBean.LatencySummary latency = Metrics.getInstance().getLatencies()
+        .get("pekko_sample_customer_persist_latency_seconds");
+
+    return latency == null ? 0 : latency.count();
+  }
+
+  private static Map<Stage, Long> stageCounts() {
+
+    Map<Stage, Long> counts = new EnumMap<>(Stage.class);
+
+    for (Stage stage : Stage.values()) {
+
+      counts.put(stage, stage.snapshot().count());
+    }
+
+    return counts;
+  }
+
+  private static Map<TransactionType, Long> typeLatencyCounts() {
+
+    Map<String, MetricsMXBean.LatencySummary> latencies = Metrics.getInstance().getLatencies();
+    Map<TransactionType, Long> counts = new EnumMap<>(TransactionType.class);
+
+    for (TransactionType type : TransactionType.values()) {
+
+      MetricsMXBean.LatencySummary latency = latencies.get(
+          "pekko_sample_transaction_latency_seconds{type=\""
+              + type.name().toLowerCase(Locale.ROOT) + "\"}");
+
+      counts.put(type, latency == null ? 0 : latency.count());
+    }
+
+    return counts;
+  }
+
+  private static ActorTestKit createTestKit(String config) {
+
+    // every test has its own journal in memory, so that customers start with no history, and
+    // every message is serialized, to check that it would also go to another node
+    return ActorTestKit.create(ConfigFactory.parseString(config)
+        .withFallback(ConfigFactory.parseString("pekko.actor.serialize-messages = on"))
+        .withFallback(resultsIn(resultsFolder))
+        .withFallback(PersistenceTestKitPlugin.config())
+        .withFallback(PersistenceTestKitSnapshotPlugin.config())
+        .withFallback(ConfigFactory.load()));
+  }
+
+  private static Config resultsIn(Path folder) {
+
+    return ConfigFactory.parseString(
+        "pekko-sample.results.directory = " + ConfigUtil.quoteString(folder.toString()));
+  }
+
+  private static TransactionBatch createTransactions(int firstId, int size) {
+
+    int[] customers = CUSTOMERS;
+
+    return TransactionBatch.of(IntStream.range(firstId, firstId + size)
+        .mapToObj(id -> new Transaction(id, customers[id % customers.length], 100,
+            TransactionType.RECEIPT))
+        .toList());
+  }
+}
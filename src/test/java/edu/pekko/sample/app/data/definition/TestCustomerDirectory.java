@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.definition;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for singleton {@link CustomerDirectory}.
+ */
+public class TestCustomerDirectory {
+
+  private static final int NUMBER_OF_CUSTOMERS = 100_000;
+  private static final int NUMBER_OF_THREADS = 4;
+
+  private final CustomerDirectory directory = CustomerDirectory.getInstance();
+
+  /**
+   * GIVEN many customers not known yet WHEN they are interned THEN they get consecutive handles AND
+   * interning them again gives the same handles AND their UUIDs are kept
+   */
+  @Test
+  public void testInternedCustomersGetDenseHandles() {
+
+    long[] uuids = new SplittableRandom(1).longs(2 * NUMBER_OF_CUSTOMERS).toArray();
+
+    int firstHandle = directory.size();
+
+    for (int i = 0; i < NUMBER_OF_CUSTOMERS; i++) {
+
+      assertEquals(-1, directory.indexOf(uuids[2 * i], uuids[2 * i + 1]));
+      assertEquals(firstHandle + i, directory.intern(uuids[2 * i], uuids[2 * i + 1]));
+    }
+
+    assertEquals(firstHandle + NUMBER_OF_CUSTOMERS, directory.size());
+
+    for (int i = 0; i < NUMBER_OF_CUSTOMERS; i++) {
+
+      int customer = firstHandle + i;
+
+      assertEquals(customer, directory.intern(uuids[2 * i], uuids[2 * i + 1]));
+      assertEquals(customer, directory.indexOf(uuids[2 * i], uuids[2 * i + 1]));
+      assertEquals(uuids[2 * i], directory.mostSignificantBits(customer));
+      assertEquals(uuids[2 * i + 1], directory.leastSignificantBits(customer));
+    }
+
+    String customerId = new UUID(uuids[0], uuids[1]).toString();
+
+    assertEquals(customerId, directory.customerId(firstHandle));
+    assertEquals(firstHandle, directory.intern(customerId));
+  }
+
+  /**
+   * GIVEN several threads WHEN all of them intern the same new customers, in different orders THEN
+   * each customer gets one handle only, which is the same in every thread
+   */
+  @Test
+  public void testConcurrentInterning() throws Exception {
+
+    long[] uuids = new SplittableRandom(2).longs(2 * NUMBER_OF_CUSTOMERS).toArray();
+
+    int sizeBefore = directory.size();
+
+    try (ExecutorService threads = Executors.newFixedThreadPool(NUMBER_OF_THREADS)) {
+
+      List<Future<int[]>> results = new ArrayList<>();
+
+      for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+
+        int offset = thread * NUMBER_OF_CUSTOMERS / NUMBER_OF_THREADS;
+
+        results.add(threads.submit(() -> {
+
+          int[] handles = new int[NUMBER_OF_CUSTOMERS];
+
+          for (int i = 0; i < NUMBER_OF_CUSTOMERS; i++) {
+
+            int customer = (offset + i) % NUMBER_OF_CUSTOMERS;
+
+            handles[customer] = directory.intern(uuids[2 * customer], uuids[2 * customer + 1]);
+          }
+
+          return handles;
+        }));
+      }
+
+      int[] expected = results.get(0).get();
+
+      for (Future<int[]> result : results) {
+
+        int[] handles = result.get();
+
+        for (int customer = 0; customer < NUMBER_OF_CUSTOMERS; customer++) {
+
+          assertEquals(expected[customer], handles[customer]);
+          assertEquals(uuids[2 * customer], directory.mostSignificantBits(handles[customer]));
+        }
+      }
+    }
+
+    assertEquals(sizeBefore + NUMBER_OF_CUSTOMERS, directory.size());
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.definition;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link TransactionBatch}.
+ */
+public class TestTransactionBatch {
+
+  private static final int NUMBER_OF_TRANSACTIONS = 10_000;
+  private static final int NUMBER_OF_CUSTOMERS = 300;
+
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
+
+  private static final int[] CUSTOMERS = IntStream.range(0, NUMBER_OF_CUSTOMERS)
+      .map(i -> DIRECTORY.intern(UUID.randomUUID().toString()))
+      .toArray();
+
+  /**
+   * GIVEN list of transactions WHEN a batch is built from it THEN every column has the values of
+   * the transactions, in the same order AND the batch gives the same list back
+   */
+  @Test
+  public void testBatchOfTransactions() {
+
+    List<Transaction> transactions = createTransactions(NUMBER_OF_TRANSACTIONS);
+
+    TransactionBatch batch = TransactionBatch.of(transactions);
+
+    assertEquals(NUMBER_OF_TRANSACTIONS, batch.size());
+
+    for (int i = 0; i < NUMBER_OF_TRANSACTIONS; i++) {
+
+      Transaction transaction = transactions.get(i);
+
+      assertEquals(transaction.id(), batch.id(i));
+      assertEquals(transaction.customer(), batch.customer(i));
+      assertEquals(transaction.amountInCents(), batch.amountInCents(i));
+      assertEquals(transaction.transactionType(), batch.transactionType(i));
+      assertEquals(transaction.eventTimeMillis(), batch.eventTimeMillis(i));
+      assertEquals(transaction, batch.transaction(i));
+    }
+
+    assertEquals(transactions, batch.toList());
+    assertTrue(TransactionBatch.of(List.of()).isEmpty());
+  }
+
+  /**
+   * GIVEN builder with a small capacity WHEN more transactions are added THEN the batch has all of
+   * them
+   */
+  @Test
+  public void testBuilderGrows() {
+
+    List<Transaction> transactions = createTransactions(100);
+
+    TransactionBatch.Builder builder = new TransactionBatch.Builder(1);
+
+    transactions.forEach(builder::add);
+
+    assertEquals(100, builder.size());
+    assertEquals(transactions, builder.build().toList());
+  }
+
+  /**
+   * GIVEN batch with transactions of many customers WHEN it is split by customer THEN there is one
+   * batch per customer, in the order of their first transaction AND each one has the transactions
+   * of its customer in their original order
+   */
+  @Test
+  public void testSplitByCustomer() {
+
+    List<Transaction> transactions = createTransactions(NUMBER_OF_TRANSACTIONS);
+
+    Map<Integer, List<Transaction>> expected = new LinkedHashMap<>();
+
+    for (Transaction transaction : transactions) {
+
+      expected.computeIfAbsent(transaction.customer(), customer -> new ArrayList<>())
+          .add(transaction);
+    }
+
+    List<TransactionBatch> batches = TransactionBatch.of(transactions).splitByCustomer();
+
+    assertEquals(expected.size(), batches.size());
+    assertEquals(new ArrayList<>(expected.values()),
+        batches.stream().map(TransactionBatch::toList).toList());
+
+    // a view of a single customer is not split again
+    assertSame(batches.get(0), batches.get(0).splitByCustomer().get(0));
+    assertTrue(TransactionBatch.empty().splitByCustomer().isEmpty());
+  }
+
+  /**
+   * GIVEN batch with transactions of every type AND view of it WHEN they are split into groups of
+   * types THEN there is one batch per group, with the transactions of its types in their original
+   * order AND a group without transactions is empty
+   */
+  @Test
+  public void testSplitByType() {
+
+    List<Transaction> transactions = createTransactions(NUMBER_OF_TRANSACTIONS);
+    TransactionBatch batch = TransactionBatch.of(transactions);
+    TransactionBatch view = batch.splitByCustomer().get(0);
+
+    // payments in group 1, the others in group 0, and nothing in group 2
+    int[] groupOfType = new int[TransactionType.values().length];
+
+    groupOfType[TransactionType.PAY.ordinal()] = 1;
+
+    for (TransactionBatch split : List.of(batch, view)) {
+
+      List<TransactionBatch> groups = split.splitByType(groupOfType, 3);
+
+      assertEquals(3, groups.size());
+      assertEquals(split.toList().stream()
+              .filter(transaction -> transaction.transactionType() != TransactionType.PAY)
+              .toList(),
+          groups.get(0).toList());
+      assertEquals(split.toList().stream()
+              .filter(transaction -> transaction.transactionType() == TransactionType.PAY)
+              .toList(),
+          groups.get(1).toList());
+      assertTrue(groups.get(2).isEmpty());
+    }
+
+    // all of them in one group: the batch itself
+    assertSame(batch, batch.splitByType(new int[TransactionType.values().length], 2).get(0));
+  }
+
+  /**
+   * GIVEN batch AND view of it WHEN they are sliced THEN each slice has the transactions between
+   * the given indexes, in the same order
+   */
+  @Test
+  public void testSlice() {
+
+    List<Transaction> transactions = createTransactions(1000);
+    TransactionBatch batch = TransactionBatch.of(transactions);
+    TransactionBatch view = batch.splitByCustomer().get(0);
+
+    assertEquals(transactions.subList(100, 350), batch.slice(100, 350).toList());
+    assertEquals(transactions.subList(150, 200), batch.slice(100, 350).slice(50, 100).toList());
+    assertEquals(view.toList().subList(1, 3), view.slice(1, 3).toList());
+    assertSame(batch, batch.slice(0, batch.size()));
+    assertTrue(batch.slice(10, 10).isEmpty());
+  }
+
+  /**
+   * GIVEN batch AND views of it, and of its views WHEN the indexes of the transactions of a view
+   * are looked up in the batch, or in the view it comes from THEN each index is the one of the
+   * same transaction there AND a batch that is not one of them is refused
+   */
+  @Test
+  public void testIndexesIn() {
+
+    // the id of each transaction is its index in the batch
+    TransactionBatch batch = TransactionBatch.of(createTransactions(1000));
+    TransactionBatch view = batch.splitByCustomer().get(1);
+    TransactionBatch viewOfView = view.splitByType(new int[] {0, 1, 0}, 2).get(1);
+
+    assertArrayEquals(IntStream.range(0, view.size()).map(view::id).toArray(),
+        view.indexesIn(batch));
+    assertArrayEquals(IntStream.range(0, viewOfView.size()).map(viewOfView::id).toArray(),
+        viewOfView.indexesIn(batch));
+    assertEquals(view.toList().stream()
+            .filter(transaction -> transaction.transactionType() == TransactionType.PAY)
+            .toList(),
+        IntStream.of(viewOfView.indexesIn(view)).mapToObj(view::transaction).toList());
+    assertArrayEquals(IntStream.range(50, 100).toArray(),
+        batch.slice(100, 350).slice(50, 100).indexesIn(batch.slice(100, 350)));
+    assertArrayEquals(new int[0], TransactionBatch.empty().indexesIn(batch));
+
+    assertThrows(IllegalArgumentException.class,
+        () -> batch.slice(0, 10).indexesIn(batch.slice(10, 20)));
+    assertThrows(IllegalArgumentException.class,
+        () -> view.indexesIn(TransactionBatch.of(batch.toList())));
+  }
+
+  /**
+   * GIVEN batches WHEN they are concatenated THEN the result has all of their transactions, in the
+   * same order
+   */
+  @Test
+  public void testConcat() {
+
+    List<Transaction> transactions = createTransactions(1000);
+
+    TransactionBatch concatenated = TransactionBatch.concat(List.of(
+        TransactionBatch.of(transactions.subList(0, 300)),
+        TransactionBatch.of(transactions.subList(300, 301)),
+        TransactionBatch.of(transactions.subList(301, 1000))));
+
+    assertEquals(transactions, concatenated.toList());
+    assertEquals(TransactionBatch.of(transactions), concatenated);
+  }
+
+  private static List<Transaction> createTransactions(int size) {
+
+    SplittableRandom random = new SplittableRandom(size);
+    TransactionType[] types = TransactionType.values();
+
+    return IntStream.range(0, size)
+        .mapToObj(id -> new Transaction(id, CUSTOMERS[random.nextInt(NUMBER_OF_CUSTOMERS)],
+            random.nextLong(1_000_000), types[random.nextInt(types.length)],
+            1_700_000_000_000L + random.nextLong(3_600_000)))
+        .toList();
+  }
+}
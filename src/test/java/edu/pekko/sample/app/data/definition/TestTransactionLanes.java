@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.definition;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link TransactionLanes}.
+ */
+public class TestTransactionLanes {
+
+  private static final int CUSTOMER = CustomerDirectory.getInstance()
+      .intern("1fd40c65-f596-45d8-9e0a-632c37ccb771");
+
+  /**
+   * GIVEN lanes with payments after the other types WHEN the lane of each type and of batches is
+   * asked THEN payments are in lane 1, the others in lane 0 AND a batch is in the most urgent lane
+   * among its transactions
+   */
+  @Test
+  public void testLanesFromConfig() {
+
+    TransactionLanes lanes = TransactionLanes.fromConfig(ConfigFactory.parseString(
+        "receipt = 0, pay = 1, reimburse = 0, keep-customer-order = on"));
+
+    assertEquals(2, lanes.numberOfLanes());
+    assertTrue(lanes.keepCustomerOrder());
+    assertEquals(0, lanes.lane(TransactionType.RECEIPT));
+    assertEquals(1, lanes.lane(TransactionType.PAY));
+    assertEquals(0, lanes.lane(TransactionType.REIMBURSE));
+
+    assertEquals(1, lanes.lane(batch(TransactionType.PAY, TransactionType.PAY)));
+    assertEquals(0, lanes.lane(batch(TransactionType.PAY, TransactionType.REIMBURSE)));
+    assertEquals(1, lanes.lane(TransactionBatch.empty()));
+
+    assertEquals(1, TransactionLanes.SINGLE.numberOfLanes());
+    assertFalse(TransactionLanes.SINGLE.keepCustomerOrder());
+    assertEquals(0, TransactionLanes.SINGLE.lane(batch(TransactionType.PAY)));
+  }
+
+  /**
+   * GIVEN lane out of range, or not one lane per type WHEN the lanes are built THEN an error is
+   * raised
+   */
+  @Test
+  public void testInvalidLanes() {
+
+    assertThrows(IllegalArgumentException.class,
+        () -> new TransactionLanes(new int[] {0, 3, 0}, false));
+    assertThrows(IllegalArgumentException.class,
+        () -> new TransactionLanes(new int[] {0, -1, 0}, false));
+    assertThrows(IllegalArgumentException.class,
+        () -> new TransactionLanes(new int[] {0, 1}, false));
+  }
+
+  private static TransactionBatch batch(TransactionType... types) {
+
+    TransactionBatch.Builder builder = new TransactionBatch.Builder(types.length);
+
+    for (int i = 0; i < types.length; i++) {
+
+      builder.add(new Transaction(i, CUSTOMER, 100, types[i]));
+    }
+
+    return builder.build();
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link CustomerLedger}.
+ */
+public class TestCustomerLedger {
+
+  private static final int NUMBER_OF_TRANSACTIONS = 3_000_000;
+  private static final int NUMBER_OF_CUSTOMERS = 3;
+
+  /**
+   * GIVEN ledgers of several customers WHEN applying millions of mixed transactions with random
+   * amounts THEN each balance is exactly the one calculated with decimal arithmetic
+   */
+  @Test
+  public void testBalancesAreExactAfterMillionsOfTransactions() {
+
+    TransactionType[] types = TransactionType.values();
+
+    CustomerLedger[] ledgers = new CustomerLedger[NUMBER_OF_CUSTOMERS];
+    BigDecimal[] expectedBalances = new BigDecimal[NUMBER_OF_CUSTOMERS];
+
+    for (int i = 0; i < NUMBER_OF_CUSTOMERS; i++) {
+
+      ledgers[i] = new CustomerLedger();
+      expectedBalances[i] = BigDecimal.ZERO;
+    }
+
+    SplittableRandom random = new SplittableRandom(42);
+
+    for (int i = 0; i < NUMBER_OF_TRANSACTIONS; i++) {
+
+      int customer = random.nextInt(NUMBER_OF_CUSTOMERS);
+      TransactionType type = types[random.nextInt(types.length)];
+      long amountInCents = 1 + random.nextLong(1_000_000);
+
+      assertTrue(ledgers[customer].apply(new Transaction(i + 1, customer, amountInCents, type)));
+
+      BigDecimal amount = BigDecimal.valueOf(amountInCents, 2);
+
+      expectedBalances[customer] = type == TransactionType.PAY
+          ? expectedBalances[customer].subtract(amount)
+          : expectedBalances[customer].add(amount);
+    }
+
+    long numberOfTransactions = 0;
+
+    for (int i = 0; i < NUMBER_OF_CUSTOMERS; i++) {
+
+      assertEquals(expectedBalances[i], BigDecimal.valueOf(ledgers[i].balanceInCents(), 2));
+      numberOfTransactions += ledgers[i].numberOfTransactions();
+    }
+
+    assertEquals(NUMBER_OF_TRANSACTIONS, numberOfTransactions);
+  }
+
+  /**
+   * GIVEN ledger WHEN applying amounts that cannot be represented exactly as floating-point THEN
+   * the balance is still exact
+   */
+  @Test
+  public void testNoFloatingPointDrift() {
+
+    CustomerLedger ledger = new CustomerLedger();
+
+    // 0.10 added ten times is not 1.00 in floating-point
+    for (int i = 0; i < 10; i++) {
+
+      ledger.apply(new Transaction(i + 1, 0, 10, TransactionType.RECEIPT));
+    }
+
+    ledger.apply(new Transaction(11, 0, 30, TransactionType.PAY));
+    ledger.apply(new Transaction(12, 0, 20, TransactionType.REIMBURSE));
+
+    assertEquals(90, ledger.balanceInCents());
+    assertEquals(12, ledger.numberOfTransactions());
+  }
+
+  /**
+   * GIVEN ledger WHEN transactions are applied again with the same ids, also after the ledger is
+   * restored from a snapshot THEN each one is only applied once AND a transaction that would
+   * overflow the balance is not taken as applied
+   */
+  @Test
+  public void testTransactionsAreAppliedOnce() {
+
+    CustomerLedger ledger = new CustomerLedger();
+
+    assertTrue(ledger.apply(1, TransactionType.RECEIPT, 100));
+    assertTrue(ledger.apply(2, TransactionType.PAY, 30));
+    assertFalse(ledger.apply(1, TransactionType.RECEIPT, 100));
+    assertTrue(ledger.hasApplied(2));
+    assertFalse(ledger.hasApplied(3));
+
+    CustomerLedger restored = CustomerLedger.restore(ledger.snapshot());
+
+    assertFalse(restored.apply(2, TransactionType.PAY, 30));
+    assertTrue(restored.apply(3, TransactionType.REIMBURSE, 5));
+    assertFalse(ledger.hasApplied(3));
+
+    assertEquals(75, restored.balanceInCents());
+    assertEquals(3, restored.numberOfTransactions());
+
+    assertFalse(restored.apply(4, TransactionType.RECEIPT, Long.MAX_VALUE));
+    assertFalse(restored.hasApplied(4));
+  }
+
+  /**
+   * GIVEN ledger WHEN transactions are applied, again with the same ids, and one overflows the
+   * balance THEN the aggregates only include the transactions applied AND they are kept by the
+   * snapshots
+   */
+  @Test
+  public void testAggregatesOfAppliedTransactions() {
+
+    CustomerLedger ledger = new CustomerLedger();
+
+    ledger.apply(1, TransactionType.RECEIPT, 100);
+    ledger.apply(2, TransactionType.RECEIPT, 40);
+    ledger.apply(2, TransactionType.RECEIPT, 40);
+    ledger.apply(3, TransactionType.PAY, 30);
+    ledger.apply(new Transaction(6, 0, 70, TransactionType.PAY));
+
+    assertFalse(ledger.apply(4, TransactionType.RECEIPT, Long.MAX_VALUE));
+
+    TransactionAggregates aggregates = ledger.aggregates();
+
+    assertEquals(2, aggregates.count(TransactionType.RECEIPT));
+    assertEquals(140, aggregates.sumInCents(TransactionType.RECEIPT));
+    assertEquals(40, aggregates.minInCents(TransactionType.RECEIPT));
+    assertEquals(100, aggregates.maxInCents(TransactionType.RECEIPT));
+    assertEquals(2, aggregates.count(TransactionType.PAY));
+    assertEquals(100, aggregates.sumInCents(TransactionType.PAY));
+    assertEquals(0, aggregates.count(TransactionType.REIMBURSE));
+    assertEquals(ledger.numberOfTransactions(), aggregates.count());
+
+    // a copy: the ledger is not changed through it
+    aggregates.add(TransactionType.REIMBURSE, 1);
+
+    assertEquals(0, ledger.aggregates().count(TransactionType.REIMBURSE));
+
+    CustomerLedger restored = CustomerLedger.restore(ledger.snapshot());
+
+    restored.apply(5, TransactionType.REIMBURSE, 10);
+
+    assertEquals(ledger.aggregates().sumInCents(TransactionType.RECEIPT),
+        restored.aggregates().sumInCents(TransactionType.RECEIPT));
+    assertEquals(1, restored.aggregates().count(TransactionType.REIMBURSE));
+    assertEquals(0, ledger.aggregates().count(TransactionType.REIMBURSE));
+  }
+
+  /**
+   * GIVEN ledger with windows of a minute WHEN transactions are applied, again with the same ids
+   * and without event time THEN the windows only include the transactions applied with event time
+   * AND they are kept by the snapshots with the same settings only
+   */
+  @Test
+  public void testWindowsOfAppliedTransactions() {
+
+    WindowSettings settings = new WindowSettings(Duration.ofSeconds(10), Duration.ofMinutes(1),
+        Duration.ZERO, WindowSettings.LateEvents.DROP);
+    CustomerLedger ledger = new CustomerLedger(settings);
+    long eventTime = 1_700_000_040_000L;
+
+    ledger.apply(1, TransactionType.RECEIPT, 100, eventTime);
+    ledger.apply(1, TransactionType.RECEIPT, 100, eventTime);
+    ledger.apply(2, TransactionType.PAY, 30);
+    ledger.apply(new Transaction(3, 0, 20, TransactionType.PAY, eventTime + 1000));
+
+    assertEquals(3, ledger.numberOfTransactions());
+    assertEquals(2, ledger.windows().tumbling().aggregates().count());
+    assertEquals(20, ledger.windows().sliding().aggregates().sumInCents(TransactionType.PAY));
+
+    assertEquals(ledger.windows(),
+        CustomerLedger.restore(ledger.snapshot(), settings).windows());
+    assertEquals(0, CustomerLedger.restore(ledger.snapshot()).windows().sliding().aggregates()
+        .count());
+  }
+
+  /**
+   * GIVEN two ledgers WHEN the same transactions are applied to one of them, and to the other one
+   * without aggregates, whose aggregates are then merged in parts in another order THEN both
+   * ledgers have the same balance, transactions and aggregates
+   */
+  @Test
+  public void testAggregatesMergedInAnyOrder() {
+
+    CustomerLedger ledger = new CustomerLedger();
+    CustomerLedger withoutAggregates = new CustomerLedger();
+    TransactionAggregates[] parts = {new TransactionAggregates(), new TransactionAggregates()};
+    TransactionType[] types = TransactionType.values();
+
+    for (int id = 0; id < 100; id++) {
+
+      TransactionType type = types[id % types.length];
+
+      ledger.apply(id, type, 10L * id, Transaction.UNKNOWN_EVENT_TIME);
+
+      assertTrue(withoutAggregates.applyWithoutAggregates(id, type, 10L * id,
+          Transaction.UNKNOWN_EVENT_TIME));
+
+      parts[id % 2].add(type, 10L * id);
+    }
+
+    assertFalse(withoutAggregates.applyWithoutAggregates(7, TransactionType.PAY, 70,
+        Transaction.UNKNOWN_EVENT_TIME));
+    assertEquals(0, withoutAggregates.aggregates().count());
+
+    withoutAggregates.mergeAggregates(parts[1]);
+    withoutAggregates.mergeAggregates(parts[0]);
+
+    assertEquals(ledger.balanceInCents(), withoutAggregates.balanceInCents());
+    assertEquals(ledger.numberOfTransactions(), withoutAggregates.numberOfTransactions());
+    assertEquals(ledger.aggregates(), withoutAggregates.aggregates());
+  }
+
+  /**
+   * GIVEN ledger with the maximum balance WHEN applying one more receipt THEN it is not applied
+   * AND the ledger is left unchanged instead of overflowing
+   */
+  @Test
+  public void testOverflowIsDetected() {
+
+    CustomerLedger ledger = new CustomerLedger();
+
+    assertTrue(ledger.apply(new Transaction(1, 0, Long.MAX_VALUE, TransactionType.RECEIPT)));
+    assertFalse(ledger.apply(new Transaction(2, 0, 1, TransactionType.RECEIPT)));
+
+    assertEquals(Long.MAX_VALUE, ledger.balanceInCents());
+    assertEquals(1, ledger.numberOfTransactions());
+    assertFalse(ledger.hasApplied(2));
+  }
+
+  /**
+   * GIVEN ledger with the largest sum of receipts in a bucket WHEN transactions are checked before
+   * they are applied, some of which would overflow that bucket or the balance THEN only those are
+   * left out, in the order of the batch AND nothing is changed until the others are applied AND a
+   * batch without any overflow is kept as it is
+   */
+  @Test
+  public void testOverflowingTransactionsAreLeftOut() {
+
+    CustomerLedger ledger = new CustomerLedger();
+
+    // the sum of the receipts is back under the maximum, but not that of the first bucket
+    ledger.apply(1, TransactionType.RECEIPT, Long.MAX_VALUE, 60_000);
+    ledger.apply(2, TransactionType.RECEIPT, -1000, 120_000);
+
+    Transaction fits = new Transaction(10, 1, 10, TransactionType.RECEIPT, 120_000);
+    Transaction overflowsBucket = new Transaction(11, 1, 10, TransactionType.RECEIPT, 60_000);
+    Transaction overflowsBalance = new Transaction(12, 1, 2000, TransactionType.RECEIPT, 120_000);
+    Transaction payment = new Transaction(13, 1, 500, TransactionType.PAY, 120_000);
+
+    assertTrue(ledger.canApply(fits));
+    assertFalse(ledger.canApply(overflowsBucket));
+    assertFalse(ledger.canApply(overflowsBalance));
+
+    TransactionBatch accepted = ledger.withoutOverflowing(TransactionBatch.of(List.of(fits,
+        overflowsBucket, overflowsBalance, fits, payment)));
+
+    assertEquals(List.of(fits, fits, payment), accepted.toList());
+    assertEquals(Long.MAX_VALUE - 1000, ledger.balanceInCents());
+    assertFalse(ledger.hasApplied(fits.id()));
+
+    for (Transaction transaction : accepted.toList()) {
+
+      ledger.apply(transaction);
+    }
+
+    assertFalse(ledger.apply(overflowsBucket));
+    assertEquals(Long.MAX_VALUE - 1490, ledger.balanceInCents());
+    assertEquals(4, ledger.numberOfTransactions());
+
+    TransactionBatch small = TransactionBatch.of(List.of(
+        new Transaction(20, 1, 10, TransactionType.PAY, 120_000)));
+
+    assertSame(small, new CustomerLedger().withoutOverflowing(small));
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import edu.pekko.sample.app.data.ledger.WindowSettings.LateEvents;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link TimeWindows}.
+ */
+public class TestTimeWindows {
+
+  private static final long MINUTE = 60_000;
+
+  // start of a window of five minutes
+  private static final long START = 1_700_000_100_000L;
+
+  /**
+   * GIVEN transactions in two consecutive tumbling windows WHEN the windows are queried THEN the
+   * tumbling window has the transactions since its start AND the previous one those before it AND
+   * the sliding window those of the last five buckets up to the watermark
+   */
+  @Test
+  public void testTumblingAndSlidingWindows() {
+
+    TimeWindows windows = new TimeWindows(WindowSettings.DEFAULTS);
+
+    assertTrue(windows.add(START + MINUTE / 2, TransactionType.RECEIPT, 100));
+    assertTrue(windows.add(START + 7 * MINUTE / 2, TransactionType.RECEIPT, 200));
+    assertTrue(windows.add(START + 11 * MINUTE / 2, TransactionType.RECEIPT, 400));
+    assertTrue(windows.add(START + 31 * MINUTE / 5, TransactionType.PAY, 50));
+
+    assertEquals(START + 31 * MINUTE / 5, windows.watermarkMillis());
+
+    WindowStatistics sliding = windows.sliding();
+
+    assertEquals(START + 2 * MINUTE, sliding.startMillis());
+    assertEquals(START + 7 * MINUTE, sliding.endMillis());
+    assertEquals(600, sliding.aggregates().sumInCents(TransactionType.RECEIPT));
+    assertEquals(50, sliding.aggregates().sumInCents(TransactionType.PAY));
+
+    WindowStatistics tumbling = windows.tumbling();
+
+    assertEquals(START + 5 * MINUTE, tumbling.startMillis());
+    assertEquals(START + 10 * MINUTE, tumbling.endMillis());
+    assertEquals(400, tumbling.aggregates().sumInCents(TransactionType.RECEIPT));
+    assertEquals(2, tumbling.aggregates().count());
+
+    WindowStatistics previousTumbling = windows.previousTumbling();
+
+    assertEquals(START, previousTumbling.startMillis());
+    assertEquals(START + 5 * MINUTE, previousTumbling.endMillis());
+    assertEquals(300, previousTumbling.aggregates().sumInCents(TransactionType.RECEIPT));
+    assertEquals(100, previousTumbling.aggregates().minInCents(TransactionType.RECEIPT));
+    assertEquals(0, previousTumbling.aggregates().count(TransactionType.PAY));
+  }
+
+  /**
+   * GIVEN transactions before the watermark, within and after the allowed lateness, and without
+   * event time WHEN they are added, with late transactions dropped or added to the current bucket
+   * THEN those within the lateness are in their own bucket AND late ones are counted and either
+   * left out or in the bucket of the watermark AND those without event time are left out
+   */
+  @Test
+  public void testLateEvents() {
+
+    for (LateEvents lateEvents : LateEvents.values()) {
+
+      TimeWindows windows = new TimeWindows(new WindowSettings(Duration.ofMinutes(1),
+          Duration.ofMinutes(5), Duration.ofMinutes(1), lateEvents));
+
+      windows.add(START + 31 * MINUTE / 5, TransactionType.RECEIPT, 1000);
+
+      // within the lateness, in the bucket before the one of the watermark
+      assertTrue(windows.add(START + 53 * MINUTE / 10, TransactionType.RECEIPT, 10));
+      // after the lateness, in the previous tumbling window
+      assertEquals(lateEvents == LateEvents.CURRENT_BUCKET,
+          windows.add(START + 49 * MINUTE / 10, TransactionType.RECEIPT, 1));
+      assertFalse(windows.add(Transaction.UNKNOWN_EVENT_TIME, TransactionType.RECEIPT, 5));
+
+      assertEquals(1, windows.lateEvents());
+      assertEquals(START + 31 * MINUTE / 5, windows.watermarkMillis());
+      assertEquals(0, windows.previousTumbling().aggregates().count());
+      assertEquals(lateEvents == LateEvents.DROP ? 1010 : 1011,
+          windows.tumbling().aggregates().sumInCents(TransactionType.RECEIPT));
+    }
+  }
+
+  /**
+   * GIVEN a transaction every second for more than eleven days WHEN they are added THEN the
+   * windows only hold the latest ones AND their size does not grow with the number of
+   * transactions
+   */
+  @Test
+  public void testMemoryIsBounded() {
+
+    TimeWindows windows = new TimeWindows(WindowSettings.DEFAULTS);
+
+    windows.add(START, TransactionType.PAY, 1);
+
+    int sizeOfFirstWindow = windows.serializedSize();
+
+    for (int second = 0; second < 1_000_000; second++) {
+
+      windows.add(START + 1000L * second, TransactionType.PAY, 1);
+
+      if (second == 1000) {
+
+        assertTrue(windows.serializedSize() > sizeOfFirstWindow);
+      }
+    }
+
+    // 40 seconds in the bucket of the watermark
+    assertEquals(4 * 60 + 40, windows.sliding().aggregates().count());
+    assertEquals(60 + 40, windows.tumbling().aggregates().count());
+    assertEquals(5 * 60, windows.previousTumbling().aggregates().count());
+    // two windows and a bucket of lateness, with a bucket number each
+    assertEquals(4 * 8 + 1 + 8 + 4 + 11 * (8 + TransactionAggregates.serializedSize()),
+        windows.serializedSize());
+  }
+
+  /**
+   * GIVEN windows with transactions WHEN they are copied and written into a buffer and read back
+   * THEN both are equal to the original AND the copy is not changed with the original
+   */
+  @Test
+  public void testCopyAndSerialization() {
+
+    TimeWindows windows = new TimeWindows(new WindowSettings(Duration.ofSeconds(10),
+        Duration.ofSeconds(30), Duration.ofMillis(1), LateEvents.CURRENT_BUCKET));
+
+    for (int i = 0; i < 100; i++) {
+
+      windows.add(START + 997L * i * (i % 3 == 0 ? -1 : 1), TransactionType.REIMBURSE, i);
+    }
+
+    TimeWindows copy = windows.copy();
+    ByteBuffer buffer = ByteBuffer.allocate(windows.serializedSize())
+        .order(ByteOrder.LITTLE_ENDIAN);
+
+    windows.writeTo(buffer);
+
+    assertEquals(0, buffer.remaining());
+    assertEquals(windows, TimeWindows.readFrom(buffer.flip()));
+    assertEquals(windows, copy);
+    assertTrue(windows.lateEvents() > 0);
+
+    windows.add(windows.watermarkMillis(), TransactionType.PAY, 1);
+
+    assertNotEquals(windows, copy);
+  }
+
+  /**
+   * GIVEN invalid settings WHEN the windows settings are created THEN an error is raised
+   */
+  @Test
+  public void testInvalidSettings() {
+
+    assertThrows(IllegalArgumentException.class, () -> new WindowSettings(Duration.ZERO,
+        Duration.ofMinutes(5), Duration.ZERO, LateEvents.DROP));
+    assertThrows(IllegalArgumentException.class, () -> new WindowSettings(Duration.ofMinutes(2),
+        Duration.ofMinutes(5), Duration.ZERO, LateEvents.DROP));
+    assertThrows(IllegalArgumentException.class, () -> new WindowSettings(Duration.ofMinutes(1),
+        Duration.ofMinutes(5), Duration.ofMinutes(-1), LateEvents.DROP));
+  }
+}
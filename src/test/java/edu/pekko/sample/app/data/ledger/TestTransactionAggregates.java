@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.pekko.sample.app.data.definition.TransactionType;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LongSummaryStatistics;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link TransactionAggregates}.
+ */
+public class TestTransactionAggregates {
+
+  private static final TransactionType[] TYPES = TransactionType.values();
+
+  /**
+   * GIVEN transactions of every type with random amounts WHEN they are added to the aggregates,
+   * all to one and split over two that are added up THEN the count, sum, minimum and maximum of
+   * each type are those of the amounts of that type AND both ways give the same aggregates
+   */
+  @Test
+  public void testAggregatesOfEveryType() {
+
+    LongSummaryStatistics[] expected = new LongSummaryStatistics[TYPES.length];
+
+    for (int type = 0; type < TYPES.length; type++) {
+
+      expected[type] = new LongSummaryStatistics();
+    }
+
+    TransactionAggregates all = new TransactionAggregates();
+    TransactionAggregates even = new TransactionAggregates();
+    TransactionAggregates odd = new TransactionAggregates();
+
+    SplittableRandom random = new SplittableRandom(42);
+
+    for (int i = 0; i < 100_000; i++) {
+
+      TransactionType type = TYPES[random.nextInt(TYPES.length)];
+      long amountInCents = 1 + random.nextLong(1_000_000);
+
+      expected[type.ordinal()].accept(amountInCents);
+      all.add(type, amountInCents);
+      (i % 2 == 0 ? even : odd).add(type, amountInCents);
+    }
+
+    for (TransactionType type : TYPES) {
+
+      LongSummaryStatistics statistics = expected[type.ordinal()];
+
+      assertEquals(statistics.getCount(), all.count(type));
+      assertEquals(statistics.getSum(), all.sumInCents(type));
+      assertEquals(statistics.getMin(), all.minInCents(type));
+      assertEquals(statistics.getMax(), all.maxInCents(type));
+    }
+
+    assertEquals(100_000, all.count());
+
+    even.addAll(odd);
+
+    assertEquals(all, even);
+  }
+
+  /**
+   * GIVEN aggregates with a single type of transaction WHEN read THEN the other types have no
+   * transaction and 0 as sum, minimum and maximum AND adding no transaction changes nothing
+   */
+  @Test
+  public void testTypesWithoutTransactions() {
+
+    TransactionAggregates aggregates = new TransactionAggregates();
+
+    aggregates.add(TransactionType.PAY, 250);
+    aggregates.add(TransactionType.PAY, 50);
+    aggregates.addAll(new TransactionAggregates());
+
+    assertEquals(2, aggregates.count(TransactionType.PAY));
+    assertEquals(300, aggregates.sumInCents(TransactionType.PAY));
+    assertEquals(50, aggregates.minInCents(TransactionType.PAY));
+    assertEquals(250, aggregates.maxInCents(TransactionType.PAY));
+
+    for (TransactionType type : new TransactionType[]{TransactionType.RECEIPT,
+        TransactionType.REIMBURSE}) {
+
+      assertEquals(0, aggregates.count(type));
+      assertEquals(0, aggregates.sumInCents(type));
+      assertEquals(0, aggregates.minInCents(type));
+      assertEquals(0, aggregates.maxInCents(type));
+    }
+  }
+
+  /**
+   * GIVEN aggregates WHEN a transaction overflows the sum of its type THEN an error is raised AND
+   * the aggregates are unchanged
+   */
+  @Test
+  public void testOverflowChangesNothing() {
+
+    TransactionAggregates aggregates = new TransactionAggregates();
+
+    aggregates.add(TransactionType.RECEIPT, Long.MAX_VALUE);
+
+    TransactionAggregates before = aggregates.copy();
+
+    assertThrows(ArithmeticException.class, () -> aggregates.add(TransactionType.RECEIPT, 1));
+    assertEquals(before, aggregates);
+  }
+
+  /**
+   * GIVEN aggregates WHEN written and read back, in either byte order THEN they are equal to the
+   * original AND exactly {@link TransactionAggregates#serializedSize()} bytes are written
+   */
+  @Test
+  public void testSerialization() {
+
+    TransactionAggregates aggregates = new TransactionAggregates();
+
+    aggregates.add(TransactionType.RECEIPT, 1234);
+    aggregates.add(TransactionType.REIMBURSE, Long.MAX_VALUE);
+
+    for (ByteOrder order : new ByteOrder[]{ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+
+      ByteBuffer buffer = ByteBuffer.allocate(TransactionAggregates.serializedSize()).order(order);
+
+      aggregates.writeTo(buffer);
+
+      assertEquals(0, buffer.remaining());
+
+      assertEquals(aggregates, TransactionAggregates.readFrom(buffer.flip()));
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link TransactionIdSet}.
+ */
+public class TestTransactionIdSet {
+
+  /**
+   * GIVEN random ids, some of them in dense ranges and some repeated WHEN they are added THEN the
+   * set tells the new ones from the repeated ones exactly as a {@link HashSet} AND it contains
+   * all of them, and nothing else
+   */
+  @Test
+  public void testSameAsHashSet() {
+
+    SplittableRandom random = new SplittableRandom(42);
+
+    TransactionIdSet set = new TransactionIdSet();
+    Set<Integer> expected = new HashSet<>();
+
+    for (int i = 0; i < 200_000; i++) {
+
+      // dense ids in two containers, so that they become bitmaps, and sparse ones anywhere
+      int id = switch (i % 3) {
+        case 0 -> random.nextInt(0, 3 * TransactionIdSet.MAX_ARRAY_SIZE);
+        case 1 -> random.nextInt(1 << 20, (1 << 20) + 70_000);
+        default -> random.nextInt();
+      };
+
+      assertEquals(expected.add(id), set.add(id));
+    }
+
+    assertEquals(expected.size(), set.size());
+
+    for (int i = 0; i < 200_000; i++) {
+
+      int id = random.nextInt();
+
+      assertEquals(expected.contains(id), set.contains(id));
+    }
+
+    expected.forEach(id -> assertTrue(set.contains(id)));
+  }
+
+  /**
+   * GIVEN set with array and bitmap containers WHEN it is copied AND written to a buffer in both
+   * byte orders and read back THEN the results are equal to it AND the copy does not change with
+   * the original
+   */
+  @Test
+  public void testCopyAndSerialization() {
+
+    TransactionIdSet set = new TransactionIdSet();
+
+    for (int id = 0; id < 100_000; id += 3) {
+
+      set.add(id);
+    }
+
+    set.add(Integer.MIN_VALUE);
+    set.add(-1);
+
+    TransactionIdSet copy = set.copy();
+
+    assertEquals(set, copy);
+
+    for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+
+      ByteBuffer buffer = ByteBuffer.allocate(set.serializedSize()).order(order);
+
+      set.writeTo(buffer);
+
+      assertFalse(buffer.hasRemaining());
+
+      assertEquals(set, TransactionIdSet.readFrom(buffer.flip()));
+    }
+
+    set.add(1);
+
+    assertNotEquals(set, copy);
+    assertFalse(copy.contains(1));
+    assertEquals(new TransactionIdSet(), TransactionIdSet.readFrom(ByteBuffer.wrap(new byte[4])));
+  }
+
+  /**
+   * GIVEN the ids of one customer out of three, over 30 million transactions WHEN they are added
+   * THEN all of them are in the set AND it takes less than half a byte per id
+   */
+  @Test
+  public void testMemoryOfDenseIds() {
+
+    TransactionIdSet set = new TransactionIdSet();
+
+    for (int id = 0; id < 30_000_000; id += 3) {
+
+      assertTrue(set.add(id));
+    }
+
+    assertEquals(10_000_000, set.size());
+    assertTrue(set.contains(29_999_997));
+    assertFalse(set.contains(29_999_998));
+    assertTrue(set.memoryInBytes() < 5_000_000, set.memoryInBytes() + " bytes");
+  }
+}
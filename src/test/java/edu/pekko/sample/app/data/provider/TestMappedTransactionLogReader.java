@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.provider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for {@link MappedTransactionLogReader}.
+ */
+public class TestMappedTransactionLogReader {
+
+  private static final int BIG_CHUNK = 5000;
+  private static final int SMALL_CHUNK = 5;
+
+  @TempDir
+  Path folder;
+
+  /**
+   * GIVEN transaction log with the sample data WHEN reading a big chunk of data THEN the same
+   * transactions as in the sample data are returned
+   */
+  @Test
+  public void testReadWhatWasWritten() throws IOException {
+
+    TransactionProvider provider = new TransactionProvider();
+    Path file = writeLog(provider.transactions);
+
+    try (MappedTransactionLogReader reader = new MappedTransactionLogReader(file)) {
+
+      assertEquals(provider.sizeOfAvailableData(), reader.sizeOfAvailableData());
+      assertEquals(provider.transactions, reader.readTransactions(BIG_CHUNK));
+      assertTrue(reader.readTransactions(BIG_CHUNK).isEmpty());
+    }
+  }
+
+  /**
+   * GIVEN transaction log mapped in segments smaller than a chunk WHEN reading the data repeatedly
+   * in small chunks THEN all data is finally read, in order, and then nothing more is returned
+   */
+  @Test
+  public void testReadAllDataInSmallChunksAcrossSegments() throws IOException {
+
+    TransactionProvider provider = new TransactionProvider();
+    Path file = writeLog(provider.transactions);
+
+    try (MappedTransactionLogReader reader = new MappedTransactionLogReader(file,
+        3 * TransactionLogFormat.RECORD_SIZE)) {
+
+      List<Transaction> transactionsRead = new ArrayList<>();
+      List<Transaction> chunk = reader.readTransactions(SMALL_CHUNK);
+
+      while (!chunk.isEmpty()) {
+
+        assertTrue(chunk.size() <= SMALL_CHUNK);
+        transactionsRead.addAll(chunk);
+        chunk = reader.readTransactions(SMALL_CHUNK);
+      }
+
+      assertEquals(provider.transactions, transactionsRead);
+      assertTrue(reader.readTransactions(SMALL_CHUNK).isEmpty());
+    }
+  }
+
+  /**
+   * GIVEN transaction log mapped in segments smaller than a chunk WHEN reading the data repeatedly
+   * in small batches THEN all data is finally read, in order, and then an empty batch is returned
+   */
+  @Test
+  public void testReadAllDataInSmallBatchesAcrossSegments() throws IOException {
+
+    TransactionProvider provider = new TransactionProvider();
+    Path file = writeLog(provider.transactions);
+
+    try (MappedTransactionLogReader reader = new MappedTransactionLogReader(file,
+        3 * TransactionLogFormat.RECORD_SIZE)) {
+
+      List<Transaction> transactionsRead = new ArrayList<>();
+      TransactionBatch batch = reader.readBatch(SMALL_CHUNK);
+
+      while (!batch.isEmpty()) {
+
+        assertTrue(batch.size() <= SMALL_CHUNK);
+        transactionsRead.addAll(batch.toList());
+        batch = reader.readBatch(SMALL_CHUNK);
+      }
+
+      assertEquals(provider.transactions, transactionsRead);
+      assertTrue(reader.readBatch(SMALL_CHUNK).isEmpty());
+    }
+  }
+
+  /**
+   * GIVEN transaction log of version 1, whose records have no event time WHEN reading it as a list
+   * and as a batch THEN the sample data is returned AND without event times
+   */
+  @Test
+  public void testReadVersion1() throws IOException {
+
+    TransactionProvider provider = new TransactionProvider();
+    CustomerDirectory directory = CustomerDirectory.getInstance();
+    ByteBuffer log = ByteBuffer.allocate(TransactionLogFormat.HEADER_SIZE
+        + provider.transactions.size() * TransactionLogFormat.RECORD_SIZE_V1);
+
+    log.putInt(TransactionLogFormat.MAGIC).putInt(TransactionLogFormat.VERSION_1)
+        .putInt(TransactionLogFormat.RECORD_SIZE_V1).position(TransactionLogFormat.HEADER_SIZE);
+
+    for (Transaction transaction : provider.transactions) {
+
+      log.putInt(transaction.id()).put((byte) transaction.transactionType().ordinal())
+          .position(log.position() + 3).putLong(transaction.amountInCents())
+          .putLong(directory.mostSignificantBits(transaction.customer()))
+          .putLong(directory.leastSignificantBits(transaction.customer()));
+    }
+
+    Path file = Files.write(folder.resolve("v1.log"), log.array());
+    List<Transaction> withoutEventTime = provider.transactions.stream()
+        .map(transaction -> new Transaction(transaction.id(), transaction.customer(),
+            transaction.amountInCents(), transaction.transactionType()))
+        .toList();
+
+    try (MappedTransactionLogReader reader = new MappedTransactionLogReader(file)) {
+
+      assertEquals(withoutEventTime, reader.readTransactions(BIG_CHUNK));
+    }
+
+    try (MappedTransactionLogReader reader = new MappedTransactionLogReader(file)) {
+
+      assertEquals(withoutEventTime, reader.readBatch(BIG_CHUNK).toList());
+    }
+  }
+
+  /**
+   * GIVEN file which is not a transaction log WHEN opening it THEN an error is raised
+   */
+  @Test
+  public void testRejectInvalidFile() throws IOException {
+
+    Path file = Files.writeString(folder.resolve("invalid.log"), "this is not a transaction log");
+
+    assertThrows(IOException.class, () -> new MappedTransactionLogReader(file));
+  }
+
+  private Path writeLog(List<Transaction> transactions) throws IOException {
+
+    Path file = folder.resolve("transactions.log");
+
+    try (TransactionLogWriter writer = new TransactionLogWriter(file)) {
+
+      for (Transaction transaction : transactions) {
+
+        writer.write(transaction);
+      }
+    }
+
+    return file;
+  }
+}
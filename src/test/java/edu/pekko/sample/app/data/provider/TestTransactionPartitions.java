@@ -0,0 +1,390 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.provider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import edu.pekko.sample.app.data.provider.TransactionPartitions.Partitioning;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for {@link TransactionPartitions}, and for reading a {@link TransactionReader} from
+ * several threads at the same time.
+ */
+public class TestTransactionPartitions {
+
+  private static final int NUMBER_OF_TRANSACTIONS = 200_000;
+  private static final int NUMBER_OF_CUSTOMERS = 100;
+  private static final int NUMBER_OF_THREADS = 8;
+  private static final int BATCH_SIZE = 97;
+
+  // small segments, so that they are mapped while other threads are reading
+  private static final int SEGMENT_SIZE = 1000 * TransactionLogFormat.RECORD_SIZE;
+
+  @TempDir
+  Path folder;
+
+  /**
+   * GIVEN transaction log WHEN several threads read batches from the same reader at the same time
+   * THEN every transaction is returned exactly once
+   */
+  @Test
+  public void testConcurrentReadsOfOneReader() throws Exception {
+
+    try (MappedTransactionLogReader reader = new MappedTransactionLogReader(writeLog(),
+        SEGMENT_SIZE)) {
+
+      List<TransactionReader> readers = new ArrayList<>();
+
+      for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+
+        readers.add(reader);
+      }
+
+      assertEveryTransactionOnce(readAll(readers));
+    }
+  }
+
+  /**
+   * GIVEN transaction log split into partitions by offset range WHEN each partition is read by two
+   * threads at the same time THEN every transaction is returned exactly once AND each partition
+   * returns a contiguous range of transactions
+   */
+  @Test
+  public void testOffsetRangePartitionsReadInParallel() throws Exception {
+
+    try (MappedTransactionLogReader reader = new MappedTransactionLogReader(writeLog(),
+        SEGMENT_SIZE)) {
+
+      TransactionPartitions partitions = TransactionPartitions.of(reader, NUMBER_OF_THREADS / 2,
+          Partitioning.OFFSET_RANGE);
+      List<TransactionReader> readers = new ArrayList<>(partitions.partitions());
+
+      readers.addAll(partitions.partitions());
+
+      List<List<Transaction>> transactionsRead = readAll(readers);
+
+      assertEveryTransactionOnce(transactionsRead);
+
+      int partitionSize = NUMBER_OF_TRANSACTIONS / partitions.size();
+
+      for (int thread = 0; thread < readers.size(); thread++) {
+
+        int partition = thread % partitions.size();
+
+        for (Transaction transaction : transactionsRead.get(thread)) {
+
+          assertEquals(partition, (transaction.id() - 1) / partitionSize);
+        }
+      }
+    }
+  }
+
+  /**
+   * GIVEN transaction log split into partitions by customer hash WHEN each partition is read by its
+   * own thread THEN every transaction is returned exactly once AND all the transactions of a
+   * customer are returned by the same partition, in the order they were recorded AND no batch is
+   * bigger than requested
+   */
+  @Test
+  public void testCustomerHashPartitionsReadInParallel() throws Exception {
+
+    try (MappedTransactionLogReader reader = new MappedTransactionLogReader(writeLog(),
+        SEGMENT_SIZE)) {
+
+      TransactionPartitions partitions = TransactionPartitions.of(reader, NUMBER_OF_THREADS,
+          Partitioning.CUSTOMER_HASH);
+
+      List<List<Transaction>> transactionsRead = readAll(partitions.partitions());
+
+      assertEveryTransactionOnce(transactionsRead);
+
+      Map<Integer, Integer> partitionOfCustomer = new HashMap<>();
+
+      for (int partition = 0; partition < partitions.size(); partition++) {
+
+        Map<Integer, Integer> lastIdOfCustomer = new HashMap<>();
+
+        for (Transaction transaction : transactionsRead.get(partition)) {
+
+          partitionOfCustomer.putIfAbsent(transaction.customer(), partition);
+
+          assertEquals(partition, partitionOfCustomer.get(transaction.customer()));
+
+          Integer lastId = lastIdOfCustomer.put(transaction.customer(), transaction.id());
+
+          assertTrue(lastId == null || lastId < transaction.id());
+        }
+      }
+
+      assertEquals(NUMBER_OF_CUSTOMERS, partitionOfCustomer.size());
+    }
+  }
+
+  /**
+   * GIVEN transaction log split into partitions by customer hash WHEN all the partitions are read
+   * in parallel THEN the customer of each record is only read once, however many partitions there
+   * are
+   */
+  @Test
+  public void testCustomerHashPartitionsScanOnce() throws Exception {
+
+    try (MappedTransactionLogReader reader = new MappedTransactionLogReader(writeLog(),
+        SEGMENT_SIZE)) {
+
+      AtomicLong hashesRead = new AtomicLong();
+      TransactionRecords records = new TransactionRecords() {
+
+        @Override
+        public long numberOfRecords() {
+
+          return reader.numberOfRecords();
+        }
+
+        @Override
+        public Transaction transaction(long index) {
+
+          return reader.transaction(index);
+        }
+
+        @Override
+        public void addTo(long index, TransactionBatch.Builder builder) {
+
+          reader.addTo(index, builder);
+        }
+
+        @Override
+        public int customerHash(long index) {
+
+          hashesRead.incrementAndGet();
+
+          return reader.customerHash(index);
+        }
+      };
+
+      assertEveryTransactionOnce(readAll(TransactionPartitions.of(records, NUMBER_OF_THREADS,
+          Partitioning.CUSTOMER_HASH).partitions()));
+      assertEquals(NUMBER_OF_TRANSACTIONS, hashesRead.get());
+    }
+  }
+
+  /**
+   * GIVEN transaction log split into partitions by customer hash, with few indexes queued per
+   * partition WHEN the partitions are read one after the other THEN every transaction is returned
+   * exactly once AND the transactions of each partition are returned in the order they were
+   * recorded, although the partitions read last lagged behind the scan
+   */
+  @Test
+  public void testCustomerHashPartitionsReadOneAfterTheOther() throws Exception {
+
+    try (MappedTransactionLogReader reader = new MappedTransactionLogReader(writeLog(),
+        SEGMENT_SIZE)) {
+
+      TransactionPartitions partitions = TransactionPartitions.of(reader, NUMBER_OF_THREADS,
+          Partitioning.CUSTOMER_HASH, 10 * BATCH_SIZE);
+      List<List<Transaction>> transactionsRead = new ArrayList<>();
+
+      for (TransactionReader partition : partitions.partitions()) {
+
+        List<Transaction> transactionsOfPartition = new ArrayList<>();
+        TransactionBatch batch = partition.readBatch(BATCH_SIZE);
+
+        while (!batch.isEmpty()) {
+
+          assertTrue(batch.size() <= BATCH_SIZE);
+          transactionsOfPartition.addAll(batch.toList());
+          batch = partition.readBatch(BATCH_SIZE);
+        }
+
+        for (int index = 1; index < transactionsOfPartition.size(); index++) {
+
+          assertTrue(transactionsOfPartition.get(index - 1).id()
+              < transactionsOfPartition.get(index).id());
+        }
+
+        transactionsRead.add(transactionsOfPartition);
+      }
+
+      assertEveryTransactionOnce(transactionsRead);
+    }
+  }
+
+  /**
+   * GIVEN sample data split into partitions by customer hash and by offset range WHEN reading all
+   * partitions THEN together they return the sample data, each transaction once
+   */
+  @Test
+  public void testPartitionsOfSampleData() {
+
+    for (Partitioning partitioning : Partitioning.values()) {
+
+      TransactionProvider provider = new TransactionProvider();
+      TransactionPartitions partitions = TransactionPartitions.of(provider, 3, partitioning);
+
+      List<Transaction> transactionsRead = new ArrayList<>();
+
+      for (TransactionReader partition : partitions.partitions()) {
+
+        TransactionBatch batch = partition.readBatch(2);
+
+        while (!batch.isEmpty()) {
+
+          assertTrue(batch.size() <= 2);
+          transactionsRead.addAll(batch.toList());
+          batch = partition.readBatch(2);
+        }
+      }
+
+      assertEquals(provider.sizeOfAvailableData(), transactionsRead.size());
+      assertTrue(transactionsRead.containsAll(provider.transactions));
+    }
+  }
+
+  /**
+   * GIVEN sample data WHEN splitting it into no partitions, or with an unknown partitioning THEN
+   * it is rejected
+   */
+  @Test
+  public void testInvalidPartitions() {
+
+    TransactionProvider provider = new TransactionProvider();
+
+    assertThrows(IllegalArgumentException.class,
+        () -> TransactionPartitions.of(provider, 0, Partitioning.OFFSET_RANGE));
+    assertThrows(IllegalArgumentException.class, () -> Partitioning.of("round-robin"));
+    assertEquals(Partitioning.CUSTOMER_HASH, Partitioning.of("Customer-Hash"));
+  }
+
+  /**
+   * Reads all the transactions of the given readers, each one in its own thread, all of them
+   * starting at the same time.
+   *
+   * @param readers Readers, not necessarily different
+   * @return Transactions read by each thread, in order
+   */
+  private static List<List<Transaction>> readAll(List<TransactionReader> readers)
+      throws Exception {
+
+    ExecutorService executor = Executors.newFixedThreadPool(readers.size());
+    CountDownLatch start = new CountDownLatch(1);
+
+    try {
+
+      List<Future<List<Transaction>>> futures = new ArrayList<>();
+
+      for (TransactionReader reader : readers) {
+
+        futures.add(executor.submit(() -> {
+
+          start.await();
+
+          List<Transaction> transactionsRead = new ArrayList<>();
+          TransactionBatch batch = reader.readBatch(BATCH_SIZE);
+
+          while (!batch.isEmpty()) {
+
+            assertTrue(batch.size() <= BATCH_SIZE);
+            transactionsRead.addAll(batch.toList());
+            batch = reader.readBatch(BATCH_SIZE);
+          }
+
+          return transactionsRead;
+        }));
+      }
+
+      start.countDown();
+
+      List<List<Transaction>> result = new ArrayList<>();
+
+      for (Future<List<Transaction>> future : futures) {
+
+        result.add(future.get());
+      }
+
+      return result;
+    } finally {
+
+      executor.shutdownNow();
+    }
+  }
+
+  private static void assertEveryTransactionOnce(List<List<Transaction>> transactionsRead) {
+
+    AtomicIntegerArray timesRead = new AtomicIntegerArray(NUMBER_OF_TRANSACTIONS + 1);
+
+    transactionsRead.forEach(
+        transactions -> transactions.forEach(transaction -> timesRead.incrementAndGet(
+            transaction.id())));
+
+    for (int id = 1; id <= NUMBER_OF_TRANSACTIONS; id++) {
+
+      assertEquals(1, timesRead.get(id), "Transaction " + id);
+    }
+  }
+
+  /**
+   * @return Transaction log with ids 1 to {@link #NUMBER_OF_TRANSACTIONS}, in order, of random
+   * customers
+   */
+  private Path writeLog() throws IOException {
+
+    Path file = folder.resolve("transactions.log");
+    SplittableRandom random = new SplittableRandom(21);
+    long[] customers = random.longs(2 * NUMBER_OF_CUSTOMERS).toArray();
+
+    try (TransactionLogWriter writer = new TransactionLogWriter(file)) {
+
+      for (int id = 1; id <= NUMBER_OF_TRANSACTIONS; id++) {
+
+        int customer = 2 * random.nextInt(NUMBER_OF_CUSTOMERS);
+
+        writer.write(id, customers[customer], customers[customer + 1], 1 + random.nextInt(1000),
+            TransactionType.PAY, Transaction.UNKNOWN_EVENT_TIME);
+      }
+    }
+
+    return file;
+  }
+}
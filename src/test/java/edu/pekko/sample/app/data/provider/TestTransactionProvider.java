@@ -29,6 +29,7 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 
@@ -114,4 +115,21 @@ public class TestTransactionProvider {
 
     assertTrue(moreTransactions.isEmpty());
   }
-}
\ No newline at end of file
+
+  /**
+   * GIVEN provider of transaction data WHEN reading all available data as batches THEN the same
+   * transactions as in the sample data are returned, and then an empty batch
+   */
+  @Test
+  public void testReadBatches() {
+
+    TransactionProvider provider = new TransactionProvider();
+
+    TransactionBatch first = provider.readBatch(SMALL_CHUNK);
+    TransactionBatch second = provider.readBatch(BIG_CHUNK);
+
+    assertEquals(SMALL_CHUNK, first.size());
+    assertEquals(provider.transactions, TransactionBatch.concat(List.of(first, second)).toList());
+    assertTrue(provider.readBatch(BIG_CHUNK).isEmpty());
+  }
+}
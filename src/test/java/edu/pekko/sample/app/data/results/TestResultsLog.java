@@ -0,0 +1,493 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.data.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionOutcome;
+import edu.pekko.sample.app.data.definition.TransactionOutcomes;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import edu.pekko.sample.app.metrics.Metrics;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for {@link ResultsLog} and {@link ResultsLogReader}.
+ */
+public class TestResultsLog {
+
+  private static final int CUSTOMER = CustomerDirectory.getInstance()
+      .intern("1fd40c65-f596-45d8-9e0a-632c37ccb771");
+
+  private static final long ONE_MEGABYTE = 1 << 20;
+
+  @TempDir
+  Path folder;
+
+  /**
+   * GIVEN results log WHEN appending batches of transactions AND waiting for their results to be
+   * durable THEN the same transactions are read back, in order, with their outcomes and the time
+   * they were processed AND a batch without one outcome per transaction is refused
+   */
+  @Test
+  public void testAppendedResultsAreReadBack() throws IOException {
+
+    long before = System.currentTimeMillis();
+    TransactionBatch first = createTransactions(1, 3);
+    TransactionBatch second = createTransactions(4, 2);
+
+    try (ResultsLog results = ResultsLog.open(settings(ONE_MEGABYTE, Duration.ZERO, 1000))) {
+
+      results.append(first, TransactionOutcomes.of(TransactionOutcome.APPLIED,
+          TransactionOutcome.DUPLICATE, TransactionOutcome.REJECTED)).toCompletableFuture().join();
+      appendApplied(results, second).join();
+      appendApplied(results, TransactionBatch.empty()).join();
+
+      assertThrows(IllegalArgumentException.class,
+          () -> results.append(second, TransactionOutcomes.allApplied(1)));
+
+      List<ProcessedTransaction> processed = ResultsLogReader.readAll(folder);
+
+      assertEquals(TransactionBatch.concat(List.of(first, second)).toList(),
+          processed.stream().map(ProcessedTransaction::transaction).toList());
+      assertEquals(List.of(TransactionOutcome.APPLIED, TransactionOutcome.DUPLICATE,
+              TransactionOutcome.REJECTED, TransactionOutcome.APPLIED, TransactionOutcome.APPLIED),
+          processed.stream().map(ProcessedTransaction::outcome).toList());
+      assertTrue(processed.stream().allMatch(result -> result.processedAtMillis() >= before));
+    }
+  }
+
+  /**
+   * GIVEN results log with a long flush interval WHEN many batches are appended at the same time
+   * THEN all of them are written together, with much fewer flushes than batches
+   */
+  @Test
+  public void testGroupCommit() throws IOException {
+
+    int numberOfBatches = 200;
+    long flushesBefore = flushes();
+
+    try (ResultsLog results = ResultsLog.open(
+        settings(ONE_MEGABYTE, Duration.ofMillis(200), 1_000_000))) {
+
+      List<CompletableFuture<Void>> durable = IntStream.range(0, numberOfBatches).parallel()
+          .mapToObj(batch -> appendApplied(results, createTransactions(10 * batch, 10)))
+          .toList();
+
+      durable.forEach(CompletableFuture::join);
+
+      assertEquals(10 * numberOfBatches, ResultsLogReader.readAll(folder).size());
+    }
+
+    long flushes = flushes() - flushesBefore;
+
+    assertTrue(flushes >= 1 && flushes < numberOfBatches / 10, "Flushes: " + flushes);
+  }
+
+  /**
+   * GIVEN results log with a long flush interval WHEN appending fewer results than the threshold
+   * THEN they are not durable yet, until the threshold is reached by another batch AND then all of
+   * them are
+   */
+  @Test
+  public void testFlushThreshold() throws Exception {
+
+    try (ResultsLog results = ResultsLog.open(settings(ONE_MEGABYTE, Duration.ofHours(1), 10))) {
+
+      CompletableFuture<Void> first = appendApplied(results, createTransactions(1, 6));
+
+      Thread.sleep(200);
+
+      assertFalse(first.isDone());
+
+      CompletableFuture<Void> second = appendApplied(results, createTransactions(7, 4));
+
+      second.get(10, TimeUnit.SECONDS);
+
+      assertTrue(first.isDone());
+      assertEquals(10, ResultsLogReader.readAll(folder).size());
+    }
+  }
+
+  /**
+   * GIVEN results log with a long flush interval WHEN closing it while results are buffered THEN
+   * they are written AND results appended afterwards are failed
+   */
+  @Test
+  public void testCloseWritesBufferedResults() throws IOException {
+
+    ResultsLog results = ResultsLog.open(settings(ONE_MEGABYTE, Duration.ofHours(1), 1000));
+
+    CompletableFuture<Void> buffered = appendApplied(results, createTransactions(1, 5));
+
+    results.close();
+
+    assertTrue(buffered.isDone());
+    assertEquals(5, ResultsLogReader.readAll(folder).size());
+
+    CompletableFuture<Void> afterClose = appendApplied(results, createTransactions(6, 1));
+
+    assertThrows(CompletionException.class, afterClose::join);
+  }
+
+  /**
+   * GIVEN results log with segments of a few records WHEN appending many batches THEN several
+   * segments are written, none of them much bigger than the segment size AND a log opened again
+   * in the same folder starts a new segment after them AND all the results are read back
+   */
+  @Test
+  public void testSegments() throws IOException {
+
+    long segmentSize = ResultsLogFormat.HEADER_SIZE + 4 * ResultsLogFormat.RECORD_SIZE;
+
+    try (ResultsLog results = ResultsLog.open(settings(segmentSize, Duration.ZERO, 1000))) {
+
+      for (int batch = 0; batch < 10; batch++) {
+
+        appendApplied(results, createTransactions(2 * batch, 2)).join();
+      }
+    }
+
+    List<Path> segments = segments();
+
+    assertEquals(5, segments.size());
+
+    for (Path segment : segments) {
+
+      assertEquals(segmentSize, Files.size(segment));
+    }
+
+    try (ResultsLog results = ResultsLog.open(settings(segmentSize, Duration.ZERO, 1000))) {
+
+      appendApplied(results, createTransactions(20, 3)).join();
+    }
+
+    assertEquals(6, segments().size());
+    assertEquals(ResultsLogFormat.segmentName(6), segments().get(5).getFileName().toString());
+
+    Set<Integer> ids = new HashSet<>();
+
+    ResultsLogReader.readAll(folder).forEach(result -> ids.add(result.transaction().id()));
+
+    assertEquals(23, ids.size());
+  }
+
+  /**
+   * GIVEN results log WHEN a write fails after only part of a record AND then writes succeed again
+   * THEN the results of the failed write are failed AND cut off the segment AND the results
+   * written afterwards are read back right after the earlier ones
+   */
+  @Test
+  public void testTornWriteIsCutOff() throws IOException {
+
+    List<FailingChannel> channels = new CopyOnWriteArrayList<>();
+    TransactionBatch first = createTransactions(1, 3);
+    TransactionBatch torn = createTransactions(4, 2);
+    TransactionBatch third = createTransactions(6, 2);
+
+    try (ResultsLog results = new ResultsLog(settings(ONE_MEGABYTE, Duration.ZERO, 1000),
+        channel -> add(channels, new FailingChannel(channel)))) {
+
+      appendApplied(results, first).join();
+
+      channels.get(0).tearWrites = true;
+
+      CompletableFuture<Void> failed = appendApplied(results, torn);
+
+      assertThrows(CompletionException.class, failed::join);
+
+      channels.get(0).tearWrites = false;
+
+      appendApplied(results, third).join();
+    }
+
+    assertEquals(1, segments().size());
+    assertEquals(TransactionBatch.concat(List.of(first, third)).toList(),
+        ResultsLogReader.readAll(folder).stream().map(ProcessedTransaction::transaction).toList());
+  }
+
+  /**
+   * GIVEN results log WHEN a fsync fails AND then it would succeed again THEN the results of that
+   * flush are failed AND so is every result appended afterwards
+   */
+  @Test
+  public void testFailedFsyncIsFatal() throws IOException {
+
+    List<FailingChannel> channels = new CopyOnWriteArrayList<>();
+
+    try (ResultsLog results = new ResultsLog(settings(ONE_MEGABYTE, Duration.ZERO, 1000),
+        channel -> add(channels, new FailingChannel(channel)))) {
+
+      appendApplied(results, createTransactions(1, 3)).join();
+
+      channels.get(0).failForce = true;
+
+      CompletableFuture<Void> failed = appendApplied(results, createTransactions(4, 2));
+
+      assertThrows(CompletionException.class, failed::join);
+
+      channels.get(0).failForce = false;
+
+      CompletableFuture<Void> afterFailure = appendApplied(results, createTransactions(6, 2));
+
+      assertThrows(CompletionException.class, afterFailure::join);
+    }
+  }
+
+  /**
+   * GIVEN settings WHEN they are not valid THEN they are rejected
+   */
+  @Test
+  public void testInvalidSettings() {
+
+    assertThrows(IllegalArgumentException.class, () -> settings(10, Duration.ZERO, 1));
+    assertThrows(IllegalArgumentException.class,
+        () -> settings(ONE_MEGABYTE, Duration.ofMillis(-1), 1));
+    assertThrows(IllegalArgumentException.class, () -> settings(ONE_MEGABYTE, Duration.ZERO, 0));
+  }
+
+  private static CompletableFuture<Void> appendApplied(ResultsLog results,
+      TransactionBatch transactions) {
+
+    return results.append(transactions, TransactionOutcomes.allApplied(transactions.size()))
+        .toCompletableFuture();
+  }
+
+  private ResultsSettings settings(long segmentSize, Duration flushInterval, int flushRecords) {
+
+    return new ResultsSettings(folder, segmentSize, flushInterval, flushRecords, true);
+  }
+
+  private List<Path> segments() throws IOException {
+
+    try (Stream<Path> files = Files.list(folder)) {
+
+      return files.sorted().toList();
+    }
+  }
+
+  private static long flushes() {
+
+    return Metrics.getInstance().getCounters()
+        .getOrDefault("pekko_sample_results_flushes_total", 0L);
+  }
+
+  private static TransactionBatch createTransactions(int firstId, int size) {
+
+    List<Transaction> transactions = new ArrayList<>();
+
+    for (int id = firstId; id < firstId + size; id++) {
+
+      transactions.add(new Transaction(id, CUSTOMER, 100 + id, TransactionType.PAY,
+          1_700_000_000_000L + id));
+    }
+
+    return TransactionBatch.of(transactions);
+  }
+
+  private static FileChannel add(List<FailingChannel> channels, FailingChannel channel) {
+
+    channels.add(channel);
+
+    return channel;
+  }
+
+  /**
+   * Channel of a segment whose writes, or fsyncs, fail on demand: the first write that fails still
+   * writes part of a record.
+   */
+  private static final class FailingChannel extends FileChannel {
+
+    private final FileChannel channel;
+
+    volatile boolean tearWrites;
+    volatile boolean failForce;
+    private boolean torn;
+
+    FailingChannel(FileChannel channel) {
+
+      this.channel = channel;
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+
+      if (!tearWrites) {
+
+        torn = false;
+
+        return channel.write(source);
+      }
+
+      if (torn) {
+
+        throw new IOException("No space left on device");
+      }
+
+      torn = true;
+
+      int written = channel.write(source.slice(source.position(),
+          Math.min(10, source.remaining())));
+
+      source.position(source.position() + written);
+
+      return written;
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+
+      if (failForce) {
+
+        throw new IOException("Input/output error");
+      }
+
+      channel.force(metaData);
+    }
+
+    @Override
+    public int read(ByteBuffer destination) throws IOException {
+
+      return channel.read(destination);
+    }
+
+    @Override
+    public long read(ByteBuffer[] destinations, int offset, int length) throws IOException {
+
+      return channel.read(destinations, offset, length);
+    }
+
+    @Override
+    public long write(ByteBuffer[] sources, int offset, int length) throws IOException {
+
+      return channel.write(sources, offset, length);
+    }
+
+    @Override
+    public long position() throws IOException {
+
+      return channel.position();
+    }
+
+    @Override
+    public FileChannel position(long newPosition) throws IOException {
+
+      channel.position(newPosition);
+
+      return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+
+      return channel.size();
+    }
+
+    @Override
+    public FileChannel truncate(long size) throws IOException {
+
+      channel.truncate(size);
+
+      return this;
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target)
+        throws IOException {
+
+      return channel.transferTo(position, count, target);
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel source, long position, long count)
+        throws IOException {
+
+      return channel.transferFrom(source, position, count);
+    }
+
+    @Override
+    public int read(ByteBuffer destination, long position) throws IOException {
+
+      return channel.read(destination, position);
+    }
+
+    @Override
+    public int write(ByteBuffer source, long position) throws IOException {
+
+      return channel.write(source, position);
+    }
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+
+      return channel.map(mode, position, size);
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) throws IOException {
+
+      return channel.lock(position, size, shared);
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+
+      return channel.tryLock(position, size, shared);
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,396 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import edu.pekko.sample.app.metrics.BoundedMeteredMailbox.OverflowPolicy;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.ActorSystem;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.MailboxSelector;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link BoundedMeteredMailbox}.
+ */
+public class TestBoundedMeteredMailbox {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  private static final int PAYLOAD_SIZE = 8 * 1024;
+
+  /**
+   * GIVEN a busy actor with a mailbox for five messages WHEN ten messages are sent to it, with the
+   * "reject" and with the "drop-oldest" policy THEN the actor gets the first five waiting messages
+   * or the last five AND the others are counted as overflows
+   */
+  @Test
+  public void testOverflowPolicies() throws InterruptedException {
+
+    ActorTestKit testKit = createTestKit(5);
+
+    try {
+
+      for (OverflowPolicy policy : new OverflowPolicy[] {OverflowPolicy.REJECT,
+          OverflowPolicy.DROP_OLDEST}) {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(1);
+        TestProbe<Integer> probe = testKit.createTestProbe();
+        long overflowsBefore = overflows(policy);
+
+        ActorRef<Integer> actor = testKit.spawn(Behaviors.receiveMessage(message -> {
+
+          started.countDown();
+          busy.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+          probe.ref().tell(message);
+
+          return Behaviors.same();
+        }), mailbox(policy));
+
+        actor.tell(0);
+
+        assertTrue(started.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+
+        for (int i = 1; i < 10; i++) {
+
+          actor.tell(i);
+        }
+
+        assertEquals(4, overflows(policy) - overflowsBefore);
+
+        busy.countDown();
+
+        int first = policy == OverflowPolicy.REJECT ? 1 : 5;
+
+        probe.expectMessage(TIMEOUT, 0);
+
+        for (int i = first; i < first + 5; i++) {
+
+          probe.expectMessage(TIMEOUT, i);
+        }
+
+        probe.expectNoMessage();
+      }
+    } finally {
+
+      testKit.shutdownTestKit();
+    }
+  }
+
+  /**
+   * GIVEN an actor which is stuck, with a mailbox for a thousand messages WHEN a producer sends it
+   * a hundred thousand messages of 8 KB (800 MB), with the "reject" and with the "drop-oldest"
+   * policy THEN the producer is never blocked AND the mailbox holds a thousand messages AND the
+   * heap does not grow by more than a few times their size AND all the others are counted as
+   * overflows
+   */
+  @Test
+  public void testMemoryStaysFlatWhileConsumerIsStuck() throws InterruptedException {
+
+    int capacity = 1000;
+    int numberOfMessages = 100_000;
+
+    ActorTestKit testKit = createTestKit(capacity);
+
+    try {
+
+      for (OverflowPolicy policy : new OverflowPolicy[] {OverflowPolicy.REJECT,
+          OverflowPolicy.DROP_OLDEST}) {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch stuck = new CountDownLatch(1);
+        long overflowsBefore = overflows(policy);
+
+        ActorRef<byte[]> actor = testKit.spawn(Behaviors.receiveMessage(message -> {
+
+          started.countDown();
+          stuck.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+
+          return Behaviors.same();
+        }), mailbox(policy));
+
+        actor.tell(new byte[PAYLOAD_SIZE]);
+
+        assertTrue(started.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+
+        long heapBefore = usedHeapAfterGc();
+
+        for (int i = 1; i < numberOfMessages; i++) {
+
+          actor.tell(new byte[PAYLOAD_SIZE]);
+        }
+
+        long heapGrowth = usedHeapAfterGc() - heapBefore;
+
+        assertEquals(capacity, depth(actor));
+        assertTrue(heapGrowth < 4L * capacity * PAYLOAD_SIZE,
+            policy + ": heap grew by " + heapGrowth + " bytes");
+        assertEquals(numberOfMessages - 1 - capacity, overflows(policy) - overflowsBefore);
+
+        stuck.countDown();
+        testKit.stop(actor);
+      }
+    } finally {
+
+      testKit.shutdownTestKit();
+    }
+  }
+
+  /**
+   * GIVEN a busy actor with a mailbox for five messages, which reports the messages it does not
+   * take to their sender WHEN ten messages are sent to it, with the "reject" and with the
+   * "drop-oldest" policy THEN the sender of each message that goes to the dead letters is told
+   * right away, before the actor is done with the first message
+   */
+  @Test
+  public void testOverflowIsReportedToTheSender() throws InterruptedException {
+
+    ActorTestKit testKit = createTestKit(5);
+
+    try {
+
+      for (OverflowPolicy policy : OverflowPolicy.values()) {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(1);
+        TestProbe<Integer> rejected = testKit.createTestProbe();
+
+        ActorRef<Numbered> actor = testKit.spawn(Behaviors.receiveMessage(message -> {
+
+          started.countDown();
+          busy.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+
+          return Behaviors.same();
+        }), MailboxSelector.fromConfig("test-mailbox-reporting-" + policy.configName()));
+
+        actor.tell(new Numbered(0, rejected.ref()));
+
+        assertTrue(started.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+
+        for (int i = 1; i < 10; i++) {
+
+          actor.tell(new Numbered(i, rejected.ref()));
+        }
+
+        int first = policy == OverflowPolicy.REJECT ? 6 : 1;
+
+        for (int i = first; i < first + 4; i++) {
+
+          rejected.expectMessage(TIMEOUT, i);
+        }
+
+        busy.countDown();
+        rejected.expectNoMessage();
+      }
+    } finally {
+
+      testKit.shutdownTestKit();
+    }
+  }
+
+  /**
+   * GIVEN a busy actor with a mailbox whose even numbers are in a more urgent lane than the odd
+   * ones WHEN numbers are sent to it in order THEN the actor gets the even ones first AND the
+   * numbers of each lane in the order they were sent
+   */
+  @Test
+  public void testLanes() throws InterruptedException {
+
+    ActorTestKit testKit = createTestKit(100);
+
+    try {
+
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch busy = new CountDownLatch(1);
+      TestProbe<Integer> probe = testKit.createTestProbe();
+
+      ActorRef<Integer> actor = testKit.spawn(Behaviors.receiveMessage(message -> {
+
+        started.countDown();
+        busy.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+        probe.ref().tell(message);
+
+        return Behaviors.same();
+      }), MailboxSelector.fromConfig("test-mailbox-lanes"));
+
+      actor.tell(0);
+
+      assertTrue(started.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+
+      for (int i = 1; i < 10; i++) {
+
+        actor.tell(i);
+      }
+
+      assertEquals(9, depth(actor));
+
+      busy.countDown();
+
+      for (int expected : new int[] {0, 2, 4, 6, 8, 1, 3, 5, 7, 9}) {
+
+        probe.expectMessage(TIMEOUT, expected);
+      }
+    } finally {
+
+      testKit.shutdownTestKit();
+    }
+  }
+
+  /**
+   * GIVEN overflow policy which does not exist WHEN reading it from the configuration THEN an
+   * error is raised
+   */
+  @Test
+  public void testUnknownPolicy() {
+
+    assertEquals(OverflowPolicy.DROP_OLDEST, OverflowPolicy.fromConfig("drop-oldest"));
+    assertThrows(IllegalArgumentException.class, () -> OverflowPolicy.fromConfig("drop-newest"));
+  }
+
+  /**
+   * @return Test kit with a bounded mailbox of the given capacity for each policy, named after it,
+   * one that reports the rejected messages for each policy, and one with lanes
+   */
+  private static ActorTestKit createTestKit(int capacity) {
+
+    StringBuilder config = new StringBuilder();
+
+    for (OverflowPolicy policy : OverflowPolicy.values()) {
+
+      appendMailbox(config, "test-mailbox-" + policy.configName(), BoundedMeteredMailbox.class,
+          capacity, policy);
+      appendMailbox(config, "test-mailbox-reporting-" + policy.configName(),
+          ReportingMailbox.class, capacity, policy);
+    }
+
+    appendMailbox(config, "test-mailbox-lanes", EvenFirstMailbox.class, capacity,
+        OverflowPolicy.REJECT);
+
+    return ActorTestKit.create(ConfigFactory.parseString(config.toString())
+        .withFallback(ConfigFactory.load()));
+  }
+
+  private static void appendMailbox(StringBuilder config, String name,
+      Class<? extends BoundedMeteredMailbox> type, int capacity, OverflowPolicy policy) {
+
+    config.append(name).append(" {\n")
+        .append("mailbox-type = \"").append(type.getName()).append("\"\n")
+        .append("capacity = ").append(capacity).append('\n')
+        .append("overflow = ").append(policy.configName()).append("\n}\n");
+  }
+
+  /**
+   * Mailbox with the even numbers in a more urgent lane than the other messages.
+   */
+  public static class EvenFirstMailbox extends BoundedMeteredMailbox {
+
+    public EvenFirstMailbox(ActorSystem.Settings settings, Config config) {
+
+      super(settings, config);
+    }
+
+    @Override
+    protected int numberOfLanes() {
+
+      return 2;
+    }
+
+    @Override
+    protected int laneOf(Object message) {
+
+      return message instanceof Integer number && number % 2 == 0 ? 0 : 1;
+    }
+  }
+
+  /**
+   * Number sent with the actor to tell when it does not get into the mailbox.
+   */
+  private record Numbered(int number, ActorRef<Integer> replyTo) {
+
+    // nothing to add here: simple message for Actors
+  }
+
+  /**
+   * Mailbox that tells the sender of a {@link Numbered} it does not take.
+   */
+  public static class ReportingMailbox extends BoundedMeteredMailbox {
+
+    public ReportingMailbox(ActorSystem.Settings settings, Config config) {
+
+      super(settings, config);
+    }
+
+    @Override
+    protected void reject(Object message) {
+
+      if (message instanceof Numbered numbered) {
+
+        numbered.replyTo().tell(numbered.number());
+      }
+    }
+  }
+
+  private static MailboxSelector mailbox(OverflowPolicy policy) {
+
+    return MailboxSelector.fromConfig("test-mailbox-" + policy.configName());
+  }
+
+  private static long overflows(OverflowPolicy policy) {
+
+    return Metrics.getInstance().getCounters().getOrDefault(BoundedMeteredMailbox.OVERFLOWS
+        + "{mailbox=\"test-mailbox-" + policy.configName() + "\",policy=\""
+        + policy.configName() + "\"}", 0L);
+  }
+
+  private static long depth(ActorRef<?> actor) {
+
+    return Metrics.getInstance().getGauges().get(MeteredMailbox.DEPTH + "{actor=\""
+        + actor.path() + "\"}");
+  }
+
+  private static long usedHeapAfterGc() {
+
+    Runtime runtime = Runtime.getRuntime();
+
+    for (int i = 0; i < 3; i++) {
+
+      System.gc();
+    }
+
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link LatencyHistogram}.
+ */
+public class TestLatencyHistogram {
+
+  /**
+   * GIVEN latencies spread over several orders of magnitude WHEN they are recorded THEN every
+   * percentile is within 1% of the exact one, and count, sum and maximum are exact
+   */
+  @Test
+  public void testPercentilesAreWithinOnePercent() {
+
+    SplittableRandom random = new SplittableRandom(42);
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    long[] values = new long[1_000_000];
+    long total = 0;
+
+    for (int i = 0; i < values.length; i++) {
+
+      // log-uniform between 1 ns and 10 s
+      values[i] = (long) Math.pow(10, random.nextDouble(10));
+      total += values[i];
+
+      histogram.record(values[i]);
+    }
+
+    Arrays.sort(values);
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(values.length, snapshot.count());
+    assertEquals(total, snapshot.totalNanos());
+    assertEquals(values[values.length - 1], snapshot.maxNanos());
+
+    for (double percentile : new double[]{1, 10, 50, 90, 99, 99.9, 99.99, 100}) {
+
+      long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+      long reported = snapshot.percentileNanos(percentile);
+
+      assertTrue(reported >= exact && reported <= exact + exact / 100,
+          "Percentile " + percentile + ": " + reported + " instead of " + exact);
+    }
+  }
+
+  /**
+   * GIVEN several threads WHEN recording at the same time THEN no value is lost
+   */
+  @Test
+  public void testConcurrentRecording() throws InterruptedException {
+
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    int threads = 4;
+    int valuesPerThread = 250_000;
+
+    List<Thread> recorders = new ArrayList<>();
+
+    for (int t = 0; t < threads; t++) {
+
+      recorders.add(Thread.ofPlatform().start(() -> {
+
+        for (int i = 0; i < valuesPerThread; i++) {
+
+          histogram.record(i);
+        }
+      }));
+    }
+
+    for (Thread recorder : recorders) {
+
+      recorder.join();
+    }
+
+    assertEquals((long) threads * valuesPerThread, histogram.snapshot().count());
+    assertEquals(valuesPerThread - 1, histogram.snapshot().maxNanos());
+  }
+
+  /**
+   * GIVEN values out of range WHEN they are recorded THEN they are counted as the nearest value in
+   * range
+   */
+  @Test
+  public void testValuesOutOfRange() {
+
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(0, snapshot.percentileNanos(50));
+    assertEquals(LatencyHistogram.MAX_TRACKABLE_NANOS, snapshot.percentileNanos(100));
+  }
+}
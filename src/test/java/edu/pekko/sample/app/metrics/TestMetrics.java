@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.typesafe.config.ConfigFactory;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link Metrics}, {@link MetricsServer} and {@link MeteredMailbox}.
+ */
+public class TestMetrics {
+
+  /**
+   * GIVEN registered metrics WHEN exporting them in the Prometheus format THEN every one of them is
+   * written with its type, labels and value
+   */
+  @Test
+  public void testPrometheusText() {
+
+    String name = uniqueName();
+    Metrics metrics = Metrics.getInstance();
+
+    LongAdder counter = metrics.counter(name + "_total", "Test counter", "customer", "a\"b");
+    counter.add(3);
+
+    // registering again gives the same counter
+    metrics.counter(name + "_total", "Test counter", "customer", "a\"b").increment();
+
+    metrics.gauge(name + "_depth", "Test gauge", () -> 7);
+    metrics.histogram(name + "_seconds", "Test histogram", "type", "PAY").record(2_000_000);
+
+    String text = metrics.toPrometheusText();
+
+    assertTrue(text.contains("# TYPE " + name + "_total counter\n"));
+    assertTrue(text.contains(name + "_total{customer=\"a\\\"b\"} 4\n"));
+    assertTrue(text.contains("# TYPE " + name + "_depth gauge\n"));
+    assertTrue(text.contains(name + "_depth 7\n"));
+    assertTrue(text.contains("# TYPE " + name + "_seconds summary\n"));
+    assertTrue(text.contains(name + "_seconds{type=\"PAY\",quantile=\"0.5\"} 0.002"));
+    assertTrue(text.contains(name + "_seconds_count{type=\"PAY\"} 1\n"));
+  }
+
+  /**
+   * GIVEN the metrics server on any free port WHEN requesting the metrics over HTTP and over JMX
+   * THEN both give the current values
+   */
+  @Test
+  public void testHttpAndJmxExport() throws Exception {
+
+    String name = uniqueName();
+    Metrics.getInstance().counter(name + "_total", "Test counter").add(42);
+
+    try (MetricsServer server = MetricsServer.start(ConfigFactory.parseString(
+        "pekko-sample.metrics { jmx = on, http-port = 0 }"))) {
+
+      HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(
+              URI.create("http://localhost:" + server.port() + "/metrics")).build(),
+          HttpResponse.BodyHandlers.ofString());
+
+      assertEquals(200, response.statusCode());
+      assertTrue(response.body().contains(name + "_total 42\n"));
+
+      TabularData counters = (TabularData) ManagementFactory.getPlatformMBeanServer()
+          .getAttribute(new ObjectName(MetricsServer.OBJECT_NAME), "Counters");
+
+      CompositeData row = counters.get(new Object[]{name + "_total"});
+
+      assertEquals(42L, row.get("value"));
+    }
+  }
+
+  /**
+   * GIVEN an actor with the metered mailbox which is busy WHEN messages are sent to it THEN the
+   * number of messages and the depth of its mailbox are exported, and removed once it is stopped
+   */
+  @Test
+  public void testMeteredMailbox() throws InterruptedException, IOException {
+
+    ActorTestKit testKit = ActorTestKit.create(ConfigFactory.parseString(
+            "pekko.actor.typed.default-mailbox.mailbox-type = \""
+                + MeteredMailbox.class.getName() + "\"")
+        .withFallback(ConfigFactory.load()));
+
+    try {
+
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch busy = new CountDownLatch(1);
+
+      ActorRef<String> actor = testKit.spawn(Behaviors.receiveMessage(message -> {
+
+        started.countDown();
+        busy.await(10, TimeUnit.SECONDS);
+
+        return Behaviors.same();
+      }), "busy");
+
+      for (int i = 0; i < 10; i++) {
+
+        actor.tell("message " + i);
+      }
+
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+
+      String labels = "{actor=\"" + actor.path() + "\"}";
+
+      // the first message is being processed, the others are waiting
+      Map<String, Long> gauges = Metrics.getInstance().getGauges();
+
+      assertEquals(9L, gauges.get(MeteredMailbox.DEPTH + labels));
+      assertEquals(10L, Metrics.getInstance().getCounters().get(MeteredMailbox.MESSAGES + labels));
+
+      busy.countDown();
+
+      testKit.stop(actor);
+
+      assertFalse(Metrics.getInstance().getGauges().containsKey(MeteredMailbox.DEPTH + labels));
+    } finally {
+
+      testKit.shutdownTestKit();
+    }
+  }
+
+  private static String uniqueName() {
+
+    return "test_" + UUID.randomUUID().toString().replace('-', '_');
+  }
+}
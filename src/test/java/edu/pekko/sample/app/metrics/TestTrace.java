@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.pekko.sample.app.metrics.Trace.CustomerStages;
+import edu.pekko.sample.app.metrics.Trace.Stage;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link Trace}.
+ */
+public class TestTrace {
+
+  /**
+   * GIVEN fraction of traced batches WHEN many batches are sampled THEN none, all or about that
+   * fraction of them are traced
+   */
+  @Test
+  public void testSampling() {
+
+    assertNull(Trace.sample(0));
+    assertNotNull(Trace.sample(1));
+
+    long traced = IntStream.range(0, 100_000).filter(i -> Trace.sample(0.1) != null).count();
+
+    assertTrue(traced > 9_000 && traced < 11_000, "Traced: " + traced);
+  }
+
+  /**
+   * GIVEN trace WHEN stages are recorded one after the other, with a mark in between THEN each
+   * stage records the time since the previous one or the mark AND the total the time since the
+   * start, in the histograms of the stages
+   */
+  @Test
+  public void testStagesAreRecordedSinceThePreviousOne() throws InterruptedException {
+
+    long readBefore = Stage.READ.snapshot().count();
+    long submitBefore = Stage.SUBMIT.snapshot().count();
+    long totalBefore = Stage.TOTAL.snapshot().count();
+    long totalNanosBefore = Stage.TOTAL.snapshot().totalNanos();
+    long submitNanosBefore = Stage.SUBMIT.snapshot().totalNanos();
+
+    Trace trace = Trace.sample(1);
+
+    TimeUnit.MILLISECONDS.sleep(20);
+    trace = trace.record(Stage.READ);
+    TimeUnit.MILLISECONDS.sleep(20);
+    trace = trace.mark();
+    trace.record(Stage.SUBMIT);
+    trace.end();
+
+    assertEquals(readBefore + 1, Stage.READ.snapshot().count());
+    assertEquals(submitBefore + 1, Stage.SUBMIT.snapshot().count());
+    assertEquals(totalBefore + 1, Stage.TOTAL.snapshot().count());
+
+    // the mark has left the second sleep out of the submission
+    assertTrue(Stage.SUBMIT.snapshot().totalNanos() - submitNanosBefore
+        < TimeUnit.MILLISECONDS.toNanos(20));
+    assertTrue(Stage.TOTAL.snapshot().totalNanos() - totalNanosBefore
+        >= TimeUnit.MILLISECONDS.toNanos(40));
+    assertEquals("customer-queue", Stage.CUSTOMER_QUEUE.label());
+  }
+
+  /**
+   * GIVEN customer stages of several customers of a batch WHEN the slowest of them are recorded
+   * THEN each customer stage is recorded once, with the slowest time of any customer
+   */
+  @Test
+  public void testSlowestCustomerStagesAreRecordedOnce() {
+
+    long queueBefore = Stage.CUSTOMER_QUEUE.snapshot().count();
+    long processBefore = Stage.CUSTOMER_PROCESS.snapshot().count();
+
+    CustomerStages slowest = new CustomerStages(30, 10)
+        .max(new CustomerStages(10, 20))
+        .max(null);
+
+    assertEquals(new CustomerStages(30, 20), slowest);
+
+    slowest.record();
+
+    assertEquals(queueBefore + 1, Stage.CUSTOMER_QUEUE.snapshot().count());
+    assertEquals(processBefore + 1, Stage.CUSTOMER_PROCESS.snapshot().count());
+  }
+}
@@ -0,0 +1,333 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.typesafe.config.ConfigFactory;
+import edu.pekko.sample.app.actor.CustomerActor;
+import edu.pekko.sample.app.actor.TransactionsActor;
+import edu.pekko.sample.app.data.definition.CustomerDirectory;
+import edu.pekko.sample.app.data.definition.Transaction;
+import edu.pekko.sample.app.data.definition.TransactionBatch;
+import edu.pekko.sample.app.data.definition.TransactionOutcome;
+import edu.pekko.sample.app.data.definition.TransactionOutcomes;
+import edu.pekko.sample.app.data.definition.TransactionType;
+import edu.pekko.sample.app.data.ledger.CustomerLedger;
+import edu.pekko.sample.app.data.ledger.TransactionAggregates;
+import edu.pekko.sample.app.data.ledger.TimeWindows;
+import edu.pekko.sample.app.data.ledger.TransactionIdSet;
+import edu.pekko.sample.app.data.ledger.WindowSettings;
+import edu.pekko.sample.app.data.ledger.WindowStatistics;
+import java.io.NotSerializableException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.typed.javadsl.Adapter;
+import org.apache.pekko.serialization.Serialization;
+import org.apache.pekko.serialization.SerializationExtension;
+import org.apache.pekko.serialization.Serializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link ProtocolSerializer}.
+ */
+public class TestProtocolSerializer {
+
+  private static final CustomerDirectory DIRECTORY = CustomerDirectory.getInstance();
+
+  private static final int CUSTOMER_1 = DIRECTORY.intern(UUID.randomUUID().toString());
+  private static final int CUSTOMER_2 = DIRECTORY.intern(UUID.randomUUID().toString());
+
+  private static final long FIRST_EVENT_TIME = 1_700_000_000_000L;
+
+  private static ActorTestKit testKit;
+
+  private static Serialization serialization;
+
+  @BeforeAll
+  public static void setUp() {
+
+    testKit = ActorTestKit.create(ConfigFactory.load());
+    serialization = SerializationExtension.get(Adapter.toClassic(testKit.system()));
+  }
+
+  @AfterAll
+  public static void tearDown() {
+
+    testKit.shutdownTestKit();
+  }
+
+  /**
+   * GIVEN every message, event and snapshot of the application WHEN it is serialized and
+   * deserialized with the serializer bound to it THEN the serializer is the
+   * {@link ProtocolSerializer} AND the result is equal to the original, with the same customers
+   * and actor references
+   */
+  @Test
+  public void testEveryMessageRoundTrips() throws NotSerializableException {
+
+    TestProbe<TransactionsActor.Event> events = testKit.createTestProbe();
+    TestProbe<CustomerActor.Balance> balances = testKit.createTestProbe();
+    TestProbe<CustomerActor.CustomerAggregates> aggregates = testKit.createTestProbe();
+    TestProbe<TransactionsActor.AllCustomerAggregates> allAggregates = testKit.createTestProbe();
+    TestProbe<CustomerActor.CustomerWindows> windows = testKit.createTestProbe();
+
+    Transaction transaction = new Transaction(7, CUSTOMER_1, 12_345, TransactionType.PAY,
+        FIRST_EVENT_TIME);
+    TransactionBatch batch = createBatch(100);
+    // event times too far apart for differences in an int, and one unknown
+    TransactionBatch farApart = TransactionBatch.of(List.of(transaction,
+        new Transaction(8, CUSTOMER_2, 1, TransactionType.RECEIPT, Long.MAX_VALUE),
+        new Transaction(9, CUSTOMER_2, 2, TransactionType.REIMBURSE)));
+    TransactionIdSet appliedIds = new TransactionIdSet();
+
+    IntStream.range(0, 10_000).forEach(id -> appliedIds.add(2 * id));
+
+    TransactionAggregates aggregatesOfCustomer1 = new TransactionAggregates();
+    TransactionAggregates aggregatesOfCustomer2 = new TransactionAggregates();
+
+    aggregatesOfCustomer1.add(TransactionType.PAY, 12_345);
+    aggregatesOfCustomer2.add(TransactionType.RECEIPT, Long.MAX_VALUE);
+    aggregatesOfCustomer2.add(TransactionType.REIMBURSE, 1);
+
+    TransactionAggregates total = aggregatesOfCustomer1.copy();
+
+    total.addAll(aggregatesOfCustomer2);
+
+    TimeWindows timeWindows = new TimeWindows(new WindowSettings(Duration.ofSeconds(10),
+        Duration.ofMinutes(1), Duration.ofSeconds(30), WindowSettings.LateEvents.CURRENT_BUCKET));
+
+    timeWindows.add(FIRST_EVENT_TIME, TransactionType.PAY, 100);
+    timeWindows.add(FIRST_EVENT_TIME + 95_000, TransactionType.RECEIPT, 200);
+    timeWindows.add(FIRST_EVENT_TIME, TransactionType.PAY, 300);
+
+    List<Object> messages = List.of(
+        transaction,
+        batch,
+        farApart,
+        TransactionBatch.empty(),
+        batch.splitByCustomer().get(1),
+        new CustomerActor.ProcessTransaction(1, transaction, events.ref()),
+        new CustomerActor.ProcessTransactions(2, batch, events.ref()),
+        new CustomerActor.Stop(),
+        new CustomerActor.GetBalance(balances.ref()),
+        new CustomerActor.Balance(CUSTOMER_2, -500, 3),
+        new CustomerActor.TransactionApplied(transaction),
+        new CustomerActor.TransactionsApplied(batch),
+        new CustomerActor.GetAggregates(aggregates.ref()),
+        new CustomerActor.CustomerAggregates(CUSTOMER_1, aggregatesOfCustomer1),
+        new CustomerActor.GetWindows(windows.ref()),
+        new CustomerActor.CustomerWindows(CUSTOMER_1, timeWindows.watermarkMillis(),
+            timeWindows.lateEvents(), timeWindows.sliding(), timeWindows.tumbling(),
+            timeWindows.previousTumbling()),
+        new CustomerLedger.Snapshot(Long.MIN_VALUE, Long.MAX_VALUE, appliedIds,
+            aggregatesOfCustomer2, timeWindows),
+        new CustomerLedger.Snapshot(0, 0, new TransactionIdSet(), new TransactionAggregates(),
+            new TimeWindows(WindowSettings.DEFAULTS)),
+        new TransactionsActor.TransactionsToProcess(3, batch, events.ref()),
+        new TransactionsActor.TransactionProcessed(4, CUSTOMER_1, TransactionOutcome.REJECTED),
+        new TransactionsActor.TransactionsProcessed(5, CUSTOMER_2, TransactionOutcomes.of(
+            TransactionOutcome.APPLIED, TransactionOutcome.DUPLICATE, TransactionOutcome.REJECTED)),
+        new TransactionsActor.TransactionsProcessed(6, CUSTOMER_1, TransactionOutcomes.of()),
+        new TransactionsActor.AllTransactionsProcessed(7),
+        new TransactionsActor.ResultsNotWritten(7),
+        new TransactionsActor.TransactionsRejected(8),
+        new TransactionsActor.TransactionsNotProcessed(7),
+        new TransactionsActor.GetCustomerBalance(CUSTOMER_1, balances.ref()),
+        new TransactionsActor.GetCustomerAggregates(CUSTOMER_2, aggregates.ref()),
+        new TransactionsActor.GetAllCustomerAggregates(allAggregates.ref()),
+        new TransactionsActor.AllCustomerAggregates(total, List.of(
+            new CustomerActor.CustomerAggregates(CUSTOMER_1, aggregatesOfCustomer1),
+            new CustomerActor.CustomerAggregates(CUSTOMER_2, aggregatesOfCustomer2)), 3),
+        new TransactionsActor.AllCustomerAggregates(new TransactionAggregates(), List.of(), 0),
+        new TransactionsActor.GetCustomerWindows(CUSTOMER_2, windows.ref()),
+        new CustomerActor.ProcessHotTransactions(9, batch.splitByCustomer().get(1),
+            aggregatesOfCustomer2, events.ref()),
+        new CustomerActor.TransactionsAppliedWithAggregates(batch.splitByCustomer().get(0),
+            aggregatesOfCustomer1),
+        new CustomerActor.TransactionsAppliedWithAggregates(TransactionBatch.empty(),
+            new TransactionAggregates()));
+
+    for (Object message : messages) {
+
+      Serializer serializer = serialization.findSerializerFor(message);
+
+      assertInstanceOf(ProtocolSerializer.class, serializer, message.getClass().getName());
+
+      ProtocolSerializer protocolSerializer = (ProtocolSerializer) serializer;
+      String manifest = protocolSerializer.manifest(message);
+
+      assertEquals(message, protocolSerializer.fromBinary(protocolSerializer.toBinary(message),
+          manifest));
+    }
+  }
+
+  /**
+   * GIVEN message WHEN it is written into a big-endian {@link ByteBuffer} THEN it has the same
+   * bytes as when it is serialized into an array AND it is read back from the buffer AND the order
+   * of the buffer is unchanged
+   */
+  @Test
+  public void testByteBufferEncoding() throws NotSerializableException {
+
+    ProtocolSerializer serializer = protocolSerializer();
+    TestProbe<TransactionsActor.Event> events = testKit.createTestProbe();
+
+    Object message = new TransactionsActor.TransactionsToProcess(9, createBatch(1000),
+        events.ref());
+
+    ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+    serializer.toBinary(message, buffer);
+    buffer.flip();
+
+    byte[] bytes = serializer.toBinary(message);
+
+    assertEquals(bytes.length, buffer.remaining());
+    assertEquals(ByteBuffer.wrap(bytes), buffer.duplicate());
+    assertEquals(message, serializer.fromBinary(buffer, serializer.manifest(message)));
+    assertEquals(ByteOrder.BIG_ENDIAN, buffer.order());
+  }
+
+  /**
+   * GIVEN batch of transactions of a single customer WHEN it is serialized THEN the UUID of the
+   * customer is only written once AND its event times take an int each once they are known
+   */
+  @Test
+  public void testBatchOfOneCustomerIsCompact() {
+
+    ProtocolSerializer serializer = protocolSerializer();
+
+    TransactionBatch.Builder builder = new TransactionBatch.Builder(1000);
+
+    IntStream.range(0, 1000).forEach(i -> builder.add(i, CUSTOMER_1, i, TransactionType.RECEIPT));
+
+    TransactionBatch batch = builder.build();
+
+    // size, number of customers, one UUID, then id, amount and type of each row, with no index,
+    // and the encoding of the event times, all unknown
+    assertEquals(4 + 4 + 16 + 1000 * 13 + 1, serializer.toBinary(batch).length);
+
+    TransactionBatch.Builder withEventTimes = new TransactionBatch.Builder(1000);
+
+    IntStream.range(0, 1000).forEach(i -> withEventTimes.add(i, CUSTOMER_1, i,
+        TransactionType.RECEIPT, FIRST_EVENT_TIME + 1000L * i));
+
+    // the first event time, and the difference of each one to it
+    assertEquals(4 + 4 + 16 + 1000 * 13 + 1 + 8 + 1000 * 4,
+        serializer.toBinary(withEventTimes.build()).length);
+  }
+
+  /**
+   * GIVEN batches with more and more customers, so that the index of the customer of each
+   * transaction takes from no byte up to four WHEN they are serialized THEN they are read back
+   * with every transaction of the right customer
+   */
+  @Test
+  public void testCustomerIndexSizes() throws NotSerializableException {
+
+    ProtocolSerializer serializer = protocolSerializer();
+
+    for (int numberOfCustomers : new int[] {1, 256, 257, 65_536, 65_537}) {
+
+      TransactionBatch.Builder builder = new TransactionBatch.Builder(numberOfCustomers + 1);
+
+      IntStream.rangeClosed(0, numberOfCustomers).forEach(i -> builder.add(i,
+          DIRECTORY.intern(numberOfCustomers, i % numberOfCustomers), i, TransactionType.PAY));
+
+      TransactionBatch batch = builder.build();
+
+      assertEquals(batch, serializer.fromBinary(serializer.toBinary(batch),
+          serializer.manifest(batch)));
+    }
+  }
+
+  /**
+   * GIVEN view of a batch, with the transactions of one customer WHEN it is serialized and
+   * deserialized THEN it has the same transactions AND only they were written
+   */
+  @Test
+  public void testViewIsSerializedWithItsTransactionsOnly() throws NotSerializableException {
+
+    ProtocolSerializer serializer = protocolSerializer();
+    TransactionBatch batch = createBatch(1000);
+    TransactionBatch view = batch.splitByCustomer().get(0);
+
+    byte[] serializedView = serializer.toBinary(view);
+
+    assertEquals(view, serializer.fromBinary(serializedView, serializer.manifest(view)));
+    assertEquals(serializer.toBinary(TransactionBatch.of(view.toList())).length,
+        serializedView.length);
+    assertTrue(serializedView.length < serializer.toBinary(batch).length);
+  }
+
+  /**
+   * GIVEN manifest of an unknown type or version WHEN bytes are deserialized with it THEN a
+   * {@link NotSerializableException} is thrown
+   */
+  @Test
+  public void testUnknownManifest() {
+
+    ProtocolSerializer serializer = protocolSerializer();
+
+    assertThrows(NotSerializableException.class,
+        () -> serializer.fromBinary(new byte[0], "transaction-v999"));
+  }
+
+  private static ProtocolSerializer protocolSerializer() {
+
+    return (ProtocolSerializer) serialization.findSerializerFor(
+        new Transaction(0, CUSTOMER_1, 0, TransactionType.RECEIPT));
+  }
+
+  /**
+   * @return Batch with transactions of both customers, mixed
+   */
+  private static TransactionBatch createBatch(int size) {
+
+    TransactionBatch.Builder builder = new TransactionBatch.Builder(size);
+
+    for (int i = 0; i < size; i++) {
+
+      builder.add(i, i % 7 < 4 ? CUSTOMER_1 : CUSTOMER_2, 100L * i,
+          TransactionType.values()[i % TransactionType.values().length],
+          FIRST_EVENT_TIME + 1000L * (i % 13));
+    }
+
+    return builder.build();
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.utils.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link AsyncLogger} and {@link ConsoleSink}.
+ */
+public class TestAsyncLogger {
+
+  /**
+   * GIVEN a logger with level DEBUG WHEN logging messages of every level THEN only the enabled
+   * ones are written, with their placeholders replaced by the arguments, in order
+   */
+  @Test
+  public void testEnabledMessagesAreFormattedInOrder() {
+
+    RecordingSink sink = new RecordingSink();
+
+    try (AsyncLogger logger = new AsyncLogger(LogLevel.DEBUG, sink, 16)) {
+
+      assertFalse(logger.isEnabled(LogLevel.TRACE));
+      assertTrue(logger.isEnabled(LogLevel.DEBUG));
+
+      logger.log(LogLevel.TRACE, "not written {}", 1);
+      logger.log(LogLevel.DEBUG, "plain message");
+      logger.log(LogLevel.INFO, "{} of {}", 1, 2);
+      logger.log(LogLevel.WARN, "{}-{}-{}-{}", "a", "b", "c", "d");
+      logger.log(LogLevel.ERROR, "no placeholder", "ignored");
+      logger.log(LogLevel.OFF, "never written");
+
+      logger.flush();
+
+      assertEquals(List.of("DEBUG plain message", "INFO 1 of 2", "WARN a-b-c-d",
+          "ERROR no placeholder"), sink.messages);
+    }
+  }
+
+  /**
+   * GIVEN a logger whose sink is slower than the producers WHEN the buffer is full THEN messages
+   * are dropped instead of blocking, and the number of dropped messages is reported
+   */
+  @Test
+  public void testDroppedMessagesAreReported() throws InterruptedException {
+
+    RecordingSink sink = new RecordingSink();
+
+    try (AsyncLogger logger = new AsyncLogger(LogLevel.INFO, sink, 4)) {
+
+      // the sink is blocked until all messages were logged
+      synchronized (sink) {
+
+        for (int i = 0; i < 1000; i++) {
+
+          logger.log(LogLevel.INFO, "message {}", i);
+        }
+      }
+
+      logger.flush();
+
+      assertTrue(logger.dropped() > 0);
+      assertTrue(sink.messages.stream().anyMatch(message -> message.startsWith(
+          "WARN " + logger.dropped() + " log messages were dropped")));
+    }
+  }
+
+  /**
+   * GIVEN console sinks with and without colours WHEN writing a message that contains colour
+   * codes THEN the coloured one adds the colour of the level and the other one removes all codes
+   */
+  @Test
+  public void testConsoleSinkColours() {
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    PrintStream console = new PrintStream(output, true, StandardCharsets.UTF_8);
+
+    String message = "Processing done for \033[0;32mcustomer";
+
+    ConsoleSink plain = new ConsoleSink(false, () -> console);
+    plain.write(LogLevel.TRACE, message);
+    plain.flush();
+
+    assertEquals("Processing done for customer" + System.lineSeparator(),
+        output.toString(StandardCharsets.UTF_8));
+
+    output.reset();
+
+    ConsoleSink coloured = new ConsoleSink(true, () -> console);
+    coloured.write(LogLevel.WARN, message);
+    coloured.flush();
+
+    assertEquals("\033[0;31m" + message + "\033[0m" + System.lineSeparator(),
+        output.toString(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * {@link LogSink} that keeps the written messages, prefixed with their level.
+   */
+  private static class RecordingSink implements LogSink {
+
+    private final List<String> messages = new ArrayList<>();
+
+    @Override
+    public synchronized void write(LogLevel level, CharSequence message) {
+
+      messages.add(level + " " + message);
+    }
+
+    @Override
+    public void flush() {
+
+      // nothing to add here: messages are kept in memory
+    }
+  }
+}
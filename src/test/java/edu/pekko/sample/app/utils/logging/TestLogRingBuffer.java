@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Cristiano Silva
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package edu.pekko.sample.app.utils.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link LogRingBuffer}.
+ */
+public class TestLogRingBuffer {
+
+  /**
+   * GIVEN a ring buffer WHEN several threads store messages concurrently while they are drained
+   * THEN every message is read exactly once and, per thread, in the order it was stored
+   */
+  @Test
+  public void testConcurrentProducersLoseNothing() throws InterruptedException {
+
+    int producers = 8;
+    int messagesPerProducer = 100_000;
+
+    LogRingBuffer buffer = new LogRingBuffer(1024);
+
+    List<Thread> threads = new ArrayList<>();
+
+    for (int p = 0; p < producers; p++) {
+
+      Integer producer = p;
+
+      threads.add(Thread.ofPlatform().start(() -> {
+
+        for (int i = 0; i < messagesPerProducer; i++) {
+
+          Integer message = i;
+
+          // retrying when the buffer is full, so that nothing is dropped in this test
+          while (!buffer.offer(LogLevel.INFO, "{} {}", 2, producer, message, null, null)) {
+
+            Thread.yield();
+          }
+        }
+      }));
+    }
+
+    int[] nextExpected = new int[producers];
+    long read = 0;
+
+    while (read < (long) producers * messagesPerProducer) {
+
+      read += buffer.drain(entry -> {
+
+        int producer = (Integer) entry.argument1;
+
+        assertEquals(nextExpected[producer], entry.argument2);
+        nextExpected[producer]++;
+      });
+
+      Thread.yield();
+    }
+
+    for (Thread thread : threads) {
+
+      thread.join();
+    }
+
+    for (int p = 0; p < producers; p++) {
+
+      assertEquals(messagesPerProducer, nextExpected[p]);
+    }
+
+    assertEquals(read, buffer.consumed());
+  }
+
+  /**
+   * GIVEN a full ring buffer WHEN storing another message THEN it is dropped and counted, and it
+   * can be stored again as soon as the buffer was drained
+   */
+  @Test
+  public void testFullBufferDropsMessages() {
+
+    LogRingBuffer buffer = new LogRingBuffer(3);
+
+    assertEquals(4, buffer.capacity());
+
+    for (int i = 0; i < buffer.capacity(); i++) {
+
+      assertTrue(buffer.offer(LogLevel.INFO, "message", 0, null, null, null, null));
+    }
+
+    assertFalse(buffer.offer(LogLevel.INFO, "dropped", 0, null, null, null, null));
+    assertEquals(1, buffer.dropped());
+
+    List<String> templates = new ArrayList<>();
+
+    assertEquals(4, buffer.drain(entry -> templates.add(entry.template)));
+    assertEquals(List.of("message", "message", "message", "message"), templates);
+
+    assertTrue(buffer.offer(LogLevel.INFO, "stored", 0, null, null, null, null));
+    assertEquals(1, buffer.dropped());
+  }
+}